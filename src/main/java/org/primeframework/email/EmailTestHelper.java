@@ -15,8 +15,9 @@
  */
 package org.primeframework.email;
 
-import java.util.LinkedList;
+import java.time.Instant;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -37,11 +38,11 @@ import org.primeframework.email.service.MessagingExceptionHandler;
  * @author Brian Pontarelli
  */
 public class EmailTestHelper {
-  private static Queue<Email> emailResult = new LinkedList<>();
+  private static Queue<Email> emailResult = new ConcurrentLinkedQueue<>();
 
   private static Future<SendResult> future = new MockFuture(false);
 
-  private static Queue<SendResult> results = new LinkedList<>();
+  private static Queue<SendResult> results = new ConcurrentLinkedQueue<>();
 
   private static EmailTransportService service;
 
@@ -106,6 +107,11 @@ public class EmailTestHelper {
         }
       }
 
+      @Override
+      public void sendEmailAt(Object contextId, Email email, SendResult sendResult, Instant instant) {
+        sendEmailLater(contextId, email, sendResult);
+      }
+
       public void sendEmailLater(Object contextId, Email email, SendResult sendResult) {
         results.offer(sendResult);
         if (sendResult.wasSuccessful()) {
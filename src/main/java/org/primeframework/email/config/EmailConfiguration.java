@@ -15,6 +15,8 @@
  */
 package org.primeframework.email.config;
 
+import java.util.Set;
+
 /**
  * Configuration for the email system.
  *
@@ -25,4 +27,72 @@ public interface EmailConfiguration {
    * @return The location of the email templates
    */
   String templateLocation();
+
+  /**
+   * @return True if the HTML, subject and text templates of an email should be rendered concurrently rather than one
+   *     after another on the calling thread. Defaults to false.
+   */
+  default boolean parallelRendering() {
+    return false;
+  }
+
+  /**
+   * @return True if the JavaMail transport should name the JavaMail StreamProvider in the
+   *     <code>jakarta.mail.util.StreamProvider</code> system property, which saves a ServiceLoader lookup for every MIME
+   *     message it builds. The property affects every use of JavaMail in the JVM. Defaults to false. See {@link
+   *     org.primeframework.email.service.JavaMailEmailTransportService#pinStreamProvider()}.
+   */
+  default boolean pinStreamProvider() {
+    return false;
+  }
+
+  /**
+   * @return The maximum number of rendered template parts that are cached and reused for emails whose parameters are
+   *     the same as far as the template is concerned. Defaults to 0, which disables the cache.
+   */
+  default long renderCacheSize() {
+    return 0;
+  }
+
+  /**
+   * @return The classes of the objects that are passed as template parameters. The template loader has the ObjectWrapper
+   *     of its FreeMarker Configuration introspect these classes when it is constructed, rather than when the first email
+   *     that uses them is rendered. Defaults to none.
+   */
+  default Set<Class<?>> templateParameterClasses() {
+    return Set.of();
+  }
+
+  /**
+   * @return The maximum number of characters a single template part can output. A render that exceeds it is aborted
+   *     and reported as a render error. Defaults to 0, which means there is no limit.
+   */
+  default long renderOutputLimit() {
+    return 0;
+  }
+
+  /**
+   * @return The maximum number of milliseconds a single template part can take to render. The time is checked each
+   *     time the template outputs text or reads a parameter, and a render that exceeds it is aborted and reported as a
+   *     render error. Defaults to 0, which means there is no limit.
+   */
+  default long renderTimeLimit() {
+    return 0;
+  }
+
+  /**
+   * @return The number of times an email that is sent later or at a specific time is sent again after an attempt fails
+   *     with an error that might not happen again, such as a 4xx SMTP response or a network error. Defaults to 0.
+   */
+  default int sendRetries() {
+    return 0;
+  }
+
+  /**
+   * @return The number of milliseconds before the first retry of a failed send. Each following retry waits twice as
+   *     long as the one before it. Defaults to 1,000.
+   */
+  default long sendRetryDelay() {
+    return 1_000;
+  }
 }
@@ -15,7 +15,7 @@
  */
 package org.primeframework.email.domain;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import freemarker.core.ParseException;
@@ -27,9 +27,10 @@ import freemarker.template.TemplateException;
  * @author Brian Pontarelli
  */
 public abstract class BaseResult {
-  public final Map<String, ParseException> parseErrors = new HashMap<>();
+  // The errors keep the order in which the parts were parsed and rendered
+  public final Map<String, ParseException> parseErrors = new LinkedHashMap<>();
 
-  public final Map<String, TemplateException> renderErrors = new HashMap<>();
+  public final Map<String, TemplateException> renderErrors = new LinkedHashMap<>();
 
   // Optional object that is a reference to the actual template loaded by the Template Loader
   public Object template;
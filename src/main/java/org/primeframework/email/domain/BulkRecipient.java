@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.domain;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single recipient of a bulk send. The email is rendered with these parameters in front of the parameters that are
+ * shared by every recipient.
+ *
+ * @author Brian Pontarelli
+ */
+public class BulkRecipient {
+  public Map<String, Object> parameters = new HashMap<>();
+
+  public List<EmailAddress> to = new ArrayList<>();
+
+  public BulkRecipient() {
+  }
+
+  public BulkRecipient(EmailAddress to, Map<String, Object> parameters) {
+    this.to.add(to);
+    this.parameters = parameters;
+  }
+}
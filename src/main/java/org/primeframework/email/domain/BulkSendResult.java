@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.domain;
+
+/**
+ * Stores the result of a bulk send. The results of the individual emails are passed to the result consumer of the bulk
+ * send as they complete, this only holds the errors of the templates and the totals.
+ *
+ * @author Brian Pontarelli
+ */
+public class BulkSendResult extends BaseResult {
+  public long failed;
+
+  public long sent;
+
+  public boolean wasSuccessful() {
+    return super.wasSuccessful() && failed == 0;
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.domain;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A list that stores its first element in a field and only allocates an array once it holds a second element. Most
+ * emails have a single to address and none of the other lists, so this saves the array that an ArrayList allocates for
+ * its first element.
+ *
+ * @author Brian Pontarelli
+ */
+final class CompactList<E> extends AbstractList<E> implements RandomAccess {
+  // The element while the list holds at most one, otherwise the array of elements
+  private Object data;
+
+  private int size;
+
+  @Override
+  public void add(int index, E element) {
+    Objects.checkIndex(index, size + 1);
+    modCount++;
+    if (size == 0) {
+      data = element;
+      size = 1;
+      return;
+    }
+
+    Object[] elements;
+    if (size == 1) {
+      elements = new Object[4];
+      elements[0] = data;
+    } else {
+      elements = (Object[]) data;
+      if (size == elements.length) {
+        elements = Arrays.copyOf(elements, size + (size >> 1));
+      }
+    }
+
+    System.arraycopy(elements, index, elements, index + 1, size - index);
+    elements[index] = element;
+    data = elements;
+    size++;
+  }
+
+  @Override
+  public void clear() {
+    modCount++;
+    data = null;
+    size = 0;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E get(int index) {
+    Objects.checkIndex(index, size);
+    return (E) (size == 1 ? data : ((Object[]) data)[index]);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E remove(int index) {
+    Objects.checkIndex(index, size);
+    modCount++;
+    Object old;
+    if (size == 1) {
+      old = data;
+      data = null;
+    } else {
+      Object[] elements = (Object[]) data;
+      old = elements[index];
+      System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+      elements[size - 1] = null;
+
+      // Back to a single element, which is stored directly again
+      if (size == 2) {
+        data = elements[0];
+      }
+    }
+
+    size--;
+    return (E) old;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E set(int index, E element) {
+    Objects.checkIndex(index, size);
+    Object old;
+    if (size == 1) {
+      old = data;
+      data = element;
+    } else {
+      Object[] elements = (Object[]) data;
+      old = elements[index];
+      elements[index] = element;
+    }
+
+    return (E) old;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+}
@@ -15,35 +15,38 @@
  */
 package org.primeframework.email.domain;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
 /**
- * This class is an abstraction of a simple email message.
+ * This class is an abstraction of a simple email message. The lists are compact lists that don't allocate an array
+ * until they hold a second element, since most emails have a single to address and nothing else.
  *
  * @author Brian Pontarelli
  */
 public class Email {
-  public List<EmailHeader> additionalHeaders = new ArrayList<>();
+  public List<EmailHeader> additionalHeaders = new CompactList<>();
 
-  public List<Attachment> attachments = new ArrayList<>();
+  public List<Attachment> attachments = new CompactList<>();
 
-  public List<EmailAddress> bcc = new ArrayList<>();
+  public List<EmailAddress> bcc = new CompactList<>();
 
-  public List<EmailAddress> cc = new ArrayList<>();
+  public List<EmailAddress> cc = new CompactList<>();
 
   public EmailAddress from;
 
   public String html;
 
+  // Optional HTML body that is written directly into the MIME message when it is sent. Only used if html is null.
+  public StreamingContent htmlContent;
+
   public EmailAddress replyTo;
 
   public String subject;
 
   public String text;
 
-  public List<EmailAddress> to = new ArrayList<>();
+  public List<EmailAddress> to = new CompactList<>();
 
   @Override
   public boolean equals(Object o) {
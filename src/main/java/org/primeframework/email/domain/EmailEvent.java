@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.domain;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * An event in the sending of an email, which is passed to the email listeners.
+ *
+ * @author Brian Pontarelli
+ */
+public class EmailEvent {
+  // The attempt the event is for, starting at 1
+  public int attempt;
+
+  public Object contextId;
+
+  public Email email;
+
+  // The error of the attempt, for retried and failed events
+  public Exception exception;
+
+  // How long the SMTP transaction of the attempt took, for sent events
+  public Duration latency;
+
+  public SendResult sendResult;
+
+  // The last response of the SMTP server, for sent events (if the transport provides it)
+  public String smtpResponse;
+
+  public Instant timestamp;
+
+  public Type type;
+
+  public EmailEvent() {
+  }
+
+  public EmailEvent(Type type, Object contextId, SendResult sendResult, int attempt) {
+    this.type = type;
+    this.contextId = contextId;
+    this.sendResult = sendResult;
+    this.email = sendResult.email;
+    this.attempt = attempt;
+    this.timestamp = Instant.now();
+  }
+
+  public enum Type {
+    /**
+     * The email was accepted to be sent later.
+     */
+    QUEUED,
+
+    /**
+     * The email was sent.
+     */
+    SENT,
+
+    /**
+     * An attempt to send the email failed with an error that might not happen again, and it will be sent again.
+     */
+    RETRIED,
+
+    /**
+     * The email could not be sent.
+     */
+    FAILED
+  }
+}
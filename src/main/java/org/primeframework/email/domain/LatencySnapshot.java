@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.domain;
+
+import java.time.Duration;
+
+/**
+ * The latency percentiles of one stage of sending emails, for a single context and template.
+ *
+ * @author Brian Pontarelli
+ */
+public class LatencySnapshot {
+  public Object contextId;
+
+  public long count;
+
+  public Duration max;
+
+  public Duration mean;
+
+  public Duration p50;
+
+  public Duration p90;
+
+  public Duration p99;
+
+  public Duration p999;
+
+  public Stage stage;
+
+  public Object templateId;
+
+  public LatencySnapshot() {
+  }
+
+  public LatencySnapshot(Stage stage, Object contextId, Object templateId) {
+    this.stage = stage;
+    this.contextId = contextId;
+    this.templateId = templateId;
+  }
+
+  public enum Stage {
+    /**
+     * Loading (and parsing) the templates.
+     */
+    LOAD,
+
+    /**
+     * Rendering the templates, including the post processing of the rendered email.
+     */
+    RENDER,
+
+    /**
+     * Building the MIME message.
+     */
+    MIME_BUILD,
+
+    /**
+     * The time an email that is sent later waits for a thread to send it.
+     */
+    QUEUE_WAIT,
+
+    /**
+     * Sending the message to the SMTP server, including connecting when needed.
+     */
+    SEND
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.domain;
+
+/**
+ * An email whose message has been built by the transport and is ready to be sent over an open connection.
+ *
+ * @author Brian Pontarelli
+ */
+public class PreparedEmail {
+  public Email email;
+
+  // Optional message built by the transport, for example the MIME message
+  public Object message;
+
+  public SendResult sendResult;
+
+  public PreparedEmail() {
+  }
+
+  public PreparedEmail(Email email, SendResult sendResult, Object message) {
+    this.email = email;
+    this.sendResult = sendResult;
+    this.message = message;
+  }
+}
@@ -27,6 +27,8 @@ import freemarker.template.TemplateException;
  * @author Brian Pontarelli
  */
 public class SendResult extends BaseResult {
+  // The email that was sent. Transports that queue a frozen copy of the email (see SendEmailBuilder.later() and at())
+  // leave this null until the email is sent, and then set it to a new Email that is rebuilt from the copy
   public Email email;
 
   public Future<SendResult> future;
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.domain;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The SMTP commands of a single send, with how long each one took and the response code of the server. The commands
+ * that open the connection (the greeting, EHLO, STARTTLS and AUTH) are part of the trace of the first email that is sent
+ * over the connection.
+ *
+ * @author Brian Pontarelli
+ */
+public class SmtpTrace {
+  public int attempt;
+
+  public List<Command> commands = new ArrayList<>();
+
+  public Object contextId;
+
+  public Duration duration;
+
+  public String error;
+
+  public Object templateId;
+
+  public Instant timestamp;
+
+  public SmtpTrace() {
+  }
+
+  public SmtpTrace(Object contextId, Object templateId, int attempt) {
+    this.contextId = contextId;
+    this.templateId = templateId;
+    this.attempt = attempt;
+  }
+
+  @Override
+  public String toString() {
+    return "SmtpTrace{contextId=" + contextId + ", templateId=" + templateId + ", attempt=" + attempt + ", duration=" +
+        duration + ", error=" + error + ", commands=" + commands + "}";
+  }
+
+  /**
+   * A single SMTP command. The name is the verb of the command (for example {@code RCPT}), without its arguments. A few
+   * names are not commands:
+   * <ul>
+   *   <li>{@code CONNECT} - opening the socket and waiting for the greeting of the server</li>
+   *   <li>{@code TLS} - the TLS handshake after the {@code STARTTLS} command</li>
+   *   <li>{@code CONTENT} - writing the message after the {@code DATA} command</li>
+   *   <li>{@code END_OF_DATA} - waiting for the server to accept the message after it was written</li>
+   * </ul>
+   * The response code is -1 if there is no response (for example for {@code TLS}) or the server didn't respond.
+   */
+  public static class Command {
+    public Duration duration;
+
+    public String name;
+
+    public int responseCode;
+
+    public Command() {
+    }
+
+    public Command(String name, Duration duration, int responseCode) {
+      this.name = name;
+      this.duration = duration;
+      this.responseCode = responseCode;
+    }
+
+    @Override
+    public String toString() {
+      return name + " " + responseCode + " " + duration.toNanos() / 1_000 + "us";
+    }
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.domain;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import freemarker.template.TemplateException;
+
+/**
+ * A body of an email that is not held in memory, but is written out when the email is transmitted. This is used to
+ * render large HTML bodies directly into the MIME message rather than into an intermediate String.
+ *
+ * @author Brian Pontarelli
+ */
+@FunctionalInterface
+public interface StreamingContent {
+  /**
+   * Writes the content to the given writer. This might be called more than once if the message is written more than
+   * once.
+   *
+   * @param writer The writer.
+   * @throws IOException       If the writer throws.
+   * @throws TemplateException If the content is a template and it fails to render.
+   */
+  void writeTo(Writer writer) throws IOException, TemplateException;
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.domain;
+
+import java.util.Map;
+
+/**
+ * A set of templates and the parameters used to validate them, which is one of the inputs of a batch validation.
+ *
+ * @author Brian Pontarelli
+ */
+public class ValidateRequest {
+  public Map<String, Object> parameters;
+
+  public RawEmailTemplates rawEmailTemplates;
+
+  public ValidateRequest() {
+  }
+
+  public ValidateRequest(RawEmailTemplates rawEmailTemplates, Map<String, Object> parameters) {
+    this.rawEmailTemplates = rawEmailTemplates;
+    this.parameters = parameters;
+  }
+}
@@ -18,13 +18,20 @@ package org.primeframework.email.guice;
 import java.util.concurrent.ExecutorService;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
 import com.google.inject.Scopes;
+import com.google.inject.multibindings.Multibinder;
 import com.google.inject.name.Names;
 import org.primeframework.email.config.DefaultEmailConfiguration;
 import org.primeframework.email.config.EmailConfiguration;
 import org.primeframework.email.service.DefaultEmailService;
 import org.primeframework.email.service.DefaultMessagingExceptionHandler;
+import org.primeframework.email.service.EmailEventDispatcher;
+import org.primeframework.email.service.EmailExecutorMetrics;
 import org.primeframework.email.service.EmailExecutorServiceProvider;
+import org.primeframework.email.service.EmailLatencyRecorder;
+import org.primeframework.email.service.EmailListener;
+import org.primeframework.email.service.EmailPostProcessor;
 import org.primeframework.email.service.EmailRenderer;
 import org.primeframework.email.service.EmailService;
 import org.primeframework.email.service.EmailTemplateLoader;
@@ -32,6 +39,7 @@ import org.primeframework.email.service.EmailTransportService;
 import org.primeframework.email.service.FreeMarkerEmailRenderer;
 import org.primeframework.email.service.JavaMailEmailTransportService;
 import org.primeframework.email.service.MessagingExceptionHandler;
+import org.primeframework.email.service.SmtpTraceRecorder;
 
 /**
  * Binds all the services and configuration objects for emailing.
@@ -39,6 +47,48 @@ import org.primeframework.email.service.MessagingExceptionHandler;
  * @author Brian Pontarelli
  */
 public abstract class EmailModule extends AbstractModule {
+  /**
+   * Override this method to register {@link EmailListener}s. Call this method and then add the listeners to the set
+   * binder, for example {@code Multibinder.newSetBinder(binder(), EmailListener.class).addBinding().to(MyListener.class)}.
+   * By default there are no listeners, and the transport doesn't create any events.
+   */
+  protected void bindEmailListeners() {
+    Multibinder.newSetBinder(binder(), EmailListener.class);
+  }
+
+  /**
+   * Implement this method to pass the measurements of the email executor (queue depth, queued bytes, wait and run
+   * times, rejections) to a metrics library by binding an {@link EmailExecutorMetrics} implementation. The executor is
+   * also registered with JMX. By default the measurements are only available through JMX.
+   */
+  protected void bindEmailExecutorMetrics() {
+    bind(EmailExecutorMetrics.class).toInstance(EmailExecutorMetrics.NONE);
+  }
+
+  /**
+   * Implement this method to record the latencies of the stages of sending emails, for example by binding a new {@link
+   * EmailLatencyRecorder} instance. By default the latencies are not recorded.
+   */
+  protected void bindEmailLatencyRecorder() {
+    bind(EmailLatencyRecorder.class).toInstance(EmailLatencyRecorder.NONE);
+  }
+
+  /**
+   * Implement this method to bind the {@link EmailPostProcessor} interface, for example to the
+   * {@link org.primeframework.email.service.HtmlEmailPostProcessor}. By default emails are not post processed.
+   */
+  protected void bindEmailPostProcessor() {
+    bind(EmailPostProcessor.class).toInstance(EmailPostProcessor.NONE);
+  }
+
+  /**
+   * Implement this method to bind the {@link EmailRenderer} interface, for example to the
+   * {@link org.primeframework.email.service.CompiledEmailRenderer}.
+   */
+  protected void bindEmailRenderer() {
+    bind(EmailRenderer.class).to(FreeMarkerEmailRenderer.class);
+  }
+
   /**
    * Implement this method to bind the {@link org.primeframework.email.service.MessagingExceptionHandler} interface.
    */
@@ -46,6 +96,23 @@ public abstract class EmailModule extends AbstractModule {
     bind(MessagingExceptionHandler.class).to(DefaultMessagingExceptionHandler.class);
   }
 
+  /**
+   * Implement this method to time the SMTP commands of each send and keep the slow sends, for example by binding a new
+   * {@link SmtpTraceRecorder} instance with a threshold. By default the SMTP commands are not timed.
+   */
+  protected void bindSmtpTraceRecorder() {
+    bind(SmtpTraceRecorder.class).toInstance(SmtpTraceRecorder.NONE);
+  }
+
+  /**
+   * Closes the {@link JavaMailEmailTransportService} when the JVM shuts down, so that the emails that are scheduled or
+   * wait to be retried are finished with a transport error. Override this method to do nothing if the application
+   * closes the transport service itself.
+   */
+  protected void bindTransportShutdownHook() {
+    bind(TransportShutdownHook.class).asEagerSingleton();
+  }
+
   /**
    * Implement this method to bind a JavaMail Session Provider (or the session directly if you want).
    */
@@ -60,14 +127,32 @@ public abstract class EmailModule extends AbstractModule {
   protected void configure() {
     bind(EmailConfiguration.class).to(DefaultEmailConfiguration.class);
     bind(EmailService.class).to(DefaultEmailService.class);
-    bind(EmailRenderer.class).to(FreeMarkerEmailRenderer.class);
     bind(EmailTransportService.class).to(JavaMailEmailTransportService.class);
+    bind(JavaMailEmailTransportService.class).in(Scopes.SINGLETON);
+    bind(EmailEventDispatcher.class).in(Scopes.SINGLETON);
 
     // Bind a singleton provider
     bind(ExecutorService.class).annotatedWith(Names.named("EmailExecutorService")).toProvider(EmailExecutorServiceProvider.class).in(Scopes.SINGLETON);
 
+    bindEmailExecutorMetrics();
+    bindEmailLatencyRecorder();
+    bindEmailListeners();
+    bindEmailPostProcessor();
+    bindEmailRenderer();
     bindSessionProvider();
+    bindSmtpTraceRecorder();
     bindTemplateLoader();
     bindMessagingExceptionHandler();
+    bindTransportShutdownHook();
+  }
+
+  /**
+   * Registers a JVM shutdown hook that closes the transport service.
+   */
+  static class TransportShutdownHook {
+    @Inject
+    TransportShutdownHook(JavaMailEmailTransportService transportService) {
+      Runtime.getRuntime().addShutdownHook(Thread.ofPlatform().name("prime-email-transport-shutdown").unstarted(transportService::close));
+    }
   }
 }
@@ -41,6 +41,8 @@ public abstract class BaseEmailBuilder<T extends BaseEmailBuilder<T, U>, U exten
 
   protected final Map<String, Object> params = new HashMap<>();
 
+  protected SharedTemplateParameters sharedParams;
+
   protected final Object templateId;
 
   /**
@@ -124,7 +126,15 @@ public abstract class BaseEmailBuilder<T extends BaseEmailBuilder<T, U>, U exten
     return email.additionalHeaders;
   }
 
+  /**
+   * @return The template parameters of this email. If shared template parameters were set, this is a view of both,
+   *     where the parameters of this email take precedence.
+   */
   public Map<String, Object> getParameters() {
+    if (sharedParams != null) {
+      return new LayeredParameters(params, sharedParams);
+    }
+
     return params;
   }
 
@@ -141,7 +151,7 @@ public abstract class BaseEmailBuilder<T extends BaseEmailBuilder<T, U>, U exten
   }
 
   public Map<String, Object> getTemplateParams() {
-    return params;
+    return getParameters();
   }
 
   public List<EmailAddress> getTo() {
@@ -202,6 +212,18 @@ public abstract class BaseEmailBuilder<T extends BaseEmailBuilder<T, U>, U exten
     return (T) this;
   }
 
+  /**
+   * Sets template parameters that are shared with other emails. These aren't copied into this email, the parameters of
+   * this email are layered in front of them instead.
+   *
+   * @param sharedParams The shared parameters.
+   * @return This.
+   */
+  public T withSharedTemplateParameters(SharedTemplateParameters sharedParams) {
+    this.sharedParams = sharedParams;
+    return (T) this;
+  }
+
   public T withSubject(String subject) {
     email.subject = subject;
     return (T) this;
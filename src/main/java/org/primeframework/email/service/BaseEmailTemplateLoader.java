@@ -15,20 +15,35 @@
  */
 package org.primeframework.email.service;
 
+import com.google.inject.Inject;
 import freemarker.core.ParseException;
+import freemarker.ext.beans.BeansWrapper;
+import freemarker.template.AdapterTemplateModel;
 import freemarker.template.Configuration;
+import freemarker.template.ObjectWrapper;
 import freemarker.template.Template;
+import freemarker.template.TemplateModelException;
+import org.primeframework.email.config.EmailConfiguration;
 import org.primeframework.email.domain.BaseResult;
 import org.primeframework.email.domain.ParsedEmailAddress;
 import org.primeframework.email.domain.ParsedEmailTemplates;
 import org.primeframework.email.domain.RawEmailTemplates;
+import org.primeframework.email.service.EmailJfrEvents.TemplateParseEvent;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * @author Brian Pontarelli
  */
 public abstract class BaseEmailTemplateLoader implements EmailTemplateLoader {
+  /**
+   * The custom attribute of parsed templates that holds their raw source. FreeMarker only keeps a normalized copy of the
+   * source, so this is used by the {@link MailMerge} to parse the exact same template again.
+   */
+  public static final String SOURCE_ATTRIBUTE = "primeEmailSource";
+
   protected final Configuration freeMarkerConfiguration;
 
   protected BaseEmailTemplateLoader(Configuration freeMarkerConfiguration) {
@@ -37,27 +52,69 @@ public abstract class BaseEmailTemplateLoader implements EmailTemplateLoader {
 
   @Override
   public ParsedEmailTemplates parse(RawEmailTemplates rawEmailTemplates, BaseResult baseResult) {
+    return parse(rawEmailTemplates, baseResult, null);
+  }
+
+  @Override
+  public ParsedEmailTemplates parse(RawEmailTemplates rawEmailTemplates, BaseResult baseResult,
+                                    TemplateParseCache templateParseCache) {
+    TemplateParseCache.Parser parser = templateParseCache == null ? this::parseTemplate :
+        (template, part, result) -> template == null ? null : templateParseCache.parse(template, part, result, this::parseTemplate);
     ParsedEmailTemplates parsedEmailTemplates = new ParsedEmailTemplates();
 
     if (rawEmailTemplates.fromDisplay != null) {
       parsedEmailTemplates.from = new ParsedEmailAddress();
-      parsedEmailTemplates.from.display = parseTemplate(rawEmailTemplates.fromDisplay, "from", baseResult);
+      parsedEmailTemplates.from.display = parser.parse(rawEmailTemplates.fromDisplay, "from", baseResult);
     }
     if (rawEmailTemplates.replyToDisplay != null) {
       parsedEmailTemplates.replyTo = new ParsedEmailAddress();
-      parsedEmailTemplates.replyTo.display = parseTemplate(rawEmailTemplates.replyToDisplay, "replyTo", baseResult);
+      parsedEmailTemplates.replyTo.display = parser.parse(rawEmailTemplates.replyToDisplay, "replyTo", baseResult);
     }
 
-    rawEmailTemplates.bccDisplays.forEach((bccDisplay) -> parsedEmailTemplates.bcc.add(new ParsedEmailAddress(null, parseTemplate(bccDisplay, "bcc", baseResult))));
-    rawEmailTemplates.ccDisplays.forEach((ccDisplay) -> parsedEmailTemplates.cc.add(new ParsedEmailAddress(null, parseTemplate(ccDisplay, "cc", baseResult))));
-    rawEmailTemplates.toDisplays.forEach((toDisplay) -> parsedEmailTemplates.to.add(new ParsedEmailAddress(null, parseTemplate(toDisplay, "to", baseResult))));
-    parsedEmailTemplates.html = parseTemplate(rawEmailTemplates.html, "html", baseResult);
-    parsedEmailTemplates.subject = parseTemplate(rawEmailTemplates.subject, "subject", baseResult);
-    parsedEmailTemplates.text = parseTemplate(rawEmailTemplates.text, "text", baseResult);
+    rawEmailTemplates.bccDisplays.forEach((bccDisplay) -> parsedEmailTemplates.bcc.add(new ParsedEmailAddress(null, parser.parse(bccDisplay, "bcc", baseResult))));
+    rawEmailTemplates.ccDisplays.forEach((ccDisplay) -> parsedEmailTemplates.cc.add(new ParsedEmailAddress(null, parser.parse(ccDisplay, "cc", baseResult))));
+    rawEmailTemplates.toDisplays.forEach((toDisplay) -> parsedEmailTemplates.to.add(new ParsedEmailAddress(null, parser.parse(toDisplay, "to", baseResult))));
+    parsedEmailTemplates.html = parser.parse(rawEmailTemplates.html, "html", baseResult);
+    parsedEmailTemplates.subject = parser.parse(rawEmailTemplates.subject, "subject", baseResult);
+    parsedEmailTemplates.text = parser.parse(rawEmailTemplates.text, "text", baseResult);
 
     return parsedEmailTemplates;
   }
 
+  /**
+   * Has the ObjectWrapper of the FreeMarker Configuration introspect the template parameter classes from the
+   * configuration. Guice calls this once the loader is constructed.
+   *
+   * @param emailConfiguration The email configuration.
+   */
+  @Inject
+  public void warmUp(EmailConfiguration emailConfiguration) {
+    warmUp(emailConfiguration.templateParameterClasses());
+  }
+
+  /**
+   * Has the ObjectWrapper of the FreeMarker Configuration introspect the classes of the template parameters, so that the
+   * first email that uses them doesn't pay for it. The ObjectWrapper caches the introspection per class, but it only
+   * offers to introspect a class while looking up its constructors. The constructors are looked up with an argument that
+   * can't be unwrapped, so none of them is called. Only ObjectWrappers that extend the BeansWrapper introspect classes.
+   *
+   * @param parameterClasses The classes of the template parameters.
+   */
+  public void warmUp(Collection<Class<?>> parameterClasses) {
+    ObjectWrapper objectWrapper = freeMarkerConfiguration.getObjectWrapper();
+    if (!(objectWrapper instanceof BeansWrapper beansWrapper)) {
+      return;
+    }
+
+    for (Class<?> parameterClass : parameterClasses) {
+      try {
+        beansWrapper.newInstance(parameterClass, List.of(UnwrapRefused.INSTANCE));
+      } catch (TemplateModelException | UnwrapRefused e) {
+        // The class has been introspected before its constructors were looked up
+      }
+    }
+  }
+
   /**
    * Parses the FreeMarker template using the FreeMarker Configuration object.
    *
@@ -71,14 +128,48 @@ public abstract class BaseEmailTemplateLoader implements EmailTemplateLoader {
       return null;
     }
 
+    TemplateParseEvent event = new TemplateParseEvent();
+    event.begin();
+    String outcome = EmailJfrEvents.FAILED;
     try {
-      return new Template(null, template, freeMarkerConfiguration);
+      Template parsed = new Template(null, template, freeMarkerConfiguration);
+      parsed.setCustomAttribute(SOURCE_ATTRIBUTE, template);
+      outcome = EmailJfrEvents.SUCCESS;
+      return parsed;
     } catch (ParseException e) {
+      outcome = EmailJfrEvents.PARSE_ERROR;
       baseResult.parseErrors.put(part, e);
     } catch (IOException e) {
       // Skip it and continue
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.bytes = EmailJfrEvents.utf8Length(template);
+        event.outcome = outcome;
+        event.part = part;
+        event.commit();
+      }
     }
 
     return null;
   }
+
+  /**
+   * The argument of the constructor lookups of {@link #warmUp(Collection)}. It is thrown when the ObjectWrapper tries to
+   * unwrap it, which fails the lookup for every constructor, including those that take any Object.
+   */
+  private static class UnwrapRefused extends RuntimeException implements AdapterTemplateModel {
+    private static final UnwrapRefused INSTANCE = new UnwrapRefused();
+
+    private static final long serialVersionUID = 1L;
+
+    private UnwrapRefused() {
+      super(null, null, false, false);
+    }
+
+    @Override
+    public Object getAdaptedObject(Class<?> hint) {
+      throw this;
+    }
+  }
 }
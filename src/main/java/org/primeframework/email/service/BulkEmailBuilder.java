@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.primeframework.email.domain.BulkRecipient;
+import org.primeframework.email.domain.BulkSendResult;
+import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.SendResult;
+
+/**
+ * Builds a bulk send using a builder pattern. The email information and template parameters of the builder are shared
+ * by every recipient, except for the to addresses, which are taken from each recipient.
+ * <p>
+ * The recipients are read as the emails are sent, and the result of each email is passed to the result consumer once it
+ * has been sent. This means that the recipients and the results are never all held in memory at once.
+ *
+ * @author Brian Pontarelli
+ */
+public class BulkEmailBuilder extends BaseEmailBuilder<BulkEmailBuilder, BulkSendResult> {
+  protected int connections = 4;
+
+  protected int queueSize = 1_000;
+
+  protected Set<String> recipientKeys = Collections.emptySet();
+
+  protected Iterator<BulkRecipient> recipients = Collections.emptyIterator();
+
+  protected int renderThreads = Runtime.getRuntime().availableProcessors();
+
+  protected Consumer<SendResult> resultConsumer = (sendResult) -> {
+  };
+
+  /**
+   * Constructs a new instance.
+   *
+   * @param contextId   The context id that helps determine how the email is processed.
+   * @param templateId  The id of the template.
+   * @param email       The email from the configuration.
+   * @param nowFunction The function to call when emails are sent now.
+   */
+  BulkEmailBuilder(Object contextId, Object templateId, Email email,
+                   Function<BulkEmailBuilder, BulkSendResult> nowFunction) {
+    super(contextId, templateId, email, nowFunction);
+  }
+
+  public int getConnections() {
+    return connections;
+  }
+
+  public int getQueueSize() {
+    return queueSize;
+  }
+
+  public Set<String> getRecipientKeys() {
+    return recipientKeys;
+  }
+
+  public Iterator<BulkRecipient> getRecipients() {
+    return recipients;
+  }
+
+  public int getRenderThreads() {
+    return renderThreads;
+  }
+
+  public Consumer<SendResult> getResultConsumer() {
+    return resultConsumer;
+  }
+
+  /**
+   * Sends the emails to all of the recipients in a blocking fashion.
+   *
+   * @return The bulk send result, which contains the errors of the templates and the number of emails that were sent
+   *     and that failed.
+   */
+  public BulkSendResult now() {
+    return nowFunction.apply(this);
+  }
+
+  /**
+   * Sets the consumer that is called with the result of each email once it has been sent or has failed. The consumer is
+   * called by many threads at once.
+   *
+   * @param resultConsumer The consumer.
+   * @return This builder.
+   */
+  public BulkEmailBuilder onResult(Consumer<SendResult> resultConsumer) {
+    this.resultConsumer = resultConsumer;
+    return this;
+  }
+
+  /**
+   * @param connections The number of connections the emails are sent over. Defaults to 4.
+   * @return This builder.
+   */
+  public BulkEmailBuilder withConnections(int connections) {
+    this.connections = connections;
+    return this;
+  }
+
+  /**
+   * @param queueSize The number of emails that can wait between two stages of the send. Defaults to 1,000.
+   * @return This builder.
+   */
+  public BulkEmailBuilder withQueueSize(int queueSize) {
+    this.queueSize = queueSize;
+    return this;
+  }
+
+  /**
+   * Declares the names of the parameters that the recipients pass. When the renderer is a {@link
+   * FreeMarkerEmailRenderer}, the parts of the templates that don't use any of these parameters are rendered once for
+   * all of the recipients (see {@link MailMerge}). Recipients that pass any other parameter are rendered in full.
+   *
+   * @param recipientKeys The names of the parameters of the recipients.
+   * @return This builder.
+   */
+  public BulkEmailBuilder withRecipientKeys(String... recipientKeys) {
+    this.recipientKeys = Set.copyOf(Arrays.asList(recipientKeys));
+    return this;
+  }
+
+  /**
+   * @param recipients The recipients, which are read as the emails are sent.
+   * @return This builder.
+   */
+  public BulkEmailBuilder withRecipients(Iterator<BulkRecipient> recipients) {
+    this.recipients = recipients;
+    return this;
+  }
+
+  /**
+   * @param recipients The recipients, which are read as the emails are sent.
+   * @return This builder.
+   */
+  public BulkEmailBuilder withRecipients(Stream<BulkRecipient> recipients) {
+    this.recipients = recipients.iterator();
+    return this;
+  }
+
+  /**
+   * @param renderThreads The number of threads that render the emails. Defaults to the number of processors.
+   * @return This builder.
+   */
+  public BulkEmailBuilder withRenderThreads(int renderThreads) {
+    this.renderThreads = renderThreads;
+    return this;
+  }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.primeframework.email.domain.BulkRecipient;
+import org.primeframework.email.domain.BulkSendResult;
+import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.LatencySnapshot.Stage;
+import org.primeframework.email.domain.ParsedEmailTemplates;
+import org.primeframework.email.domain.PreparedEmail;
+import org.primeframework.email.domain.SendResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends the emails of a bulk send in stages that are connected by bounded queues:
+ * <ol>
+ *   <li>The calling thread reads the recipients and queues them</li>
+ *   <li>The render threads (one per processor by default) render each email and have the transport build its message</li>
+ *   <li>The send threads each send the messages over their own open connection of the transport</li>
+ * </ol>
+ * The templates are loaded once, before the pipeline is started. When a stage falls behind, the queue in front of it
+ * fills up and the stages before it wait, which means that the memory used doesn't depend on the number of
+ * recipients. When all of the threads of a stage have died (for example because none of the connections could be
+ * opened), the stages before it stop waiting and the emails that are left are failed.
+ * <p>
+ * When the renderer is a {@link FreeMarkerEmailRenderer} and the names of the recipient parameters are declared up
+ * front, the emails are rendered using a {@link MailMerge}.
+ *
+ * @author Brian Pontarelli
+ */
+class BulkSendPipeline {
+  private static final BulkRecipient END_OF_RECIPIENTS = new BulkRecipient();
+
+  private static final PreparedEmail END_OF_EMAILS = new PreparedEmail();
+
+  private static final String STOPPED_ERROR = "The bulk send stopped before the email could be sent. The email was therefore not sent.";
+
+  private static final Logger logger = LoggerFactory.getLogger(BulkSendPipeline.class);
+
+  private final BulkEmailBuilder bulkEmailBuilder;
+
+  private final EmailLatencyRecorder emailLatencyRecorder;
+
+  private final EmailPostProcessor emailPostProcessor;
+
+  private final EmailRenderer emailRenderer;
+
+  private final EmailTransportService emailTransportService;
+
+  private final AtomicLong failed = new AtomicLong();
+
+  private final AtomicInteger liveRenderThreads = new AtomicInteger();
+
+  private final AtomicInteger liveSendThreads = new AtomicInteger();
+
+  private final MailMerge mailMerge;
+
+  private final ParsedEmailTemplates parsedEmailTemplates;
+
+  private final BlockingQueue<BulkRecipient> recipientQueue;
+
+  private final BlockingQueue<PreparedEmail> sendQueue;
+
+  private final AtomicLong sent = new AtomicLong();
+
+  private final SharedTemplateParameters sharedParameters;
+
+  BulkSendPipeline(EmailRenderer emailRenderer, EmailPostProcessor emailPostProcessor,
+                   EmailTransportService emailTransportService, EmailLatencyRecorder emailLatencyRecorder,
+                   ParsedEmailTemplates parsedEmailTemplates, BulkEmailBuilder bulkEmailBuilder) {
+    this.emailRenderer = emailRenderer;
+    this.emailPostProcessor = emailPostProcessor;
+    this.emailTransportService = emailTransportService;
+    this.emailLatencyRecorder = emailLatencyRecorder;
+    this.parsedEmailTemplates = parsedEmailTemplates;
+    this.bulkEmailBuilder = bulkEmailBuilder;
+    this.recipientQueue = new ArrayBlockingQueue<>(bulkEmailBuilder.getQueueSize());
+    this.sendQueue = new ArrayBlockingQueue<>(bulkEmailBuilder.getQueueSize());
+    this.sharedParameters = new SharedTemplateParameters(bulkEmailBuilder.getParameters());
+
+    // The mail merge needs to know which parameters differ per recipient, since the recipients are only read as the
+    // emails are sent
+    if (emailRenderer instanceof FreeMarkerEmailRenderer && !bulkEmailBuilder.getRecipientKeys().isEmpty()) {
+      this.mailMerge = new MailMerge((FreeMarkerEmailRenderer) emailRenderer, parsedEmailTemplates,
+          bulkEmailBuilder.getParameters(), bulkEmailBuilder.getRecipientKeys());
+    } else {
+      this.mailMerge = null;
+    }
+  }
+
+  /**
+   * Sends the emails to all of the recipients and waits until they have been sent.
+   *
+   * @param bulkSendResult The result that the totals are stored in.
+   */
+  void run(BulkSendResult bulkSendResult) {
+    int renderThreadCount = Math.max(1, bulkEmailBuilder.getRenderThreads());
+    liveRenderThreads.set(renderThreadCount);
+    List<Thread> renderThreads = new ArrayList<>();
+    for (int i = 0; i < renderThreadCount; i++) {
+      renderThreads.add(Thread.ofPlatform().daemon().name("prime-email-bulk-render-" + i).start(this::render));
+    }
+
+    // Sending mostly waits on the network, so virtual threads are enough
+    int sendThreadCount = Math.max(1, bulkEmailBuilder.getConnections());
+    liveSendThreads.set(sendThreadCount);
+    List<Thread> sendThreads = new ArrayList<>();
+    for (int i = 0; i < sendThreadCount; i++) {
+      sendThreads.add(Thread.ofVirtual().name("prime-email-bulk-send-" + i).start(this::send));
+    }
+
+    try {
+      Iterator<BulkRecipient> recipients = bulkEmailBuilder.getRecipients();
+      while (recipients.hasNext()) {
+        BulkRecipient recipient = recipients.next();
+        if (!put(recipientQueue, recipient, liveRenderThreads)) {
+          fail(recipient);
+        }
+      }
+    } finally {
+      stop(renderThreads, recipientQueue, END_OF_RECIPIENTS, liveRenderThreads);
+      for (BulkRecipient recipient : drain(recipientQueue, END_OF_RECIPIENTS)) {
+        fail(recipient);
+      }
+
+      stop(sendThreads, sendQueue, END_OF_EMAILS, liveSendThreads);
+      for (PreparedEmail preparedEmail : drain(sendQueue, END_OF_EMAILS)) {
+        preparedEmail.sendResult.transportError = STOPPED_ERROR;
+        complete(preparedEmail.sendResult);
+      }
+
+      bulkSendResult.failed = failed.get();
+      bulkSendResult.sent = sent.get();
+    }
+  }
+
+  private void complete(SendResult sendResult) {
+    if (sendResult.wasSuccessful()) {
+      sent.incrementAndGet();
+    } else {
+      failed.incrementAndGet();
+    }
+
+    try {
+      bulkEmailBuilder.getResultConsumer().accept(sendResult);
+    } catch (RuntimeException e) {
+      logger.error("The result consumer of a bulk send threw an exception", e);
+    }
+  }
+
+  /**
+   * Copies the shared email into the email of a single recipient. The lists are copied because rendering adds the
+   * addresses of the templates to them.
+   */
+  private void copy(BulkRecipient recipient, Email email) {
+    Email shared = bulkEmailBuilder.getEmail();
+    email.additionalHeaders.addAll(shared.additionalHeaders);
+    email.attachments.addAll(shared.attachments);
+    email.bcc.addAll(shared.bcc);
+    email.cc.addAll(shared.cc);
+    email.from = shared.from;
+    email.html = shared.html;
+    email.replyTo = shared.replyTo;
+    email.subject = shared.subject;
+    email.text = shared.text;
+    email.to.addAll(recipient.to);
+  }
+
+  private <T> List<T> drain(BlockingQueue<T> queue, T end) {
+    List<T> elements = new ArrayList<>();
+    queue.drainTo(elements);
+    elements.removeIf((element) -> element == end);
+    return elements;
+  }
+
+  private void fail(BulkRecipient recipient) {
+    SendResult sendResult = result();
+    if (recipient.to != null) {
+      sendResult.email.to.addAll(recipient.to);
+    }
+
+    sendResult.transportError = STOPPED_ERROR;
+    complete(sendResult);
+  }
+
+  /**
+   * Queues an element for the threads of the next stage. This waits while the queue is full, but gives up once all of
+   * the threads of the next stage have died, since nothing would ever take the element.
+   *
+   * @return True if the element was queued, false if there are no threads left to take it.
+   */
+  private <T> boolean put(BlockingQueue<T> queue, T element, AtomicInteger liveThreads) {
+    boolean interrupted = false;
+    try {
+      while (liveThreads.get() > 0) {
+        try {
+          if (queue.offer(element, 100, TimeUnit.MILLISECONDS)) {
+            return true;
+          }
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+
+      return false;
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void render() {
+    try {
+      Object contextId = bulkEmailBuilder.getContextId();
+      Object templateId = bulkEmailBuilder.getTemplateId();
+      BulkRecipient recipient;
+      while ((recipient = Uninterruptibles.takeUninterruptibly(recipientQueue)) != END_OF_RECIPIENTS) {
+        SendResult sendResult = result();
+        Email email = sendResult.email;
+        try {
+          copy(recipient, email);
+          long start = emailLatencyRecorder.start();
+          if (mailMerge != null) {
+            mailMerge.render(email, recipient.parameters, sendResult);
+          } else {
+            emailRenderer.render(parsedEmailTemplates, email, new LayeredParameters(recipient.parameters, sharedParameters), sendResult);
+          }
+
+          emailPostProcessor.process(email, sendResult);
+          emailLatencyRecorder.record(Stage.RENDER, contextId, templateId, start);
+          if (sendResult.wasSuccessful()) {
+            PreparedEmail preparedEmail = emailTransportService.prepare(contextId, email, sendResult);
+            if (sendResult.wasSuccessful()) {
+              if (put(sendQueue, preparedEmail, liveSendThreads)) {
+                continue;
+              }
+
+              sendResult.transportError = STOPPED_ERROR;
+            }
+          }
+        } catch (RuntimeException e) {
+          logger.error("Unable to render an email of a bulk send", e);
+          sendResult.transportError = "Unable to render the email. The email was therefore not sent.";
+        }
+
+        complete(sendResult);
+      }
+    } finally {
+      liveRenderThreads.decrementAndGet();
+    }
+  }
+
+  private SendResult result() {
+    SendResult sendResult = new SendResult(new Email());
+    sendResult.templateId = bulkEmailBuilder.getTemplateId();
+    return sendResult;
+  }
+
+  private void send() {
+    try (EmailConnection connection = emailTransportService.connect(bulkEmailBuilder.getContextId())) {
+      PreparedEmail preparedEmail;
+      while ((preparedEmail = Uninterruptibles.takeUninterruptibly(sendQueue)) != END_OF_EMAILS) {
+        try {
+          connection.send(preparedEmail);
+        } catch (RuntimeException e) {
+          logger.error("Unable to send an email of a bulk send", e);
+          preparedEmail.sendResult.transportError = "Unable to send the email.";
+        }
+
+        complete(preparedEmail.sendResult);
+      }
+    } catch (RuntimeException e) {
+      // The emails are sent by the other connections. Once none are left, the emails that remain are failed
+      logger.error("A connection of a bulk send failed", e);
+    } finally {
+      liveSendThreads.decrementAndGet();
+    }
+  }
+
+  /**
+   * Tells each thread of a stage to stop once the queue in front of it is empty and waits for them. Threads that have
+   * already died don't take their end marker, which is left in the queue.
+   */
+  private <T> void stop(List<Thread> threads, BlockingQueue<T> queue, T end, AtomicInteger liveThreads) {
+    for (int i = 0; i < threads.size(); i++) {
+      if (!put(queue, end, liveThreads)) {
+        break;
+      }
+    }
+
+    for (Thread thread : threads) {
+      Uninterruptibles.joinUninterruptibly(thread);
+    }
+  }
+}
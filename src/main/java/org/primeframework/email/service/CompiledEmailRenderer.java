@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import freemarker.template.Template;
+import org.primeframework.email.config.EmailConfiguration;
+import org.primeframework.email.domain.BaseResult;
+
+/**
+ * An email renderer that compiles templates that only use simple interpolations, #if and #list into plain Java (see
+ * {@link CompiledTemplate}) and renders everything else with FreeMarker. A compiled template also falls back to
+ * FreeMarker for parameters it can't handle the same way FreeMarker would, which means the output and the errors are
+ * always the same as those of the {@link FreeMarkerEmailRenderer}.
+ *
+ * @author Brian Pontarelli
+ */
+public class CompiledEmailRenderer extends FreeMarkerEmailRenderer {
+  private final Cache<Template, Optional<CompiledTemplate>> compiledTemplates = CacheBuilder.newBuilder().weakKeys().build();
+
+  public CompiledEmailRenderer() {
+  }
+
+  @Inject
+  public CompiledEmailRenderer(EmailConfiguration emailConfiguration) {
+    super(emailConfiguration);
+  }
+
+  public CompiledEmailRenderer(ExecutorService executorService, RenderCache renderCache) {
+    super(executorService, renderCache);
+  }
+
+  public CompiledEmailRenderer(ExecutorService executorService, RenderCache renderCache, RenderLimits renderLimits) {
+    super(executorService, renderCache, renderLimits);
+  }
+
+  @Override
+  protected String callTemplate(Template template, LayeredTemplateHashModel model, String part, BaseResult baseResult) {
+    if (template == null) {
+      return null;
+    }
+
+    CompiledTemplate compiledTemplate = compiledTemplates.asMap()
+                                                         .computeIfAbsent(template, (key) -> Optional.ofNullable(CompiledTemplate.compile(key)))
+                                                         .orElse(null);
+    if (compiledTemplate != null) {
+      // The compiled template checks the limits as it renders, and reports them the same way FreeMarker does
+      StringBuilder out = new StringBuilder();
+      try {
+        if (compiledTemplate.render(model, getRenderLimits(), out)) {
+          return out.toString();
+        }
+      } catch (RenderLimitException e) {
+        baseResult.renderErrors.put(part, e);
+        return out.toString();
+      }
+    }
+
+    return super.callTemplate(template, model, part, baseResult);
+  }
+}
@@ -0,0 +1,410 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import freemarker.core.MarkupOutputFormat;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import org.primeframework.email.service.TemplateAnalyzer.Element;
+
+/**
+ * A template compiled into plain Java instructions. Only a small subset of FreeMarker is supported:
+ * <ul>
+ *   <li>Text and comments</li>
+ *   <li><code>${a.b.c}</code></li>
+ *   <li><code>&lt;#if a.b&gt;</code>, <code>&lt;#if a.b??&gt;</code>, <code>&lt;#if a.b == "c"&gt;</code> and
+ *   <code>&lt;#if a.b != "c"&gt;</code> with any number of <code>#elseif</code> and an optional <code>#else</code></li>
+ *   <li><code>&lt;#list a.b as c&gt;</code> without <code>#else</code>, <code>#items</code> or <code>#sep</code></li>
+ * </ul>
+ * The instructions are compiled from the parsed template, so white-space stripping has already been applied to the text.
+ * Parameters are read directly from their maps without being wrapped. A render that finds a parameter that FreeMarker
+ * would handle differently (anything other than strings, booleans, maps and collections, missing values FreeMarker
+ * would report as errors or shared variables) gives up and returns null, and the template must then be rendered by
+ * FreeMarker instead.
+ *
+ * @author Brian Pontarelli
+ */
+public class CompiledTemplate {
+  private static final String IDENTIFIER = "[A-Za-z_][A-Za-z0-9_]*";
+
+  private static final String PATH = IDENTIFIER + "(?:\\." + IDENTIFIER + ")*";
+
+  private static final Pattern CONDITION = Pattern.compile("(" + PATH + ")(?:(\\?\\?)|\\s*(==|!=)\\s*(?:\"([^\"\\\\$#\\[]*)\"|'([^'\\\\$#\\[]*)'))?");
+
+  private static final Pattern INTERPOLATION = Pattern.compile("\\$\\{(" + PATH + ")}");
+
+  private static final Set<String> KEYWORDS = Set.of("as", "false", "gt", "gte", "in", "lt", "lte", "true", "using");
+
+  private static final Pattern LIST = Pattern.compile("#list (" + PATH + ") as (" + IDENTIFIER + ")");
+
+  private final Instruction[] instructions;
+
+  private final Template template;
+
+  private CompiledTemplate(Template template, Instruction[] instructions) {
+    this.template = template;
+    this.instructions = instructions;
+  }
+
+  /**
+   * Compiles the template.
+   *
+   * @param template The parsed FreeMarker template.
+   * @return The compiled template or null if the template uses anything outside the supported subset.
+   */
+  public static CompiledTemplate compile(Template template) {
+    if (template.getActualTagSyntax() == Configuration.SQUARE_BRACKET_TAG_SYNTAX ||
+        (template.getAutoEscaping() && template.getOutputFormat() instanceof MarkupOutputFormat)) {
+      return null;
+    }
+
+    Element root = TemplateAnalyzer.root(template);
+    try {
+      Instruction[] instructions = root == null ? new Instruction[0] : compile(List.of(root));
+      return new CompiledTemplate(template, instructions);
+    } catch (UnsupportedException e) {
+      return null;
+    }
+  }
+
+  private static Instruction[] children(Element element) {
+    return compile(element.children());
+  }
+
+  private static Instruction[] compile(List<Element> elements) {
+    List<Instruction> instructions = new ArrayList<>();
+    for (Element element : elements) {
+      switch (element.name()) {
+        case "Comment" -> {
+        }
+        case "ConditionalBlock" -> instructions.add(conditional(List.of(element)));
+        case "DollarVariable" -> {
+          String[] path = path(INTERPOLATION, element.description());
+          instructions.add((scope, out) -> scope.write(string(scope.resolve(path)), out));
+        }
+        case "IfBlock" -> instructions.add(conditional(element.children()));
+        case "IteratorBlock" -> {
+          Matcher matcher = LIST.matcher(element.description());
+          if (!matcher.matches()) {
+            throw new UnsupportedException();
+          }
+
+          String[] path = split(matcher.group(1));
+          String name = matcher.group(2);
+          Instruction[] body = children(element);
+          instructions.add((scope, out) -> {
+            for (Object item : collection(scope.resolve(path))) {
+              if (item == null) {
+                throw FallbackException.INSTANCE;
+              }
+
+              execute(body, new Scope(scope, name, item), out);
+            }
+          });
+        }
+        case "MixedContent" -> {
+          Instruction[] body = children(element);
+          instructions.add((scope, out) -> execute(body, scope, out));
+        }
+        case "TextBlock" -> {
+          String text = text(element);
+          instructions.add((scope, out) -> scope.write(text, out));
+        }
+        default -> throw new UnsupportedException();
+      }
+    }
+
+    return instructions.toArray(new Instruction[0]);
+  }
+
+  private static Instruction conditional(List<Element> branches) {
+    List<Condition> conditions = new ArrayList<>();
+    List<Instruction[]> bodies = new ArrayList<>();
+    for (int i = 0; i < branches.size(); i++) {
+      Element branch = branches.get(i);
+      String description = branch.description();
+      if (!branch.name().equals("ConditionalBlock")) {
+        throw new UnsupportedException();
+      }
+
+      if (i == 0 && description.startsWith("#if ")) {
+        conditions.add(condition(description.substring(4)));
+      } else if (i > 0 && description.startsWith("#elseif ")) {
+        conditions.add(condition(description.substring(8)));
+      } else if (i > 0 && i == branches.size() - 1 && description.equals("#else")) {
+        conditions.add((scope) -> true);
+      } else {
+        throw new UnsupportedException();
+      }
+
+      bodies.add(children(branch));
+    }
+
+    return (scope, out) -> {
+      for (int i = 0; i < conditions.size(); i++) {
+        if (conditions.get(i).test(scope)) {
+          execute(bodies.get(i), scope, out);
+          return;
+        }
+      }
+    };
+  }
+
+  private static Collection<?> collection(Object value) {
+    if (value instanceof Collection<?> collection) {
+      return collection;
+    }
+
+    throw FallbackException.INSTANCE;
+  }
+
+  private static Condition condition(String expression) {
+    Matcher matcher = CONDITION.matcher(expression);
+    if (!matcher.matches()) {
+      throw new UnsupportedException();
+    }
+
+    String[] path = split(matcher.group(1));
+    if (matcher.group(2) != null) {
+      return (scope) -> scope.resolve(path) != null;
+    }
+
+    if (matcher.group(3) != null) {
+      String literal = matcher.group(4) != null ? matcher.group(4) : matcher.group(5);
+      boolean equals = matcher.group(3).equals("==");
+      return (scope) -> string(scope.resolve(path)).equals(literal) == equals;
+    }
+
+    return (scope) -> {
+      if (scope.resolve(path) instanceof Boolean value) {
+        return value;
+      }
+
+      throw FallbackException.INSTANCE;
+    };
+  }
+
+  private static void execute(Instruction[] instructions, Scope scope, StringBuilder out) {
+    for (Instruction instruction : instructions) {
+      instruction.execute(scope, out);
+    }
+  }
+
+  private static String[] path(Pattern pattern, String description) {
+    Matcher matcher = pattern.matcher(description);
+    if (!matcher.matches()) {
+      throw new UnsupportedException();
+    }
+
+    return split(matcher.group(1));
+  }
+
+  private static String[] split(String path) {
+    String[] names = path.split("\\.");
+    if (KEYWORDS.contains(names[0])) {
+      throw new UnsupportedException();
+    }
+
+    return names;
+  }
+
+  private static String string(Object value) {
+    if (value instanceof String string) {
+      return string;
+    }
+
+    throw FallbackException.INSTANCE;
+  }
+
+  /**
+   * The canonical form of a text block is its text after white-space stripping, which is wrapped in a noparse directive
+   * if the text came from one. Square bracket templates are not compiled, so the text can't contain the directive
+   * otherwise.
+   */
+  private static String text(Element element) {
+    String text = element.canonicalForm();
+    if (text.startsWith("<#noparse>") && text.endsWith("</#noparse>")) {
+      return text.substring("<#noparse>".length(), text.length() - "</#noparse>".length());
+    }
+
+    return text;
+  }
+
+  /**
+   * Renders the template.
+   *
+   * @param model The model of the parameters.
+   * @return The output or null if the template must be rendered by FreeMarker for these parameters.
+   */
+  public String render(LayeredTemplateHashModel model) {
+    StringBuilder out = new StringBuilder();
+    return execute(model, null, out) ? out.toString() : null;
+  }
+
+  /**
+   * Renders the template within the limits. The output and the time are checked while the template is rendered, the
+   * same way they are for FreeMarker, so a render that exceeds a limit stops right away.
+   *
+   * @param model        The model of the parameters.
+   * @param renderLimits The limits of the render.
+   * @param out          The output. When a limit is exceeded, this holds the output that fit within the limits.
+   * @return True if the template was rendered, false if it must be rendered by FreeMarker for these parameters.
+   * @throws RenderLimitException If the template exceeds a limit.
+   */
+  public boolean render(LayeredTemplateHashModel model, RenderLimits renderLimits, StringBuilder out) throws RenderLimitException {
+    try {
+      return execute(model, renderLimits.budget(), out);
+    } catch (RenderLimits.LimitExceededException e) {
+      throw new RenderLimitException(e.getMessage());
+    }
+  }
+
+  private boolean execute(LayeredTemplateHashModel model, RenderLimits.Budget budget, StringBuilder out) {
+    try {
+      execute(instructions, new Scope(model, template.getConfiguration(), budget), out);
+      return true;
+    } catch (FallbackException e) {
+      return false;
+    }
+  }
+
+  @FunctionalInterface
+  private interface Condition {
+    boolean test(Scope scope);
+  }
+
+  @FunctionalInterface
+  private interface Instruction {
+    void execute(Scope scope, StringBuilder out);
+  }
+
+  /**
+   * Thrown while rendering when the parameters must be handled by FreeMarker. It is thrown often enough that it doesn't
+   * fill in a stack trace.
+   */
+  private static class FallbackException extends RuntimeException {
+    private static final FallbackException INSTANCE = new FallbackException();
+
+    private static final long serialVersionUID = 1L;
+
+    private FallbackException() {
+      super(null, null, false, false);
+    }
+  }
+
+  /**
+   * The loop variables of the #list directives being rendered, in front of the parameters.
+   */
+  private static class Scope {
+    private final RenderLimits.Budget budget;
+
+    private final Configuration configuration;
+
+    private final LayeredTemplateHashModel model;
+
+    private final String name;
+
+    private final Scope parent;
+
+    private final Object value;
+
+    private Scope(LayeredTemplateHashModel model, Configuration configuration, RenderLimits.Budget budget) {
+      this.budget = budget;
+      this.model = model;
+      this.configuration = configuration;
+      this.name = null;
+      this.parent = null;
+      this.value = null;
+    }
+
+    private Scope(Scope parent, String name, Object value) {
+      this.budget = parent.budget;
+      this.model = parent.model;
+      this.configuration = parent.configuration;
+      this.name = name;
+      this.parent = parent;
+      this.value = value;
+    }
+
+    /**
+     * FreeMarker reports an error if anything but the last name of the path is missing or isn't a hash, which is left
+     * to FreeMarker, as are beans, which need to be wrapped.
+     */
+    private Object resolve(String[] path) {
+      Object value = lookup(path[0]);
+      for (int i = 1; i < path.length; i++) {
+        if (!(value instanceof Map<?, ?> map)) {
+          throw FallbackException.INSTANCE;
+        }
+
+        value = map.get(path[i]);
+      }
+
+      return value;
+    }
+
+    private Object lookup(String key) {
+      if (budget != null) {
+        budget.checkTime();
+      }
+
+      for (Scope scope = this; scope != null; scope = scope.parent) {
+        if (key.equals(scope.name)) {
+          return scope.value;
+        }
+      }
+
+      Object value = model.getParameter(key);
+      if (value == null && configuration.getSharedVariable(key) != null) {
+        throw FallbackException.INSTANCE;
+      }
+
+      return value;
+    }
+
+    private void write(String text, StringBuilder out) {
+      if (budget == null) {
+        out.append(text);
+        return;
+      }
+
+      int allowed = budget.output(text.length());
+      out.append(text, 0, allowed);
+      if (allowed < text.length()) {
+        budget.outputExceeded();
+      }
+    }
+  }
+
+  /**
+   * Thrown while compiling when the template uses anything outside the supported subset.
+   */
+  private static class UnsupportedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private UnsupportedException() {
+      super(null, null, false, false);
+    }
+  }
+}
@@ -15,17 +15,30 @@
  */
 package org.primeframework.email.service;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 import com.google.inject.Inject;
+import org.primeframework.email.domain.BaseResult;
+import org.primeframework.email.domain.BulkSendResult;
 import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.LatencySnapshot.Stage;
 import org.primeframework.email.domain.ParsedEmailTemplates;
 import org.primeframework.email.domain.PreviewResult;
 import org.primeframework.email.domain.RawEmailTemplates;
 import org.primeframework.email.domain.SendResult;
+import org.primeframework.email.domain.ValidateRequest;
 import org.primeframework.email.domain.ValidateResult;
+import org.primeframework.email.service.EmailJfrEvents.SendEvent;
+import org.primeframework.email.service.EmailJfrEvents.TemplateLoadEvent;
 
 /**
  * This class implements the {@link EmailService} interface controls the flow of configuring the emails. The {@link
@@ -35,6 +48,10 @@ import org.primeframework.email.domain.ValidateResult;
  * @author Brian Pontarelli
  */
 public class DefaultEmailService implements EmailService {
+  protected final EmailLatencyRecorder emailLatencyRecorder;
+
+  protected final EmailPostProcessor emailPostProcessor;
+
   protected final EmailRenderer emailRenderer;
 
   protected final EmailTemplateLoader emailTemplateLoader;
@@ -48,12 +65,42 @@ public class DefaultEmailService implements EmailService {
    * @param emailTemplateLoader   The template loader.
    * @param emailTransportService Used to send emails.
    */
-  @Inject
   public DefaultEmailService(EmailRenderer emailRenderer, EmailTemplateLoader emailTemplateLoader,
                              EmailTransportService emailTransportService) {
+    this(emailRenderer, emailTemplateLoader, emailTransportService, EmailPostProcessor.NONE);
+  }
+
+  /**
+   * Constructs a DefaultEmailService that post processes the rendered emails before they are previewed or sent.
+   *
+   * @param emailRenderer         The email template renderer.
+   * @param emailTemplateLoader   The template loader.
+   * @param emailTransportService Used to send emails.
+   * @param emailPostProcessor    Processes the rendered emails.
+   */
+  public DefaultEmailService(EmailRenderer emailRenderer, EmailTemplateLoader emailTemplateLoader,
+                             EmailTransportService emailTransportService, EmailPostProcessor emailPostProcessor) {
+    this(emailRenderer, emailTemplateLoader, emailTransportService, emailPostProcessor, EmailLatencyRecorder.NONE);
+  }
+
+  /**
+   * Constructs a DefaultEmailService that records how long loading and rendering the templates takes.
+   *
+   * @param emailRenderer         The email template renderer.
+   * @param emailTemplateLoader   The template loader.
+   * @param emailTransportService Used to send emails.
+   * @param emailPostProcessor    Processes the rendered emails.
+   * @param emailLatencyRecorder  Records the latencies of the stages.
+   */
+  @Inject
+  public DefaultEmailService(EmailRenderer emailRenderer, EmailTemplateLoader emailTemplateLoader,
+                             EmailTransportService emailTransportService, EmailPostProcessor emailPostProcessor,
+                             EmailLatencyRecorder emailLatencyRecorder) {
     this.emailTemplateLoader = emailTemplateLoader;
     this.emailTransportService = emailTransportService;
     this.emailRenderer = emailRenderer;
+    this.emailPostProcessor = emailPostProcessor;
+    this.emailLatencyRecorder = emailLatencyRecorder;
   }
 
   @Override
@@ -74,7 +121,18 @@ public class DefaultEmailService implements EmailService {
   public SendEmailBuilder send(Object contextId, Object templateId, List<Locale> preferredLanguages) {
     return new SendEmailBuilder(contextId, templateId, new Email(),
         (sendEmailBuilder) -> sendLater(contextId, templateId, preferredLanguages, sendEmailBuilder),
-        (sendEmailBuilder) -> send(contextId, templateId, preferredLanguages, sendEmailBuilder));
+        (sendEmailBuilder) -> send(contextId, templateId, preferredLanguages, sendEmailBuilder),
+        (sendEmailBuilder, instant) -> sendAt(contextId, templateId, preferredLanguages, sendEmailBuilder, instant));
+  }
+
+  /**
+   * Sends the emails in a pipeline: the templates are loaded once and then the emails are rendered on a thread per
+   * processor and sent over a fixed number of open transport connections. See {@link BulkSendPipeline}.
+   */
+  @Override
+  public BulkEmailBuilder sendBulk(Object contextId, Object templateId, List<Locale> preferredLanguages) {
+    return new BulkEmailBuilder(contextId, templateId, new Email(),
+        (bulkEmailBuilder) -> sendBulk(contextId, templateId, preferredLanguages, bulkEmailBuilder));
   }
 
   @Override
@@ -86,10 +144,54 @@ public class DefaultEmailService implements EmailService {
     return validateResult;
   }
 
+  /**
+   * Validates the requests concurrently, one virtual thread per request. At most {@link #validateConcurrency()} requests
+   * are validated at once, and the thread of the next request isn't started until one has finished, so a large batch
+   * doesn't start a thread per request up front. The templates are parsed through a cache that is shared by the
+   * requests, so that identical sources are only parsed once.
+   */
+  @Override
+  public List<ValidateResult> validate(Object contextId, List<ValidateRequest> validateRequests) {
+    TemplateParseCache templateParseCache = new TemplateParseCache();
+    List<Future<ValidateResult>> futures = new ArrayList<>(validateRequests.size());
+    Semaphore permits = new Semaphore(Math.max(1, validateConcurrency()));
+    try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (ValidateRequest validateRequest : validateRequests) {
+        permits.acquireUninterruptibly();
+        futures.add(executorService.submit(() -> {
+          try {
+            return validate(validateRequest, templateParseCache);
+          } finally {
+            permits.release();
+          }
+        }));
+      }
+    }
+
+    List<ValidateResult> results = new ArrayList<>(futures.size());
+    for (Future<ValidateResult> future : futures) {
+      try {
+        results.add(future.get());
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+
+        throw new IllegalStateException(e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }
+
+    return results;
+  }
+
   protected PreviewResult preview(RawEmailTemplates rawEmailTemplates, PreviewEmailBuilder previewEmailBuilder) {
     PreviewResult previewResult = new PreviewResult(previewEmailBuilder.getEmail());
     ParsedEmailTemplates parsedEmailTemplates = emailTemplateLoader.parse(rawEmailTemplates, previewResult);
     emailRenderer.render(parsedEmailTemplates, previewEmailBuilder.getEmail(), previewEmailBuilder.getParameters(), previewResult);
+    emailPostProcessor.process(previewEmailBuilder.getEmail(), previewResult);
     return previewResult;
   }
 
@@ -98,24 +200,118 @@ public class DefaultEmailService implements EmailService {
     PreviewResult previewResult = new PreviewResult(previewEmailBuilder.getEmail());
     ParsedEmailTemplates parsedEmailTemplates = emailTemplateLoader.load(contextId, templateId, preferredLanguages, previewResult);
     emailRenderer.render(parsedEmailTemplates, previewEmailBuilder.getEmail(), previewEmailBuilder.getParameters(), previewResult);
+    emailPostProcessor.process(previewEmailBuilder.getEmail(), previewResult);
     return previewResult;
   }
 
+  /**
+   * @return The number of requests of a batch that are validated at once. Parsing and rendering use the CPU, so this
+   *     defaults to the number of processors.
+   */
+  protected int validateConcurrency() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  protected ValidateResult validate(ValidateRequest validateRequest, TemplateParseCache templateParseCache) {
+    ValidateResult validateResult = new ValidateResult();
+    ParsedEmailTemplates parsedEmailTemplates = emailTemplateLoader.parse(validateRequest.rawEmailTemplates, validateResult, templateParseCache);
+    emailRenderer.render(parsedEmailTemplates, new Email(), validateRequest.parameters, validateResult);
+    return validateResult;
+  }
+
   protected SendResult send(Object contextId, Object templateId, List<Locale> preferredLanguages,
                             SendEmailBuilder sendEmailBuilder) {
+    SendEvent event = new SendEvent();
+    event.begin();
     SendResult sendResult = new SendResult(sendEmailBuilder.getEmail());
-    ParsedEmailTemplates parsedEmailTemplates = emailTemplateLoader.load(contextId, templateId, preferredLanguages, sendResult);
-    emailRenderer.render(parsedEmailTemplates, sendEmailBuilder.getEmail(), sendEmailBuilder.getParameters(), sendResult);
+    sendResult.templateId = templateId;
+    ParsedEmailTemplates parsedEmailTemplates = load(contextId, templateId, preferredLanguages, sendResult);
+    render(parsedEmailTemplates, sendEmailBuilder, sendResult);
     emailTransportService.sendEmail(contextId, sendEmailBuilder.getEmail(), sendResult);
+    commit(event, contextId, templateId, "now", sendResult);
     return sendResult;
   }
 
+  protected SendResult sendAt(Object contextId, Object templateId, List<Locale> preferredLanguages,
+                              SendEmailBuilder sendEmailBuilder, Instant instant) {
+    SendEvent event = new SendEvent();
+    event.begin();
+    SendResult sendResult = new SendResult(sendEmailBuilder.getEmail());
+    sendResult.templateId = templateId;
+    ParsedEmailTemplates parsedEmailTemplates = load(contextId, templateId, preferredLanguages, sendResult);
+    render(parsedEmailTemplates, sendEmailBuilder, sendResult);
+    emailTransportService.sendEmailAt(contextId, sendEmailBuilder.getEmail(), sendResult, instant);
+    commit(event, contextId, templateId, "at", sendResult);
+    return sendResult;
+  }
+
+  protected BulkSendResult sendBulk(Object contextId, Object templateId, List<Locale> preferredLanguages,
+                                    BulkEmailBuilder bulkEmailBuilder) {
+    SendEvent event = new SendEvent();
+    event.begin();
+    BulkSendResult bulkSendResult = new BulkSendResult();
+    ParsedEmailTemplates parsedEmailTemplates = load(contextId, templateId, preferredLanguages, bulkSendResult);
+    if (bulkSendResult.wasSuccessful()) {
+      new BulkSendPipeline(emailRenderer, emailPostProcessor, emailTransportService, emailLatencyRecorder, parsedEmailTemplates, bulkEmailBuilder).run(bulkSendResult);
+    }
+
+    commit(event, contextId, templateId, "bulk", bulkSendResult);
+    return bulkSendResult;
+  }
+
   protected SendResult sendLater(Object contextId, Object templateId, List<Locale> preferredLanguages,
                                  SendEmailBuilder sendEmailBuilder) {
+    SendEvent event = new SendEvent();
+    event.begin();
     SendResult sendResult = new SendResult(sendEmailBuilder.getEmail());
-    ParsedEmailTemplates parsedEmailTemplates = emailTemplateLoader.load(contextId, templateId, preferredLanguages, sendResult);
-    emailRenderer.render(parsedEmailTemplates, sendEmailBuilder.getEmail(), sendEmailBuilder.getParameters(), sendResult);
+    sendResult.templateId = templateId;
+    ParsedEmailTemplates parsedEmailTemplates = load(contextId, templateId, preferredLanguages, sendResult);
+    render(parsedEmailTemplates, sendEmailBuilder, sendResult);
     emailTransportService.sendEmailLater(contextId, sendEmailBuilder.getEmail(), sendResult);
+    commit(event, contextId, templateId, "later", sendResult);
     return sendResult;
   }
-}
\ No newline at end of file
+
+  protected ParsedEmailTemplates load(Object contextId, Object templateId, List<Locale> preferredLanguages,
+                                      BaseResult baseResult) {
+    TemplateLoadEvent event = new TemplateLoadEvent();
+    event.begin();
+    long start = emailLatencyRecorder.start();
+    ParsedEmailTemplates parsedEmailTemplates = emailTemplateLoader.load(contextId, templateId, preferredLanguages, baseResult);
+    emailLatencyRecorder.record(Stage.LOAD, contextId, templateId, start);
+
+    event.end();
+    if (event.shouldCommit()) {
+      event.contextId = EmailJfrEvents.id(contextId);
+      event.outcome = baseResult.parseErrors.isEmpty() ? EmailJfrEvents.SUCCESS : EmailJfrEvents.PARSE_ERROR;
+      event.templateId = EmailJfrEvents.id(templateId);
+      event.commit();
+    }
+
+    return parsedEmailTemplates;
+  }
+
+  protected void render(ParsedEmailTemplates parsedEmailTemplates, SendEmailBuilder sendEmailBuilder,
+                        SendResult sendResult) {
+    long start = emailLatencyRecorder.start();
+    if (sendEmailBuilder.isStreamHtml()) {
+      emailRenderer.renderStreaming(parsedEmailTemplates, sendEmailBuilder.getEmail(), sendEmailBuilder.getParameters(), sendResult);
+    } else {
+      emailRenderer.render(parsedEmailTemplates, sendEmailBuilder.getEmail(), sendEmailBuilder.getParameters(), sendResult);
+    }
+
+    emailPostProcessor.process(sendEmailBuilder.getEmail(), sendResult);
+    emailLatencyRecorder.record(Stage.RENDER, sendEmailBuilder.getContextId(), sendEmailBuilder.getTemplateId(), start);
+  }
+
+  private void commit(SendEvent event, Object contextId, Object templateId, String mode, BaseResult result) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.contextId = EmailJfrEvents.id(contextId);
+      event.mode = mode;
+      event.outcome = EmailJfrEvents.outcome(result);
+      event.templateId = EmailJfrEvents.id(templateId);
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.EmailAddress;
+import org.primeframework.email.domain.SendResult;
+
+/**
+ * Merges bursts of emails to the same recipients into a single digest email. Emails that are sent later through the
+ * coalescer are grouped by their recipients and their digest template, and each group is held for a window that starts
+ * with its first email. When the window ends, a group with a single email is sent as it is, and a group with more is
+ * sent as one email rendered with the digest template.
+ * <p>
+ * The digest template is rendered with the {@value #DIGEST_PARAMETER} parameter, which is the list of the parameters of
+ * each email in the group, in the order they were sent. The parameters of each email also contain the id of its template
+ * as {@value #TEMPLATE_ID_PARAMETER}, since different templates can share a digest template. The other email data (from,
+ * reply to, subject and headers) of the digest is taken from the first email of the group, and the digest carries the
+ * attachments of all of the emails of the group.
+ * <p>
+ * The future of the send result of each email in a group completes with the result of the email that was sent for the
+ * group. Emails that are sent now or at a specific time aren't coalesced.
+ *
+ * @author Brian Pontarelli
+ */
+public class EmailCoalescer implements AutoCloseable {
+  public static final String DIGEST_PARAMETER = "emails";
+
+  public static final String TEMPLATE_ID_PARAMETER = "templateId";
+
+  private final Function<Object, Object> digestTemplateIds;
+
+  private final EmailService emailService;
+
+  private final Map<GroupKey, Group> groups = new ConcurrentHashMap<>();
+
+  // Emails are added to the groups under the read lock, so once closing has the write lock no group is added anymore
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final HashedTimingWheel<GroupKey> timingWheel;
+
+  private final Duration window;
+
+  private volatile boolean closed;
+
+  /**
+   * Constructs the coalescer.
+   *
+   * @param emailService      The email service that sends the emails.
+   * @param window            How long the emails of a group are held, starting with its first email.
+   * @param digestTemplateIds Returns the id of the digest template for the id of a template, or null if the emails of
+   *                          the template aren't coalesced.
+   */
+  public EmailCoalescer(EmailService emailService, Duration window, Function<Object, Object> digestTemplateIds) {
+    this.emailService = emailService;
+    this.window = window;
+    this.digestTemplateIds = digestTemplateIds;
+    this.timingWheel = new HashedTimingWheel<>(Duration.ofMillis(100), 512, 100,
+        (keys) -> Thread.ofVirtual().name("prime-email-coalescer").start(() -> keys.forEach(this::flush)));
+  }
+
+  /**
+   * Sends the emails of all of the groups right away and stops the coalescer. Emails can't be sent through the coalescer
+   * afterward.
+   */
+  @Override
+  public void close() {
+    lock.writeLock().lock();
+    try {
+      closed = true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    timingWheel.close();
+    for (GroupKey key : new ArrayList<>(groups.keySet())) {
+      flush(key);
+    }
+  }
+
+  /**
+   * @return The number of groups that are being held.
+   */
+  public int pending() {
+    return groups.size();
+  }
+
+  /**
+   * Builds an email that is coalesced when it is sent later. Sending it now sends it right away, and sending it at a
+   * specific time schedules it with the email service.
+   *
+   * @param contextId          The context id that helps determine how the email is processed.
+   * @param templateId         (Required) The id of the template.
+   * @param preferredLanguages The preferred languages to send the email in.
+   * @return The EmailBuilder that is used to build up the email configuration and parameters.
+   * @throws IllegalStateException If the coalescer is closed.
+   */
+  public SendEmailBuilder send(Object contextId, Object templateId, List<Locale> preferredLanguages) {
+    if (closed) {
+      throw new IllegalStateException("The email coalescer is closed");
+    }
+
+    return new SendEmailBuilder(contextId, templateId, new Email(),
+        (sendEmailBuilder) -> coalesce(contextId, templateId, preferredLanguages, sendEmailBuilder),
+        (sendEmailBuilder) -> send(contextId, templateId, preferredLanguages, sendEmailBuilder.getEmail(), sendEmailBuilder.getParameters()),
+        (sendEmailBuilder, instant) -> copy(emailService.send(contextId, templateId, preferredLanguages), sendEmailBuilder.getEmail(), sendEmailBuilder.getParameters()).at(instant));
+  }
+
+  private static List<String> addresses(List<EmailAddress> emailAddresses) {
+    List<String> addresses = new ArrayList<>(emailAddresses.size());
+    for (EmailAddress emailAddress : emailAddresses) {
+      addresses.add(emailAddress.address != null ? emailAddress.address.toLowerCase(Locale.ROOT) : null);
+    }
+
+    return addresses;
+  }
+
+  private SendResult coalesce(Object contextId, Object templateId, List<Locale> preferredLanguages,
+                              SendEmailBuilder sendEmailBuilder) {
+    Email email = sendEmailBuilder.getEmail();
+    Object digestTemplateId = digestTemplateIds.apply(templateId);
+    if (digestTemplateId == null) {
+      return copy(emailService.send(contextId, templateId, preferredLanguages), email, sendEmailBuilder.getParameters()).later();
+    }
+
+    Entry entry = new Entry(templateId, preferredLanguages, email, new HashMap<>(sendEmailBuilder.getParameters()));
+    GroupKey key = new GroupKey(contextId, digestTemplateId, addresses(email.to), addresses(email.cc), addresses(email.bcc));
+    SendResult sendResult = new SendResult(email);
+    lock.readLock().lock();
+    try {
+      // The builder was created before the coalescer was closed
+      if (closed) {
+        sendResult.transportError = "The email coalescer is closed. The email was therefore not sent.";
+        return sendResult;
+      }
+
+      Group group = groups.compute(key, (k, existing) -> {
+        Group result = existing;
+        if (result == null) {
+          result = new Group();
+          timingWheel.schedule(k, Instant.now().plus(window));
+        }
+
+        result.entries.add(entry);
+        return result;
+      });
+
+      sendResult.future = group.future;
+      return sendResult;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private SendEmailBuilder copy(SendEmailBuilder sendEmailBuilder, Email email, Map<String, Object> parameters) {
+    sendEmailBuilder.from(email.from)
+                    .replyTo(email.replyTo)
+                    .withSubject(email.subject)
+                    .withHeaders(email.additionalHeaders)
+                    .withTemplateParameters(parameters);
+    sendEmailBuilder.getAttachments().addAll(email.attachments);
+    sendEmailBuilder.getBcc().addAll(email.bcc);
+    sendEmailBuilder.getCc().addAll(email.cc);
+    sendEmailBuilder.getTo().addAll(email.to);
+    return sendEmailBuilder;
+  }
+
+  private void flush(GroupKey key) {
+    Group group = groups.remove(key);
+    if (group == null) {
+      return;
+    }
+
+    try {
+      Entry first = group.entries.get(0);
+      if (group.entries.size() == 1) {
+        group.future.complete(send(key.contextId, first.templateId, first.preferredLanguages, first.email, first.parameters));
+        return;
+      }
+
+      List<Map<String, Object>> digest = new ArrayList<>(group.entries.size());
+      for (Entry entry : group.entries) {
+        entry.parameters.put(TEMPLATE_ID_PARAMETER, entry.templateId);
+        digest.add(entry.parameters);
+      }
+
+      SendEmailBuilder digestBuilder = copy(emailService.send(key.contextId, key.digestTemplateId, first.preferredLanguages), first.email, Map.of(DIGEST_PARAMETER, digest));
+      for (int i = 1; i < group.entries.size(); i++) {
+        digestBuilder.getAttachments().addAll(group.entries.get(i).email.attachments);
+      }
+
+      group.future.complete(digestBuilder.now());
+    } catch (RuntimeException e) {
+      group.future.completeExceptionally(e);
+    }
+  }
+
+  private SendResult send(Object contextId, Object templateId, List<Locale> preferredLanguages, Email email,
+                          Map<String, Object> parameters) {
+    return copy(emailService.send(contextId, templateId, preferredLanguages), email, parameters).now();
+  }
+
+  private record Entry(Object templateId, List<Locale> preferredLanguages, Email email, Map<String, Object> parameters) {
+  }
+
+  private static class Group {
+    // Only changed while the group is in the map, by the compute function of the map
+    private final List<Entry> entries = new ArrayList<>();
+
+    private final CompletableFuture<SendResult> future = new CompletableFuture<>();
+  }
+
+  private record GroupKey(Object contextId, Object digestTemplateId, List<String> to, List<String> cc, List<String> bcc) {
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import org.primeframework.email.domain.PreparedEmail;
+
+/**
+ * A connection of an {@link EmailTransportService} that sends many emails, one after another. A connection is used by a
+ * single thread at a time.
+ *
+ * @author Brian Pontarelli
+ */
+public interface EmailConnection extends AutoCloseable {
+  /**
+   * Sends the prepared email over this connection. Errors are added to the send result of the prepared email.
+   *
+   * @param preparedEmail The email that was prepared by the transport.
+   */
+  void send(PreparedEmail preparedEmail);
+
+  /**
+   * Closes the connection. The default does nothing.
+   */
+  @Override
+  default void close() {
+  }
+}
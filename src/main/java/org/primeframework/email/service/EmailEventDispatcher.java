@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.inject.Inject;
+import org.primeframework.email.domain.EmailEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Passes the events of the sending of emails to the {@link EmailListener}s. Dispatching an event only queues it. A
+ * single thread takes the events from the queue in batches and passes each batch to the listeners, which means the
+ * senders never wait on the listeners and there is no thread per email.
+ * <p>
+ * The queue is bounded. When the listeners fall so far behind that it is full, new events are dropped and counted (see
+ * {@link #dropped()}) rather than using more memory or making the senders wait.
+ * <p>
+ * When there are no listeners the dispatcher is disabled, and the senders don't create the events at all. Closing the
+ * dispatcher passes the events that are queued to the listeners and stops the thread.
+ *
+ * @author Brian Pontarelli
+ */
+public class EmailEventDispatcher implements AutoCloseable {
+  public static final EmailEventDispatcher NONE = new EmailEventDispatcher(Set.of());
+
+  private static final int BATCH_SIZE = 1_000;
+
+  // Queued by close() after the last event, to stop the thread
+  private static final EmailEvent CLOSE = new EmailEvent();
+
+  private static final int QUEUE_SIZE = 100_000;
+
+  private static final Logger logger = LoggerFactory.getLogger(EmailEventDispatcher.class);
+
+  private final LongAdder dropped = new LongAdder();
+
+  private final BlockingQueue<EmailEvent> events;
+
+  private final List<EmailListener> listeners;
+
+  private volatile boolean closed;
+
+  private volatile Thread thread;
+
+  @Inject
+  public EmailEventDispatcher(Set<EmailListener> listeners) {
+    this(listeners, QUEUE_SIZE);
+  }
+
+  /**
+   * Constructs the dispatcher.
+   *
+   * @param listeners The listeners.
+   * @param queueSize The number of events that are queued for the listeners before new events are dropped.
+   */
+  public EmailEventDispatcher(Set<EmailListener> listeners, int queueSize) {
+    this.listeners = List.copyOf(listeners);
+    this.events = new ArrayBlockingQueue<>(queueSize);
+  }
+
+  /**
+   * Passes the events that are queued to the listeners and stops the thread. The events that are dispatched after the
+   * dispatcher is closed are dropped.
+   */
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+    if (thread == null) {
+      return;
+    }
+
+    boolean interrupted = false;
+    while (true) {
+      try {
+        events.put(CLOSE);
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+
+    while (thread.isAlive()) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+
+    // Events that were queued while the dispatcher was closing
+    dropped.add(events.size());
+    events.clear();
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Queues the event for the listeners.
+   *
+   * @param event The event.
+   */
+  public void dispatch(EmailEvent event) {
+    if (listeners.isEmpty()) {
+      return;
+    }
+
+    if (closed) {
+      dropped.increment();
+      return;
+    }
+
+    if (thread == null) {
+      start();
+    }
+
+    if (!events.offer(event)) {
+      dropped.increment();
+    }
+  }
+
+  /**
+   * @return The number of events that were dropped because the queue was full or the dispatcher was closed.
+   */
+  public long dropped() {
+    return dropped.sum();
+  }
+
+  /**
+   * @return True if there are listeners. Senders check this before creating events.
+   */
+  public boolean isEnabled() {
+    return !listeners.isEmpty();
+  }
+
+  /**
+   * Passes a batch of events to the listeners. The listeners get a copy, so they can keep the list after handling it.
+   */
+  private void handle(List<EmailEvent> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    List<EmailEvent> copy = List.copyOf(batch);
+    for (EmailListener listener : listeners) {
+      try {
+        listener.handle(copy);
+      } catch (RuntimeException e) {
+        logger.error("The email listener [" + listener.getClass().getName() + "] threw an exception", e);
+      }
+    }
+  }
+
+  private void run() {
+    List<EmailEvent> batch = new ArrayList<>(BATCH_SIZE);
+    while (true) {
+      try {
+        batch.add(events.take());
+      } catch (InterruptedException e) {
+        return;
+      }
+
+      events.drainTo(batch, BATCH_SIZE - 1);
+      int close = batch.indexOf(CLOSE);
+      if (close >= 0) {
+        // The events after the close were dispatched while the dispatcher was closing
+        dropped.add(batch.size() - close - 1);
+        handle(batch.subList(0, close));
+        return;
+      }
+
+      handle(batch);
+      batch.clear();
+    }
+  }
+
+  private synchronized void start() {
+    if (thread == null && !closed) {
+      thread = Thread.ofPlatform().daemon().name("prime-email-event-dispatcher").start(this::run);
+    }
+  }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A fixed size thread pool with an unbound queue that measures its backlog. It reports every task to the {@link
+ * EmailExecutorMetrics} and exposes its state as the {@link EmailExecutorMXBean}.
+ *
+ * @author Brian Pontarelli
+ */
+public class EmailExecutor extends ThreadPoolExecutor implements EmailExecutorMXBean {
+  private static final AtomicInteger ids = new AtomicInteger();
+
+  private static final Logger logger = LoggerFactory.getLogger(EmailExecutor.class);
+
+  private final EmailExecutorMetrics metrics;
+
+  private final LongAdder queuedBytes = new LongAdder();
+
+  private final LongAdder rejected = new LongAdder();
+
+  private final Throughput throughput = new Throughput();
+
+  private volatile ObjectName objectName;
+
+  /**
+   * Constructs the executor.
+   *
+   * @param threads       The number of threads.
+   * @param threadFactory Creates the threads.
+   * @param metrics       Receives the measurements.
+   */
+  public EmailExecutor(int threads, ThreadFactory threadFactory, EmailExecutorMetrics metrics) {
+    super(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    QueuedTask task = new QueuedTask(command);
+    queuedBytes.add(task.bytes);
+    try {
+      super.execute(task);
+    } catch (RejectedExecutionException e) {
+      queuedBytes.add(-task.bytes);
+      rejected.increment();
+      metrics.rejected(task.emails);
+      throw e;
+    }
+
+    metrics.queued(task.emails, task.bytes, getQueue().size());
+  }
+
+  @Override
+  public int getActiveThreads() {
+    return getActiveCount();
+  }
+
+  @Override
+  public long getCompletedTasks() {
+    return getCompletedTaskCount();
+  }
+
+  @Override
+  public long getOldestQueuedAge() {
+    Runnable oldest = getQueue().peek();
+    return oldest instanceof QueuedTask task ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - task.queuedAt) : 0;
+  }
+
+  @Override
+  public long getQueuedBytes() {
+    return queuedBytes.sum();
+  }
+
+  @Override
+  public int getQueueDepth() {
+    return getQueue().size();
+  }
+
+  @Override
+  public long getRejectedTasks() {
+    return rejected.sum();
+  }
+
+  @Override
+  public double getSendThroughput() {
+    return throughput.perSecond();
+  }
+
+  /**
+   * @return The name the executor is registered with JMX under, or null if it is not registered.
+   */
+  public ObjectName objectName() {
+    return objectName;
+  }
+
+  /**
+   * Registers the executor with the platform MBean server. It is unregistered when the executor terminates.
+   *
+   * @param name The name of the executor, which is usually the name of its threads.
+   */
+  public void register(String name) {
+    try {
+      ObjectName objectName = new ObjectName("org.primeframework.email:type=EmailExecutor,name=" + ObjectName.quote(name) + ",id=" + ids.incrementAndGet());
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+      this.objectName = objectName;
+    } catch (JMException e) {
+      logger.warn("Unable to register the email executor with JMX", e);
+    }
+  }
+
+  /**
+   * Stops the executor and returns the tasks that never ran, as they were passed to {@link #execute(Runnable)}.
+   */
+  @Override
+  public List<Runnable> shutdownNow() {
+    List<Runnable> tasks = new ArrayList<>();
+    for (Runnable runnable : super.shutdownNow()) {
+      QueuedTask task = (QueuedTask) runnable;
+      queuedBytes.add(-task.bytes);
+      tasks.add(task.command);
+    }
+
+    return tasks;
+  }
+
+  @Override
+  protected void afterExecute(Runnable r, Throwable t) {
+    QueuedTask task = (QueuedTask) r;
+    long now = System.nanoTime();
+    boolean failed = t != null;
+
+    // Tasks that were submitted keep their exception in their Future, and cancelled tasks don't run at all
+    if (!failed && task.command instanceof Future<?> future && future.isDone()) {
+      try {
+        future.get();
+      } catch (CancellationException | ExecutionException e) {
+        failed = true;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    if (!failed) {
+      throughput.add(task.emails);
+    }
+
+    metrics.completed(task.emails, task.startedAt - task.queuedAt, now - task.startedAt, failed);
+  }
+
+  @Override
+  protected void beforeExecute(Thread t, Runnable r) {
+    QueuedTask task = (QueuedTask) r;
+    task.startedAt = System.nanoTime();
+    queuedBytes.add(-task.bytes);
+  }
+
+  /**
+   * Keeps the number and size of the emails of an {@link EmailTask} that is submitted rather than executed.
+   */
+  @Override
+  protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+    return runnable instanceof EmailTask emailTask ? new EmailFutureTask<>(emailTask, value) : super.newTaskFor(runnable, value);
+  }
+
+  @Override
+  protected void terminated() {
+    ObjectName objectName = this.objectName;
+    if (objectName != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+      } catch (JMException e) {
+        logger.debug("Unable to unregister the email executor from JMX", e);
+      }
+    }
+  }
+
+  /**
+   * The Future of an {@link EmailTask} that was submitted.
+   */
+  private static class EmailFutureTask<T> extends FutureTask<T> implements EmailTask {
+    private final EmailTask emailTask;
+
+    EmailFutureTask(EmailTask emailTask, T value) {
+      super(emailTask, value);
+      this.emailTask = emailTask;
+    }
+
+    @Override
+    public long bytes() {
+      return emailTask.bytes();
+    }
+
+    @Override
+    public int emails() {
+      return emailTask.emails();
+    }
+  }
+
+  /**
+   * A task in the queue, with the time it was queued and the size of its emails.
+   */
+  private static class QueuedTask implements Runnable {
+    private final long bytes;
+
+    private final Runnable command;
+
+    private final int emails;
+
+    private final long queuedAt = System.nanoTime();
+
+    private long startedAt;
+
+    QueuedTask(Runnable command) {
+      this.command = command;
+      if (command instanceof EmailTask emailTask) {
+        this.bytes = emailTask.bytes();
+        this.emails = emailTask.emails();
+      } else {
+        this.bytes = 0;
+        this.emails = 1;
+      }
+    }
+
+    @Override
+    public void run() {
+      command.run();
+    }
+  }
+
+  /**
+   * Counts the emails sent in each of the last 60 seconds. Each bucket holds the second it counts in its upper 32 bits
+   * and the count in its lower 32 bits, so that moving a bucket to a new second and counting are a single CAS.
+   */
+  static class Throughput {
+    private static final int SECONDS = 60;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(SECONDS);
+
+    private final long start = System.nanoTime();
+
+    void add(int emails) {
+      add(second(), emails);
+    }
+
+    void add(long second, int emails) {
+      int index = (int) (second % SECONDS);
+      while (true) {
+        long bucket = buckets.get(index);
+        long bucketSecond = bucket >>> 32;
+        if (bucketSecond > second) {
+          // The bucket already counts a later second, which only happens when the thread was held up for a minute
+          return;
+        }
+
+        long next = bucketSecond == second ? bucket + emails : (second << 32) | emails;
+        if (buckets.compareAndSet(index, bucket, next)) {
+          return;
+        }
+      }
+    }
+
+    double perSecond() {
+      return perSecond(second());
+    }
+
+    double perSecond(long now) {
+      long total = 0;
+      for (int i = 0; i < SECONDS; i++) {
+        long bucket = buckets.get(i);
+        if (now - (bucket >>> 32) < SECONDS) {
+          total += bucket & 0xFFFF_FFFFL;
+        }
+      }
+
+      return (double) total / SECONDS;
+    }
+
+    // The seconds since the throughput was created, which stay positive and fit in 32 bits
+    private long second() {
+      return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+    }
+  }
+}
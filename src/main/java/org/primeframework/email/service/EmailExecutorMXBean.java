@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+/**
+ * The JMX view of the {@link EmailExecutor}. The executor is registered with the platform MBean server under the name
+ * {@code org.primeframework.email:type=EmailExecutor,name=<thread name>,id=<number>}.
+ *
+ * @author Brian Pontarelli
+ */
+public interface EmailExecutorMXBean {
+  /**
+   * @return The number of threads that are running tasks.
+   */
+  int getActiveThreads();
+
+  /**
+   * @return The number of tasks that have completed.
+   */
+  long getCompletedTasks();
+
+  /**
+   * @return The number of milliseconds the oldest task in the queue has waited, or 0 if the queue is empty.
+   */
+  long getOldestQueuedAge();
+
+  /**
+   * @return The number of threads in the pool.
+   */
+  int getPoolSize();
+
+  /**
+   * @return The size of the content of the emails in the queue.
+   */
+  long getQueuedBytes();
+
+  /**
+   * @return The number of tasks in the queue.
+   */
+  int getQueueDepth();
+
+  /**
+   * @return The number of tasks that the executor rejected.
+   */
+  long getRejectedTasks();
+
+  /**
+   * @return The number of emails per second that the tasks completed over the last minute.
+   */
+  double getSendThroughput();
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+/**
+ * Receives the measurements of the {@link EmailExecutor}, so that they can be passed to a metrics library. The methods
+ * are called on the threads that submit and run the tasks, so they must be fast and must not throw.
+ *
+ * @author Brian Pontarelli
+ */
+public interface EmailExecutorMetrics {
+  EmailExecutorMetrics NONE = new EmailExecutorMetrics() {
+  };
+
+  /**
+   * Called when a task has run.
+   *
+   * @param emails      The number of emails the task sent.
+   * @param queuedNanos How long the task waited in the queue.
+   * @param runNanos    How long the task ran.
+   * @param failed      True if the task threw an exception or was cancelled (including tasks that were submitted and
+   *                    whose Future holds the exception).
+   */
+  default void completed(int emails, long queuedNanos, long runNanos, boolean failed) {
+  }
+
+  /**
+   * Called when a task is queued.
+   *
+   * @param emails     The number of emails the task sends.
+   * @param bytes      The size of the content of the emails.
+   * @param queueDepth The number of tasks in the queue, including this one.
+   */
+  default void queued(int emails, long bytes, int queueDepth) {
+  }
+
+  /**
+   * Called when the executor rejects a task.
+   *
+   * @param emails The number of emails of the task.
+   */
+  default void rejected(int emails) {
+  }
+}
@@ -16,15 +16,25 @@
 package org.primeframework.email.service;
 
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
+import com.google.inject.Inject;
 import com.google.inject.Provider;
 
-
 /**
  * @author Daniel DeGroff
  */
 public class EmailExecutorServiceProvider implements Provider<ExecutorService> {
+  private final EmailExecutorMetrics metrics;
+
+  public EmailExecutorServiceProvider() {
+    this(EmailExecutorMetrics.NONE);
+  }
+
+  @Inject
+  public EmailExecutorServiceProvider(EmailExecutorMetrics metrics) {
+    this.metrics = metrics;
+  }
+
   @Override
   public ExecutorService get() {
     // Please note:
@@ -44,13 +54,16 @@ public class EmailExecutorServiceProvider implements Provider<ExecutorService> {
     //
 
     // Create a fixed thread pool with an unbound blocking queue. This means we will always have 5 threads waiting to work, and
-    // when all 5 threads are busy, new work will be added to an unbound queue.
-    return Executors.newFixedThreadPool(5,
+    // when all 5 threads are busy, new work will be added to an unbound queue. The executor measures the queue and is
+    // registered with JMX so that a backlog of emails can be seen.
+    EmailExecutor executor = new EmailExecutor(5,
         r -> {
           Thread t = new Thread(r, threadName());
           t.setDaemon(true);
           return t;
-        });
+        }, metrics);
+    executor.register(threadName());
+    return executor;
   }
 
   protected String threadName() {
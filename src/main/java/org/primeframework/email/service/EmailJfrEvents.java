@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import org.primeframework.email.domain.BaseResult;
+import org.primeframework.email.domain.SendResult;
+
+/**
+ * The Java Flight Recorder events of the stages of sending emails. The events are in the "Prime / Email" category and
+ * are disabled unless a recording enables them (for example with a JFC file that names them). Each stage creates its
+ * event, begins and ends it, and only fills in the fields and commits it when {@link Event#shouldCommit()} is true, so
+ * disabled events cost a couple of checks that the JIT removes.
+ *
+ * @author Brian Pontarelli
+ */
+final class EmailJfrEvents {
+  static final String CACHED = "cached";
+
+  static final String FAILED = "failed";
+
+  static final String PARSE_ERROR = "parseError";
+
+  static final String RENDER_ERROR = "renderError";
+
+  static final String SUCCESS = "success";
+
+  static final String TRANSPORT_ERROR = "transportError";
+
+  private EmailJfrEvents() {
+  }
+
+  /**
+   * @return The outcome of a send or bulk send.
+   */
+  static String outcome(BaseResult result) {
+    if (!result.parseErrors.isEmpty()) {
+      return PARSE_ERROR;
+    } else if (!result.renderErrors.isEmpty()) {
+      return RENDER_ERROR;
+    } else if (result.wasSuccessful()) {
+      return SUCCESS;
+    }
+
+    return result instanceof SendResult ? TRANSPORT_ERROR : FAILED;
+  }
+
+  static String id(Object id) {
+    return id != null ? id.toString() : null;
+  }
+
+  /**
+   * @return The number of bytes the string has when it is encoded as UTF-8, without encoding it.
+   */
+  static long utf8Length(CharSequence string) {
+    if (string == null) {
+      return 0;
+    }
+
+    long length = 0;
+    for (int i = 0; i < string.length(); i++) {
+      char c = string.charAt(i);
+      if (c < 0x80) {
+        length++;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < string.length() && Character.isLowSurrogate(string.charAt(i + 1))) {
+        length += 4;
+        i++;
+      } else {
+        length += 3;
+      }
+    }
+
+    return length;
+  }
+
+  @Category({"Prime", "Email"})
+  @Description("Building the MIME message of an email")
+  @Label("Email MIME Build")
+  @Name("org.primeframework.email.MimeBuild")
+  @StackTrace(false)
+  static final class MimeBuildEvent extends Event {
+    @Label("Content Size")
+    @Description("The UTF-8 size of the subject and bodies plus the size of the attachments")
+    @DataAmount
+    long bytes;
+
+    @Label("Context Id")
+    String contextId;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Recipients")
+    int recipients;
+
+    @Label("Template Id")
+    String templateId;
+  }
+
+  @Category({"Prime", "Email"})
+  @Description("The time an email waited between being queued (or becoming due) and a thread starting to send it")
+  @Label("Email Queue Wait")
+  @Name("org.primeframework.email.QueueWait")
+  @StackTrace(false)
+  static final class QueueWaitEvent extends Event {
+    @Label("Attempt")
+    int attempt;
+
+    @Label("Context Id")
+    String contextId;
+
+    @Label("Template Id")
+    String templateId;
+
+    @Label("Waited")
+    @Timespan
+    long waited;
+  }
+
+  @Category({"Prime", "Email"})
+  @Description("Rendering one part of an email")
+  @Label("Email Render")
+  @Name("org.primeframework.email.Render")
+  @StackTrace(false)
+  static final class RenderEvent extends Event {
+    @Label("Output Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Part")
+    String part;
+  }
+
+  @Category({"Prime", "Email"})
+  @Description("Sending an email through the email service, from loading the templates to handing it to the transport")
+  @Label("Email Send")
+  @Name("org.primeframework.email.Send")
+  @StackTrace(false)
+  static final class SendEvent extends Event {
+    @Label("Context Id")
+    String contextId;
+
+    @Label("Mode")
+    @Description("now, later, at or bulk")
+    String mode;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Template Id")
+    String templateId;
+  }
+
+  @Category({"Prime", "Email"})
+  @Description("Sending a message to the SMTP server, including connecting when needed")
+  @Label("Email SMTP Send")
+  @Name("org.primeframework.email.SmtpSend")
+  @StackTrace(false)
+  static final class SmtpSendEvent extends Event {
+    @Label("Attempt")
+    int attempt;
+
+    @Label("Context Id")
+    String contextId;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Recipients")
+    int recipients;
+
+    @Label("SMTP Response")
+    String smtpResponse;
+
+    @Label("Template Id")
+    String templateId;
+  }
+
+  @Category({"Prime", "Email"})
+  @Description("Loading the templates of an email")
+  @Label("Email Template Load")
+  @Name("org.primeframework.email.TemplateLoad")
+  @StackTrace(false)
+  static final class TemplateLoadEvent extends Event {
+    @Label("Context Id")
+    String contextId;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Template Id")
+    String templateId;
+  }
+
+  @Category({"Prime", "Email"})
+  @Description("Parsing the source of one template")
+  @Label("Email Template Parse")
+  @Name("org.primeframework.email.TemplateParse")
+  @StackTrace(false)
+  static final class TemplateParseEvent extends Event {
+    @Label("Source Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Part")
+    String part;
+  }
+}
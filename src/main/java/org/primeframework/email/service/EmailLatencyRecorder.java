@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.primeframework.email.domain.LatencySnapshot;
+import org.primeframework.email.domain.LatencySnapshot.Stage;
+
+/**
+ * Records how long each stage of sending emails takes into a {@link LatencyHistogram} per stage, context and template.
+ * The services call {@link #start()} before a stage and {@link #record} after it. The recorder that is bound by default
+ * is {@link #NONE}, which doesn't read the clock or record anything.
+ * <p>
+ * To bound the memory, there are at most {@link #MAX_HISTOGRAMS} histograms for contexts and templates. Once that many
+ * exist, the latencies of new contexts and templates are recorded without the context and template.
+ *
+ * @author Brian Pontarelli
+ */
+public class EmailLatencyRecorder {
+  public static final int MAX_HISTOGRAMS = 4_096;
+
+  public static final EmailLatencyRecorder NONE = new EmailLatencyRecorder(false);
+
+  private final boolean enabled;
+
+  private final ConcurrentMap<Key, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a recorder that records the latencies.
+   */
+  public EmailLatencyRecorder() {
+    this(true);
+  }
+
+  private EmailLatencyRecorder(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * @return True if the latencies are recorded.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Records the time since the start of a stage.
+   *
+   * @param stage      The stage.
+   * @param contextId  The context of the email.
+   * @param templateId The template of the email (if known).
+   * @param start      The value returned by {@link #start()} when the stage started.
+   */
+  public void record(Stage stage, Object contextId, Object templateId, long start) {
+    if (enabled) {
+      histogram(new Key(stage, contextId, templateId)).record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * @return The percentiles of every stage, context and template that has latencies.
+   */
+  public List<LatencySnapshot> snapshot() {
+    List<LatencySnapshot> snapshots = new ArrayList<>(histograms.size());
+    histograms.forEach((key, histogram) -> snapshots.add(snapshot(key, histogram)));
+    return snapshots;
+  }
+
+  /**
+   * Returns the percentiles of a single stage, context and template.
+   *
+   * @param stage      The stage.
+   * @param contextId  The context.
+   * @param templateId The template.
+   * @return The snapshot, which has a count of 0 if there are no latencies.
+   */
+  public LatencySnapshot snapshot(Stage stage, Object contextId, Object templateId) {
+    Key key = new Key(stage, contextId, templateId);
+    LatencyHistogram histogram = histograms.get(key);
+    return snapshot(key, histogram != null ? histogram : new LatencyHistogram());
+  }
+
+  /**
+   * @return The start of a stage, which is passed to {@link #record} when the stage is done.
+   */
+  public long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  private LatencyHistogram histogram(Key key) {
+    LatencyHistogram histogram = histograms.get(key);
+    if (histogram != null) {
+      return histogram;
+    }
+
+    if (histograms.size() >= MAX_HISTOGRAMS) {
+      key = new Key(key.stage, null, null);
+    }
+
+    return histograms.computeIfAbsent(key, (k) -> new LatencyHistogram());
+  }
+
+  private LatencySnapshot snapshot(Key key, LatencyHistogram histogram) {
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    LatencySnapshot latencySnapshot = new LatencySnapshot(key.stage, key.contextId, key.templateId);
+    latencySnapshot.count = snapshot.count();
+    latencySnapshot.max = Duration.ofNanos(snapshot.max());
+    latencySnapshot.mean = Duration.ofNanos(snapshot.mean());
+    latencySnapshot.p50 = Duration.ofNanos(snapshot.percentile(50));
+    latencySnapshot.p90 = Duration.ofNanos(snapshot.percentile(90));
+    latencySnapshot.p99 = Duration.ofNanos(snapshot.percentile(99));
+    latencySnapshot.p999 = Duration.ofNanos(snapshot.percentile(99.9));
+    return latencySnapshot;
+  }
+
+  private record Key(Stage stage, Object contextId, Object templateId) {
+  }
+}
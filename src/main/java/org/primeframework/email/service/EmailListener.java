@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.List;
+
+import org.primeframework.email.domain.EmailEvent;
+
+/**
+ * Listens to the events in the sending of emails. Listeners are registered with Guice (see {@link
+ * org.primeframework.email.guice.EmailModule#bindEmailListeners()}) and are called by the {@link EmailEventDispatcher}
+ * on its own thread, with the events in batches.
+ *
+ * @author Brian Pontarelli
+ */
+public interface EmailListener {
+  /**
+   * Called when an email could not be sent.
+   *
+   * @param event The event.
+   */
+  default void failed(EmailEvent event) {
+  }
+
+  /**
+   * Handles a batch of events. The default calls the method of each event's type, one after another. Override this to
+   * handle the events in bulk, for example to update the delivery state of the emails in a single database call.
+   *
+   * @param events The events, in the order they happened. The list can't be modified, but it can be kept after the call.
+   */
+  default void handle(List<EmailEvent> events) {
+    for (EmailEvent event : events) {
+      switch (event.type) {
+        case FAILED -> failed(event);
+        case QUEUED -> queued(event);
+        case RETRIED -> retried(event);
+        case SENT -> sent(event);
+      }
+    }
+  }
+
+  /**
+   * Called when an email was accepted to be sent later.
+   *
+   * @param event The event.
+   */
+  default void queued(EmailEvent event) {
+  }
+
+  /**
+   * Called when an attempt to send an email failed and the email will be sent again.
+   *
+   * @param event The event.
+   */
+  default void retried(EmailEvent event) {
+  }
+
+  /**
+   * Called when an email was sent.
+   *
+   * @param event The event, which has the latency and the response of the SMTP server.
+   */
+  default void sent(EmailEvent event) {
+  }
+}
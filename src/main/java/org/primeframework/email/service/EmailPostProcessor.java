@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import org.primeframework.email.domain.BaseResult;
+import org.primeframework.email.domain.Email;
+
+/**
+ * Changes the rendered email before it is previewed or sent, for example to inline the CSS of the HTML body.
+ *
+ * @author Brian Pontarelli
+ */
+public interface EmailPostProcessor {
+  /**
+   * A post processor that leaves emails as they are.
+   */
+  EmailPostProcessor NONE = (email, baseResult) -> {
+  };
+
+  /**
+   * Processes the rendered email.
+   *
+   * @param email      The rendered email.
+   * @param baseResult The base result that errors are added to.
+   */
+  void process(Email email, BaseResult baseResult);
+}
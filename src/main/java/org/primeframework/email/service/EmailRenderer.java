@@ -37,4 +37,21 @@ public interface EmailRenderer {
    */
   void render(ParsedEmailTemplates parsedEmailTemplates, Email email, Map<String, Object> parameters,
               BaseResult baseResult);
+
+  /**
+   * Renders the templates like {@link #render} except that the HTML body is not rendered into a String. Instead, the
+   * renderer sets the {@link Email#htmlContent} so that the transport can render the HTML directly into the MIME
+   * message when it is sent. This means that errors in the HTML template are not known until the email is sent.
+   * <p>
+   * Renderers that don't support streaming render everything up front, which is the default.
+   *
+   * @param parsedEmailTemplates The parsed templates (if any).
+   * @param email                The email data collected from the EmailBuilder.
+   * @param parameters           The parameters to use when rendering.
+   * @param baseResult           The base result that errors are added to.
+   */
+  default void renderStreaming(ParsedEmailTemplates parsedEmailTemplates, Email email, Map<String, Object> parameters,
+                               BaseResult baseResult) {
+    render(parsedEmailTemplates, email, parameters, baseResult);
+  }
 }
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.PreparedEmail;
+import org.primeframework.email.domain.SendResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends the emails that are published to it and publishes the result of each email. The processor only requests as many
+ * emails as it can send at once, and it requests the next one when a send completes. If the subscribers of the results
+ * fall behind, publishing the results waits, which means the processor stops requesting emails as well. This way a
+ * publisher of emails is paced to the rate at which they are actually sent.
+ * <p>
+ * Each of the concurrent sends uses its own {@link EmailConnection} of the transport. If a connection can't be opened,
+ * the subscription is cancelled, the emails that were already published are sent by the other connections (or failed
+ * if none are left) and the subscribers of the results are completed with the error.
+ *
+ * @author Brian Pontarelli
+ */
+public class EmailSendProcessor implements Flow.Processor<Email, SendResult> {
+  private static final Email END_OF_EMAILS = new Email();
+
+  private static final Logger logger = LoggerFactory.getLogger(EmailSendProcessor.class);
+
+  private final int capacity;
+
+  private final Object contextId;
+
+  private final BlockingQueue<Email> emails;
+
+  private final EmailTransportService emailTransportService;
+
+  private final SubmissionPublisher<SendResult> results;
+
+  private final AtomicInteger running = new AtomicInteger();
+
+  private volatile Throwable error;
+
+  private boolean stopped;
+
+  private Flow.Subscription subscription;
+
+  /**
+   * Constructs the processor.
+   *
+   * @param emailTransportService The transport that sends the emails.
+   * @param contextId             The context id that helps determine how the emails are processed.
+   * @param capacity              The number of emails that are sent at once.
+   */
+  public EmailSendProcessor(EmailTransportService emailTransportService, Object contextId, int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("The capacity must be at least 1");
+    }
+
+    this.emailTransportService = emailTransportService;
+    this.contextId = contextId;
+    this.capacity = capacity;
+    this.emails = new ArrayBlockingQueue<>(capacity + capacity);
+    this.results = new SubmissionPublisher<>();
+  }
+
+  /**
+   * Sends the remaining emails and then completes the subscribers of the results.
+   */
+  @Override
+  public void onComplete() {
+    stop();
+  }
+
+  /**
+   * Sends the remaining emails and then completes the subscribers of the results with the error.
+   */
+  @Override
+  public void onError(Throwable throwable) {
+    error = throwable;
+    stop();
+  }
+
+  @Override
+  public void onNext(Email email) {
+    // Never blocks, since no more emails are requested than there are senders
+    if (!emails.offer(email)) {
+      logger.error("An email was published to the EmailSendProcessor without being requested. The email was not sent.");
+    }
+  }
+
+  @Override
+  public synchronized void onSubscribe(Flow.Subscription subscription) {
+    if (this.subscription != null) {
+      subscription.cancel();
+      return;
+    }
+
+    this.subscription = subscription;
+    running.set(capacity);
+    for (int i = 0; i < capacity; i++) {
+      Thread.ofVirtual().name("prime-email-send-processor-" + i).start(this::send);
+    }
+
+    subscription.request(capacity);
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super SendResult> subscriber) {
+    results.subscribe(subscriber);
+  }
+
+  /**
+   * Stops the processor after a connection failed.
+   */
+  private synchronized void fail(Throwable throwable) {
+    if (error == null) {
+      error = throwable;
+    }
+
+    subscription.cancel();
+    stop();
+  }
+
+  private synchronized void request() {
+    subscription.request(1);
+  }
+
+  private void send() {
+    try (EmailConnection connection = emailTransportService.connect(contextId)) {
+      Email email;
+      while ((email = Uninterruptibles.takeUninterruptibly(emails)) != END_OF_EMAILS) {
+        SendResult sendResult = new SendResult(email);
+        try {
+          PreparedEmail preparedEmail = emailTransportService.prepare(contextId, email, sendResult);
+          if (sendResult.wasSuccessful()) {
+            connection.send(preparedEmail);
+          }
+        } catch (RuntimeException e) {
+          logger.error("Unable to send an email published to the EmailSendProcessor", e);
+          sendResult.transportError = "Unable to send the email.";
+        }
+
+        // Waits while the subscribers of the results are behind, which holds back the next request
+        results.submit(sendResult);
+        request();
+      }
+    } catch (RuntimeException e) {
+      logger.error("Unable to connect to send the emails published to the EmailSendProcessor", e);
+      fail(e);
+    } finally {
+      if (running.decrementAndGet() == 0) {
+        // The emails that were published after the last connection failed
+        Email email;
+        while ((email = emails.poll()) != null) {
+          if (email != END_OF_EMAILS) {
+            SendResult sendResult = new SendResult(email);
+            sendResult.transportError = "Unable to connect to send the email. The email was therefore not sent.";
+            results.submit(sendResult);
+          }
+        }
+
+        if (error != null) {
+          results.closeExceptionally(error);
+        } else {
+          results.close();
+        }
+      }
+    }
+  }
+
+  private synchronized void stop() {
+    // A failed connection stops the processor before the publisher completes it
+    if (stopped) {
+      return;
+    }
+
+    stopped = true;
+
+    // Without a subscription there are no senders to finish the results
+    if (subscription == null) {
+      if (error != null) {
+        results.closeExceptionally(error);
+      } else {
+        results.close();
+      }
+
+      return;
+    }
+
+    for (int i = 0; i < capacity; i++) {
+      Uninterruptibles.putUninterruptibly(emails, END_OF_EMAILS);
+    }
+  }
+}
@@ -15,11 +15,16 @@
  */
 package org.primeframework.email.service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
+import org.primeframework.email.domain.BulkSendResult;
+import org.primeframework.email.domain.Email;
 import org.primeframework.email.domain.RawEmailTemplates;
+import org.primeframework.email.domain.SendResult;
+import org.primeframework.email.domain.ValidateRequest;
 import org.primeframework.email.domain.ValidateResult;
 
 /**
@@ -113,6 +118,61 @@ public interface EmailService {
    */
   SendEmailBuilder send(Object contextId, Object templateId, List<Locale> preferredLanguages);
 
+  /**
+   * Sends an email to each of many recipients using the email template loaded by passing the templateId to the {@link
+   * EmailTemplateLoader}. The recipients are read as the emails are sent and the result of each email is passed to the
+   * result consumer, so that large campaigns are never held in memory.
+   * <p>
+   * You would call this method like this:
+   * <p>
+   * <pre>
+   * BulkSendResult result = emailService.sendBulk(null, "newsletter", emptyList())
+   *                                     .from("info@example.com")
+   *                                     .withTemplateParameter("issue", issue)
+   *                                     .withRecipients(subscribers.map(this::toRecipient))
+   *                                     .onResult(this::record)
+   *                                     .now();
+   * </pre>
+   * <p>
+   * The default implementation sends the emails one after another using {@link #send(Object, Object, List)}.
+   *
+   * @param contextId          The context id that helps determine how the emails are processed.
+   * @param templateId         (Required) The id of the template. The implementation will dictate the type of template
+   *                           and how they are stored.
+   * @param preferredLanguages The preferred languages to send the emails in.
+   * @return The BulkEmailBuilder that is used to build up the email configuration, parameters and recipients.
+   */
+  default BulkEmailBuilder sendBulk(Object contextId, Object templateId, List<Locale> preferredLanguages) {
+    return new BulkEmailBuilder(contextId, templateId, new Email(), (bulkEmailBuilder) -> {
+      BulkSendResult bulkSendResult = new BulkSendResult();
+      SharedTemplateParameters sharedParameters = new SharedTemplateParameters(bulkEmailBuilder.getParameters());
+      bulkEmailBuilder.getRecipients().forEachRemaining((recipient) -> {
+        SendEmailBuilder sendEmailBuilder = send(contextId, templateId, preferredLanguages)
+            .from(bulkEmailBuilder.getFrom())
+            .replyTo(bulkEmailBuilder.getReplyTo())
+            .withSubject(bulkEmailBuilder.getSubject())
+            .withHeaders(bulkEmailBuilder.getHeaders())
+            .withSharedTemplateParameters(sharedParameters)
+            .withTemplateParameters(recipient.parameters);
+        sendEmailBuilder.getAttachments().addAll(bulkEmailBuilder.getAttachments());
+        sendEmailBuilder.getBcc().addAll(bulkEmailBuilder.getBcc());
+        sendEmailBuilder.getCc().addAll(bulkEmailBuilder.getCc());
+        sendEmailBuilder.getTo().addAll(recipient.to);
+
+        SendResult sendResult = sendEmailBuilder.now();
+        if (sendResult.wasSuccessful()) {
+          bulkSendResult.sent++;
+        } else {
+          bulkSendResult.failed++;
+        }
+
+        bulkEmailBuilder.getResultConsumer().accept(sendResult);
+      });
+
+      return bulkSendResult;
+    });
+  }
+
   /**
    * Validates multiple FreeMarker templates. This will throw an EmailTemplateException that contains all of the errors
    * encountered in each of the templates while parsing and rendering them.
@@ -140,4 +200,21 @@ public interface EmailService {
    * @return The ValidateResult which contains any errors that were found.
    */
   ValidateResult validate(Object contextId, RawEmailTemplates rawEmailTemplates, Map<String, Object> parameters);
-}
\ No newline at end of file
+
+  /**
+   * Validates many sets of templates at once, for example every variant of a template. The default implementation
+   * validates them one after another using {@link #validate(Object, RawEmailTemplates, Map)}.
+   *
+   * @param contextId        The context id that helps determine how the email is processed.
+   * @param validateRequests (Required) The templates to validate and the parameters used to render each of them.
+   * @return A ValidateResult for each request, in the same order as the requests.
+   */
+  default List<ValidateResult> validate(Object contextId, List<ValidateRequest> validateRequests) {
+    List<ValidateResult> results = new ArrayList<>(validateRequests.size());
+    for (ValidateRequest validateRequest : validateRequests) {
+      results.add(validate(contextId, validateRequest.rawEmailTemplates, validateRequest.parameters));
+    }
+
+    return results;
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+/**
+ * A task of the email executor that knows how many emails it sends and how many bytes of content they have, which the
+ * {@link EmailExecutor} reports as the queued bytes and the send throughput. Other tasks count as a single email
+ * without content.
+ *
+ * @author Brian Pontarelli
+ */
+public interface EmailTask extends Runnable {
+  /**
+   * @return The size of the content of the emails.
+   */
+  long bytes();
+
+  /**
+   * @return The number of emails the task sends.
+   */
+  int emails();
+}
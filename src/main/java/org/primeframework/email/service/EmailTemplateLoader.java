@@ -49,4 +49,18 @@ public interface EmailTemplateLoader {
    * @return The parsed templates.
    */
   ParsedEmailTemplates parse(RawEmailTemplates rawEmailTemplates, BaseResult baseResult);
+
+  /**
+   * Parses the templates using FreeMarker and a cache that is shared with other calls, so that identical sources are
+   * only parsed once. Loaders that don't support the cache parse the templates every time, which is the default.
+   *
+   * @param rawEmailTemplates  The raw email templates.
+   * @param baseResult         The base result that errors are added to.
+   * @param templateParseCache The shared cache.
+   * @return The parsed templates.
+   */
+  default ParsedEmailTemplates parse(RawEmailTemplates rawEmailTemplates, BaseResult baseResult,
+                                     TemplateParseCache templateParseCache) {
+    return parse(rawEmailTemplates, baseResult);
+  }
 }
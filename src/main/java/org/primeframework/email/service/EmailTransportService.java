@@ -15,7 +15,11 @@
  */
 package org.primeframework.email.service;
 
+import java.time.Instant;
+import java.util.concurrent.Flow;
+
 import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.PreparedEmail;
 import org.primeframework.email.domain.SendResult;
 
 /**
@@ -24,6 +28,48 @@ import org.primeframework.email.domain.SendResult;
  * @author Brian Pontarelli
  */
 public interface EmailTransportService {
+  /**
+   * The transport error of the emails that are sent at a specific time when that isn't supported.
+   */
+  String SEND_AT_UNSUPPORTED = "Sending emails at a specific time isn't supported. The email was therefore not sent.";
+
+  /**
+   * Opens a connection that sends many emails one after another, for example the emails of a bulk send. The default
+   * connection sends each email using {@link #sendEmail(Object, Email, SendResult)}.
+   *
+   * @param contextId The context id that helps determine how the emails are processed.
+   * @return The connection, which must be closed once all of the emails have been sent.
+   */
+  default EmailConnection connect(Object contextId) {
+    return (preparedEmail) -> sendEmail(contextId, preparedEmail.email, preparedEmail.sendResult);
+  }
+
+  /**
+   * Creates a processor that sends the emails published to it and publishes their results. The processor requests only
+   * as many emails as it has capacity to send, which paces the publisher of the emails to the rate at which they are
+   * sent. See {@link EmailSendProcessor}.
+   *
+   * @param contextId The context id that helps determine how the emails are processed.
+   * @param capacity  The number of emails that are sent at once.
+   * @return The processor.
+   */
+  default Flow.Processor<Email, SendResult> processor(Object contextId, int capacity) {
+    return new EmailSendProcessor(this, contextId, capacity);
+  }
+
+  /**
+   * Builds the message of an email so that it can be sent by an {@link EmailConnection}. This can be called by many
+   * threads at once. The default doesn't build anything and leaves it to the connection.
+   *
+   * @param contextId  The context id that helps determine how the email is processed.
+   * @param email      The email to prepare.
+   * @param sendResult The send result where errors are stored.
+   * @return The prepared email.
+   */
+  default PreparedEmail prepare(Object contextId, Email email, SendResult sendResult) {
+    return new PreparedEmail(email, sendResult, null);
+  }
+
   /**
    * Sends an email using some SMTP transport mechanism. This sends the email immediately.
    *
@@ -45,6 +91,21 @@ public interface EmailTransportService {
   void sendEmail(Object contextId, Email email, SendResult sendResult,
                  MessagingExceptionHandler messagingExceptionHandler);
 
+  /**
+   * Sends an email at a specific time. This returns control immediately to the caller and the {@link SendResult#future}
+   * completes once the email has been sent. Cancelling the future before the email is due cancels the send. The default
+   * implementation doesn't support scheduled sends and sets the transport error of the send result to {@link
+   * #SEND_AT_UNSUPPORTED}.
+   *
+   * @param contextId  The context id that helps determine how the email is processed.
+   * @param email      The email to send.
+   * @param sendResult The send result where errors and emails are stored.
+   * @param instant    The time at which the email is sent.
+   */
+  default void sendEmailAt(Object contextId, Email email, SendResult sendResult, Instant instant) {
+    sendResult.transportError = SEND_AT_UNSUPPORTED;
+  }
+
   /**
    * Sends an email using some SMTP transport mechanism. This will always send the message asynchronously and return
    * control immediately to the caller.
@@ -15,17 +15,25 @@
  */
 package org.primeframework.email.service;
 
+import com.google.inject.Inject;
+import freemarker.template.ObjectWrapper;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
+import org.primeframework.email.config.EmailConfiguration;
 import org.primeframework.email.domain.BaseResult;
 import org.primeframework.email.domain.Email;
 import org.primeframework.email.domain.EmailAddress;
 import org.primeframework.email.domain.ParsedEmailAddress;
 import org.primeframework.email.domain.ParsedEmailTemplates;
+import org.primeframework.email.service.EmailJfrEvents.RenderEvent;
 
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * An implementation of the email template loader that loads FreeMarker templates from the file system. The location of
@@ -33,32 +41,146 @@ import java.util.Map;
  *
  * @author Brian Pontarelli
  */
-public class FreeMarkerEmailRenderer implements EmailRenderer {
+public class FreeMarkerEmailRenderer implements EmailRenderer, AutoCloseable {
+  private final ExecutorService executorService;
+
+  // True if the executor was created by this renderer, which means it is shut down when the renderer is closed
+  private final boolean ownsExecutorService;
+
+  private final RenderCache renderCache;
+
+  private final RenderLimits renderLimits;
+
+  public FreeMarkerEmailRenderer() {
+    this(null, null);
+  }
+
+  /**
+   * Constructs a renderer from the configuration. When parallel rendering is enabled, the renderer creates its own
+   * executor, which is shut down by {@link #close()}.
+   *
+   * @param emailConfiguration The configuration.
+   */
+  @Inject
+  public FreeMarkerEmailRenderer(EmailConfiguration emailConfiguration) {
+    this(emailConfiguration.parallelRendering() ? Executors.newVirtualThreadPerTaskExecutor() : null,
+        emailConfiguration.renderCacheSize() > 0 ? new RenderCache(emailConfiguration.renderCacheSize()) : null,
+        new RenderLimits(emailConfiguration.renderOutputLimit(), emailConfiguration.renderTimeLimit()),
+        emailConfiguration.parallelRendering());
+  }
+
+  /**
+   * Constructs a renderer that renders the HTML, subject and text templates of each email concurrently using the given
+   * executor. The email addresses are rendered on the calling thread in the meantime.
+   *
+   * @param executorService The executor used to render the parts of the email.
+   */
+  public FreeMarkerEmailRenderer(ExecutorService executorService) {
+    this(executorService, null);
+  }
+
+  /**
+   * Constructs a renderer that optionally renders the parts of each email concurrently and optionally reuses the output
+   * of parts that were already rendered with the same parameter values.
+   *
+   * @param executorService The executor used to render the parts of the email, or null to render them on the calling
+   *                        thread.
+   * @param renderCache     The cache of rendered parts, or null to render every part.
+   */
+  public FreeMarkerEmailRenderer(ExecutorService executorService, RenderCache renderCache) {
+    this(executorService, renderCache, RenderLimits.UNLIMITED);
+  }
+
+  /**
+   * Constructs a renderer that also limits the output and the time of each template part it renders.
+   *
+   * @param executorService The executor used to render the parts of the email, or null to render them on the calling
+   *                        thread.
+   * @param renderCache     The cache of rendered parts, or null to render every part.
+   * @param renderLimits    The limits of each part.
+   */
+  public FreeMarkerEmailRenderer(ExecutorService executorService, RenderCache renderCache, RenderLimits renderLimits) {
+    this(executorService, renderCache, renderLimits, false);
+  }
+
+  private FreeMarkerEmailRenderer(ExecutorService executorService, RenderCache renderCache, RenderLimits renderLimits,
+                                  boolean ownsExecutorService) {
+    this.executorService = executorService;
+    this.ownsExecutorService = ownsExecutorService;
+    this.renderCache = renderCache;
+    this.renderLimits = renderLimits;
+  }
+
+  /**
+   * Shuts down the executor that the renderer created for parallel rendering. An executor that was passed to the
+   * constructor belongs to the caller and is left running.
+   */
+  @Override
+  public void close() {
+    if (ownsExecutorService) {
+      executorService.shutdown();
+    }
+  }
+
   @Override
   public void render(ParsedEmailTemplates parsedEmailTemplates, Email email, Map<String, Object> parameters,
                      BaseResult baseResult) {
+    render(parsedEmailTemplates, email, parameters, baseResult, false);
+  }
+
+  @Override
+  public void renderStreaming(ParsedEmailTemplates parsedEmailTemplates, Email email, Map<String, Object> parameters,
+                              BaseResult baseResult) {
+    render(parsedEmailTemplates, email, parameters, baseResult, true);
+  }
+
+  protected void render(ParsedEmailTemplates parsedEmailTemplates, Email email, Map<String, Object> parameters,
+                        BaseResult baseResult, boolean streamHtml) {
+    // Every part is rendered with the same model so that each parameter is only wrapped once per email
+    LayeredTemplateHashModel model = model(parameters, objectWrapper(parsedEmailTemplates));
+
+    Future<RenderedPart> html = null;
+    Future<RenderedPart> subject = null;
+    Future<RenderedPart> text = null;
+    if (executorService != null) {
+      if (email.html == null && parsedEmailTemplates.html != null && !streamHtml) {
+        html = submit(parsedEmailTemplates.html, model, "html");
+      }
+      if (email.subject == null && parsedEmailTemplates.subject != null) {
+        subject = submit(parsedEmailTemplates.subject, model, "subject");
+      }
+      if (email.text == null && parsedEmailTemplates.text != null) {
+        text = submit(parsedEmailTemplates.text, model, "text");
+      }
+    }
+
     if (email.from == null && parsedEmailTemplates.from != null) {
-      email.from = renderEmailAddress(parsedEmailTemplates.from, parameters, "from", baseResult);
+      email.from = renderEmailAddress(parsedEmailTemplates.from, model, "from", baseResult);
     }
 
-    parsedEmailTemplates.bcc.forEach((bcc) -> email.bcc.add(renderEmailAddress(bcc, parameters, "bcc", baseResult)));
-    parsedEmailTemplates.cc.forEach((cc) -> email.bcc.add(renderEmailAddress(cc, parameters, "cc", baseResult)));
-    parsedEmailTemplates.to.forEach((to) -> email.bcc.add(renderEmailAddress(to, parameters, "to", baseResult)));
+    parsedEmailTemplates.bcc.forEach((bcc) -> email.bcc.add(renderEmailAddress(bcc, model, "bcc", baseResult)));
+    parsedEmailTemplates.cc.forEach((cc) -> email.bcc.add(renderEmailAddress(cc, model, "cc", baseResult)));
+    parsedEmailTemplates.to.forEach((to) -> email.bcc.add(renderEmailAddress(to, model, "to", baseResult)));
 
     if (email.html == null && parsedEmailTemplates.html != null) {
-      email.html = callTemplate(parsedEmailTemplates.html, parameters, "html", baseResult);
+      if (streamHtml) {
+        Template template = parsedEmailTemplates.html;
+        email.htmlContent = (writer) -> renderLimits.process(template, model.forObjectWrapper(template.getObjectWrapper()), writer);
+      } else {
+        email.html = callTemplate(html, parsedEmailTemplates.html, model, "html", baseResult);
+      }
     }
 
     if (email.replyTo == null) {
-      email.replyTo = renderEmailAddress(parsedEmailTemplates.replyTo, parameters, "replyTo", baseResult);
+      email.replyTo = renderEmailAddress(parsedEmailTemplates.replyTo, model, "replyTo", baseResult);
     }
 
     if (email.subject == null && parsedEmailTemplates.subject != null) {
-      email.subject = callTemplate(parsedEmailTemplates.subject, parameters, "subject", baseResult);
+      email.subject = callTemplate(subject, parsedEmailTemplates.subject, model, "subject", baseResult);
     }
 
     if (email.text == null && parsedEmailTemplates.text != null) {
-      email.text = callTemplate(parsedEmailTemplates.text, parameters, "text", baseResult);
+      email.text = callTemplate(text, parsedEmailTemplates.text, model, "text", baseResult);
     }
   }
 
@@ -76,24 +198,170 @@ public class FreeMarkerEmailRenderer implements EmailRenderer {
       return null;
     }
 
-    StringWriter writer = new StringWriter();
+    return callTemplate(template, model(parameters, template.getObjectWrapper()), part, baseResult);
+  }
+
+  /**
+   * Processes the FreeMarker template using a model that was already created for the email.
+   *
+   * @param template   The FreeMaker template.
+   * @param model      The model of the parameters that are passed to the template.
+   * @param baseResult The base result where errors are added.
+   * @return The String result of the processing the template.
+   */
+  protected String callTemplate(Template template, LayeredTemplateHashModel model, String part,
+                                BaseResult baseResult) {
+    if (template == null) {
+      return null;
+    }
+
+    RenderEvent event = new RenderEvent();
+    event.begin();
+    String outcome = EmailJfrEvents.FAILED;
+    String output = null;
+    try {
+      LayeredTemplateHashModel templateModel = model.forObjectWrapper(template.getObjectWrapper());
+      RenderCache.Recording recording = null;
+      if (renderCache != null) {
+        output = renderCache.get(template, templateModel);
+        if (output != null) {
+          outcome = EmailJfrEvents.CACHED;
+          return output;
+        }
+
+        recording = renderCache.record(template, templateModel);
+      }
+
+      StringWriter writer = new StringWriter();
+      try {
+        renderLimits.process(template, recording != null ? recording : templateModel, writer);
+      } catch (TemplateException e) {
+        outcome = EmailJfrEvents.RENDER_ERROR;
+        baseResult.renderErrors.put(part, e);
+        output = writer.toString();
+        return output;
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+
+      output = writer.toString();
+      if (recording != null) {
+        renderCache.put(recording, output);
+      }
+
+      outcome = EmailJfrEvents.SUCCESS;
+      return output;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.bytes = EmailJfrEvents.utf8Length(output);
+        event.outcome = outcome;
+        event.part = part;
+        event.commit();
+      }
+    }
+  }
+
+  /**
+   * @return The limits of each template part that is rendered.
+   */
+  public RenderLimits getRenderLimits() {
+    return renderLimits;
+  }
+
+  /**
+   * Returns the result of a part that was submitted to the executor, or renders the part on the calling thread if it
+   * wasn't. The errors of submitted parts are merged into the base result here, and the errors of a result keep the
+   * order in which they were added, so the errors are in the same order regardless of the order in which the parts
+   * finish.
+   */
+  private String callTemplate(Future<RenderedPart> future, Template template, LayeredTemplateHashModel model,
+                              String part, BaseResult baseResult) {
+    if (future == null) {
+      return callTemplate(template, model, part, baseResult);
+    }
+
     try {
-      template.process(parameters, writer);
-    } catch (TemplateException e) {
-      baseResult.renderErrors.put(part, e);
-    } catch (IOException e) {
+      RenderedPart renderedPart = future.get();
+      baseResult.renderErrors.putAll(renderedPart.renderErrors);
+      return renderedPart.output;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
       throw new IllegalStateException(e);
     }
+  }
+
+  /**
+   * Layered parameters reuse the models of their shared parameters. Other parameters are layered over nothing.
+   */
+  private LayeredTemplateHashModel model(Map<String, Object> parameters, ObjectWrapper objectWrapper) {
+    if (parameters instanceof LayeredParameters layeredParameters) {
+      return layeredParameters.toTemplateModel(objectWrapper);
+    }
+
+    return new LayeredTemplateHashModel(parameters, SharedTemplateParameters.EMPTY, objectWrapper);
+  }
+
+  /**
+   * The templates of an email are parsed by the same FreeMarker Configuration, so the ObjectWrapper of any of them is
+   * the one used to create the model. Nearly every email has an HTML, subject or text template, so the lookup normally
+   * ends at the first check. This is null if the email has no templates.
+   */
+  private ObjectWrapper objectWrapper(ParsedEmailTemplates parsedEmailTemplates) {
+    Template template = parsedEmailTemplates.html != null ? parsedEmailTemplates.html :
+        parsedEmailTemplates.subject != null ? parsedEmailTemplates.subject : parsedEmailTemplates.text;
+    if (template != null) {
+      return template.getObjectWrapper();
+    }
+
+    ObjectWrapper objectWrapper = objectWrapper(parsedEmailTemplates.from);
+    if (objectWrapper == null) {
+      objectWrapper = objectWrapper(parsedEmailTemplates.replyTo);
+    }
+    for (int i = 0; objectWrapper == null && i < parsedEmailTemplates.to.size(); i++) {
+      objectWrapper = objectWrapper(parsedEmailTemplates.to.get(i));
+    }
+    for (int i = 0; objectWrapper == null && i < parsedEmailTemplates.cc.size(); i++) {
+      objectWrapper = objectWrapper(parsedEmailTemplates.cc.get(i));
+    }
+    for (int i = 0; objectWrapper == null && i < parsedEmailTemplates.bcc.size(); i++) {
+      objectWrapper = objectWrapper(parsedEmailTemplates.bcc.get(i));
+    }
+
+    return objectWrapper;
+  }
 
-    return writer.toString();
+  private ObjectWrapper objectWrapper(ParsedEmailAddress parsedEmailAddress) {
+    return parsedEmailAddress != null && parsedEmailAddress.display != null ? parsedEmailAddress.display.getObjectWrapper() : null;
   }
 
-  private EmailAddress renderEmailAddress(ParsedEmailAddress parsedEmailAddress, Map<String, Object> parameters,
+  private EmailAddress renderEmailAddress(ParsedEmailAddress parsedEmailAddress, LayeredTemplateHashModel model,
                                           String part, BaseResult baseResult) {
     if (parsedEmailAddress != null) {
-      return new EmailAddress(parsedEmailAddress.address, callTemplate(parsedEmailAddress.display, parameters, part, baseResult));
+      return new EmailAddress(parsedEmailAddress.address, callTemplate(parsedEmailAddress.display, model, part, baseResult));
     }
 
     return null;
   }
+
+  private Future<RenderedPart> submit(Template template, LayeredTemplateHashModel model, String part) {
+    return executorService.submit(() -> {
+      RenderedPart renderedPart = new RenderedPart();
+      renderedPart.output = callTemplate(template, model, part, renderedPart);
+      return renderedPart;
+    });
+  }
+
+  /**
+   * Collects the output and errors of a part rendered by the executor until they are merged into the base result.
+   */
+  private static class RenderedPart extends BaseResult {
+    public String output;
+  }
 }
@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A hashed timing wheel that holds a large number of timers with a single thread. The wheel is an array of buckets, one
+ * per tick, and each timer is linked into the bucket of the tick it is due in along with the number of turns of the
+ * wheel that are left. Scheduling and cancelling a timer are O(1) and never wait on the thread of the wheel: new and
+ * cancelled timers are queued and the thread moves them in or out of their buckets on the next tick.
+ * <p>
+ * The items that are due are passed to the consumer in batches, from the thread of the wheel, so the consumer should
+ * hand them off rather than process them itself. Timers are accurate to a tick.
+ *
+ * @author Brian Pontarelli
+ */
+public class HashedTimingWheel<T> implements AutoCloseable {
+  private static final int CLOSED = 2;
+
+  private static final int NEW = 0;
+
+  private static final int STARTED = 1;
+
+  private static final Logger logger = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+  private final Queue<Entry<T>> added = new ConcurrentLinkedQueue<>();
+
+  private final int batchSize;
+
+  private final Queue<Entry<T>> cancelled = new ConcurrentLinkedQueue<>();
+
+  private final Consumer<List<T>> consumer;
+
+  private final int mask;
+
+  private final AtomicInteger pending = new AtomicInteger();
+
+  private final AtomicInteger state = new AtomicInteger(NEW);
+
+  private final long tickNanos;
+
+  private final Bucket<T>[] wheel;
+
+  private volatile long startTime;
+
+  private Thread thread;
+
+  // Only used by the thread of the wheel
+  private long tick;
+
+  /**
+   * Constructs a timing wheel. The thread of the wheel is started when the first timer is scheduled.
+   *
+   * @param tickDuration The duration of a tick, which is the accuracy of the timers.
+   * @param ticks        The number of ticks (buckets) in the wheel, which is rounded up to a power of two. Timers that
+   *                     are due more than a turn of the wheel ahead stay in their bucket for multiple turns.
+   * @param batchSize    The largest number of items that are passed to the consumer at once.
+   * @param consumer     Called with the items that are due.
+   */
+  public HashedTimingWheel(Duration tickDuration, int ticks, int batchSize, Consumer<List<T>> consumer) {
+    if (tickDuration.toMillis() < 1 || ticks < 1 || ticks > (1 << 30) || batchSize < 1) {
+      throw new IllegalArgumentException("The tick duration must be at least a millisecond and the ticks and batch size must be positive");
+    }
+
+    this.tickNanos = tickDuration.toNanos();
+    this.batchSize = batchSize;
+    this.consumer = consumer;
+
+    int size = Integer.highestOneBit(ticks - 1) << 1;
+    wheel = buckets(Math.max(1, size));
+    for (int i = 0; i < wheel.length; i++) {
+      wheel[i] = new Bucket<>();
+    }
+
+    mask = wheel.length - 1;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> Bucket<T>[] buckets(int size) {
+    return (Bucket<T>[]) new Bucket<?>[size];
+  }
+
+  /**
+   * Stops the thread of the wheel. The timers that are pending are dropped, use {@link #stop()} to handle their items.
+   */
+  @Override
+  public void close() {
+    stop();
+  }
+
+  /**
+   * @return The number of timers that are neither due nor cancelled.
+   */
+  public int pending() {
+    return pending.get();
+  }
+
+  /**
+   * Schedules an item.
+   *
+   * @param item    The item that is passed to the consumer once it is due.
+   * @param instant The time the item is due. Items that are due already are passed to the consumer on the next tick.
+   * @return The timeout, which can be used to cancel the timer.
+   * @throws IllegalStateException If the wheel is closed.
+   */
+  public Timeout schedule(T item, Instant instant) {
+    start();
+
+    long delay = Math.max(0, Duration.between(Instant.now(), instant).toNanos());
+    Entry<T> entry = new Entry<>(this, item, System.nanoTime() - startTime + delay);
+    pending.incrementAndGet();
+    added.add(entry);
+
+    // The wheel was closed while the timer was added, and the timer wasn't drained by the stop method
+    if (state.get() == CLOSED && entry.state.compareAndSet(Entry.WAITING, Entry.CANCELLED)) {
+      pending.decrementAndGet();
+      throw new IllegalStateException("The timing wheel is closed");
+    }
+
+    return entry;
+  }
+
+  /**
+   * Stops the thread of the wheel and cancels the timers that are pending. The items that are handed to the consumer
+   * while the wheel is closing are not returned.
+   *
+   * @return The items of the timers that were pending, which are never passed to the consumer.
+   */
+  public synchronized List<T> stop() {
+    if (state.getAndSet(CLOSED) != STARTED) {
+      return List.of();
+    }
+
+    thread.interrupt();
+    if (thread != Thread.currentThread()) {
+      boolean interrupted = false;
+      while (thread.isAlive()) {
+        try {
+          thread.join();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    // The thread of the wheel is done, so its buckets can be read. Timers that are scheduled while the wheel is closing
+    // are either cancelled here or by the schedule method
+    List<T> items = new ArrayList<>();
+    for (Bucket<T> bucket : wheel) {
+      for (Entry<T> entry = bucket.head; entry != null; entry = entry.next) {
+        drain(entry, items);
+      }
+
+      bucket.head = bucket.tail = null;
+    }
+
+    Entry<T> entry;
+    while ((entry = added.poll()) != null) {
+      drain(entry, items);
+    }
+
+    cancelled.clear();
+    return items;
+  }
+
+  private void drain(Entry<T> entry, List<T> items) {
+    if (entry.state.compareAndSet(Entry.WAITING, Entry.CANCELLED)) {
+      pending.decrementAndGet();
+      items.add(entry.item);
+    }
+  }
+
+  private void expire(Bucket<T> bucket, long deadline, List<T> due) {
+    Entry<T> entry = bucket.head;
+    while (entry != null) {
+      Entry<T> next = entry.next;
+      if (entry.remainingRounds <= 0) {
+        bucket.remove(entry);
+        if (entry.deadline <= deadline && entry.state.compareAndSet(Entry.WAITING, Entry.EXPIRED)) {
+          pending.decrementAndGet();
+          due.add(entry.item);
+        }
+      } else {
+        entry.remainingRounds--;
+      }
+
+      entry = next;
+    }
+  }
+
+  private void run() {
+    List<T> due = new ArrayList<>();
+    while (state.get() == STARTED) {
+      long deadline = waitForNextTick();
+      if (deadline < 0) {
+        return;
+      }
+
+      Entry<T> entry;
+      while ((entry = cancelled.poll()) != null) {
+        if (entry.bucket != null) {
+          entry.bucket.remove(entry);
+        }
+      }
+
+      while ((entry = added.poll()) != null) {
+        if (entry.state.get() != Entry.WAITING) {
+          continue;
+        }
+
+        long calculated = entry.deadline / tickNanos;
+        entry.remainingRounds = (calculated - tick) / wheel.length;
+        wheel[(int) (Math.max(calculated, tick) & mask)].add(entry);
+      }
+
+      expire(wheel[(int) (tick & mask)], deadline, due);
+      tick++;
+
+      for (int i = 0; i < due.size(); i += batchSize) {
+        try {
+          consumer.accept(new ArrayList<>(due.subList(i, Math.min(due.size(), i + batchSize))));
+        } catch (RuntimeException e) {
+          logger.error("The consumer of the timing wheel threw an exception", e);
+        }
+      }
+
+      due.clear();
+    }
+  }
+
+  private synchronized void start() {
+    int current = state.get();
+    if (current == CLOSED) {
+      throw new IllegalStateException("The timing wheel is closed");
+    }
+
+    if (current == NEW) {
+      startTime = System.nanoTime();
+      state.set(STARTED);
+      thread = Thread.ofPlatform().daemon().name("prime-email-timing-wheel").start(this::run);
+    }
+  }
+
+  /**
+   * Sleeps until the end of the current tick.
+   *
+   * @return The time of the end of the tick relative to the start time, or -1 if the wheel was closed.
+   */
+  private long waitForNextTick() {
+    long deadline = tickNanos * (tick + 1);
+    while (true) {
+      long current = System.nanoTime() - startTime;
+      long sleepMillis = TimeUnit.NANOSECONDS.toMillis(deadline - current + 999_999);
+      if (sleepMillis <= 0) {
+        return current;
+      }
+
+      try {
+        Thread.sleep(sleepMillis);
+      } catch (InterruptedException e) {
+        if (state.get() == CLOSED) {
+          return -1;
+        }
+      }
+    }
+  }
+
+  /**
+   * A timer that was scheduled.
+   */
+  public interface Timeout {
+    /**
+     * Cancels the timer.
+     *
+     * @return True if the timer was cancelled, false if it was already due or cancelled.
+     */
+    boolean cancel();
+
+    boolean isCancelled();
+
+    boolean isExpired();
+  }
+
+  private static class Bucket<T> {
+    private Entry<T> head;
+
+    private Entry<T> tail;
+
+    void add(Entry<T> entry) {
+      entry.bucket = this;
+      if (head == null) {
+        head = tail = entry;
+      } else {
+        tail.next = entry;
+        entry.prev = tail;
+        tail = entry;
+      }
+    }
+
+    void remove(Entry<T> entry) {
+      if (entry.prev != null) {
+        entry.prev.next = entry.next;
+      } else {
+        head = entry.next;
+      }
+
+      if (entry.next != null) {
+        entry.next.prev = entry.prev;
+      } else {
+        tail = entry.prev;
+      }
+
+      entry.prev = null;
+      entry.next = null;
+      entry.bucket = null;
+    }
+  }
+
+  private static class Entry<T> implements Timeout {
+    private static final int CANCELLED = 1;
+
+    private static final int EXPIRED = 2;
+
+    private static final int WAITING = 0;
+
+    private final long deadline;
+
+    private final T item;
+
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+
+    private final HashedTimingWheel<T> timingWheel;
+
+    // The fields below are only used by the thread of the wheel
+    private Bucket<T> bucket;
+
+    private Entry<T> next;
+
+    private Entry<T> prev;
+
+    private long remainingRounds;
+
+    Entry(HashedTimingWheel<T> timingWheel, T item, long deadline) {
+      this.timingWheel = timingWheel;
+      this.item = item;
+      this.deadline = deadline;
+    }
+
+    @Override
+    public boolean cancel() {
+      if (!state.compareAndSet(WAITING, CANCELLED)) {
+        return false;
+      }
+
+      timingWheel.pending.decrementAndGet();
+      timingWheel.cancelled.add(this);
+      return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return state.get() == CANCELLED;
+    }
+
+    @Override
+    public boolean isExpired() {
+      return state.get() == EXPIRED;
+    }
+  }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.primeframework.email.domain.BaseResult;
+import org.primeframework.email.domain.Email;
+
+/**
+ * Inlines the CSS of the style elements of the HTML body into the style attributes of the elements it applies to and
+ * minifies the white-space of the HTML. This makes the HTML work in email clients that ignore style elements and makes
+ * the messages smaller.
+ * <p>
+ * The HTML is processed in a single pass. The stylesheets are parsed once and cached by their CSS, which means that the
+ * emails rendered from the same template share the parsed stylesheet and its rule index. CSS that can't be inlined
+ * (i.e. media queries) is left in the first style element. Conditional comments (<code>&lt;!--[if mso]&gt;</code>),
+ * style elements with a media attribute and the contents of pre, textarea and script elements are left as they are.
+ * Emails with streamed HTML are not processed.
+ *
+ * @author Brian Pontarelli
+ */
+public class HtmlEmailPostProcessor implements EmailPostProcessor {
+  private static final Pattern ATTRIBUTE = Pattern.compile("([^\\s=/>\"']+)(?:\\s*=\\s*(\"[^\"]*\"|'[^']*'|[^\\s>\"']+))?");
+
+  private static final Set<String> NOT_STYLED = Set.of("base", "head", "link", "meta", "script", "style", "title");
+
+  private static final Set<String> RAW_TEXT = Set.of("script", "style", "textarea");
+
+  private final boolean inlineCss;
+
+  private final boolean minify;
+
+  private final Cache<String, InlineStylesheet> stylesheets;
+
+  public HtmlEmailPostProcessor() {
+    this(true, true, 100);
+  }
+
+  /**
+   * @param inlineCss         True to inline the CSS.
+   * @param minify            True to minify the white-space.
+   * @param maximumStylesheets The maximum number of parsed stylesheets that are cached.
+   */
+  public HtmlEmailPostProcessor(boolean inlineCss, boolean minify, long maximumStylesheets) {
+    this.inlineCss = inlineCss;
+    this.minify = minify;
+    this.stylesheets = CacheBuilder.newBuilder().maximumSize(maximumStylesheets).build();
+  }
+
+  private static String attribute(String name, List<String[]> attributes) {
+    for (String[] attribute : attributes) {
+      if (attribute[0].equals(name)) {
+        return attribute[1];
+      }
+    }
+
+    return null;
+  }
+
+  private static List<String[]> attributes(String html, int start, int end) {
+    List<String[]> attributes = new ArrayList<>();
+    Matcher matcher = ATTRIBUTE.matcher(html).region(start, end);
+    while (matcher.find()) {
+      String value = matcher.group(2);
+      if (value != null && (value.startsWith("\"") || value.startsWith("'"))) {
+        value = value.substring(1, value.length() - 1);
+      }
+      attributes.add(new String[]{matcher.group(1).toLowerCase(), value, matcher.group()});
+    }
+
+    return attributes;
+  }
+
+  private static int nameEnd(String html, int start) {
+    int end = start;
+    while (end < html.length() && !Character.isWhitespace(html.charAt(end)) && html.charAt(end) != '>' && html.charAt(end) != '/') {
+      end++;
+    }
+
+    return end;
+  }
+
+  private static int rawTextEnd(String html, int start, String name) {
+    for (int i = html.indexOf("</", start); i >= 0; i = html.indexOf("</", i + 2)) {
+      if (html.regionMatches(true, i + 2, name, 0, name.length())) {
+        return i;
+      }
+    }
+
+    return html.length();
+  }
+
+  /**
+   * @return The index after the end of the tag that starts at the given index, which skips quoted attribute values.
+   */
+  private static int tagEnd(String html, int start) {
+    char quote = 0;
+    for (int i = start + 1; i < html.length(); i++) {
+      char c = html.charAt(i);
+      if (quote != 0) {
+        quote = c == quote ? 0 : quote;
+      } else if (c == '"' || c == '\'') {
+        quote = c;
+      } else if (c == '>') {
+        return i + 1;
+      }
+    }
+
+    return html.length();
+  }
+
+  private static boolean isTagStart(String html, int index) {
+    return html.charAt(index) == '<' && index + 1 < html.length() &&
+        (Character.isLetter(html.charAt(index + 1)) || (html.charAt(index + 1) == '/' && index + 2 < html.length() && Character.isLetter(html.charAt(index + 2))));
+  }
+
+  private static void whitespace(String text, StringBuilder out) {
+    int i = 0;
+    while (i < text.length()) {
+      char c = text.charAt(i);
+      if (!Character.isWhitespace(c)) {
+        out.append(c);
+        i++;
+        continue;
+      }
+
+      boolean newline = false;
+      while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+        newline |= text.charAt(i) == '\n';
+        i++;
+      }
+
+      // Runs of white-space that are separated by a removed comment or style element are collapsed as well
+      char last = out.isEmpty() ? 0 : out.charAt(out.length() - 1);
+      if (last == ' ' && newline) {
+        out.setCharAt(out.length() - 1, '\n');
+      } else if (last != ' ' && last != '\n') {
+        out.append(newline ? '\n' : ' ');
+      }
+    }
+  }
+
+  @Override
+  public void process(Email email, BaseResult baseResult) {
+    if (email.html != null) {
+      email.html = process(email.html);
+    }
+  }
+
+  /**
+   * Processes the HTML.
+   *
+   * @param html The HTML.
+   * @return The processed HTML.
+   */
+  public String process(String html) {
+    List<int[]> styleElements = new ArrayList<>();
+    StringBuilder css = new StringBuilder();
+    if (inlineCss) {
+      scan(html, (name, start) -> {
+        if (name.equals("style") && attribute("media", attributes(html, start + 6, tagEnd(html, start) - 1)) == null) {
+          int contentStart = tagEnd(html, start);
+          int contentEnd = rawTextEnd(html, contentStart, "style");
+          int elementEnd = tagEnd(html, contentEnd);
+          css.append(html, contentStart, contentEnd).append('\n');
+          styleElements.add(new int[]{start, elementEnd});
+        }
+      });
+    }
+
+    if (css.isEmpty() && !minify) {
+      return html;
+    }
+
+    InlineStylesheet stylesheet = css.isEmpty() ? null : stylesheets.asMap().computeIfAbsent(css.toString(), InlineStylesheet::new);
+    return rewrite(html, stylesheet, styleElements);
+  }
+
+  private String rewrite(String html, InlineStylesheet stylesheet, List<int[]> styleElements) {
+    StringBuilder out = new StringBuilder(html.length());
+    int preDepth = 0;
+    int styleElement = 0;
+    int index = 0;
+    int text = 0;
+    while (index < html.length()) {
+      int next = html.indexOf('<', index);
+      if (next < 0) {
+        break;
+      }
+
+      if (html.startsWith("<!--", next)) {
+        appendText(html, text, next, preDepth, out);
+        int end = html.indexOf("-->", next + 4);
+        end = end < 0 ? html.length() : end + 3;
+        if (!minify || html.startsWith("<!--[if", next) || html.startsWith("<!--<![endif]", next)) {
+          out.append(html, next, end);
+        }
+        index = text = end;
+        continue;
+      }
+
+      if (!isTagStart(html, next)) {
+        index = next + 1;
+        continue;
+      }
+
+      appendText(html, text, next, preDepth, out);
+      if (styleElement < styleElements.size() && styleElements.get(styleElement)[0] == next) {
+        // The CSS that can't be inlined is kept in place of the first style element
+        if (styleElement == 0 && !stylesheet.getRemainingCss().isEmpty()) {
+          out.append("<style type=\"text/css\">").append(stylesheet.getRemainingCss()).append("</style>");
+        }
+        index = text = styleElements.get(styleElement++)[1];
+        continue;
+      }
+
+      int end = tagEnd(html, next);
+      boolean closing = html.charAt(next + 1) == '/';
+      int nameEnd = nameEnd(html, next + (closing ? 2 : 1));
+      String name = html.substring(next + (closing ? 2 : 1), nameEnd).toLowerCase();
+      if (name.equals("pre")) {
+        preDepth += closing ? -1 : 1;
+      }
+
+      if (closing || stylesheet == null || NOT_STYLED.contains(name)) {
+        out.append(html, next, end);
+      } else {
+        startTag(html, next, nameEnd, end, name, stylesheet, out);
+      }
+
+      index = text = end;
+      if (!closing && RAW_TEXT.contains(name)) {
+        index = text = rawTextEnd(html, end, name);
+        out.append(html, end, index);
+      }
+    }
+
+    appendText(html, text, html.length(), preDepth, out);
+    return out.toString();
+  }
+
+  private void appendText(String html, int start, int end, int preDepth, StringBuilder out) {
+    if (start >= end) {
+      return;
+    }
+
+    if (minify && preDepth <= 0) {
+      whitespace(html.substring(start, end), out);
+    } else {
+      out.append(html, start, end);
+    }
+  }
+
+  /**
+   * Finds the start tags outside of comments and raw text elements.
+   */
+  private void scan(String html, StartTagHandler handler) {
+    int index = 0;
+    while (index < html.length()) {
+      int next = html.indexOf('<', index);
+      if (next < 0) {
+        return;
+      }
+
+      if (html.startsWith("<!--", next)) {
+        int end = html.indexOf("-->", next + 4);
+        index = end < 0 ? html.length() : end + 3;
+        continue;
+      }
+
+      if (!isTagStart(html, next) || html.charAt(next + 1) == '/') {
+        index = next + 1;
+        continue;
+      }
+
+      String name = html.substring(next + 1, nameEnd(html, next + 1)).toLowerCase();
+      handler.handle(name, next);
+      index = tagEnd(html, next);
+      if (RAW_TEXT.contains(name)) {
+        index = rawTextEnd(html, index, name);
+      }
+    }
+  }
+
+  private void startTag(String html, int start, int nameEnd, int end, String name, InlineStylesheet stylesheet,
+                        StringBuilder out) {
+    boolean selfClosing = html.charAt(end - 2) == '/';
+    List<String[]> attributes = attributes(html, nameEnd, end - (selfClosing ? 2 : 1));
+    String classAttribute = attribute("class", attributes);
+    Set<String> classes = new LinkedHashSet<>();
+    if (classAttribute != null) {
+      for (String className : classAttribute.trim().split("\\s+")) {
+        if (!className.isEmpty()) {
+          classes.add(className);
+        }
+      }
+    }
+
+    String style = stylesheet.style(name, attribute("id", attributes), classes, attribute("style", attributes));
+    if (style == null) {
+      out.append(html, start, end);
+      return;
+    }
+
+    out.append(html, start, nameEnd);
+    for (String[] attribute : attributes) {
+      if (!attribute[0].equals("style")) {
+        out.append(' ').append(attribute[2]);
+      }
+    }
+    out.append(" style=\"").append(style).append('"').append(selfClosing ? "/>" : ">");
+  }
+
+  @FunctionalInterface
+  private interface StartTagHandler {
+    void handle(String name, int start);
+  }
+}
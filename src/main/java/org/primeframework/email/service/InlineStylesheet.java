@@ -0,0 +1,432 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A stylesheet parsed for inlining. The rules whose selectors are simple (a tag, classes and an id, such as
+ * <code>td.header</code>) are indexed so that the rules of an element are found without testing every rule. Everything
+ * else (combinators, pseudo-classes, attribute selectors and at-rules such as media queries) can't be inlined and is
+ * kept as the remaining CSS.
+ * <p>
+ * An inline style beats every rule of the stylesheet, so a simple rule is only inlined when none of the remaining rules
+ * that might match the same element sets one of its properties and would win the cascade against it. Otherwise the
+ * simple rule is kept in the remaining CSS as well, in its original place, and the browser resolves the cascade.
+ *
+ * @author Brian Pontarelli
+ */
+public class InlineStylesheet {
+  private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+
+  private static final Pattern COMBINATOR = Pattern.compile("\\s*[\\s>+~]\\s*");
+
+  private static final Pattern CONDITIONAL_AT_RULE = Pattern.compile("@(media|supports|document)\\b", Pattern.CASE_INSENSITIVE);
+
+  private static final Pattern PSEUDO_OR_ATTRIBUTE = Pattern.compile("::?[a-zA-Z-]+|\\[[^]]*]");
+
+  private static final Pattern SIMPLE_SELECTOR = Pattern.compile("([a-zA-Z][a-zA-Z0-9-]*)?((?:[.#][a-zA-Z_-][a-zA-Z0-9_-]*)*)");
+
+  private static final Comparator<Rule> SPECIFICITY = Comparator.<Rule>comparingInt((rule) -> rule.specificity).thenComparingInt((rule) -> rule.order);
+
+  private final Map<String, List<Rule>> rulesByClass = new HashMap<>();
+
+  private final Map<String, List<Rule>> rulesById = new HashMap<>();
+
+  private final Map<String, List<Rule>> rulesByTag = new HashMap<>();
+
+  private final String remainingCss;
+
+  public InlineStylesheet(String css) {
+    css = COMMENT.matcher(css).replaceAll("");
+
+    // The CSS text and the simple rules in the order of the stylesheet, and the rules that can't be inlined
+    List<Object> chunks = new ArrayList<>();
+    List<Rule> remainingRules = new ArrayList<>();
+    int order = 0;
+    int index = 0;
+    while (index < css.length()) {
+      if (Character.isWhitespace(css.charAt(index))) {
+        index++;
+        continue;
+      }
+
+      int open = css.indexOf('{', index);
+      int semicolon = css.indexOf(';', index);
+      if (css.charAt(index) == '@') {
+        int end = semicolon >= 0 && (open < 0 || semicolon < open) ? semicolon + 1 : blockEnd(css, open);
+        chunks.add(css.substring(index, end) + ' ');
+        if (open >= 0 && open < end && CONDITIONAL_AT_RULE.matcher(css).region(index, open).lookingAt()) {
+          order = nestedRules(css.substring(open + 1, end - 1), order, remainingRules);
+        }
+        index = end;
+        continue;
+      }
+
+      if (open < 0) {
+        chunks.add(css.substring(index).trim());
+        break;
+      }
+
+      int close = css.indexOf('}', open);
+      close = close < 0 ? css.length() : close;
+      String selectors = css.substring(index, open).trim();
+      String body = css.substring(open + 1, close).trim();
+      index = close + 1;
+
+      List<String> kept = new ArrayList<>();
+      List<String[]> declarations = declarations(body, true);
+      if (selectors.contains("(")) {
+        kept.add(selectors);
+        remainingRules.add(remainingRule(selectors, declarations, order++));
+      } else {
+        for (String selector : selectors.split(",")) {
+          selector = selector.trim();
+          int ruleOrder = order++;
+          Rule rule = selector.contains("[") ? null : rule(selector, body, declarations, ruleOrder);
+          if (rule == null) {
+            kept.add(selector);
+            remainingRules.add(remainingRule(selector, declarations, ruleOrder));
+          } else {
+            chunks.add(rule);
+          }
+        }
+      }
+
+      if (!kept.isEmpty()) {
+        chunks.add(String.join(",", kept) + '{' + body + '}');
+      }
+    }
+
+    // Keeping a simple rule can in turn stop a less specific one from being inlined, since the inline style would beat it
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (Object chunk : chunks) {
+        if (chunk instanceof Rule rule && !remainingRules.contains(rule) && overridden(rule, remainingRules)) {
+          remainingRules.add(rule);
+          changed = true;
+        }
+      }
+    }
+
+    StringBuilder remaining = new StringBuilder();
+    for (Object chunk : chunks) {
+      if (!(chunk instanceof Rule rule)) {
+        remaining.append(chunk);
+      } else if (remainingRules.contains(rule)) {
+        remaining.append(rule.selector).append('{').append(rule.body).append('}');
+      } else {
+        add(rule);
+      }
+    }
+
+    this.remainingCss = remaining.toString().trim();
+  }
+
+  /**
+   * Parses the declarations of a rule or a style attribute.
+   *
+   * @param body   The declarations.
+   * @param escape True if the values must be escaped for use in an HTML attribute.
+   * @return The property and value of each declaration.
+   */
+  static List<String[]> declarations(String body, boolean escape) {
+    List<String[]> declarations = new ArrayList<>();
+    int start = 0;
+    int depth = 0;
+    char quote = 0;
+    for (int i = 0; i <= body.length(); i++) {
+      char c = i < body.length() ? body.charAt(i) : ';';
+      if (quote != 0) {
+        quote = c == quote ? 0 : quote;
+      } else if (c == '"' || c == '\'') {
+        quote = c;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (c == ';' && depth <= 0) {
+        String declaration = body.substring(start, Math.min(i, body.length()));
+        int colon = declaration.indexOf(':');
+        if (colon > 0) {
+          String value = declaration.substring(colon + 1).trim();
+          if (escape) {
+            value = value.replace("&", "&amp;");
+          }
+          declarations.add(new String[]{declaration.substring(0, colon).trim().toLowerCase(), value.replace("\"", "&quot;")});
+        }
+        start = i + 1;
+      }
+    }
+
+    return declarations;
+  }
+
+  private static int blockEnd(String css, int open) {
+    if (open < 0) {
+      return css.length();
+    }
+
+    int depth = 0;
+    for (int i = open; i < css.length(); i++) {
+      if (css.charAt(i) == '{') {
+        depth++;
+      } else if (css.charAt(i) == '}' && --depth == 0) {
+        return i + 1;
+      }
+    }
+
+    return css.length();
+  }
+
+  private static boolean isImportant(String value) {
+    return value.endsWith("!important");
+  }
+
+  private static void put(Map<String, String> styles, String property, String value) {
+    String existing = styles.get(property);
+    if (existing == null || !isImportant(existing) || isImportant(value)) {
+      styles.put(property, value);
+    }
+  }
+
+  /**
+   * Returns true if two properties might set the same value, which is the case for a shorthand and its longhands such
+   * as <code>margin</code> and <code>margin-top</code>, but also (needlessly) for <code>text-align</code> and
+   * <code>text-decoration</code>.
+   */
+  private static boolean overlap(String property, String other) {
+    return family(property).equals(family(other));
+  }
+
+  private static String family(String property) {
+    if (property.startsWith("-")) {
+      int vendorEnd = property.indexOf('-', 1);
+      property = vendorEnd > 0 ? property.substring(vendorEnd + 1) : property;
+    }
+
+    int dash = property.indexOf('-');
+    return dash > 0 ? property.substring(0, dash) : property;
+  }
+
+  /**
+   * Collects the rules inside of a conditional at-rule such as a media query, which apply whenever the condition holds.
+   *
+   * @return The order of the next rule.
+   */
+  private static int nestedRules(String css, int order, List<Rule> remainingRules) {
+    int index = 0;
+    while (index < css.length()) {
+      int open = css.indexOf('{', index);
+      if (open < 0) {
+        break;
+      }
+
+      int end = blockEnd(css, open);
+      String selectors = css.substring(index, open).trim();
+      if (selectors.startsWith("@")) {
+        if (CONDITIONAL_AT_RULE.matcher(selectors).lookingAt()) {
+          order = nestedRules(css.substring(open + 1, end - 1), order, remainingRules);
+        }
+      } else {
+        List<String[]> declarations = declarations(css.substring(open + 1, end - 1), true);
+        for (String selector : selectors.contains("(") ? new String[]{selectors} : selectors.split(",")) {
+          remainingRules.add(remainingRule(selector.trim(), declarations, order++));
+        }
+      }
+
+      index = end;
+    }
+
+    return order;
+  }
+
+  /**
+   * Returns true if the inline style of a simple rule would beat one of the remaining rules that the cascade lets win.
+   * An important declaration beats a normal one whether it is inline or not, so only declarations of the same
+   * importance are compared.
+   */
+  private static boolean overridden(Rule rule, List<Rule> remainingRules) {
+    for (Rule remainingRule : remainingRules) {
+      boolean wins = remainingRule.specificity > rule.specificity || (remainingRule.specificity == rule.specificity && remainingRule.order > rule.order);
+      if (!wins || !remainingRule.mightMatch(rule)) {
+        continue;
+      }
+
+      for (String[] declaration : rule.declarations) {
+        for (String[] remainingDeclaration : remainingRule.declarations) {
+          if (isImportant(declaration[1]) == isImportant(remainingDeclaration[1]) && overlap(declaration[0], remainingDeclaration[0])) {
+            return true;
+          }
+        }
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Describes a rule that can't be inlined by the element that it selects, which is the last compound of its selector
+   * without its pseudo-classes and attributes. The specificity is only estimated, but never too low. A selector that
+   * can't be understood is treated as one that matches every element and beats every simple rule.
+   */
+  private static Rule remainingRule(String selector, List<String[]> declarations, int order) {
+    Rule anyElement = new Rule(null, null, List.of(), Integer.MAX_VALUE, order, declarations, selector, null);
+    if (selector.contains("(")) {
+      return anyElement;
+    }
+
+    int specificity = 0;
+    Rule subject = null;
+    for (String compound : COMBINATOR.split(selector)) {
+      Matcher matcher = PSEUDO_OR_ATTRIBUTE.matcher(compound);
+      while (matcher.find()) {
+        specificity += matcher.group().startsWith("::") ? 1 : 100;
+      }
+
+      // A compound of only pseudo-classes, attributes or the universal selector matches any element
+      compound = PSEUDO_OR_ATTRIBUTE.matcher(compound).replaceAll("").replace("*", "");
+      subject = compound.isEmpty() ? anyElement : rule(compound, null, declarations, order);
+      if (subject == null) {
+        return anyElement;
+      }
+
+      specificity += compound.isEmpty() ? 0 : subject.specificity;
+    }
+
+    if (subject == null) {
+      return anyElement;
+    }
+
+    return new Rule(subject.tag, subject.id, subject.classes, specificity, order, declarations, selector, null);
+  }
+
+  private static Rule rule(String selector, String body, List<String[]> declarations, int order) {
+    Matcher matcher = SIMPLE_SELECTOR.matcher(selector);
+    if (selector.isEmpty() || !matcher.matches()) {
+      return null;
+    }
+
+    String tag = matcher.group(1) != null ? matcher.group(1).toLowerCase() : null;
+    String id = null;
+    List<String> classes = new ArrayList<>();
+    for (String part : matcher.group(2).split("(?=[.#])")) {
+      if (part.startsWith("#")) {
+        if (id != null) {
+          return null;
+        }
+        id = part.substring(1);
+      } else if (part.startsWith(".")) {
+        classes.add(part.substring(1));
+      }
+    }
+
+    int specificity = (id != null ? 10_000 : 0) + classes.size() * 100 + (tag != null ? 1 : 0);
+    return new Rule(tag, id, classes, specificity, order, declarations, selector, body);
+  }
+
+  /**
+   * @return The CSS that can't be inlined, which is empty if every rule was inlined.
+   */
+  public String getRemainingCss() {
+    return remainingCss;
+  }
+
+  /**
+   * Returns the inline style of an element, which is the declarations of the matching rules in the order of their
+   * specificity followed by the existing style of the element.
+   *
+   * @param tag     The lowercase name of the element.
+   * @param id      The id of the element or null.
+   * @param classes The classes of the element.
+   * @param style   The existing style attribute of the element or null.
+   * @return The style or null if no rules match the element.
+   */
+  public String style(String tag, String id, Set<String> classes, String style) {
+    List<Rule> matches = new ArrayList<>();
+    if (id != null) {
+      match(rulesById.get(id), tag, id, classes, matches);
+    }
+    for (String className : classes) {
+      match(rulesByClass.get(className), tag, id, classes, matches);
+    }
+    match(rulesByTag.get(tag), tag, id, classes, matches);
+
+    if (matches.isEmpty()) {
+      return null;
+    }
+
+    matches.sort(SPECIFICITY);
+    Map<String, String> styles = new LinkedHashMap<>();
+    for (Rule rule : matches) {
+      for (String[] declaration : rule.declarations) {
+        put(styles, declaration[0], declaration[1]);
+      }
+    }
+
+    if (style != null) {
+      for (String[] declaration : declarations(style, false)) {
+        put(styles, declaration[0], declaration[1]);
+      }
+    }
+
+    StringBuilder build = new StringBuilder();
+    styles.forEach((property, value) -> build.append(build.isEmpty() ? "" : ";").append(property).append(':').append(value));
+    return build.toString();
+  }
+
+  private void add(Rule rule) {
+    if (rule.id != null) {
+      rulesById.computeIfAbsent(rule.id, (key) -> new ArrayList<>()).add(rule);
+    } else if (!rule.classes.isEmpty()) {
+      rulesByClass.computeIfAbsent(rule.classes.get(0), (key) -> new ArrayList<>()).add(rule);
+    } else if (rule.tag != null) {
+      rulesByTag.computeIfAbsent(rule.tag, (key) -> new ArrayList<>()).add(rule);
+    }
+  }
+
+  private void match(List<Rule> rules, String tag, String id, Set<String> classes, List<Rule> matches) {
+    if (rules == null) {
+      return;
+    }
+
+    for (Rule rule : rules) {
+      if ((rule.tag == null || rule.tag.equals(tag)) && (rule.id == null || rule.id.equals(id)) && classes.containsAll(rule.classes)) {
+        matches.add(rule);
+      }
+    }
+  }
+
+  private record Rule(String tag, String id, List<String> classes, int specificity, int order,
+                      List<String[]> declarations, String selector, String body) {
+    /**
+     * @return True if an element could match both this rule and the other one, which is only ruled out by a different
+     *     tag or id.
+     */
+    boolean mightMatch(Rule other) {
+      return (tag == null || other.tag == null || tag.equals(other.tag)) && (id == null || other.id == null || id.equals(other.id));
+    }
+  }
+}
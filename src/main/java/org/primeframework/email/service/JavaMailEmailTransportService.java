@@ -15,18 +15,32 @@
  */
 package org.primeframework.email.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
 
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
+import freemarker.template.TemplateException;
 import jakarta.activation.DataHandler;
 import jakarta.activation.DataSource;
+import jakarta.mail.Address;
 import jakarta.mail.BodyPart;
 import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
+import jakarta.mail.NoSuchProviderException;
 import jakarta.mail.Multipart;
 import jakarta.mail.Session;
 import jakarta.mail.Transport;
@@ -35,43 +49,170 @@ import jakarta.mail.internet.MimeBodyPart;
 import jakarta.mail.internet.MimeMessage;
 import jakarta.mail.internet.MimeMultipart;
 import jakarta.mail.util.ByteArrayDataSource;
+import jakarta.mail.util.StreamProvider;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSenderFailedException;
+import org.eclipse.angus.mail.smtp.SMTPTransport;
+import org.primeframework.email.config.DefaultEmailConfiguration;
+import org.primeframework.email.config.EmailConfiguration;
 import org.primeframework.email.domain.Attachment;
 import org.primeframework.email.domain.Email;
 import org.primeframework.email.domain.EmailAddress;
+import org.primeframework.email.domain.EmailEvent;
 import org.primeframework.email.domain.EmailHeader;
+import org.primeframework.email.domain.LatencySnapshot.Stage;
+import org.primeframework.email.domain.PreparedEmail;
 import org.primeframework.email.domain.SendResult;
+import org.primeframework.email.domain.SmtpTrace;
+import org.primeframework.email.domain.StreamingContent;
+import org.primeframework.email.service.EmailJfrEvents.MimeBuildEvent;
+import org.primeframework.email.service.EmailJfrEvents.QueueWaitEvent;
+import org.primeframework.email.service.EmailJfrEvents.SmtpSendEvent;
 import org.primeframework.email.service.MessagingExceptionHandler.PrimeMessagingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * This class implements the {@link EmailTransportService} interface using the JavaMail API and a JavaMail
- * sessionProvider.
+ * sessionProvider. Emails that are sent at a specific time are held on a timing wheel, whose thread is started by the
+ * first of them and stopped when the service is closed.
  *
  * @author Brian Pontarelli
  */
-public class JavaMailEmailTransportService implements EmailTransportService {
+public class JavaMailEmailTransportService implements EmailTransportService, AutoCloseable {
+  private static final String CLOSED = "The JavaMail transport is closed. The email was therefore not sent.";
+
+  private static final String STREAM_PROVIDER_PROPERTY = "jakarta.mail.util.StreamProvider";
+
+  private static final Logger logger = LoggerFactory.getLogger(JavaMailEmailTransportService.class);
+
+  private final EmailLatencyRecorder emailLatencyRecorder;
+
+  private final EmailEventDispatcher eventDispatcher;
+
   private final ExecutorService executorService;
 
   private final MessagingExceptionHandler messagingExceptionHandler;
 
+  private final long retryDelay;
+
+  private final int retries;
+
   private final JavaMailSessionProvider sessionProvider;
 
+  private final SmtpTraceRecorder smtpTraceRecorder;
+
+  private final HashedTimingWheel<ScheduledEmail> timingWheel = new HashedTimingWheel<>(Duration.ofMillis(100), 512, 100, this::sendDue);
+
+  /**
+   * Constructs the transport service, which doesn't dispatch events or retry failed sends.
+   *
+   * @param executorService           The executor service.
+   * @param messagingExceptionHandler The messaging exception handler
+   * @param sessionProvider           The Java mail session provider.
+   */
+  public JavaMailEmailTransportService(ExecutorService executorService,
+                                       MessagingExceptionHandler messagingExceptionHandler,
+                                       JavaMailSessionProvider sessionProvider) {
+    this(executorService, messagingExceptionHandler, sessionProvider, EmailEventDispatcher.NONE, new DefaultEmailConfiguration());
+  }
+
+  /**
+   * Constructs the transport service.
+   *
+   * @param executorService           The executor service.
+   * @param messagingExceptionHandler The messaging exception handler
+   * @param sessionProvider           The Java mail session provider.
+   * @param eventDispatcher           Dispatches the events of the sends to the email listeners.
+   * @param emailConfiguration        The configuration, which controls the retries.
+   */
+  public JavaMailEmailTransportService(ExecutorService executorService,
+                                       MessagingExceptionHandler messagingExceptionHandler,
+                                       JavaMailSessionProvider sessionProvider, EmailEventDispatcher eventDispatcher,
+                                       EmailConfiguration emailConfiguration) {
+    this(executorService, messagingExceptionHandler, sessionProvider, eventDispatcher, emailConfiguration, EmailLatencyRecorder.NONE);
+  }
+
+  /**
+   * Constructs the transport service, which doesn't time the SMTP commands.
+   *
+   * @param executorService           The executor service.
+   * @param messagingExceptionHandler The messaging exception handler
+   * @param sessionProvider           The Java mail session provider.
+   * @param eventDispatcher           Dispatches the events of the sends to the email listeners.
+   * @param emailConfiguration        The configuration, which controls the retries.
+   * @param emailLatencyRecorder      Records how long building the MIME messages, waiting in the queue and sending take.
+   */
+  public JavaMailEmailTransportService(ExecutorService executorService,
+                                       MessagingExceptionHandler messagingExceptionHandler,
+                                       JavaMailSessionProvider sessionProvider, EmailEventDispatcher eventDispatcher,
+                                       EmailConfiguration emailConfiguration, EmailLatencyRecorder emailLatencyRecorder) {
+    this(executorService, messagingExceptionHandler, sessionProvider, eventDispatcher, emailConfiguration, emailLatencyRecorder, SmtpTraceRecorder.NONE);
+  }
+
   /**
    * Constructs the transport service.
    *
    * @param executorService           The executor service.
    * @param messagingExceptionHandler The messaging exception handler
    * @param sessionProvider           The Java mail session provider.
+   * @param eventDispatcher           Dispatches the events of the sends to the email listeners.
+   * @param emailConfiguration        The configuration, which controls the retries.
+   * @param emailLatencyRecorder      Records how long building the MIME messages, waiting in the queue and sending take.
+   * @param smtpTraceRecorder         Keeps the SMTP commands of slow sends. When it is enabled, the SMTP commands of
+   *                                  every send are timed.
    */
   @Inject
   public JavaMailEmailTransportService(@Named("EmailExecutorService") ExecutorService executorService,
                                        MessagingExceptionHandler messagingExceptionHandler,
-                                       JavaMailSessionProvider sessionProvider) {
+                                       JavaMailSessionProvider sessionProvider, EmailEventDispatcher eventDispatcher,
+                                       EmailConfiguration emailConfiguration, EmailLatencyRecorder emailLatencyRecorder,
+                                       SmtpTraceRecorder smtpTraceRecorder) {
     this.executorService = executorService;
     this.messagingExceptionHandler = messagingExceptionHandler;
     this.sessionProvider = sessionProvider;
+    this.eventDispatcher = eventDispatcher;
+    this.emailLatencyRecorder = emailLatencyRecorder;
+    this.smtpTraceRecorder = smtpTraceRecorder;
+    this.retries = emailConfiguration.sendRetries();
+    this.retryDelay = emailConfiguration.sendRetryDelay();
+
+    if (emailConfiguration.pinStreamProvider()) {
+      pinStreamProvider();
+    }
+  }
+
+  /**
+   * Stops the thread of the timing wheel. The emails that are scheduled and not due yet, including the emails that wait
+   * to be retried, are not sent: their send results get a transport error and their futures are completed. Emails can
+   * no longer be sent at a specific time or retried. The event dispatcher is closed once their failed events are
+   * dispatched.
+   */
+  @Override
+  public void close() {
+    for (ScheduledEmail scheduledEmail : timingWheel.stop()) {
+      closed(scheduledEmail);
+    }
+
+    eventDispatcher.close();
+  }
+
+  /**
+   * Opens a connection that keeps a single JavaMail transport connected between emails. The transport is connected when
+   * the first email is sent and it is connected again after an error.
+   */
+  @Override
+  public EmailConnection connect(Object contextId) {
+    return new JavaMailConnection(contextId, sessionProvider.get(contextId), messagingExceptionHandler);
+  }
 
+  /**
+   * Builds the MIME message of the email, including the headers that are otherwise updated when the message is sent.
+   */
+  @Override
+  public PreparedEmail prepare(Object contextId, Email email, SendResult sendResult) {
+    return prepare(contextId, email, sendResult, sessionProvider.get(contextId));
   }
 
   /**
@@ -86,9 +227,51 @@ public class JavaMailEmailTransportService implements EmailTransportService {
   public void sendEmail(Object contextId, Email email, SendResult sendResult,
                         MessagingExceptionHandler messagingExceptionHandler) {
     Session session = sessionProvider.get(contextId);
-    EmailRunnable runnable = new EmailRunnable(contextId, message(email, sendResult, session), sendResult, messagingExceptionHandler);
-    if (sendResult.wasSuccessful()) {
-      runnable.run();
+    PreparedEmail preparedEmail = prepare(contextId, email, sendResult, session);
+    if (!sendResult.wasSuccessful()) {
+      dispatch(EmailEvent.Type.FAILED, contextId, sendResult, 1, null);
+      return;
+    }
+
+    try (JavaMailConnection connection = new JavaMailConnection(contextId, session, messagingExceptionHandler)) {
+      connection.send(preparedEmail);
+    }
+  }
+
+  /**
+   * Schedules a frozen copy of the email (see {@link QueuedEmail}) on a timing wheel with a tick of 100 milliseconds.
+   * The emails that are due in the same tick are handed to the executor in batches of up to 100, and each batch is sent
+   * over one connection per context.
+   * <p>
+   * The send result doesn't reference the email while it is scheduled, so that only the frozen copy is kept in memory.
+   * The email of the send result (and of the events) is rebuilt from the copy when the email is sent.
+   * <p>
+   * Sends that fail with an error that might not happen again are rescheduled on the timing wheel, up to {@link
+   * EmailConfiguration#sendRetries()} times.
+   */
+  @Override
+  public void sendEmailAt(Object contextId, Email email, SendResult sendResult, Instant instant) {
+    String error = validate(email);
+    if (error != null) {
+      sendResult.transportError = error;
+    }
+
+    if (!sendResult.wasSuccessful()) {
+      dispatch(EmailEvent.Type.FAILED, contextId, sendResult, 1, null);
+      return;
+    }
+
+    ScheduledEmail scheduledEmail = new ScheduledEmail(contextId, new QueuedEmail(email), sendResult, messagingExceptionHandler);
+    try {
+      sendResult.email = null;
+      sendResult.future = scheduledEmail;
+      scheduledEmail.timeout = timingWheel.schedule(scheduledEmail, instant);
+      dispatchQueued(contextId, email, sendResult);
+    } catch (IllegalStateException e) {
+      sendResult.email = email;
+      sendResult.future = null;
+      sendResult.transportError = CLOSED;
+      dispatch(EmailEvent.Type.FAILED, contextId, sendResult, 1, null);
     }
   }
 
@@ -97,17 +280,201 @@ public class JavaMailEmailTransportService implements EmailTransportService {
     sendEmailLater(contextId, email, sendResult, messagingExceptionHandler);
   }
 
+  /**
+   * Queues a frozen copy of the email (see {@link QueuedEmail}). The session and the MIME message are only created when
+   * the email is sent, so they don't use memory while the email waits in the queue. Like the emails sent at a specific
+   * time, the send result only references the email again once it is sent.
+   * <p>
+   * Sends that fail with an error that might not happen again are retried like the emails sent at a specific time.
+   */
   @Override
   public void sendEmailLater(Object contextId, Email email, SendResult sendResult,
                              MessagingExceptionHandler messagingExceptionHandler) {
-    Session session = sessionProvider.get(contextId);
-    EmailRunnable runnable = new EmailRunnable(contextId, message(email, sendResult, session), sendResult, messagingExceptionHandler);
+    String error = validate(email);
+    if (error != null) {
+      sendResult.transportError = error;
+    }
+
+    if (!sendResult.wasSuccessful()) {
+      dispatch(EmailEvent.Type.FAILED, contextId, sendResult, 1, null);
+      return;
+    }
+
+    ScheduledEmail scheduledEmail = new ScheduledEmail(contextId, new QueuedEmail(email), sendResult, messagingExceptionHandler);
+    try {
+      scheduledEmail.queuedAt = System.nanoTime();
+      sendResult.email = null;
+      sendResult.future = scheduledEmail;
+      dispatchQueued(contextId, email, sendResult);
+      executorService.execute(new SendTask(List.of(scheduledEmail)));
+    } catch (RejectedExecutionException ree) {
+      sendResult.email = email;
+      sendResult.future = null;
+      sendResult.transportError = "Unable to submit the JavaMail message to the asynchronous handler " +
+          "so that it can be processed at a later time. The email was therefore not sent.";
+      dispatch(EmailEvent.Type.FAILED, contextId, sendResult, 1, null);
+    }
+  }
+
+  /**
+   * Determines if a send failed with an error that might not happen again: a 4xx response of the SMTP server or a
+   * network error. Errors rendering streaming content are never transient.
+   */
+  protected boolean isTransient(MessagingException e) {
+    if (renderError(e) != null) {
+      return false;
+    }
+
+    for (Throwable t = e; t != null; t = t.getCause()) {
+      if (t instanceof SMTPSendFailedException sendFailed) {
+        return sendFailed.getReturnCode() / 100 == 4;
+      } else if (t instanceof SMTPAddressFailedException addressFailed) {
+        return addressFailed.getReturnCode() / 100 == 4;
+      } else if (t instanceof SMTPSenderFailedException senderFailed) {
+        return senderFailed.getReturnCode() / 100 == 4;
+      } else if (t instanceof IOException) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Fails a scheduled email that can't be sent because the transport is closed.
+   */
+  private void closed(ScheduledEmail scheduledEmail) {
+    scheduledEmail.restore();
+    scheduledEmail.sendResult.transportError = CLOSED;
+    dispatch(EmailEvent.Type.FAILED, scheduledEmail.contextId, scheduledEmail.sendResult, scheduledEmail.attempt, null);
+    scheduledEmail.complete(scheduledEmail.sendResult);
+  }
+
+  private void dispatch(EmailEvent.Type type, Object contextId, SendResult sendResult, int attempt,
+                        Exception exception) {
+    if (eventDispatcher.isEnabled()) {
+      EmailEvent event = new EmailEvent(type, contextId, sendResult, attempt);
+      event.exception = exception;
+      eventDispatcher.dispatch(event);
+    }
+  }
+
+  /**
+   * Dispatches the queued event, which carries the email although the send result no longer references it.
+   */
+  private void dispatchQueued(Object contextId, Email email, SendResult sendResult) {
+    if (eventDispatcher.isEnabled()) {
+      EmailEvent event = new EmailEvent(EmailEvent.Type.QUEUED, contextId, sendResult, 1);
+      event.email = email;
+      eventDispatcher.dispatch(event);
+    }
+  }
+
+  private PreparedEmail prepare(Object contextId, Email email, SendResult sendResult, Session session) {
+    MimeBuildEvent event = new MimeBuildEvent();
+    event.begin();
+    long start = emailLatencyRecorder.start();
+    Message message = message(email, sendResult, session);
     if (sendResult.wasSuccessful()) {
       try {
-        sendResult.future = executorService.submit(runnable, sendResult);
-      } catch (RejectedExecutionException ree) {
-        sendResult.transportError = "Unable to submit the JavaMail message to the asynchronous handler " +
-            "so that it can be processed at a later time. The email was therefore not sent.";
+        message.saveChanges();
+      } catch (MessagingException e) {
+        sendResult.transportError = "An error occurred while trying to construct the JavaMail Message object";
+      }
+    }
+
+    emailLatencyRecorder.record(Stage.MIME_BUILD, contextId, sendResult.templateId, start);
+    event.end();
+    if (event.shouldCommit()) {
+      event.bytes = contentLength(email);
+      event.contextId = EmailJfrEvents.id(contextId);
+      event.outcome = sendResult.wasSuccessful() ? EmailJfrEvents.SUCCESS : EmailJfrEvents.TRANSPORT_ERROR;
+      event.recipients = email.to.size() + email.cc.size() + email.bcc.size();
+      event.templateId = EmailJfrEvents.id(sendResult.templateId);
+      event.commit();
+    }
+
+    return new PreparedEmail(email, sendResult, message);
+  }
+
+  /**
+   * Reschedules an email whose send failed with a transient error. The delay doubles with every attempt.
+   */
+  private void retry(ScheduledEmail scheduledEmail, MessagingException e) {
+    dispatch(EmailEvent.Type.RETRIED, scheduledEmail.contextId, scheduledEmail.sendResult, scheduledEmail.attempt, e);
+    scheduledEmail.sendResult.email = null;
+    long delay = retryDelay << Math.min(scheduledEmail.attempt - 1, 30);
+    scheduledEmail.attempt++;
+    try {
+      scheduledEmail.timeout = timingWheel.schedule(scheduledEmail, Instant.now().plusMillis(delay));
+    } catch (IllegalStateException ise) {
+      closed(scheduledEmail);
+    }
+  }
+
+  /**
+   * Sends a batch of scheduled emails that are due, in a single task of the executor. Emails that were cancelled in the
+   * meantime are skipped.
+   */
+  private void send(List<ScheduledEmail> scheduledEmails) {
+    Map<Object, JavaMailConnection> connections = new HashMap<>();
+    try {
+      for (ScheduledEmail scheduledEmail : scheduledEmails) {
+        if (scheduledEmail.isDone()) {
+          continue;
+        }
+
+        SendResult sendResult = scheduledEmail.sendResult;
+        emailLatencyRecorder.record(Stage.QUEUE_WAIT, scheduledEmail.contextId, sendResult.templateId, scheduledEmail.queuedAt);
+        QueueWaitEvent event = new QueueWaitEvent();
+        if (event.isEnabled()) {
+          event.attempt = scheduledEmail.attempt;
+          event.contextId = EmailJfrEvents.id(scheduledEmail.contextId);
+          event.templateId = EmailJfrEvents.id(sendResult.templateId);
+          event.waited = System.nanoTime() - scheduledEmail.queuedAt;
+          event.commit();
+        }
+
+        try {
+          Session session = sessionProvider.get(scheduledEmail.contextId);
+          PreparedEmail preparedEmail = prepare(scheduledEmail.contextId, scheduledEmail.restore(), sendResult, session);
+          if (!sendResult.wasSuccessful()) {
+            dispatch(EmailEvent.Type.FAILED, scheduledEmail.contextId, sendResult, scheduledEmail.attempt, null);
+          } else {
+            JavaMailConnection connection = connections.computeIfAbsent(scheduledEmail.contextId,
+                (contextId) -> new JavaMailConnection(contextId, session, scheduledEmail.messagingExceptionHandler));
+            MessagingException e = connection.transmit(preparedEmail, scheduledEmail.attempt);
+            if (e != null && scheduledEmail.attempt <= retries && isTransient(e)) {
+              retry(scheduledEmail, e);
+              continue;
+            } else if (e != null) {
+              connection.failed(e, sendResult, scheduledEmail.messagingExceptionHandler, scheduledEmail.attempt);
+            }
+          }
+        } catch (RuntimeException e) {
+          scheduledEmail.completeExceptionally(e);
+          continue;
+        }
+
+        scheduledEmail.complete(sendResult);
+      }
+    } finally {
+      connections.values().forEach(EmailConnection::close);
+    }
+  }
+
+  private void sendDue(List<ScheduledEmail> scheduledEmails) {
+    long now = System.nanoTime();
+    scheduledEmails.forEach((scheduledEmail) -> scheduledEmail.queuedAt = now);
+    try {
+      executorService.execute(new SendTask(scheduledEmails));
+    } catch (RejectedExecutionException ree) {
+      for (ScheduledEmail scheduledEmail : scheduledEmails) {
+        scheduledEmail.restore();
+        scheduledEmail.sendResult.transportError = "Unable to submit the JavaMail message to the asynchronous handler " +
+            "when it was due. The email was therefore not sent.";
+        dispatch(EmailEvent.Type.FAILED, scheduledEmail.contextId, scheduledEmail.sendResult, scheduledEmail.attempt, null);
+        scheduledEmail.complete(scheduledEmail.sendResult);
       }
     }
   }
@@ -116,52 +483,49 @@ public class JavaMailEmailTransportService implements EmailTransportService {
     MimeMessage message = new MimeMessage(session);
 
     try {
-      // Define message
-      EmailAddress from = email.from;
-      if (from == null) {
-        sendResult.transportError = "email message 'from' not set";
+      String error = validate(email);
+      if (error != null) {
+        sendResult.transportError = error;
         return message;
       }
-      message.setFrom(new InternetAddress(from.address, from.display, "UTF-8"));
+
+      // Define message
+      message.setFrom(new InternetAddress(email.from.address, email.from.display, "UTF-8"));
 
       // Setup the reply to
       if (email.replyTo != null) {
         message.setReplyTo(new InternetAddress[]{new InternetAddress(email.replyTo.address, email.replyTo.display, "UTF-8")});
       }
 
-      List<EmailAddress> toList = email.to;
-      for (EmailAddress to : toList) {
+      for (int i = 0; i < email.to.size(); i++) {
+        EmailAddress to = email.to.get(i);
         message.addRecipient(Message.RecipientType.TO, new InternetAddress(to.address, to.display, "UTF-8"));
       }
 
-      List<EmailAddress> ccList = email.cc;
-      for (EmailAddress cc : ccList) {
+      for (int i = 0; i < email.cc.size(); i++) {
+        EmailAddress cc = email.cc.get(i);
         message.addRecipient(Message.RecipientType.CC, new InternetAddress(cc.address, cc.display, "UTF-8"));
       }
 
-      List<EmailAddress> bccList = email.bcc;
-      for (EmailAddress bcc : bccList) {
+      for (int i = 0; i < email.bcc.size(); i++) {
+        EmailAddress bcc = email.bcc.get(i);
         message.addRecipient(Message.RecipientType.BCC, new InternetAddress(bcc.address, bcc.display, "UTF-8"));
       }
 
-      if (message.getAllRecipients() == null || message.getAllRecipients().length == 0) {
-        sendResult.transportError = "email message must contain at least one CC, BCC, or To recipient";
-        return message;
-      }
-
       String subject = email.subject;
       if (subject != null) {
         message.setSubject(subject, "UTF-8");
       }
 
-      for (EmailHeader header : email.additionalHeaders) {
+      for (int i = 0; i < email.additionalHeaders.size(); i++) {
+        EmailHeader header = email.additionalHeaders.get(i);
         message.addHeader(header.name, header.value);
       }
 
       // Determine the email content type and if we need to include the text version
       String type = "alternative";
       boolean includeText = true;
-      if (email.attachments.size() > 0) {
+      if (!email.attachments.isEmpty()) {
         type = "mixed";
         includeText = false;
       }
@@ -181,11 +545,17 @@ public class JavaMailEmailTransportService implements EmailTransportService {
         BodyPart htmlPart = new MimeBodyPart();
         htmlPart.setContent(html, "text/html; charset=UTF-8");
         mp.addBodyPart(htmlPart);
+      } else if (email.htmlContent != null) {
+        // The transfer encoding must be set explicitly, otherwise JavaMail renders the content an extra time to pick one
+        BodyPart htmlPart = new MimeBodyPart();
+        htmlPart.setDataHandler(new StreamingDataHandler(email.htmlContent, "text/html; charset=UTF-8"));
+        htmlPart.setHeader("Content-Transfer-Encoding", "quoted-printable");
+        mp.addBodyPart(htmlPart);
       }
 
       // Part two is attachment
-      List<Attachment> attachments = email.attachments;
-      for (Attachment attachment : attachments) {
+      for (int i = 0; i < email.attachments.size(); i++) {
+        Attachment attachment = email.attachments.get(i);
         BodyPart attachPart = new MimeBodyPart();
         DataSource source = new ByteArrayDataSource(attachment.attachment, attachment.mime);
         attachPart.setDataHandler(new DataHandler(source));
@@ -207,7 +577,11 @@ public class JavaMailEmailTransportService implements EmailTransportService {
 
   /**
    * The callable for handling async message sending.
+   *
+   * @deprecated The transport no longer uses this class. It sends the message without retries and without notifying
+   *     the email listeners. Use {@link #sendEmailLater(Object, Email, SendResult)} instead.
    */
+  @Deprecated
   public static class EmailRunnable implements Runnable {
     private final static Logger logger = LoggerFactory.getLogger(EmailRunnable.class);
 
@@ -233,9 +607,348 @@ public class JavaMailEmailTransportService implements EmailTransportService {
         Transport.send(message);
         logger.debug("Finished JavaMail send");
       } catch (MessagingException e) {
-        messagingExceptionHandler.handle(new PrimeMessagingException(e, contextId, sendResult));
-        sendResult.transportError = "Unable to send email via JavaMail";
+        failed(e, contextId, sendResult, messagingExceptionHandler);
       }
     }
   }
+
+  private static void failed(MessagingException e, Object contextId, SendResult sendResult,
+                             MessagingExceptionHandler messagingExceptionHandler) {
+    TemplateException renderError = renderError(e);
+    if (renderError != null) {
+      sendResult.renderErrors.put("html", renderError);
+    }
+
+    messagingExceptionHandler.handle(new PrimeMessagingException(e, contextId, sendResult));
+    sendResult.transportError = "Unable to send email via JavaMail";
+  }
+
+  private static void commit(SmtpSendEvent event, Object contextId, SendResult sendResult, Message message, int attempt,
+                             String outcome, String smtpResponse) {
+    event.attempt = attempt;
+    event.contextId = EmailJfrEvents.id(contextId);
+    event.outcome = outcome;
+    event.smtpResponse = smtpResponse;
+    event.templateId = EmailJfrEvents.id(sendResult.templateId);
+    try {
+      Address[] recipients = message.getAllRecipients();
+      event.recipients = recipients != null ? recipients.length : 0;
+    } catch (MessagingException e) {
+      // Leave the recipients at 0
+    }
+
+    event.commit();
+  }
+
+  /**
+   * JavaMail looks up its StreamProvider with a ServiceLoader every time a Multipart is created and every time a body
+   * part is written, which scans the classpath and allocates more than the rest of the MIME message together. The
+   * lookup is skipped when the provider is named by the <code>jakarta.mail.util.StreamProvider</code> system property,
+   * so this looks up the provider the ServiceLoader finds once and sets the property to its name, unless the property is
+   * already set or the provider isn't visible to the system class loader (in which case naming it could break the
+   * lookup).
+   * <p>
+   * The system property applies to every use of JavaMail in the JVM, so this is only called by the transport when
+   * {@link EmailConfiguration#pinStreamProvider()} is enabled. Applications can also call it directly at startup.
+   */
+  public static void pinStreamProvider() {
+    if (System.getProperty(STREAM_PROVIDER_PROPERTY) != null) {
+      return;
+    }
+
+    try {
+      Class<?> providerClass = StreamProvider.provider().getClass();
+      if (Class.forName(providerClass.getName(), false, ClassLoader.getSystemClassLoader()) == providerClass) {
+        System.setProperty(STREAM_PROVIDER_PROPERTY, providerClass.getName());
+        logger.info("Set the system property [" + STREAM_PROVIDER_PROPERTY + "] to [" + providerClass.getName() + "] so that " +
+            "JavaMail doesn't look up its StreamProvider for every message");
+      }
+    } catch (ClassNotFoundException | RuntimeException e) {
+      logger.debug("Unable to pin the JavaMail StreamProvider. It will be looked up for every message.", e);
+    }
+  }
+
+  /**
+   * @return The UTF-8 size of the subject and bodies plus the size of the attachments. Streaming HTML isn't counted.
+   */
+  private static long contentLength(Email email) {
+    long length = EmailJfrEvents.utf8Length(email.subject) + EmailJfrEvents.utf8Length(email.html) + EmailJfrEvents.utf8Length(email.text);
+    for (int i = 0; i < email.attachments.size(); i++) {
+      Attachment attachment = email.attachments.get(i);
+      length += attachment.attachment != null ? attachment.attachment.length : 0;
+    }
+
+    return length;
+  }
+
+  private static TemplateException renderError(Throwable t) {
+    while (t != null) {
+      if (t instanceof TemplateException) {
+        return (TemplateException) t;
+      }
+
+      t = t.getCause();
+    }
+
+    return null;
+  }
+
+  /**
+   * @return The error that prevents the email from being sent, or null if it can be sent.
+   */
+  private static String validate(Email email) {
+    if (email.from == null) {
+      return "email message 'from' not set";
+    }
+
+    if (email.to.isEmpty() && email.cc.isEmpty() && email.bcc.isEmpty()) {
+      return "email message must contain at least one CC, BCC, or To recipient";
+    }
+
+    return null;
+  }
+
+  /**
+   * A connection that sends the prepared messages over a single JavaMail transport.
+   */
+  private class JavaMailConnection implements EmailConnection {
+    private final static Logger logger = LoggerFactory.getLogger(JavaMailConnection.class);
+
+    private final Object contextId;
+
+    private final MessagingExceptionHandler messagingExceptionHandler;
+
+    private final Session session;
+
+    private Transport transport;
+
+    JavaMailConnection(Object contextId, Session session, MessagingExceptionHandler messagingExceptionHandler) {
+      this.contextId = contextId;
+      this.session = session;
+      this.messagingExceptionHandler = messagingExceptionHandler;
+    }
+
+    @Override
+    public void close() {
+      if (transport != null) {
+        try {
+          transport.close();
+        } catch (MessagingException e) {
+          logger.debug("Unable to close the JavaMail transport", e);
+        }
+
+        transport = null;
+      }
+    }
+
+    @Override
+    public void send(PreparedEmail preparedEmail) {
+      if (!preparedEmail.sendResult.wasSuccessful()) {
+        return;
+      }
+
+      MessagingException e = transmit(preparedEmail, 1);
+      if (e != null) {
+        failed(e, preparedEmail.sendResult, messagingExceptionHandler, 1);
+      }
+    }
+
+    void failed(MessagingException e, SendResult sendResult, MessagingExceptionHandler messagingExceptionHandler,
+                int attempt) {
+      JavaMailEmailTransportService.failed(e, contextId, sendResult, messagingExceptionHandler);
+      dispatch(EmailEvent.Type.FAILED, contextId, sendResult, attempt, e);
+    }
+
+    /**
+     * Sends the message and dispatches the sent event, with the time it took to connect (if needed) and send the
+     * message and the last response of the SMTP server.
+     *
+     * @return The error, which the caller handles, or null if the message was sent.
+     */
+    MessagingException transmit(PreparedEmail preparedEmail, int attempt) {
+      SmtpSendEvent smtpSendEvent = new SmtpSendEvent();
+      smtpSendEvent.begin();
+      long start = System.nanoTime();
+      Message message = (Message) preparedEmail.message;
+      try {
+        if (transport == null || !transport.isConnected()) {
+          close();
+          transport = transport();
+          transport.connect();
+        }
+
+        transport.sendMessage(message, message.getAllRecipients());
+      } catch (MessagingException e) {
+        trace(preparedEmail, attempt, start, e);
+
+        // The state of the connection is unknown, so the next email connects again
+        close();
+        smtpSendEvent.end();
+        if (smtpSendEvent.shouldCommit()) {
+          commit(smtpSendEvent, contextId, preparedEmail.sendResult, message, attempt, EmailJfrEvents.TRANSPORT_ERROR, e.getMessage());
+        }
+
+        return e;
+      } finally {
+        emailLatencyRecorder.record(Stage.SEND, contextId, preparedEmail.sendResult.templateId, start);
+      }
+
+      smtpSendEvent.end();
+      trace(preparedEmail, attempt, start, null);
+      if (eventDispatcher.isEnabled()) {
+        EmailEvent event = new EmailEvent(EmailEvent.Type.SENT, contextId, preparedEmail.sendResult, attempt);
+        event.latency = Duration.ofNanos(System.nanoTime() - start);
+        event.smtpResponse = response();
+        eventDispatcher.dispatch(event);
+      }
+
+      if (smtpSendEvent.shouldCommit()) {
+        commit(smtpSendEvent, contextId, preparedEmail.sendResult, message, attempt, EmailJfrEvents.SUCCESS, response());
+      }
+
+      return null;
+    }
+
+    private String response() {
+      return transport instanceof SMTPTransport smtpTransport ? smtpTransport.getLastServerResponse() : null;
+    }
+
+    /**
+     * Passes the timed SMTP commands of the send to the trace recorder.
+     */
+    private void trace(PreparedEmail preparedEmail, int attempt, long start, MessagingException e) {
+      if (!(transport instanceof TimingSMTPTransport timingTransport)) {
+        return;
+      }
+
+      SmtpTrace trace = new SmtpTrace(contextId, preparedEmail.sendResult.templateId, attempt);
+      trace.commands = timingTransport.commands();
+      trace.duration = Duration.ofNanos(System.nanoTime() - start);
+      trace.timestamp = Instant.now().minus(trace.duration);
+      trace.error = e != null ? e.getMessage() : null;
+      smtpTraceRecorder.record(trace);
+    }
+
+    /**
+     * Creates the transport of the session. When the SMTP commands are traced, the SMTP transport is replaced by one
+     * that times its commands.
+     */
+    private Transport transport() throws NoSuchProviderException {
+      String protocol = session.getProperty("mail.transport.protocol");
+      if (smtpTraceRecorder.isEnabled() && (protocol == null || protocol.equals("smtp") || protocol.equals("smtps"))) {
+        return new TimingSMTPTransport(session, protocol == null ? "smtp" : protocol);
+      }
+
+      return session.getTransport();
+    }
+  }
+
+  /**
+   * An email that is queued or scheduled on the timing wheel. It is also the future of the send result, and cancelling
+   * it before the email is due cancels the timer. Emails that are queued have no timer until they are retried.
+   */
+  private static class ScheduledEmail extends CompletableFuture<SendResult> {
+    private final Object contextId;
+
+    private final MessagingExceptionHandler messagingExceptionHandler;
+
+    private final QueuedEmail queuedEmail;
+
+    private final SendResult sendResult;
+
+    private volatile int attempt = 1;
+
+    // When the email was queued or became due, for the queue wait latency
+    private volatile long queuedAt;
+
+    private volatile HashedTimingWheel.Timeout timeout;
+
+    ScheduledEmail(Object contextId, QueuedEmail queuedEmail, SendResult sendResult,
+                   MessagingExceptionHandler messagingExceptionHandler) {
+      this.contextId = contextId;
+      this.queuedEmail = queuedEmail;
+      this.sendResult = sendResult;
+      this.messagingExceptionHandler = messagingExceptionHandler;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      HashedTimingWheel.Timeout timeout = this.timeout;
+      return (timeout == null || timeout.cancel()) && super.cancel(mayInterruptIfRunning);
+    }
+
+    /**
+     * Rebuilds the email from the frozen copy for the send and stores it in the send result again.
+     *
+     * @return The email.
+     */
+    Email restore() {
+      Email email = queuedEmail.toEmail();
+      sendResult.email = email;
+      return email;
+    }
+  }
+
+  /**
+   * Sends a batch of queued emails on the executor, which measures the number and size of the emails through the
+   * {@link EmailTask} interface.
+   */
+  private class SendTask implements EmailTask {
+    private final List<ScheduledEmail> scheduledEmails;
+
+    SendTask(List<ScheduledEmail> scheduledEmails) {
+      this.scheduledEmails = scheduledEmails;
+    }
+
+    @Override
+    public long bytes() {
+      long bytes = 0;
+      for (ScheduledEmail scheduledEmail : scheduledEmails) {
+        bytes += scheduledEmail.queuedEmail.contentLength();
+      }
+
+      return bytes;
+    }
+
+    @Override
+    public int emails() {
+      return scheduledEmails.size();
+    }
+
+    @Override
+    public void run() {
+      send(scheduledEmails);
+    }
+  }
+
+  /**
+   * A DataHandler that renders streaming content directly into the output stream of the MIME body part. The output
+   * stream is the transfer encoding stream that JavaMail writes to the SMTP server, so the content is never held in
+   * memory.
+   */
+  private static class StreamingDataHandler extends DataHandler {
+    private final StreamingContent content;
+
+    StreamingDataHandler(StreamingContent content, String mimeType) {
+      super(content, mimeType);
+      this.content = content;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+      throw new IOException("Streaming content can only be written to an OutputStream");
+    }
+
+    @Override
+    public void writeTo(OutputStream os) throws IOException {
+      Writer writer = new OutputStreamWriter(os, StandardCharsets.UTF_8);
+      try {
+        content.writeTo(writer);
+      } catch (TemplateException e) {
+        throw new IOException("Unable to render the streaming content", e);
+      }
+
+      writer.flush();
+    }
+  }
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds that uses a fixed amount of memory. Like an HDR histogram, the
+ * buckets are log-linear: every power of two is split into 8 buckets of the same width, which means a recorded value is
+ * off by at most 12.5% and the histogram covers every positive long with 488 counters.
+ *
+ * @author Brian Pontarelli
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 3;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  private final AtomicLong max = new AtomicLong();
+
+  private final LongAdder total = new LongAdder();
+
+  /**
+   * Records a latency.
+   *
+   * @param nanos The latency in nanoseconds. Negative values are recorded as 0.
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(index(value));
+    total.add(value);
+
+    long current;
+    while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+      // Another thread recorded a value at the same time, try again
+    }
+  }
+
+  /**
+   * Copies the counts. Values that are recorded while the copy is taken may or may not be in it.
+   *
+   * @return The snapshot.
+   */
+  public Snapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = counts.get(i);
+      count += copy[i];
+    }
+
+    return new Snapshot(copy, count, total.sum(), max.get());
+  }
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * @return The largest value that is counted in the bucket.
+   */
+  static long highestValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+
+    int shift = index / SUB_BUCKETS - 1;
+    long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    return lowest + ((1L << shift) - 1);
+  }
+
+  /**
+   * A copy of the counts of the histogram.
+   */
+  public static class Snapshot {
+    private final long[] counts;
+
+    private final long count;
+
+    private final long max;
+
+    private final long total;
+
+    Snapshot(long[] counts, long count, long total, long max) {
+      this.counts = counts;
+      this.count = count;
+      this.total = total;
+      this.max = max;
+    }
+
+    public long count() {
+      return count;
+    }
+
+    public long max() {
+      return max;
+    }
+
+    public long mean() {
+      return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * Returns the value that the given percentage of the recorded values are less than or equal to. The value is the
+     * largest value of its bucket, but never more than the largest value recorded.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The value in nanoseconds or 0 if nothing was recorded.
+     */
+    public long percentile(double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+
+      long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.min(highestValue(i), max);
+        }
+      }
+
+      return max;
+    }
+  }
+}
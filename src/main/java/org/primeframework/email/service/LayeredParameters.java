@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import freemarker.template.ObjectWrapper;
+
+/**
+ * The parameters of a single email, layered in front of parameters that are shared by many emails. The parameters of
+ * the email take precedence over the shared parameters. Creating this view doesn't copy either of them.
+ *
+ * @author Brian Pontarelli
+ */
+public class LayeredParameters extends AbstractMap<String, Object> {
+  private final Map<String, Object> parameters;
+
+  private final SharedTemplateParameters sharedParameters;
+
+  public LayeredParameters(Map<String, Object> parameters, SharedTemplateParameters sharedParameters) {
+    this.parameters = parameters;
+    this.sharedParameters = sharedParameters;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return parameters.containsKey(key) || sharedParameters.containsKey(key);
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<String, Object>> iterator() {
+        return Stream.concat(parameters.entrySet().stream(),
+                             sharedParameters.entrySet().stream().filter((entry) -> !parameters.containsKey(entry.getKey())))
+                     .iterator();
+      }
+
+      @Override
+      public int size() {
+        return LayeredParameters.this.size();
+      }
+    };
+  }
+
+  @Override
+  public Object get(Object key) {
+    Object value = parameters.get(key);
+    if (value != null || parameters.containsKey(key)) {
+      return value;
+    }
+
+    return sharedParameters.get(key);
+  }
+
+  public Map<String, Object> getParameters() {
+    return parameters;
+  }
+
+  public SharedTemplateParameters getSharedParameters() {
+    return sharedParameters;
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    Object previous = get(key);
+    parameters.put(key, value);
+    return previous;
+  }
+
+  @Override
+  public int size() {
+    int size = parameters.size();
+    for (String key : sharedParameters.keySet()) {
+      if (!parameters.containsKey(key)) {
+        size++;
+      }
+    }
+
+    return size;
+  }
+
+  /**
+   * Creates the FreeMarker model of these parameters, which wraps the parameters of the email as they are used and
+   * reuses the models of the shared parameters.
+   *
+   * @param objectWrapper The ObjectWrapper of the template being rendered.
+   * @return The model.
+   */
+  public LayeredTemplateHashModel toTemplateModel(ObjectWrapper objectWrapper) {
+    return new LayeredTemplateHashModel(parameters, sharedParameters, objectWrapper);
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import freemarker.template.ObjectWrapper;
+import freemarker.template.SimpleCollection;
+import freemarker.template.TemplateCollectionModel;
+import freemarker.template.TemplateHashModelEx;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+
+/**
+ * The FreeMarker model of {@link LayeredParameters}. The parameters of the email are looked up first and are wrapped the
+ * first time they are used, so every part of the email that is rendered with this model shares the same wrapped values.
+ * The shared parameters are looked up second and their models are reused across emails.
+ *
+ * @author Brian Pontarelli
+ */
+public class LayeredTemplateHashModel implements TemplateHashModelEx {
+  private final Map<String, TemplateModel> models = new ConcurrentHashMap<>();
+
+  private final ObjectWrapper objectWrapper;
+
+  private final Map<String, Object> parameters;
+
+  private final SharedTemplateParameters sharedParameters;
+
+  public LayeredTemplateHashModel(Map<String, Object> parameters, SharedTemplateParameters sharedParameters,
+                                  ObjectWrapper objectWrapper) {
+    this.parameters = parameters;
+    this.sharedParameters = sharedParameters;
+    this.objectWrapper = objectWrapper;
+  }
+
+  @Override
+  public TemplateModel get(String key) throws TemplateModelException {
+    TemplateModel model = models.get(key);
+    if (model != null) {
+      return model;
+    }
+
+    Object value = parameters.get(key);
+    if (value != null) {
+      model = objectWrapper.wrap(value);
+      models.put(key, model);
+      return model;
+    }
+
+    if (parameters.containsKey(key)) {
+      return objectWrapper.wrap(null);
+    }
+
+    return sharedParameters.getModel(key, objectWrapper);
+  }
+
+  /**
+   * Returns this model if it uses the given ObjectWrapper, otherwise a new model of the same parameters that does.
+   *
+   * @param objectWrapper The ObjectWrapper of the template being rendered.
+   * @return The model.
+   */
+  public LayeredTemplateHashModel forObjectWrapper(ObjectWrapper objectWrapper) {
+    if (this.objectWrapper == objectWrapper) {
+      return this;
+    }
+
+    return new LayeredTemplateHashModel(parameters, sharedParameters, objectWrapper);
+  }
+
+  /**
+   * @param key The name of the parameter.
+   * @return The value of the parameter before it is wrapped, or null if there is no such parameter.
+   */
+  public Object getParameter(String key) {
+    Object value = parameters.get(key);
+    if (value != null || parameters.containsKey(key)) {
+      return value;
+    }
+
+    return sharedParameters.get(key);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return parameters.isEmpty() && sharedParameters.isEmpty();
+  }
+
+  @Override
+  public TemplateCollectionModel keys() {
+    return new SimpleCollection(new LayeredParameters(parameters, sharedParameters).keySet(), objectWrapper);
+  }
+
+  @Override
+  public int size() {
+    return new LayeredParameters(parameters, sharedParameters).size();
+  }
+
+  @Override
+  public TemplateCollectionModel values() throws TemplateModelException {
+    List<TemplateModel> values = new ArrayList<>();
+    for (String key : new LayeredParameters(parameters, sharedParameters).keySet()) {
+      values.add(get(key));
+    }
+
+    return new SimpleCollection(values, objectWrapper);
+  }
+}
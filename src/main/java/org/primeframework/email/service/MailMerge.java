@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import freemarker.cache.TemplateLoader;
+import freemarker.core.MarkupOutputFormat;
+import freemarker.core.OutputFormat;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import org.primeframework.email.domain.BaseResult;
+import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.ParsedEmailTemplates;
+import org.primeframework.email.service.TemplateAnalyzer.Element;
+
+/**
+ * Renders the same email templates for many recipients. The HTML, subject and text templates are split into their top
+ * level segments. The segments that don't use any of the recipient parameters are rendered once, when the mail merge is
+ * created, and only the remaining segments are rendered for each recipient. The output is the same as a full render of
+ * the templates with the shared and recipient parameters.
+ * <p>
+ * Templates that can't be split safely (for example because they assign variables, define macros or include other
+ * templates) and recipients that pass parameters that were not declared up front are rendered in full.
+ * <p>
+ * The templates that are passed in are never changed. Each template is parsed again from its source and only those
+ * private copies are split.
+ *
+ * @author Brian Pontarelli
+ */
+public class MailMerge {
+  private static final String SEGMENT_PREFIX = "__mailMergeSegment";
+
+  private static final Set<String> UNMERGEABLE_ELEMENTS = Set.of("Assignment", "AssignmentInstruction", "BlockAssignment", "Include", "LibraryLoad", "Macro", "PropertySetting");
+
+  private final FreeMarkerEmailRenderer emailRenderer;
+
+  private final ParsedEmailTemplates mergedEmailTemplates;
+
+  private final ParsedEmailTemplates parsedEmailTemplates;
+
+  private final Set<String> recipientKeys;
+
+  // Matches the recipient keys where they are used as names, which can also match text that only looks like one
+  private final Pattern recipientReferences;
+
+  private final Map<String, Object> segments = new HashMap<>();
+
+  private final SharedTemplateParameters mergedParameters;
+
+  private final Map<String, Object> sharedParameters;
+
+  private final SharedTemplateParameters sharedTemplateParameters;
+
+  /**
+   * Prepares the mail merge by rendering the parts of the templates that are the same for every recipient.
+   *
+   * @param emailRenderer        The renderer used to render the emails.
+   * @param parsedEmailTemplates The parsed templates.
+   * @param sharedParameters     The parameters that are the same for every recipient.
+   * @param recipientKeys        The names of the parameters that are different for each recipient.
+   */
+  public MailMerge(FreeMarkerEmailRenderer emailRenderer, ParsedEmailTemplates parsedEmailTemplates,
+                   Map<String, Object> sharedParameters, Set<String> recipientKeys) {
+    this.emailRenderer = emailRenderer;
+    this.parsedEmailTemplates = parsedEmailTemplates;
+    this.sharedParameters = sharedParameters;
+    this.recipientKeys = recipientKeys;
+    this.recipientReferences = recipientKeys.isEmpty() ? null :
+        Pattern.compile("(?<![\\p{L}\\p{N}_$@])(?:" + recipientKeys.stream().map(Pattern::quote).collect(Collectors.joining("|")) + ")(?![\\p{L}\\p{N}_$@])");
+
+    mergedEmailTemplates = new ParsedEmailTemplates();
+    mergedEmailTemplates.bcc = parsedEmailTemplates.bcc;
+    mergedEmailTemplates.cc = parsedEmailTemplates.cc;
+    mergedEmailTemplates.from = parsedEmailTemplates.from;
+    mergedEmailTemplates.replyTo = parsedEmailTemplates.replyTo;
+    mergedEmailTemplates.to = parsedEmailTemplates.to;
+    mergedEmailTemplates.html = merge(parsedEmailTemplates.html);
+    mergedEmailTemplates.subject = merge(parsedEmailTemplates.subject);
+    mergedEmailTemplates.text = merge(parsedEmailTemplates.text);
+
+    Map<String, Object> parameters = new HashMap<>(sharedParameters);
+    parameters.putAll(segments);
+    mergedParameters = new SharedTemplateParameters(parameters);
+    sharedTemplateParameters = new SharedTemplateParameters(sharedParameters);
+  }
+
+  /**
+   * @return The number of segments that were rendered up front for all of the recipients.
+   */
+  public int getSegmentCount() {
+    return segments.size();
+  }
+
+  /**
+   * Renders the templates for a single recipient.
+   *
+   * @param email               The email data collected from the EmailBuilder.
+   * @param recipientParameters The parameters of the recipient.
+   * @param baseResult          The base result that errors are added to.
+   */
+  public void render(Email email, Map<String, Object> recipientParameters, BaseResult baseResult) {
+    if (!recipientKeys.containsAll(recipientParameters.keySet())) {
+      emailRenderer.render(parsedEmailTemplates, email, new LayeredParameters(recipientParameters, sharedTemplateParameters), baseResult);
+      return;
+    }
+
+    emailRenderer.render(mergedEmailTemplates, email, new LayeredParameters(recipientParameters, mergedParameters), baseResult);
+  }
+
+  /**
+   * Parses the template again from its source. The copy has the same elements as the template, which means its top
+   * level elements can be replaced without changing how the rest of the template is parsed (i.e. white-space stripping).
+   * A copy of a single element is parsed with the same settings as the template, which means that element escapes its
+   * output the same way.
+   */
+  private Template copy(Template template, String source) throws IOException {
+    Template copy = new Template(template.getName(), template.getSourceName(), new StringReader(source),
+        template.getConfiguration(), template.getParserConfiguration(), template.getEncoding());
+    copy.setLocale(template.getLocale());
+    return copy;
+  }
+
+  private boolean isDynamic(Element element) {
+    if (element.name().equals("TextBlock") || element.name().equals("Comment")) {
+      return false;
+    }
+
+    if (TemplateAnalyzer.contains(element, TemplateAnalyzer.DYNAMIC_ELEMENTS)) {
+      return true;
+    }
+
+    String source = element.source();
+    return TemplateAnalyzer.hasDynamicExpressions(source) || (recipientReferences != null && recipientReferences.matcher(source).find());
+  }
+
+  private Template merge(Template template) {
+    if (template == null) {
+      return null;
+    }
+
+    try {
+      Template merged = mergeTemplate(template);
+      return merged != null ? merged : template;
+    } catch (IOException | TemplateException e) {
+      // The template is rendered in full for every recipient, which reports any errors for each of them
+      return template;
+    }
+  }
+
+  private Template mergeTemplate(Template template) throws IOException, TemplateException {
+    Element root = TemplateAnalyzer.root(template);
+    if (root == null || !root.name().equals("MixedContent") || TemplateAnalyzer.contains(root, UNMERGEABLE_ELEMENTS) ||
+        template.getConfiguration().getTemplateConfigurations() != null) {
+      return null;
+    }
+
+    for (String key : sharedParameters.keySet()) {
+      if (key.startsWith(SEGMENT_PREFIX)) {
+        return null;
+      }
+    }
+
+    // The segments are output by elements parsed on their own, which must escape the same way as the template does
+    Template probe = copy(template, "");
+    if (!probe.getOutputFormat().equals(template.getOutputFormat()) || probe.getAutoEscaping() != template.getAutoEscaping()) {
+      return null;
+    }
+
+    int count = root.childCount();
+    boolean[] dynamic = new boolean[count];
+    boolean worthwhile = false;
+    for (int i = 0; i < count; i++) {
+      Element child = root.child(i);
+      dynamic[i] = isDynamic(child);
+      worthwhile |= !dynamic[i] && !child.name().equals("TextBlock") && !child.name().equals("Comment");
+    }
+
+    // Text is already as fast as it gets, so only merge templates that have static segments that need to be evaluated
+    String source = source(template);
+    if (!worthwhile || source == null) {
+      return null;
+    }
+
+    // Render the static segments of the template once, with a marker in place of each dynamic segment
+    String marker = UUID.randomUUID().toString();
+    String boundary = SEGMENT_PREFIX + "Boundary";
+    Template shared = copy(template, source);
+    int dynamicCount = 0;
+    for (int i = 0; i < count; i++) {
+      if (dynamic[i]) {
+        TemplateAnalyzer.replace(shared, i, copy(template, "${" + boundary + "}"));
+        dynamicCount++;
+      }
+    }
+
+    Map<String, Object> parameters = new HashMap<>(sharedParameters);
+    parameters.put(boundary, output(template, marker));
+    StringWriter writer = new StringWriter();
+    shared.process(parameters, writer);
+
+    String[] outputs = writer.toString().split(Pattern.quote(marker), -1);
+    if (outputs.length != dynamicCount + 1) {
+      return null;
+    }
+
+    // Replace each run of static segments with its output
+    Template merged = copy(template, source);
+    int run = 0;
+    for (int i = 0; i < count; i++) {
+      if (dynamic[i]) {
+        run++;
+      } else if (i == 0 || dynamic[i - 1]) {
+        String key = SEGMENT_PREFIX + segments.size();
+        segments.put(key, output(template, outputs[run]));
+        TemplateAnalyzer.replace(merged, i, copy(template, "${" + key + "}"));
+      } else {
+        TemplateAnalyzer.replace(merged, i, copy(template, "<#-- -->"));
+      }
+    }
+
+    return merged;
+  }
+
+  /**
+   * Returns the output of a segment as a value that interpolations output as is. Markup output formats would escape
+   * plain strings, so the output is passed as markup for those.
+   */
+  private Object output(Template template, String output) throws TemplateException {
+    OutputFormat outputFormat = template.getOutputFormat();
+    if (outputFormat instanceof MarkupOutputFormat) {
+      return ((MarkupOutputFormat<?>) outputFormat).fromMarkup(output);
+    }
+
+    return output;
+  }
+
+  /**
+   * Returns the exact source of the template, either from the template itself (when it was parsed by the {@link
+   * BaseEmailTemplateLoader}) or from the template loader.
+   */
+  private String source(Template template) throws IOException {
+    Object source = template.getCustomAttribute(BaseEmailTemplateLoader.SOURCE_ATTRIBUTE);
+    if (source instanceof String) {
+      return (String) source;
+    }
+
+    Configuration configuration = template.getConfiguration();
+    TemplateLoader templateLoader = configuration.getTemplateLoader();
+    if (template.getSourceName() == null || templateLoader == null) {
+      return null;
+    }
+
+    Object templateSource = templateLoader.findTemplateSource(template.getSourceName());
+    if (templateSource == null) {
+      return null;
+    }
+
+    String encoding = template.getEncoding() != null ? template.getEncoding() : configuration.getDefaultEncoding();
+    try (Reader reader = templateLoader.getReader(templateSource, encoding)) {
+      StringWriter writer = new StringWriter();
+      reader.transferTo(writer);
+      return writer.toString();
+    } finally {
+      templateLoader.closeTemplateSource(templateSource);
+    }
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.primeframework.email.domain.Attachment;
+import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.EmailAddress;
+import org.primeframework.email.domain.EmailHeader;
+import org.primeframework.email.domain.StreamingContent;
+
+/**
+ * A frozen copy of an email that is waiting to be sent. It only holds what the MIME message is built from when the email
+ * is sent, in arrays rather than lists. The addresses are interned, so emails that are queued from the same sender or
+ * to the same recipients share them. The bodies are the Strings of the email and the attachment data is referenced
+ * rather than copied. When the email is sent, it is rebuilt from the copy using {@link #toEmail()}.
+ *
+ * @author Brian Pontarelli
+ */
+final class QueuedEmail {
+  private static final Address[] NO_ADDRESSES = new Address[0];
+
+  private static final Attachment[] NO_ATTACHMENTS = new Attachment[0];
+
+  private static final String[] NO_HEADERS = new String[0];
+
+  private static final Interner<Address> addresses = Interners.newWeakInterner();
+
+  final Attachment[] attachments;
+
+  final Address[] bcc;
+
+  final Address[] cc;
+
+  final Address from;
+
+  // The names and values of the additional headers, one after the other
+  final String[] headers;
+
+  final String html;
+
+  final StreamingContent htmlContent;
+
+  final Address replyTo;
+
+  final String subject;
+
+  final String text;
+
+  final Address[] to;
+
+  QueuedEmail(Email email) {
+    attachments = email.attachments.isEmpty() ? NO_ATTACHMENTS : email.attachments.toArray(NO_ATTACHMENTS);
+    bcc = addresses(email.bcc);
+    cc = addresses(email.cc);
+    from = address(email.from);
+    html = email.html;
+    htmlContent = email.htmlContent;
+    replyTo = address(email.replyTo);
+    subject = email.subject;
+    text = email.text;
+    to = addresses(email.to);
+
+    if (email.additionalHeaders.isEmpty()) {
+      headers = NO_HEADERS;
+    } else {
+      headers = new String[email.additionalHeaders.size() * 2];
+      for (int i = 0; i < email.additionalHeaders.size(); i++) {
+        EmailHeader header = email.additionalHeaders.get(i);
+        headers[i * 2] = header.name;
+        headers[i * 2 + 1] = header.value;
+      }
+    }
+  }
+
+  private static Address address(EmailAddress emailAddress) {
+    return emailAddress != null ? addresses.intern(new Address(emailAddress.address, emailAddress.display)) : null;
+  }
+
+  private static Address[] addresses(List<EmailAddress> emailAddresses) {
+    if (emailAddresses.isEmpty()) {
+      return NO_ADDRESSES;
+    }
+
+    Address[] result = new Address[emailAddresses.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = address(emailAddresses.get(i));
+    }
+
+    return result;
+  }
+
+  /**
+   * @return The UTF-8 size of the subject and bodies plus the size of the attachments. Streaming HTML isn't counted.
+   */
+  long contentLength() {
+    long length = EmailJfrEvents.utf8Length(subject) + EmailJfrEvents.utf8Length(html) + EmailJfrEvents.utf8Length(text);
+    for (Attachment attachment : attachments) {
+      length += attachment.attachment != null ? attachment.attachment.length : 0;
+    }
+
+    return length;
+  }
+
+  /**
+   * @return A new email with the values of the copy.
+   */
+  Email toEmail() {
+    Email email = new Email();
+    Collections.addAll(email.attachments, attachments);
+    addresses(bcc, email.bcc);
+    addresses(cc, email.cc);
+    addresses(to, email.to);
+    email.from = from != null ? from.toEmailAddress() : null;
+    email.html = html;
+    email.htmlContent = htmlContent;
+    email.replyTo = replyTo != null ? replyTo.toEmailAddress() : null;
+    email.subject = subject;
+    email.text = text;
+    for (int i = 0; i < headers.length; i += 2) {
+      email.additionalHeaders.add(new EmailHeader(headers[i], headers[i + 1]));
+    }
+
+    return email;
+  }
+
+  private static void addresses(Address[] addresses, List<EmailAddress> emailAddresses) {
+    for (Address address : addresses) {
+      emailAddresses.add(address.toEmailAddress());
+    }
+  }
+
+  /**
+   * An interned email address.
+   */
+  record Address(String address, String display) {
+    EmailAddress toEmailAddress() {
+      return new EmailAddress(address, display);
+    }
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import freemarker.template.Template;
+import freemarker.template.TemplateCollectionModel;
+import freemarker.template.TemplateHashModelEx;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import org.primeframework.email.service.TemplateAnalyzer.Element;
+
+/**
+ * Caches the output of template parts whose output only depends on a few parameters, such as a subject that only uses
+ * the brand. The first render of a template records the parameters it reads and its output is cached under the values
+ * of those parameters. Later renders of the template with the same values return the cached output without rendering.
+ * <p>
+ * A render can read more parameters than an earlier one (i.e. when it takes a different branch of an if), so the cache
+ * keeps the union of the parameters each template has read and keys the output by all of them. Output is only cached
+ * when all of those parameters are simple values (strings, numbers, booleans, characters, enums and locales) and the
+ * template doesn't use special variables, user-defined directives or includes.
+ *
+ * @author Brian Pontarelli
+ */
+public class RenderCache {
+  private static final Set<String> UNCACHEABLE_ELEMENTS;
+
+  private final Cache<RenderKey, String> outputs;
+
+  private final Cache<Template, TemplateReads> reads = CacheBuilder.newBuilder().weakKeys().build();
+
+  static {
+    Set<String> elements = new HashSet<>(TemplateAnalyzer.DYNAMIC_ELEMENTS);
+    elements.add("Include");
+    elements.add("LibraryLoad");
+    UNCACHEABLE_ELEMENTS = Set.copyOf(elements);
+  }
+
+  /**
+   * @param maximumSize The maximum number of outputs that are cached.
+   */
+  public RenderCache(long maximumSize) {
+    this.outputs = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+  }
+
+  /**
+   * Returns the cached output of the template for the given model.
+   *
+   * @param template The template.
+   * @param model    The model the template is rendered with.
+   * @return The output or null if it isn't cached.
+   */
+  public String get(Template template, LayeredTemplateHashModel model) {
+    TemplateReads templateReads = reads(template);
+    Set<String> keys = templateReads.keys;
+    if (!templateReads.cacheable || keys == null) {
+      return null;
+    }
+
+    Map<String, Object> values = values(template, model, keys);
+    return values != null ? outputs.getIfPresent(new RenderKey(template, values)) : null;
+  }
+
+  /**
+   * Wraps the model so that the parameters the template reads are recorded. The output of the render is then passed to
+   * {@link #put(Recording, String)}.
+   *
+   * @param template The template.
+   * @param model    The model the template is rendered with.
+   * @return The recording model or null if the output of the template can't be cached.
+   */
+  public Recording record(Template template, LayeredTemplateHashModel model) {
+    return reads(template).cacheable ? new Recording(template, model) : null;
+  }
+
+  /**
+   * Caches the output of a successful render.
+   *
+   * @param recording The model the template was rendered with.
+   * @param output    The output of the template.
+   */
+  public void put(Recording recording, String output) {
+    if (recording.enumerated) {
+      return;
+    }
+
+    Set<String> keys = reads(recording.template).union(recording.keys);
+    Map<String, Object> values = values(recording.template, recording.model, keys);
+    if (values != null) {
+      outputs.put(new RenderKey(recording.template, values), output);
+    }
+  }
+
+  private static boolean isCacheable(Template template) {
+    Element root = TemplateAnalyzer.root(template);
+    return root != null && !TemplateAnalyzer.contains(root, UNCACHEABLE_ELEMENTS) &&
+        !TemplateAnalyzer.hasDynamicExpressions(root.source());
+  }
+
+  private static boolean isSimple(Object value) {
+    return value instanceof String || value instanceof Number || value instanceof Boolean ||
+        value instanceof Character || value instanceof Enum || value instanceof Locale;
+  }
+
+  private TemplateReads reads(Template template) {
+    return reads.asMap().computeIfAbsent(template, (key) -> new TemplateReads(isCacheable(key)));
+  }
+
+  /**
+   * Returns the values of the parameters, or null if any of them isn't a simple value. A missing parameter is only
+   * allowed if there isn't a shared variable of the same name, since shared variables can be anything.
+   */
+  private Map<String, Object> values(Template template, LayeredTemplateHashModel model, Set<String> keys) {
+    Map<String, Object> values = new HashMap<>(keys.size());
+    for (String key : keys) {
+      Object value = model.getParameter(key);
+      if (value == null && template.getConfiguration().getSharedVariable(key) != null) {
+        return null;
+      }
+
+      if (value != null && !isSimple(value)) {
+        return null;
+      }
+
+      values.put(key, value);
+    }
+
+    return values;
+  }
+
+  /**
+   * The model a template is rendered with while the parameters it reads are recorded.
+   */
+  public static class Recording implements TemplateHashModelEx {
+    private final Set<String> keys = ConcurrentHashMap.newKeySet();
+
+    private final LayeredTemplateHashModel model;
+
+    private final Template template;
+
+    // The template listed the parameters themselves, which means its output can depend on all of them
+    private volatile boolean enumerated;
+
+    private Recording(Template template, LayeredTemplateHashModel model) {
+      this.template = template;
+      this.model = model;
+    }
+
+    @Override
+    public TemplateModel get(String key) throws TemplateModelException {
+      keys.add(key);
+      return model.get(key);
+    }
+
+    @Override
+    public boolean isEmpty() {
+      enumerated = true;
+      return model.isEmpty();
+    }
+
+    @Override
+    public TemplateCollectionModel keys() {
+      enumerated = true;
+      return model.keys();
+    }
+
+    @Override
+    public int size() {
+      enumerated = true;
+      return model.size();
+    }
+
+    @Override
+    public TemplateCollectionModel values() throws TemplateModelException {
+      enumerated = true;
+      return model.values();
+    }
+  }
+
+  private record RenderKey(Template template, Map<String, Object> values) {
+  }
+
+  /**
+   * Whether the output of a template can be cached and the union of the parameters it has read so far, which is null
+   * until the first render is recorded.
+   */
+  private static class TemplateReads {
+    private final boolean cacheable;
+
+    private volatile Set<String> keys;
+
+    private TemplateReads(boolean cacheable) {
+      this.cacheable = cacheable;
+    }
+
+    private synchronized Set<String> union(Set<String> read) {
+      if (keys == null || !keys.containsAll(read)) {
+        Set<String> union = keys == null ? new HashSet<>() : new HashSet<>(keys);
+        union.addAll(read);
+        keys = Set.copyOf(union);
+      }
+
+      return keys;
+    }
+  }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import freemarker.template.TemplateException;
+
+/**
+ * Reported as the render error of a template part that exceeded the output or time limit of the renderer.
+ *
+ * @author Brian Pontarelli
+ */
+public class RenderLimitException extends TemplateException {
+  private static final long serialVersionUID = 1L;
+
+  public RenderLimitException(String description) {
+    super(description, null, null);
+  }
+}
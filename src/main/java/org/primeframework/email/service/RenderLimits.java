@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import freemarker.template.Template;
+import freemarker.template.TemplateCollectionModel;
+import freemarker.template.TemplateException;
+import freemarker.template.TemplateHashModelEx;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+
+/**
+ * Limits the output and the time of each template part that is rendered, so that a runaway template (i.e. a huge #list
+ * or a recursive macro) can't build an enormous string or hold the rendering thread for long. The output is limited by
+ * the writer the template is rendered into. The time is checked cooperatively each time the template outputs text or
+ * reads a parameter, which means a template that loops without doing either isn't stopped.
+ *
+ * @author Brian Pontarelli
+ */
+public class RenderLimits {
+  public static final RenderLimits UNLIMITED = new RenderLimits(0, 0);
+
+  private final long maximumOutput;
+
+  private final long maximumTime;
+
+  /**
+   * @param maximumOutput The maximum number of characters a part can output or 0 for no limit.
+   * @param maximumTime   The maximum number of milliseconds a part can take to render or 0 for no limit.
+   */
+  public RenderLimits(long maximumOutput, long maximumTime) {
+    this.maximumOutput = maximumOutput;
+    this.maximumTime = maximumTime;
+  }
+
+  public long getMaximumOutput() {
+    return maximumOutput;
+  }
+
+  public long getMaximumTime() {
+    return maximumTime;
+  }
+
+  /**
+   * Processes the template within the limits.
+   *
+   * @param template The template.
+   * @param model    The model of the parameters.
+   * @param writer   The writer the output is written to.
+   * @throws RenderLimitException If the template exceeds a limit, in which case the output is cut short.
+   * @throws TemplateException    If the template fails.
+   * @throws IOException          If the writer fails.
+   */
+  public void process(Template template, TemplateHashModelEx model, Writer writer) throws TemplateException, IOException {
+    if (maximumOutput <= 0 && maximumTime <= 0) {
+      template.process(model, writer);
+      return;
+    }
+
+    Budget budget = budget();
+    try {
+      template.process(new BudgetTemplateHashModel(model, budget), new BudgetWriter(writer, budget));
+    } catch (LimitExceededException e) {
+      throw new RenderLimitException(e.getMessage());
+    }
+  }
+
+  /**
+   * Starts the budget of a render that checks the limits itself, such as the render of a {@link CompiledTemplate}.
+   *
+   * @return The budget or null if there are no limits.
+   */
+  Budget budget() {
+    if (maximumOutput <= 0 && maximumTime <= 0) {
+      return null;
+    }
+
+    return new Budget(maximumTime > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maximumTime) : 0);
+  }
+
+  /**
+   * Signals a limit that was exceeded. This isn't a TemplateException so that #attempt blocks can't recover from it.
+   */
+  static class LimitExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private LimitExceededException(String message) {
+      super(message, null, false, false);
+    }
+  }
+
+  /**
+   * The output and time used by one render.
+   */
+  class Budget {
+    private final long deadline;
+
+    private long output;
+
+    private Budget(long deadline) {
+      this.deadline = deadline;
+    }
+
+    void checkTime() {
+      if (deadline != 0 && System.nanoTime() - deadline > 0) {
+        throw new LimitExceededException("The template took longer than the limit of [" + maximumTime + "] milliseconds to render");
+      }
+    }
+
+    /**
+     * @return The number of characters of the output that fit within the limit.
+     */
+    int output(int length) {
+      checkTime();
+      if (maximumOutput <= 0) {
+        return length;
+      }
+
+      int allowed = (int) Math.min(length, maximumOutput - output);
+      output += allowed;
+      return allowed;
+    }
+
+    void outputExceeded() {
+      throw new LimitExceededException("The template output more than the limit of [" + maximumOutput + "] characters");
+    }
+  }
+
+  private static class BudgetTemplateHashModel implements TemplateHashModelEx {
+    private final Budget budget;
+
+    private final TemplateHashModelEx model;
+
+    private BudgetTemplateHashModel(TemplateHashModelEx model, Budget budget) {
+      this.model = model;
+      this.budget = budget;
+    }
+
+    @Override
+    public TemplateModel get(String key) throws TemplateModelException {
+      budget.checkTime();
+      return model.get(key);
+    }
+
+    @Override
+    public boolean isEmpty() throws TemplateModelException {
+      return model.isEmpty();
+    }
+
+    @Override
+    public TemplateCollectionModel keys() throws TemplateModelException {
+      return model.keys();
+    }
+
+    @Override
+    public int size() throws TemplateModelException {
+      return model.size();
+    }
+
+    @Override
+    public TemplateCollectionModel values() throws TemplateModelException {
+      return model.values();
+    }
+  }
+
+  private static class BudgetWriter extends Writer {
+    private final Budget budget;
+
+    private final Writer writer;
+
+    private BudgetWriter(Writer writer, Budget budget) {
+      this.writer = writer;
+      this.budget = budget;
+    }
+
+    @Override
+    public void close() throws IOException {
+      writer.close();
+    }
+
+    @Override
+    public void flush() throws IOException {
+      writer.flush();
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+      int allowed = budget.output(length);
+      writer.write(buffer, offset, allowed);
+      if (allowed < length) {
+        budget.outputExceeded();
+      }
+    }
+
+    @Override
+    public void write(String string, int offset, int length) throws IOException {
+      int allowed = budget.output(length);
+      writer.write(string, offset, allowed);
+      if (allowed < length) {
+        budget.outputExceeded();
+      }
+    }
+  }
+}
@@ -15,6 +15,9 @@
  */
 package org.primeframework.email.service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 import org.primeframework.email.domain.Email;
@@ -25,25 +28,88 @@ import org.primeframework.email.domain.SendResult;
  * EmailTemplate.
  */
 public class SendEmailBuilder extends BaseEmailBuilder<SendEmailBuilder, SendResult> {
+  protected final BiFunction<SendEmailBuilder, Instant, SendResult> atFunction;
+
   protected final Function<SendEmailBuilder, SendResult> laterFunction;
 
+  protected boolean streamHtml;
+
   /**
-   * Constructs a new instance.
+   * Constructs a new instance that doesn't support sending emails at a specific time. Like a transport without scheduled
+   * sends (see {@link EmailTransportService#sendEmailAt}), the send result of {@link #at(Instant)} has a transport
+   * error.
    *
-   * @param contextId   The context id that helps determine how the email is processed.
-   * @param templateId  The id of the template.
-   * @param email       The email from the configuration.
-   * @param nowFunction The function to call when emails are sent now.
+   * @param contextId     The context id that helps determine how the email is processed.
+   * @param templateId    The id of the template.
+   * @param email         The email from the configuration.
+   * @param laterFunction The function to call when emails are sent later.
+   * @param nowFunction   The function to call when emails are sent now.
    */
   SendEmailBuilder(Object contextId, Object templateId, Email email,
                    Function<SendEmailBuilder, SendResult> laterFunction,
                    Function<SendEmailBuilder, SendResult> nowFunction) {
+    this(contextId, templateId, email, laterFunction, nowFunction, (sendEmailBuilder, instant) -> {
+      SendResult sendResult = new SendResult(sendEmailBuilder.getEmail());
+      sendResult.transportError = EmailTransportService.SEND_AT_UNSUPPORTED;
+      return sendResult;
+    });
+  }
+
+  /**
+   * Constructs a new instance.
+   *
+   * @param contextId     The context id that helps determine how the email is processed.
+   * @param templateId    The id of the template.
+   * @param email         The email from the configuration.
+   * @param laterFunction The function to call when emails are sent later.
+   * @param nowFunction   The function to call when emails are sent now.
+   * @param atFunction    The function to call when emails are sent at a specific time.
+   */
+  SendEmailBuilder(Object contextId, Object templateId, Email email,
+                   Function<SendEmailBuilder, SendResult> laterFunction,
+                   Function<SendEmailBuilder, SendResult> nowFunction,
+                   BiFunction<SendEmailBuilder, Instant, SendResult> atFunction) {
     super(contextId, templateId, email, nowFunction);
     this.laterFunction = laterFunction;
+    this.atFunction = atFunction;
+  }
+
+  /**
+   * Sends the email that has been built using this builder once the duration has passed.
+   *
+   * @param duration The duration from now.
+   * @return The send result, which might include parse, render or send errors, or a Future to track the sending of the
+   *     email. Cancelling the Future before the email is due cancels the send.
+   */
+  public SendResult after(Duration duration) {
+    return at(Instant.now().plus(duration));
+  }
+
+  /**
+   * Sends the email that has been built using this builder at a specific time. The email is rendered right away and the
+   * transport holds it until it is due.
+   * <p>
+   * The {@link SendResult#email} of the JavaMail transport is null while the email is scheduled, because the transport
+   * only keeps a frozen copy of it. Once the email is sent (or fails), it is a new Email that is rebuilt from the copy
+   * rather than the Email of this builder.
+   *
+   * @param instant The time at which the email is sent.
+   * @return The send result, which might include parse, render or send errors, or a Future to track the sending of the
+   *     email. Cancelling the Future before the email is due cancels the send.
+   */
+  public SendResult at(Instant instant) {
+    return atFunction.apply(this, instant);
+  }
+
+  public boolean isStreamHtml() {
+    return streamHtml;
   }
 
   /**
    * Sends the email that has been built using this builder at some point in the future.
+   * <p>
+   * Like {@link #at(Instant)}, the {@link SendResult#email} of the JavaMail transport is null while the email is queued
+   * and it is a new Email once the email is sent.
    *
    * @return The send result, which might include parse, render or send errors, or a Future to track the sending of the
    * email.
@@ -60,4 +126,19 @@ public class SendEmailBuilder extends BaseEmailBuilder<SendEmailBuilder, SendRes
   public SendResult now() {
     return nowFunction.apply(this);
   }
+
+  /**
+   * Renders the HTML template directly into the MIME message when the email is sent rather than rendering it into a
+   * String first. This keeps the memory used by large HTML emails independent of their size. Since the HTML is rendered
+   * during the send, any errors it contains are only added to the send result once the email has been sent.
+   * <p>
+   * The streamed HTML never exists as a String, so it isn't passed through the {@link EmailPostProcessor} (for example
+   * the stylesheets aren't inlined) and it is always rendered in full rather than taken from the render cache.
+   *
+   * @return This builder.
+   */
+  public SendEmailBuilder streamHtml() {
+    this.streamHtml = true;
+    return this;
+  }
 }
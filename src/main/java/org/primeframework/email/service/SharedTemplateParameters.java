@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import freemarker.template.ObjectWrapper;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+
+/**
+ * Template parameters that are shared by many emails, such as branding or a product catalog. These are copied once when
+ * this object is created and can't be changed afterward. Each email then layers its own parameters in front of them
+ * (see {@link BaseEmailBuilder#withSharedTemplateParameters(SharedTemplateParameters)}) rather than copying them.
+ * <p>
+ * The FreeMarker models of the parameters are also created once and reused by every email rendered with the same
+ * ObjectWrapper.
+ *
+ * @author Brian Pontarelli
+ */
+public class SharedTemplateParameters extends AbstractMap<String, Object> {
+  public static final SharedTemplateParameters EMPTY = new SharedTemplateParameters(Map.of());
+
+  // The ObjectWrapper and the models it created are set together, so a model is never used with another ObjectWrapper
+  private final AtomicReference<Models> models = new AtomicReference<>();
+
+  private final Map<String, Object> parameters;
+
+  public SharedTemplateParameters(Map<String, Object> parameters) {
+    this.parameters = Collections.unmodifiableMap(new HashMap<>(parameters));
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return parameters.containsKey(key);
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return parameters.entrySet();
+  }
+
+  @Override
+  public Object get(Object key) {
+    return parameters.get(key);
+  }
+
+  @Override
+  public int size() {
+    return parameters.size();
+  }
+
+  /**
+   * Returns the FreeMarker model of a parameter. The models are cached for the first ObjectWrapper that is used, which
+   * is normally the only one.
+   *
+   * @param key           The name of the parameter.
+   * @param objectWrapper The ObjectWrapper of the template being rendered.
+   * @return The model or null if the parameter doesn't exist.
+   * @throws TemplateModelException If the parameter can't be wrapped.
+   */
+  TemplateModel getModel(String key, ObjectWrapper objectWrapper) throws TemplateModelException {
+    Models models = this.models.get();
+    if (models == null) {
+      this.models.compareAndSet(null, new Models(objectWrapper, new ConcurrentHashMap<>()));
+      models = this.models.get();
+    }
+
+    if (models.objectWrapper != objectWrapper) {
+      return objectWrapper.wrap(parameters.get(key));
+    }
+
+    TemplateModel model = models.models.get(key);
+    if (model == null) {
+      Object value = parameters.get(key);
+      if (value == null) {
+        return null;
+      }
+
+      model = objectWrapper.wrap(value);
+      TemplateModel existing = models.models.putIfAbsent(key, model);
+      if (existing != null) {
+        model = existing;
+      }
+    }
+
+    return model;
+  }
+
+  private record Models(ObjectWrapper objectWrapper, Map<String, TemplateModel> models) {
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.primeframework.email.domain.SmtpTrace;
+
+/**
+ * Keeps the traces of the slowest SMTP sends. When this recorder is enabled, the {@link JavaMailEmailTransportService}
+ * uses an instrumented SMTP transport that times every command, and every send that takes at least the threshold is
+ * kept in a ring buffer of the most recent slow sends. The recorder that is bound by default is {@link #NONE}, which
+ * leaves the transport as is.
+ *
+ * @author Brian Pontarelli
+ */
+public class SmtpTraceRecorder {
+  public static final SmtpTraceRecorder NONE = new SmtpTraceRecorder(false, Duration.ZERO, 1);
+
+  private final boolean enabled;
+
+  private final AtomicLong next = new AtomicLong();
+
+  private final long threshold;
+
+  private final AtomicReferenceArray<SmtpTrace> traces;
+
+  /**
+   * Constructs a recorder that keeps the last 100 sends that took at least the threshold.
+   *
+   * @param threshold The minimum duration of the sends that are kept.
+   */
+  public SmtpTraceRecorder(Duration threshold) {
+    this(threshold, 100);
+  }
+
+  /**
+   * Constructs a recorder that keeps the sends that took at least the threshold.
+   *
+   * @param threshold The minimum duration of the sends that are kept.
+   * @param capacity  The number of sends that are kept. Once there are this many, the oldest is replaced.
+   */
+  public SmtpTraceRecorder(Duration threshold, int capacity) {
+    this(true, threshold, capacity);
+  }
+
+  private SmtpTraceRecorder(boolean enabled, Duration threshold, int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("The capacity must be at least 1");
+    }
+
+    this.enabled = enabled;
+    this.threshold = threshold.toNanos();
+    this.traces = new AtomicReferenceArray<>(capacity);
+  }
+
+  /**
+   * @return True if the SMTP commands are timed.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Keeps the trace if the send took at least the threshold.
+   *
+   * @param trace The trace of a send.
+   */
+  public void record(SmtpTrace trace) {
+    if (enabled && trace.duration.toNanos() >= threshold) {
+      traces.set((int) (next.getAndIncrement() % traces.length()), trace);
+    }
+  }
+
+  /**
+   * @return The slow sends that are kept, most recent first.
+   */
+  public List<SmtpTrace> slowSends() {
+    List<SmtpTrace> result = new ArrayList<>();
+    long last = next.get();
+    for (long i = last - 1; i >= 0 && i >= last - traces.length(); i--) {
+      SmtpTrace trace = traces.get((int) (i % traces.length()));
+      if (trace != null) {
+        result.add(trace);
+      }
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import freemarker.core.TemplateElement;
+import freemarker.template.Template;
+
+/**
+ * Checks parsed templates for the elements and expressions that make their output depend on more than the parameters
+ * they read.
+ * <p>
+ * FreeMarker doesn't have a supported API for the elements of a parsed template, so this is the only class that uses
+ * its internal (deprecated) element tree. Everything else works with the read-only {@link Element} views this class
+ * returns. The node names the other classes rely on are checked against the FreeMarker version by the tests of this
+ * class, and these need to be run again before FreeMarker is upgraded.
+ *
+ * @author Brian Pontarelli
+ */
+@SuppressWarnings("deprecation")
+final class TemplateAnalyzer {
+  /**
+   * User-defined directives and node processing, which can call arbitrary code, and the instructions that change the
+   * flow of the whole template.
+   */
+  static final Set<String> DYNAMIC_ELEMENTS = Set.of("FallbackInstruction", "RecurseNode", "StopInstruction", "UnifiedCall", "VisitNode");
+
+  // Special variables (i.e. .now or .vars) and the built-ins that evaluate strings as FreeMarker
+  private static final Pattern DYNAMIC_EXPRESSIONS = Pattern.compile("(^|[^\\w)\\]}'\"])\\.[a-zA-Z_]|\\?\\s*(eval|eval_json|interpret)\\b");
+
+  private TemplateAnalyzer() {
+  }
+
+  /**
+   * @param element The element.
+   * @param names   The node names of the elements to look for.
+   * @return True if the element or any element inside it has one of the names.
+   */
+  static boolean contains(Element element, Set<String> names) {
+    if (names.contains(element.name())) {
+      return true;
+    }
+
+    for (int i = 0; i < element.childCount(); i++) {
+      if (contains(element.child(i), names)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * @param source The source of a template or element.
+   * @return True if the source uses special variables or evaluates strings as FreeMarker.
+   */
+  static boolean hasDynamicExpressions(String source) {
+    return DYNAMIC_EXPRESSIONS.matcher(source).find();
+  }
+
+  /**
+   * Replaces a top level element of a template with the root element of another template. This changes the template,
+   * so it must only be called for a template that was parsed privately by the caller and is never shared.
+   *
+   * @param copy        The privately parsed template whose element is replaced.
+   * @param index       The index of the top level element.
+   * @param replacement The template whose root element replaces it.
+   */
+  static void replace(Template copy, int index, Template replacement) {
+    copy.getRootTreeNode().setChildAt(index, replacement.getRootTreeNode());
+  }
+
+  /**
+   * @param template The parsed template.
+   * @return The root element of the template, or null if the template is empty.
+   */
+  static Element root(Template template) {
+    TemplateElement root = template.getRootTreeNode();
+    return root != null ? new Element(root) : null;
+  }
+
+  /**
+   * A read-only view of an element of a parsed template.
+   */
+  static final class Element {
+    private final TemplateElement element;
+
+    private Element(TemplateElement element) {
+      this.element = element;
+    }
+
+    /**
+     * @return The source of the element after white-space stripping, which for text is the text that is output.
+     */
+    String canonicalForm() {
+      return element.getCanonicalForm();
+    }
+
+    Element child(int index) {
+      return new Element((TemplateElement) element.getChildAt(index));
+    }
+
+    int childCount() {
+      return element.getChildCount();
+    }
+
+    List<Element> children() {
+      List<Element> children = new ArrayList<>(element.getChildCount());
+      for (int i = 0; i < element.getChildCount(); i++) {
+        children.add(child(i));
+      }
+
+      return children;
+    }
+
+    /**
+     * @return The start tag or interpolation of the element, for example <code>#if a.b</code> or <code>${a}</code>.
+     */
+    String description() {
+      return element.getDescription();
+    }
+
+    /**
+     * @return The type of the element, for example IfBlock or TextBlock.
+     */
+    String name() {
+      return element.getNodeName();
+    }
+
+    /**
+     * @return The exact source of the element.
+     */
+    String source() {
+      return element.getSource();
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import freemarker.core.ParseException;
+import freemarker.template.Template;
+import org.primeframework.email.domain.BaseResult;
+import org.primeframework.email.domain.ValidateResult;
+
+/**
+ * Parses each distinct template source once and shares the result, including its parse error, between everything that
+ * uses the cache. This is safe because parsed templates aren't changed when they are rendered. A cache must only be used
+ * with one template loader, since the templates are parsed with its configuration. The cache isn't bounded, so it is
+ * meant to be used for a batch of work and then discarded.
+ *
+ * @author Brian Pontarelli
+ */
+public class TemplateParseCache {
+  private final Map<String, ParsedTemplate> templates = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the parsed template, parsing it if this is the first time the source is used.
+   *
+   * @param source     The template source.
+   * @param part       The part of the email the template is for (i.e. subject, from, etc).
+   * @param baseResult The base result that the parse error is added to.
+   * @param parser     Parses the template the first time.
+   * @return The parsed template or null if it couldn't be parsed.
+   */
+  public Template parse(String source, String part, BaseResult baseResult, Parser parser) {
+    ParsedTemplate parsedTemplate = templates.computeIfAbsent(source, (key) -> new ParsedTemplate());
+    parsedTemplate.parse(source, parser);
+    if (parsedTemplate.parseException != null) {
+      baseResult.parseErrors.put(part, parsedTemplate.parseException);
+    }
+
+    return parsedTemplate.template;
+  }
+
+  /**
+   * @return The number of distinct sources that have been parsed.
+   */
+  public int size() {
+    return templates.size();
+  }
+
+  @FunctionalInterface
+  public interface Parser {
+    Template parse(String source, String part, BaseResult baseResult);
+  }
+
+  /**
+   * The outcome of parsing one source. Other threads that need the same source wait for the first one to parse it.
+   */
+  private static class ParsedTemplate {
+    private boolean parsed;
+
+    private ParseException parseException;
+
+    private Template template;
+
+    private synchronized void parse(String source, Parser parser) {
+      if (parsed) {
+        return;
+      }
+
+      ValidateResult result = new ValidateResult();
+      template = parser.parse(source, "template", result);
+      parseException = result.parseErrors.get("template");
+      parsed = true;
+    }
+  }
+}
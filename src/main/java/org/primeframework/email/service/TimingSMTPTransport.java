@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.URLName;
+import org.eclipse.angus.mail.smtp.SMTPTransport;
+import org.primeframework.email.domain.SmtpTrace.Command;
+
+/**
+ * An SMTP transport that times every command, from when it is sent until the server responds, along with the response
+ * code. The commands are collected until {@link #commands()} is called, which the {@link JavaMailEmailTransportService}
+ * does after each email. Only the verbs of the commands are kept, never their arguments (i.e. addresses and
+ * credentials).
+ *
+ * @author Brian Pontarelli
+ */
+class TimingSMTPTransport extends SMTPTransport {
+  private final Queue<Pending> pending = new ArrayDeque<>();
+
+  private boolean chunking;
+
+  private List<Command> commands = new ArrayList<>();
+
+  private long connectStart;
+
+  private long contentStart;
+
+  private long lastResponse;
+
+  TimingSMTPTransport(Session session, String protocol) {
+    super(session, new URLName(protocol, null, -1, null, null, null), protocol, protocol.equals("smtps"));
+  }
+
+  /**
+   * @return The commands since the last call, oldest first.
+   */
+  List<Command> commands() {
+    List<Command> commands = this.commands;
+    this.commands = new ArrayList<>();
+    return commands;
+  }
+
+  @Override
+  protected OutputStream bdat() throws MessagingException {
+    chunking = true;
+    return super.bdat();
+  }
+
+  @Override
+  protected OutputStream data() throws MessagingException {
+    OutputStream outputStream = super.data();
+    contentStart = System.nanoTime();
+    return outputStream;
+  }
+
+  @Override
+  protected void finishBdat() throws IOException, MessagingException {
+    try {
+      super.finishBdat();
+    } finally {
+      chunking = false;
+    }
+  }
+
+  @Override
+  protected void finishData() throws IOException, MessagingException {
+    add("CONTENT", contentStart, -1);
+    super.finishData();
+  }
+
+  @Override
+  protected synchronized boolean protocolConnect(String host, int port, String user, String password)
+      throws MessagingException {
+    pending.clear();
+    connectStart = System.nanoTime();
+    return super.protocolConnect(host, port, user, password);
+  }
+
+  @Override
+  protected int readServerResponse() throws MessagingException {
+    Pending pending = this.pending.poll();
+    String name;
+    long start;
+    if (pending != null) {
+      name = pending.name;
+      start = pending.start;
+    } else if (connectStart != 0) {
+      // The greeting of the server
+      name = "CONNECT";
+      start = connectStart;
+      connectStart = 0;
+    } else {
+      // The responses to the chunks of the message are read without a command
+      name = chunking ? "BDAT" : "RESPONSE";
+      start = lastResponse;
+    }
+
+    int code = -1;
+    try {
+      code = super.readServerResponse();
+      return code;
+    } finally {
+      add(name, start, code);
+    }
+  }
+
+  @Override
+  protected void sendCommand(String cmd) throws MessagingException {
+    pending.add(new Pending(name(cmd), System.nanoTime()));
+    super.sendCommand(cmd);
+  }
+
+  @Override
+  protected int simpleCommand(byte[] cmd) throws MessagingException {
+    // Only the SASL authenticators send raw commands
+    pending.add(new Pending("AUTH", System.nanoTime()));
+    return super.simpleCommand(cmd);
+  }
+
+  @Override
+  protected void startTLS() throws MessagingException {
+    super.startTLS();
+    add("TLS", lastResponse, -1);
+  }
+
+  private void add(String name, long start, int code) {
+    lastResponse = System.nanoTime();
+    commands.add(new Command(name, Duration.ofNanos(lastResponse - start), code));
+  }
+
+  private String name(String cmd) {
+    if (cmd.equals(".")) {
+      return "END_OF_DATA";
+    }
+
+    int end = 0;
+    while (end < cmd.length() && cmd.charAt(end) != ' ' && cmd.charAt(end) != ':') {
+      end++;
+    }
+
+    return cmd.substring(0, end).toUpperCase(Locale.ROOT);
+  }
+
+  private record Pending(String name, long start) {
+  }
+}
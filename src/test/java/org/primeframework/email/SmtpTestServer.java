@@ -0,0 +1,719 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.mail.Session;
+
+/**
+ * An SMTP server that runs inside the JVM, so that the JavaMail transport can be tested and benchmarked without a real
+ * server. It accepts every message (and keeps the most recent ones so tests can check them), and can add latency to the
+ * replies and fail or drop the connection on any command to test how the transport handles slow and broken servers.
+ * <p>
+ * The server supports EHLO with PIPELINING, 8BITMIME and CHUNKING (BDAT), and HELO, MAIL, RCPT, DATA, RSET, NOOP and
+ * QUIT. It doesn't support STARTTLS or AUTH. All the connections are handled by a single thread with non-blocking IO,
+ * which easily handles thousands of concurrent connections.
+ * <p>
+ * Latency and failures are set per command. The command {@code CONNECT} is the greeting of the server, and {@code DATA}
+ * and {@code BDAT} are the replies once the message was received. For example:
+ * <pre>
+ *   try (SmtpTestServer server = new SmtpTestServer().start()) {
+ *     server.latency("RCPT", Duration.ofMillis(50))
+ *           .failNext("DATA", 1, "451 4.3.0 Try again later");
+ *     Session session = server.session();
+ *     ...
+ *   }
+ * </pre>
+ * <b>NOTE:</b> This class is thread safe and can be configured while it is running.
+ *
+ * @author Brian Pontarelli
+ */
+public class SmtpTestServer implements AutoCloseable {
+  private final AtomicInteger activeSessions = new AtomicInteger();
+
+  private final List<Fault> faults = new CopyOnWriteArrayList<>();
+
+  private final Map<String, Duration> latencies = new ConcurrentHashMap<>();
+
+  private final AtomicLong messageCount = new AtomicLong();
+
+  private final ArrayDeque<ReceivedEmail> messages = new ArrayDeque<>();
+
+  private final PriorityQueue<SmtpSession> timers = new PriorityQueue<>((a, b) -> Long.compare(a.due, b.due));
+
+  private volatile Duration latency = Duration.ZERO;
+
+  private volatile int retain = 1_000;
+
+  private volatile boolean running;
+
+  private Selector selector;
+
+  private ServerSocketChannel serverChannel;
+
+  private Thread thread;
+
+  /**
+   * @return The number of connections that are open.
+   */
+  public int activeSessions() {
+    return activeSessions.get();
+  }
+
+  @Override
+  public void close() {
+    running = false;
+    if (selector != null) {
+      selector.wakeup();
+    }
+
+    if (thread != null) {
+      try {
+        thread.join(5_000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Drops the connection when the server receives the command.
+   *
+   * @param command The command (or CONNECT).
+   * @param rate    The fraction of the commands that drop the connection, between 0 and 1.
+   * @return This server.
+   */
+  public SmtpTestServer disconnect(String command, double rate) {
+    faults.add(new Fault(command.toUpperCase(Locale.ROOT), rate, -1, null));
+    return this;
+  }
+
+  /**
+   * Replies to the command with an error.
+   *
+   * @param command  The command (or CONNECT).
+   * @param rate     The fraction of the commands that fail, between 0 and 1.
+   * @param response The reply, for example {@code 451 4.3.0 Try again later}.
+   * @return This server.
+   */
+  public SmtpTestServer fail(String command, double rate, String response) {
+    faults.add(new Fault(command.toUpperCase(Locale.ROOT), rate, -1, response));
+    return this;
+  }
+
+  /**
+   * Replies to the next few times the server receives the command with an error, which is useful to test retries.
+   *
+   * @param command  The command (or CONNECT).
+   * @param times    The number of times the command fails.
+   * @param response The reply, for example {@code 451 4.3.0 Try again later}.
+   * @return This server.
+   */
+  public SmtpTestServer failNext(String command, int times, String response) {
+    faults.add(new Fault(command.toUpperCase(Locale.ROOT), 1, times, response));
+    return this;
+  }
+
+  /**
+   * @return The host the server listens on.
+   */
+  public String host() {
+    return InetAddress.getLoopbackAddress().getHostAddress();
+  }
+
+  /**
+   * Delays every reply of the server.
+   *
+   * @param latency The delay.
+   * @return This server.
+   */
+  public SmtpTestServer latency(Duration latency) {
+    this.latency = latency;
+    return this;
+  }
+
+  /**
+   * Delays the replies to a command. This replaces the latency that is set for all the commands.
+   *
+   * @param command The command (or CONNECT).
+   * @param latency The delay.
+   * @return This server.
+   */
+  public SmtpTestServer latency(String command, Duration latency) {
+    latencies.put(command.toUpperCase(Locale.ROOT), latency);
+    return this;
+  }
+
+  /**
+   * @return The number of messages the server accepted.
+   */
+  public long messageCount() {
+    return messageCount.get();
+  }
+
+  /**
+   * @return The most recent messages the server accepted, oldest first.
+   */
+  public List<ReceivedEmail> messages() {
+    synchronized (messages) {
+      return new ArrayList<>(messages);
+    }
+  }
+
+  /**
+   * @return The port the server listens on.
+   */
+  public int port() {
+    return serverChannel.socket().getLocalPort();
+  }
+
+  /**
+   * @return The JavaMail properties to send to the server.
+   */
+  public Properties properties() {
+    Properties properties = new Properties();
+    properties.setProperty("mail.host", "localhost");
+    properties.setProperty("mail.smtp.host", host());
+    properties.setProperty("mail.smtp.localhost", "localhost");
+    properties.setProperty("mail.smtp.port", Integer.toString(port()));
+    properties.setProperty("mail.transport.protocol", "smtp");
+    return properties;
+  }
+
+  /**
+   * Removes the latencies, the failures and the messages.
+   */
+  public void reset() {
+    faults.clear();
+    latencies.clear();
+    latency = Duration.ZERO;
+    messageCount.set(0);
+    synchronized (messages) {
+      messages.clear();
+    }
+  }
+
+  /**
+   * Sets how many of the most recent messages are kept. Load tests should set this to 0.
+   *
+   * @param retain The number of messages.
+   * @return This server.
+   */
+  public SmtpTestServer retain(int retain) {
+    this.retain = retain;
+    return this;
+  }
+
+  /**
+   * @return A JavaMail session that sends to the server.
+   */
+  public Session session() {
+    return Session.getInstance(properties());
+  }
+
+  /**
+   * Starts the server on a random port of the loopback address.
+   *
+   * @return This server.
+   * @throws IOException If the server can't be started.
+   */
+  public SmtpTestServer start() throws IOException {
+    return start(0);
+  }
+
+  /**
+   * Starts the server on the loopback address.
+   *
+   * @param port The port, or 0 for a random port.
+   * @return This server.
+   * @throws IOException If the server can't be started.
+   */
+  public SmtpTestServer start(int port) throws IOException {
+    selector = Selector.open();
+    serverChannel = ServerSocketChannel.open();
+    serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 4_096);
+    serverChannel.configureBlocking(false);
+    serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+    running = true;
+    thread = new Thread(this::run, "prime-email-smtp-test-server");
+    thread.setDaemon(true);
+    thread.start();
+    return this;
+  }
+
+  private void accept() throws IOException {
+    SocketChannel channel;
+    while ((channel = serverChannel.accept()) != null) {
+      channel.configureBlocking(false);
+      channel.socket().setTcpNoDelay(true);
+      SmtpSession session = new SmtpSession(channel);
+      session.key = channel.register(selector, SelectionKey.OP_READ, session);
+      activeSessions.incrementAndGet();
+      session.reply("CONNECT", "220 localhost ESMTP Prime SMTP test server");
+    }
+  }
+
+  private Fault fault(String command) {
+    for (Fault fault : faults) {
+      if (fault.command.equals(command) && fault.matches()) {
+        return fault;
+      }
+    }
+
+    return null;
+  }
+
+  private void run() {
+    try {
+      while (running) {
+        long timeout = 0;
+        SmtpSession next = timers.peek();
+        if (next != null) {
+          timeout = Math.max(1, (next.due - System.nanoTime()) / 1_000_000);
+        }
+
+        selector.select(timeout);
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          if (!key.isValid()) {
+            continue;
+          }
+
+          if (key.isAcceptable()) {
+            accept();
+            continue;
+          }
+
+          SmtpSession session = (SmtpSession) key.attachment();
+          try {
+            if (key.isWritable()) {
+              session.write();
+            }
+
+            if (key.isValid() && key.isReadable()) {
+              session.read();
+            }
+          } catch (IOException e) {
+            // The client went away
+            session.close();
+          }
+        }
+
+        long now = System.nanoTime();
+        while (!timers.isEmpty() && timers.peek().due <= now) {
+          SmtpSession session = timers.poll();
+          session.scheduled = false;
+          try {
+            session.write();
+          } catch (IOException e) {
+            session.close();
+          }
+        }
+      }
+    } catch (IOException e) {
+      // The selector failed, so the server stops
+    } finally {
+      for (SelectionKey key : selector.keys()) {
+        try {
+          key.channel().close();
+        } catch (IOException e) {
+          // Closing anyway
+        }
+      }
+
+      try {
+        selector.close();
+      } catch (IOException e) {
+        // Closing anyway
+      }
+
+      activeSessions.set(0);
+    }
+  }
+
+  /**
+   * A message the server accepted.
+   */
+  public static class ReceivedEmail {
+    public byte[] data;
+
+    public String from;
+
+    public List<String> recipients = new ArrayList<>();
+
+    /**
+     * @return The message (headers and body) as a string.
+     */
+    public String content() {
+      return new String(data, StandardCharsets.UTF_8);
+    }
+  }
+
+  private static class Fault {
+    private final String command;
+
+    private final double rate;
+
+    private final AtomicInteger remaining;
+
+    private final String response;
+
+    Fault(String command, double rate, int times, String response) {
+      this.command = command;
+      this.rate = rate;
+      this.remaining = new AtomicInteger(times);
+      this.response = response;
+    }
+
+    boolean matches() {
+      if (remaining.get() >= 0) {
+        return remaining.getAndUpdate((value) -> Math.max(value - 1, 0)) > 0;
+      }
+
+      return rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate;
+    }
+  }
+
+  private record Reply(ByteBuffer buffer, long due, boolean close) {
+  }
+
+  /**
+   * The state of a single connection. It is only used by the server thread.
+   */
+  private class SmtpSession {
+    private final SocketChannel channel;
+
+    private final ArrayDeque<Reply> replies = new ArrayDeque<>();
+
+    private long chunkRemaining;
+
+    private boolean closed;
+
+    private ByteArrayOutputStream data;
+
+    private long due;
+
+    private ReceivedEmail email;
+
+    private ByteBuffer input = ByteBuffer.allocate(8_192);
+
+    private SelectionKey key;
+
+    private boolean lastChunk;
+
+    private long lastDue;
+
+    private Mode mode = Mode.COMMAND;
+
+    private boolean scheduled;
+
+    SmtpSession(SocketChannel channel) {
+      this.channel = channel;
+    }
+
+    void close() {
+      if (closed) {
+        return;
+      }
+
+      closed = true;
+      activeSessions.decrementAndGet();
+      key.cancel();
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // Closing anyway
+      }
+    }
+
+    void read() throws IOException {
+      if (!input.hasRemaining()) {
+        ByteBuffer larger = ByteBuffer.allocate(input.capacity() * 2);
+        input.flip();
+        larger.put(input);
+        input = larger;
+      }
+
+      int read = channel.read(input);
+      if (read < 0) {
+        close();
+        return;
+      }
+
+      input.flip();
+      while (!closed && process()) {
+        // Keep processing the pipelined commands
+      }
+
+      input.compact();
+    }
+
+    /**
+     * Queues a reply, after the latency of the command. The replies are always written in order, so a slow reply delays
+     * the pipelined replies after it.
+     *
+     * @return True if the reply is a success, false if it was replaced by a failure.
+     */
+    boolean reply(String command, String response) throws IOException {
+      boolean accepted = queueReply(command, response);
+      write();
+      return accepted;
+    }
+
+    /**
+     * Queues the reply to a command without writing it.
+     *
+     * @return True if the reply accepts the command.
+     */
+    boolean queueReply(String command, String response) {
+      boolean close = command.equals("QUIT");
+      Fault fault = fault(command);
+      if (fault != null) {
+        close |= fault.response == null;
+        response = fault.response;
+      }
+
+      Duration latency = latencies.getOrDefault(command, SmtpTestServer.this.latency);
+      long due = Math.max(lastDue, System.nanoTime() + latency.toNanos());
+      lastDue = due;
+
+      ByteBuffer buffer = response != null ? ByteBuffer.wrap((response + "\r\n").getBytes(StandardCharsets.ISO_8859_1)) : ByteBuffer.allocate(0);
+      replies.add(new Reply(buffer, due, close));
+      return !close && response != null && response.charAt(0) == '2';
+    }
+
+    void write() throws IOException {
+      long now = System.nanoTime();
+      Reply reply;
+      while ((reply = replies.peek()) != null && reply.due <= now) {
+        channel.write(reply.buffer);
+        if (reply.buffer.hasRemaining()) {
+          key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+          return;
+        }
+
+        replies.poll();
+        if (reply.close) {
+          close();
+          return;
+        }
+      }
+
+      if (key.isValid()) {
+        key.interestOps(SelectionKey.OP_READ);
+      }
+
+      if (reply != null && !scheduled) {
+        due = reply.due;
+        scheduled = true;
+        timers.add(this);
+      }
+    }
+
+    private void command(String line) throws IOException {
+      int end = line.indexOf(' ');
+      String command = (end < 0 ? line : line.substring(0, end)).toUpperCase(Locale.ROOT);
+      switch (command) {
+        case "EHLO" -> {
+          email = null;
+          reply(command, "250-localhost\r\n250-PIPELINING\r\n250-8BITMIME\r\n250 CHUNKING");
+        }
+        case "HELO" -> {
+          email = null;
+          reply(command, "250 localhost");
+        }
+        case "MAIL" -> {
+          email = new ReceivedEmail();
+          email.from = address(line);
+          if (!reply(command, "250 2.1.0 Ok")) {
+            email = null;
+          }
+        }
+        case "RCPT" -> {
+          if (email == null) {
+            reply(command, "503 5.5.1 Error: need MAIL command");
+            return;
+          }
+
+          if (reply(command, "250 2.1.5 Ok")) {
+            email.recipients.add(address(line));
+          }
+        }
+        case "DATA" -> {
+          if (email == null || email.recipients.isEmpty()) {
+            reply(command, "554 5.5.1 Error: no valid recipients");
+            return;
+          }
+
+          data = new ByteArrayOutputStream();
+          mode = Mode.DATA;
+          respond("354 End data with <CR><LF>.<CR><LF>");
+        }
+        case "BDAT" -> {
+          String[] parts = line.split(" ");
+          if (email == null || email.recipients.isEmpty() || parts.length < 2) {
+            reply(command, "554 5.5.1 Error: no valid recipients");
+            return;
+          }
+
+          if (data == null) {
+            data = new ByteArrayOutputStream();
+          }
+
+          chunkRemaining = Long.parseLong(parts[1]);
+          lastChunk = parts.length > 2 && parts[2].equalsIgnoreCase("LAST");
+          mode = Mode.BDAT;
+        }
+        case "RSET" -> {
+          email = null;
+          data = null;
+          reply(command, "250 2.0.0 Ok");
+        }
+        case "NOOP" -> reply(command, "250 2.0.0 Ok");
+        case "QUIT" -> reply(command, "221 2.0.0 Bye");
+        default -> reply(command, "502 5.5.2 Error: command not recognized");
+      }
+    }
+
+    private String address(String line) {
+      int start = line.indexOf('<');
+      int end = line.indexOf('>', start);
+      return start >= 0 && end > start ? line.substring(start + 1, end) : null;
+    }
+
+    /**
+     * Accepts the message (unless the reply is a failure) and resets the transaction.
+     */
+    private void finish(String command) throws IOException {
+      // The message is recorded before the reply is written, so the client never sees a message the server doesn't have
+      if (queueReply(command, "250 2.0.0 Ok: queued")) {
+        email.data = data.toByteArray();
+        messageCount.incrementAndGet();
+        int retain = SmtpTestServer.this.retain;
+        if (retain > 0) {
+          synchronized (messages) {
+            messages.add(email);
+            while (messages.size() > retain) {
+              messages.poll();
+            }
+          }
+        }
+      }
+
+      write();
+      email = null;
+      data = null;
+      mode = Mode.COMMAND;
+    }
+
+    /**
+     * Processes the next command or part of the message in the input.
+     *
+     * @return True if something was processed, false if more input is needed.
+     */
+    private boolean process() throws IOException {
+      if (mode == Mode.BDAT) {
+        int length = (int) Math.min(chunkRemaining, input.remaining());
+        data.write(input.array(), input.position(), length);
+        input.position(input.position() + length);
+        chunkRemaining -= length;
+        if (chunkRemaining > 0) {
+          return false;
+        }
+
+        if (lastChunk) {
+          finish("BDAT");
+        } else {
+          mode = Mode.COMMAND;
+          reply("BDAT", "250 2.0.0 Ok");
+        }
+
+        return true;
+      }
+
+      int start = input.position();
+      int end = start;
+      while (end < input.limit() && input.get(end) != '\n') {
+        end++;
+      }
+
+      if (end == input.limit()) {
+        return false;
+      }
+
+      int length = end - start + 1;
+      input.position(end + 1);
+      byte[] array = input.array();
+      if (mode == Mode.DATA) {
+        if (array[start] == '.' && (length == 2 || length == 3 && array[start + 1] == '\r')) {
+          finish("DATA");
+        } else if (array[start] == '.') {
+          // Remove the dot that was added to lines that start with a dot
+          data.write(array, start + 1, length - 1);
+        } else {
+          data.write(array, start, length);
+        }
+
+        return true;
+      }
+
+      int lineEnd = end > start && array[end - 1] == '\r' ? end - 1 : end;
+      command(new String(array, start, lineEnd - start, StandardCharsets.ISO_8859_1));
+      return true;
+    }
+
+    /**
+     * Queues a reply without a latency or failure, i.e. the 354 reply to the DATA command.
+     */
+    private void respond(String response) throws IOException {
+      replies.add(new Reply(ByteBuffer.wrap((response + "\r\n").getBytes(StandardCharsets.ISO_8859_1)), lastDue, false));
+      write();
+    }
+  }
+
+  private enum Mode {
+    BDAT,
+    COMMAND,
+    DATA
+  }
+}
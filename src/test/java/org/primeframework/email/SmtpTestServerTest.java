@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.testng.annotations.Test;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the SmtpTestServer.
+ *
+ * @author Brian Pontarelli
+ */
+@Test(groups = "unit")
+public class SmtpTestServerTest {
+  @Test
+  public void chunking() throws Exception {
+    try (SmtpTestServer server = new SmtpTestServer().start()) {
+      Properties properties = server.properties();
+      properties.setProperty("mail.smtp.chunksize", "1024");
+      String body = "Chunked body\r\n".repeat(500);
+      Transport.send(message(Session.getInstance(properties), body));
+
+      assertEquals(server.messageCount(), 1);
+      assertTrue(server.messages().get(0).content().contains(body));
+    }
+  }
+
+  @Test
+  public void concurrentSessions() throws Exception {
+    try (SmtpTestServer server = new SmtpTestServer().start()) {
+      List<Socket> sockets = new ArrayList<>();
+      try {
+        for (int i = 0; i < 2_000; i++) {
+          Socket socket = new Socket(server.host(), server.port());
+          sockets.add(socket);
+        }
+
+        for (Socket socket : sockets) {
+          assertTrue(reader(socket).readLine().startsWith("220 "));
+        }
+
+        assertEquals(server.activeSessions(), 2_000);
+      } finally {
+        for (Socket socket : sockets) {
+          socket.close();
+        }
+      }
+
+      long end = System.currentTimeMillis() + 5_000;
+      while (server.activeSessions() > 0 && System.currentTimeMillis() < end) {
+        Thread.sleep(10);
+      }
+
+      assertEquals(server.activeSessions(), 0);
+    }
+  }
+
+  @Test
+  public void failures() throws Exception {
+    try (SmtpTestServer server = new SmtpTestServer().start()) {
+      Session session = server.session();
+      server.failNext("RCPT", 1, "550 5.1.1 No such user");
+      try {
+        Transport.send(message(session, "body"));
+        fail("Should have failed");
+      } catch (SendFailedException e) {
+        // Expected
+      }
+
+      // Only the next command fails
+      Transport.send(message(session, "body"));
+      assertEquals(server.messageCount(), 1);
+
+      server.disconnect("MAIL", 1);
+      try {
+        Transport.send(message(session, "body"));
+        fail("Should have failed");
+      } catch (MessagingException e) {
+        // Expected
+      }
+
+      server.reset();
+      Transport.send(message(session, "body"));
+      assertEquals(server.messageCount(), 1);
+    }
+  }
+
+  @Test
+  public void latency() throws Exception {
+    try (SmtpTestServer server = new SmtpTestServer().start()) {
+      server.latency("RCPT", Duration.ofMillis(200));
+      long start = System.nanoTime();
+      Transport.send(message(server.session(), "body"));
+      assertTrue(System.nanoTime() - start >= Duration.ofMillis(200).toNanos());
+      assertEquals(server.messageCount(), 1);
+    }
+  }
+
+  @Test
+  public void pipelining() throws Exception {
+    try (SmtpTestServer server = new SmtpTestServer().start(); Socket socket = new Socket(server.host(), server.port())) {
+      BufferedReader reader = reader(socket);
+      OutputStream out = socket.getOutputStream();
+      assertTrue(reader.readLine().startsWith("220 "));
+
+      // All the commands are written at once and the replies come back in order
+      write(out, "EHLO client\r\nMAIL FROM:<dev@inversoft.com>\r\nRCPT TO:<brian@inversoft.com>\r\nRCPT TO:<daniel@inversoft.com>\r\nDATA\r\n");
+      assertEquals(reader.readLine(), "250-localhost");
+      assertEquals(reader.readLine(), "250-PIPELINING");
+      assertEquals(reader.readLine(), "250-8BITMIME");
+      assertEquals(reader.readLine(), "250 CHUNKING");
+      assertEquals(reader.readLine(), "250 2.1.0 Ok");
+      assertEquals(reader.readLine(), "250 2.1.5 Ok");
+      assertEquals(reader.readLine(), "250 2.1.5 Ok");
+      assertTrue(reader.readLine().startsWith("354 "));
+
+      write(out, "Subject: Test\r\n\r\n..leading dot\r\nbody\r\n.\r\nQUIT\r\n");
+      assertEquals(reader.readLine(), "250 2.0.0 Ok: queued");
+      assertEquals(reader.readLine(), "221 2.0.0 Bye");
+
+      SmtpTestServer.ReceivedEmail email = server.messages().get(0);
+      assertEquals(email.from, "dev@inversoft.com");
+      assertEquals(email.recipients, List.of("brian@inversoft.com", "daniel@inversoft.com"));
+      assertEquals(email.content(), "Subject: Test\r\n\r\n.leading dot\r\nbody\r\n");
+    }
+  }
+
+  private Message message(Session session, String body) throws MessagingException {
+    MimeMessage message = new MimeMessage(session);
+    message.setFrom(new InternetAddress("dev@inversoft.com"));
+    message.setRecipient(Message.RecipientType.TO, new InternetAddress("brian@inversoft.com"));
+    message.setSubject("Test");
+    message.setText(body);
+    return message;
+  }
+
+  private BufferedReader reader(Socket socket) throws IOException {
+    return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+  }
+
+  private void write(OutputStream out, String data) throws IOException {
+    out.write(data.getBytes(StandardCharsets.ISO_8859_1));
+    out.flush();
+  }
+}
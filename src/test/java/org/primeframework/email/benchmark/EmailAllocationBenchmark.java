@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.benchmark;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.primeframework.email.domain.BaseResult;
+import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.EmailAddress;
+import org.primeframework.email.domain.ParsedEmailTemplates;
+import org.primeframework.email.domain.RawEmailTemplates;
+import org.primeframework.email.domain.SendResult;
+import org.primeframework.email.service.DefaultEmailService;
+import org.primeframework.email.service.EmailTemplateLoader;
+import org.primeframework.email.service.EmailTransportService;
+import org.primeframework.email.service.FreeMarkerEmailRenderer;
+import org.primeframework.email.service.MessagingExceptionHandler;
+
+/**
+ * Measures the memory allocated by each send of a single recipient email, without the cost of the transport. Run it
+ * with the GC profiler (which the main method does) and compare the gc.alloc.rate.norm of the benchmarks.
+ *
+ * @author Brian Pontarelli
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class EmailAllocationBenchmark {
+  private DefaultEmailService emailService;
+
+  public static void main(String... args) throws Exception {
+    new Runner(new OptionsBuilder().include(EmailAllocationBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+  }
+
+  @Benchmark
+  public Email email() {
+    Email email = new Email();
+    email.to.add(new EmailAddress("to@example.com"));
+    return email;
+  }
+
+  @Benchmark
+  public SendResult send() {
+    return emailService.send(null, "welcome", List.of())
+                       .from("from@example.com")
+                       .to("to@example.com")
+                       .withTemplateParameter("name", "Frank")
+                       .now();
+  }
+
+  @Setup
+  public void setup() throws Exception {
+    Configuration configuration = new Configuration(Configuration.VERSION_2_3_28);
+    ParsedEmailTemplates parsedEmailTemplates = new ParsedEmailTemplates();
+    parsedEmailTemplates.subject = new Template(null, "Welcome ${name}", configuration);
+    parsedEmailTemplates.text = new Template(null, "Hi ${name}, thanks for signing up.", configuration);
+
+    EmailTemplateLoader emailTemplateLoader = new EmailTemplateLoader() {
+      public ParsedEmailTemplates load(Object contextId, Object templateId, List<Locale> preferredLanguages, BaseResult baseResult) {
+        return parsedEmailTemplates;
+      }
+
+      public ParsedEmailTemplates parse(RawEmailTemplates rawEmailTemplates, BaseResult baseResult) {
+        return parsedEmailTemplates;
+      }
+    };
+
+    EmailTransportService emailTransportService = new EmailTransportService() {
+      public void sendEmail(Object contextId, Email email, SendResult sendResult) {
+      }
+
+      public void sendEmail(Object contextId, Email email, SendResult sendResult, MessagingExceptionHandler messagingExceptionHandler) {
+      }
+
+      public void sendEmailLater(Object contextId, Email email, SendResult sendResult) {
+      }
+
+      public void sendEmailLater(Object contextId, Email email, SendResult sendResult, MessagingExceptionHandler messagingExceptionHandler) {
+      }
+    };
+
+    emailService = new DefaultEmailService(new FreeMarkerEmailRenderer(), emailTemplateLoader, emailTransportService);
+  }
+}
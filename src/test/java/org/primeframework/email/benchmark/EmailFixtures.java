@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import org.primeframework.email.domain.Attachment;
+import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.EmailAddress;
+
+/**
+ * The fixtures of the benchmarks: a small transactional email, a large newsletter with many products, the parameters of
+ * both and emails with many recipients and attachments.
+ *
+ * @author Brian Pontarelli
+ */
+public final class EmailFixtures {
+  public static final String LARGE_HTML = """
+      <html>
+      <head><style>body { font-family: sans-serif; } .product { padding: 8px; border-bottom: 1px solid #ddd; }</style></head>
+      <body>
+      <h1>${company} weekly deals for ${user.name}</h1>
+      <#if user.vip><p class="banner">As a ${tier} member you get free shipping on everything below.</p></#if>
+      <table>
+      <#list products as product>
+        <tr class="product">
+          <td><img src="https://cdn.example.com/products/${product.sku}.png" alt="${product.name}"/></td>
+          <td><a href="https://www.example.com/products/${product.sku}?utm_source=email">${product.name}</a></td>
+          <td>${product.description}</td>
+          <td><#if product.sale><s>${product.price}</s> ${product.salePrice}<#else>${product.price}</#if></td>
+        </tr>
+      </#list>
+      </table>
+      <p>You are receiving this email because you signed up at ${company}. <a href="https://www.example.com/unsubscribe/${user.id}">Unsubscribe</a></p>
+      </body>
+      </html>
+      """;
+
+  public static final String SMALL_HTML = """
+      <p>Hi ${user.name},</p>
+      <p>Your ${company} order has shipped.</p>
+      <#if user.vip><p>Thanks for being a ${tier} member.</p></#if>
+      <ul>
+      <#list items as item>
+        <li>${item}</li>
+      </#list>
+      </ul>
+      """;
+
+  public static final String SUBJECT = "Your ${company} order has shipped";
+
+  public static final String TEXT = """
+      Hi ${user.name},
+      Your ${company} order has shipped.
+      <#list items as item>
+        - ${item}
+      </#list>
+      """;
+
+  private EmailFixtures() {
+  }
+
+  /**
+   * Creates an email that is ready to be sent.
+   *
+   * @param recipients  The number of to addresses.
+   * @param attachments The number of 64 kilobyte attachments.
+   * @param large       True for the large HTML body.
+   * @return The email.
+   */
+  public static Email email(int recipients, int attachments, boolean large) {
+    Email email = new Email();
+    email.from = new EmailAddress("noreply@example.com", "Example");
+    for (int i = 0; i < recipients; i++) {
+      email.to.add(new EmailAddress("user" + i + "@example.com", "User " + i));
+    }
+
+    Random random = new Random(42);
+    for (int i = 0; i < attachments; i++) {
+      byte[] bytes = new byte[64 * 1024];
+      random.nextBytes(bytes);
+      email.attachments.add(new Attachment("invoice-" + i + ".pdf", "application/pdf", bytes));
+    }
+
+    email.subject = "Your Acme order has shipped";
+    email.text = "Hi Frank,\nYour Acme order has shipped.\n  - Anvil\n  - Rocket\n";
+    email.html = large ? "<html><body>" + "<p>Deals of the week for Frank: anvils, rockets and dynamite.</p>\n".repeat(500) + "</body></html>" :
+        "<p>Hi Frank,</p><p>Your Acme order has shipped.</p><ul><li>Anvil</li><li>Rocket</li></ul>";
+    return email;
+  }
+
+  /**
+   * @return The locales of the languages in the order a user might prefer them, with the language that has templates
+   *     last.
+   */
+  public static List<Locale> locales(int count) {
+    List<Locale> locales = new ArrayList<>(count);
+    String[] languages = Locale.getISOLanguages();
+    for (int i = 0; i < count - 1; i++) {
+      locales.add(Locale.forLanguageTag(languages[i + 1] + "-" + "XX"));
+    }
+
+    locales.add(Locale.US);
+    return locales;
+  }
+
+  /**
+   * @return The parameters of the small and large templates.
+   */
+  public static Map<String, Object> parameters() {
+    Map<String, Object> user = new HashMap<>();
+    user.put("id", "b1a5e5a2-7d5e-4c5a-9d4f-2f9a1a6b1c3e");
+    user.put("name", "Frank");
+    user.put("vip", true);
+
+    List<Map<String, Object>> products = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Map<String, Object> product = new HashMap<>();
+      product.put("description", "A sturdy product that is great for catching road runners, model " + i);
+      product.put("name", "Product " + i);
+      product.put("price", "$" + (i + 10) + ".99");
+      product.put("sale", i % 3 == 0);
+      product.put("salePrice", "$" + (i + 5) + ".99");
+      product.put("sku", "SKU-" + (10_000 + i));
+      products.add(product);
+    }
+
+    return Map.of("company", "Acme", "user", user, "tier", "gold", "items", List.of("Anvil", "Rocket", "Dynamite"),
+        "products", products);
+  }
+
+  /**
+   * Writes the templates in the layout of the {@link org.primeframework.email.service.FileSystemEmailTemplateLoader}.
+   *
+   * @param directory  The directory of the templates.
+   * @param templateId The id of the template.
+   * @param large      True for the large HTML template.
+   */
+  public static void writeTemplates(Path directory, String templateId, boolean large) throws IOException {
+    Files.createDirectories(directory);
+    Files.writeString(directory.resolve(templateId + "-from_en_US.ftl"), "${company}", StandardCharsets.UTF_8);
+    Files.writeString(directory.resolve(templateId + "-html_en_US.ftl"), large ? LARGE_HTML : SMALL_HTML, StandardCharsets.UTF_8);
+    Files.writeString(directory.resolve(templateId + "-subject_en_US.ftl"), SUBJECT, StandardCharsets.UTF_8);
+    Files.writeString(directory.resolve(templateId + "-text_en_US.ftl"), TEXT, StandardCharsets.UTF_8);
+  }
+}
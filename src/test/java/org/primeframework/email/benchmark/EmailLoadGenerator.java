@@ -0,0 +1,395 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.ThreadMXBean;
+import freemarker.template.Configuration;
+import org.primeframework.email.SmtpTestServer;
+import org.primeframework.email.config.EmailConfiguration;
+import org.primeframework.email.domain.SendResult;
+import org.primeframework.email.service.DefaultEmailService;
+import org.primeframework.email.service.DefaultMessagingExceptionHandler;
+import org.primeframework.email.service.EmailExecutor;
+import org.primeframework.email.service.EmailExecutorServiceProvider;
+import org.primeframework.email.service.FileSystemEmailTemplateLoader;
+import org.primeframework.email.service.FreeMarkerEmailRenderer;
+import org.primeframework.email.service.JavaMailEmailTransportService;
+import org.primeframework.email.service.LatencyHistogram;
+import org.primeframework.email.service.SendEmailBuilder;
+
+/**
+ * Drives the whole send pipeline (loading, rendering, the MIME build and the JavaMail transport) at a fixed rate and
+ * concurrency against an in-process {@link SmtpTestServer}, to size an email tier and to see how changes to the
+ * executor or the renderer affect capacity. Every few seconds, and at the end, it prints the throughput, the end-to-end
+ * latency percentiles, the allocation rate and the GC pauses.
+ * <p>
+ * The latency is measured from when each email was scheduled to be sent, not from when a worker got to it, so a
+ * pipeline that can't keep up shows growing latencies rather than a lower rate. For {@code later} the latency ends when
+ * the future of the email completes. The allocation rate includes the SMTP server, which runs in the same JVM.
+ * <p>
+ * The options are passed as {@code --name=value}:
+ * <pre>
+ *   --mode=now            now or later
+ *   --rate=500            emails per second, or 0 to send as fast as possible
+ *   --concurrency=8       the number of threads that call the email service
+ *   --duration=60         the number of seconds to measure
+ *   --warmup=10           the number of seconds to run before measuring
+ *   --interval=5          the number of seconds between reports
+ *   --recipients=1        the number of recipients of each email
+ *   --large=false         true for the large newsletter template
+ *   --smtp-latency=0      the number of milliseconds the SMTP server waits before each reply
+ *   --max-in-flight=10000 the number of later emails that can be queued before the workers wait
+ * </pre>
+ * For example {@code sb load} or
+ * {@code java -cp ... org.primeframework.email.benchmark.EmailLoadGenerator --mode=later --rate=2000 --duration=600}.
+ *
+ * @author Brian Pontarelli
+ */
+public class EmailLoadGenerator {
+  private final LongAdder failures = new LongAdder();
+
+  private final Gc gc = new Gc();
+
+  private final AtomicReference<LatencyHistogram> interval = new AtomicReference<>(new LatencyHistogram());
+
+  private final AtomicReference<LatencyHistogram> total = new AtomicReference<>(new LatencyHistogram());
+
+  private final Options options;
+
+  private EmailExecutor executor;
+
+  private DefaultEmailService emailService;
+
+  private Semaphore inFlight;
+
+  private long measureAllocated;
+
+  private long measureStart;
+
+  public EmailLoadGenerator(Options options) {
+    this.options = options;
+  }
+
+  public static void main(String... args) throws Exception {
+    new EmailLoadGenerator(Options.parse(args)).run();
+  }
+
+  public void run() throws Exception {
+    Path directory = Files.createTempDirectory("prime-email-load");
+    try (SmtpTestServer server = new SmtpTestServer().retain(0).start()) {
+      server.latency(Duration.ofMillis(options.smtpLatency));
+      setup(directory, server);
+      System.out.printf("Sending %s emails at %s/s with %d threads for %ds (after a %ds warmup)%n", options.mode,
+          options.rate > 0 ? Long.toString(options.rate) : "max", options.concurrency, options.duration, options.warmup);
+
+      Thread[] workers = new Thread[options.concurrency];
+      long start = System.nanoTime();
+      long end = start + TimeUnit.SECONDS.toNanos(options.warmup + options.duration);
+      AtomicLong next = new AtomicLong(start);
+      long period = options.rate > 0 ? TimeUnit.SECONDS.toNanos(1) / options.rate : 0;
+      for (int i = 0; i < workers.length; i++) {
+        workers[i] = new Thread(() -> work(next, period, end), "load-generator-" + i);
+        workers[i].setDaemon(true);
+        workers[i].start();
+      }
+
+      report(start, end);
+      for (Thread worker : workers) {
+        worker.join();
+      }
+
+      // Wait for the emails that are still queued, so they are part of the totals
+      inFlight.acquire(options.maxInFlight);
+      inFlight.release(options.maxInFlight);
+      summary();
+    } finally {
+      executor.shutdownNow();
+      try (var paths = Files.walk(directory)) {
+        paths.sorted((first, second) -> second.compareTo(first)).forEach((path) -> path.toFile().delete());
+      }
+    }
+  }
+
+  private void completed(long scheduled, SendResult sendResult) {
+    long latency = System.nanoTime() - scheduled;
+    if (sendResult == null || !sendResult.wasSuccessful()) {
+      failures.increment();
+    }
+
+    interval.get().record(latency);
+    total.get().record(latency);
+  }
+
+  private void report(long start, long end) throws InterruptedException {
+    ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    measureStart = start + TimeUnit.SECONDS.toNanos(options.warmup);
+    boolean measuring = options.warmup == 0;
+    long last = start;
+    long lastAllocated = threadMXBean.getTotalThreadAllocatedBytes();
+    long lastFailures = 0;
+    measureAllocated = lastAllocated;
+    while (true) {
+      long now = System.nanoTime();
+      long wake = Math.min(last + TimeUnit.SECONDS.toNanos(options.interval), end);
+      if (!measuring && measureStart < wake) {
+        wake = measureStart;
+      }
+
+      if (wake > now) {
+        TimeUnit.NANOSECONDS.sleep(wake - now);
+      }
+
+      now = System.nanoTime();
+      long allocated = threadMXBean.getTotalThreadAllocatedBytes();
+      long failed = failures.sum();
+      LatencyHistogram.Snapshot snapshot = interval.getAndSet(new LatencyHistogram()).snapshot();
+      print(measuring ? "" : "warmup ", now - start, now - last, snapshot, failed - lastFailures, allocated - lastAllocated, gc.take());
+      last = now;
+      lastAllocated = allocated;
+      lastFailures = failed;
+
+      if (!measuring && now >= measureStart) {
+        measuring = true;
+        total.set(new LatencyHistogram());
+        failures.reset();
+        lastFailures = 0;
+        measureAllocated = allocated;
+        gc.takeTotal();
+      }
+
+      if (now >= end) {
+        return;
+      }
+    }
+  }
+
+  private void summary() {
+    ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    LatencyHistogram.Snapshot snapshot = total.get().snapshot();
+    long elapsed = System.nanoTime() - measureStart;
+    long allocated = threadMXBean.getTotalThreadAllocatedBytes() - measureAllocated;
+    System.out.println();
+    print("total ", elapsed, elapsed, snapshot, failures.sum(), allocated, gc.takeTotal());
+    if (snapshot.count() > 0) {
+      System.out.printf("allocated %,d bytes per email%n", allocated / snapshot.count());
+    }
+  }
+
+  private void print(String label, long time, long elapsed, LatencyHistogram.Snapshot snapshot, long failures,
+                     long allocated, Gc.Pauses pauses) {
+    double seconds = elapsed / 1e9;
+    System.out.printf(Locale.ROOT, "%s%5.0fs  %8.1f emails/s  %d failed  p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms  " +
+            "alloc=%.1fMB/s  gc=%d pauses (%dms total, %dms max)  queue=%d%n",
+        label, time / 1e9, snapshot.count() / seconds, failures, millis(snapshot.percentile(50)),
+        millis(snapshot.percentile(90)), millis(snapshot.percentile(99)), millis(snapshot.percentile(99.9)),
+        millis(snapshot.max()), allocated / seconds / 1_048_576, pauses.count, pauses.total, pauses.max,
+        executor.getQueueDepth());
+  }
+
+  private double millis(long nanos) {
+    return nanos / 1e6;
+  }
+
+  private void send(long scheduled) {
+    SendEmailBuilder builder = emailService.send(null, "load", List.of(Locale.US))
+                                           .from("dev@example.com")
+                                           .withTemplateParameters(EmailFixtures.parameters());
+    for (int i = 0; i < options.recipients; i++) {
+      builder.to("user" + i + "@example.com");
+    }
+
+    if (options.mode.equals("now")) {
+      completed(scheduled, builder.now());
+      return;
+    }
+
+    inFlight.acquireUninterruptibly();
+    SendResult sendResult = builder.later();
+    if (sendResult.future instanceof CompletableFuture<SendResult> future) {
+      future.whenComplete((result, e) -> {
+        completed(scheduled, result);
+        inFlight.release();
+      });
+    } else {
+      completed(scheduled, sendResult);
+      inFlight.release();
+    }
+  }
+
+  private void setup(Path directory, SmtpTestServer server) throws Exception {
+    EmailFixtures.writeTemplates(directory.resolve("templates"), "load", options.large);
+    Configuration configuration = new Configuration(Configuration.VERSION_2_3_28);
+    configuration.setDirectoryForTemplateLoading(directory.toFile());
+    EmailConfiguration emailConfiguration = () -> "templates";
+
+    // The executor is the one the EmailModule binds, so changes to its provider show up in the results
+    ExecutorService executorService = new EmailExecutorServiceProvider().get();
+    executor = (EmailExecutor) executorService;
+    inFlight = new Semaphore(options.maxInFlight);
+    var session = server.session();
+    JavaMailEmailTransportService transportService = new JavaMailEmailTransportService(executorService,
+        new DefaultMessagingExceptionHandler(), (contextId) -> session);
+    emailService = new DefaultEmailService(new FreeMarkerEmailRenderer(),
+        new FileSystemEmailTemplateLoader(emailConfiguration, configuration), transportService);
+  }
+
+  private void work(AtomicLong next, long period, long end) {
+    while (true) {
+      long scheduled = period > 0 ? next.getAndAdd(period) : System.nanoTime();
+      if (scheduled >= end) {
+        return;
+      }
+
+      long wait = scheduled - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+
+      try {
+        send(scheduled);
+      } catch (RuntimeException e) {
+        failures.increment();
+      }
+
+      if (period == 0 && System.nanoTime() >= end) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * The options of the load generator.
+   */
+  public static class Options {
+    public int concurrency = 8;
+
+    public long duration = 60;
+
+    public long interval = 5;
+
+    public boolean large;
+
+    public int maxInFlight = 10_000;
+
+    public String mode = "now";
+
+    public long rate = 500;
+
+    public int recipients = 1;
+
+    public long smtpLatency;
+
+    public long warmup = 10;
+
+    public static Options parse(String... args) {
+      Map<String, String> values = new HashMap<>();
+      for (String arg : args) {
+        if (!arg.startsWith("--") || !arg.contains("=")) {
+          throw new IllegalArgumentException("Invalid option [" + arg + "]. Options are passed as --name=value");
+        }
+
+        values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+      }
+
+      Options options = new Options();
+      options.concurrency = Integer.parseInt(values.getOrDefault("concurrency", Integer.toString(options.concurrency)));
+      options.duration = Long.parseLong(values.getOrDefault("duration", Long.toString(options.duration)));
+      options.interval = Long.parseLong(values.getOrDefault("interval", Long.toString(options.interval)));
+      options.large = Boolean.parseBoolean(values.getOrDefault("large", Boolean.toString(options.large)));
+      options.maxInFlight = Integer.parseInt(values.getOrDefault("max-in-flight", Integer.toString(options.maxInFlight)));
+      options.mode = values.getOrDefault("mode", options.mode);
+      options.rate = Long.parseLong(values.getOrDefault("rate", Long.toString(options.rate)));
+      options.recipients = Integer.parseInt(values.getOrDefault("recipients", Integer.toString(options.recipients)));
+      options.smtpLatency = Long.parseLong(values.getOrDefault("smtp-latency", Long.toString(options.smtpLatency)));
+      options.warmup = Long.parseLong(values.getOrDefault("warmup", Long.toString(options.warmup)));
+      if (!options.mode.equals("now") && !options.mode.equals("later")) {
+        throw new IllegalArgumentException("Invalid mode [" + options.mode + "]. The mode must be now or later");
+      }
+
+      return options;
+    }
+  }
+
+  /**
+   * Collects the GC pauses from the notifications of the garbage collectors. The concurrent cycles of collectors like
+   * G1 and ZGC are also reported, but they are not pauses, so they are skipped.
+   */
+  private static class Gc {
+    private final AtomicReference<Pauses> interval = new AtomicReference<>(new Pauses());
+
+    private final AtomicReference<Pauses> total = new AtomicReference<>(new Pauses());
+
+    Gc() {
+      for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+        if (bean instanceof NotificationEmitter emitter) {
+          emitter.addNotificationListener((notification, handback) -> {
+            if (notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+              GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+              if (!info.getGcName().contains("Concurrent") && !info.getGcName().contains("Cycles")) {
+                interval.get().add(info.getGcInfo().getDuration());
+                total.get().add(info.getGcInfo().getDuration());
+              }
+            }
+          }, null, null);
+        }
+      }
+    }
+
+    Pauses take() {
+      return interval.getAndSet(new Pauses());
+    }
+
+    Pauses takeTotal() {
+      return total.getAndSet(new Pauses());
+    }
+
+    static class Pauses {
+      long count;
+
+      long max;
+
+      long total;
+
+      synchronized void add(long millis) {
+        count++;
+        total += millis;
+        max = Math.max(max, millis);
+      }
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.benchmark;
+
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.mail.Message;
+import jakarta.mail.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.PreparedEmail;
+import org.primeframework.email.domain.SendResult;
+import org.primeframework.email.service.DefaultMessagingExceptionHandler;
+import org.primeframework.email.service.JavaMailEmailTransportService;
+
+/**
+ * Measures building the MIME message of emails with many recipients and attachments, with and without writing the
+ * message out the way the transport does.
+ *
+ * @author Brian Pontarelli
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class MimeBuildBenchmark {
+  @Param({"0", "3"})
+  public int attachments;
+
+  @Param({"false", "true"})
+  public boolean large;
+
+  @Param({"1", "100"})
+  public int recipients;
+
+  private Email email;
+
+  private ExecutorService executorService;
+
+  private JavaMailEmailTransportService transportService;
+
+  public static void main(String... args) throws Exception {
+    new Runner(new OptionsBuilder().include(MimeBuildBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  @Benchmark
+  public PreparedEmail prepare() {
+    return transportService.prepare(null, email, new SendResult(email));
+  }
+
+  @Benchmark
+  public PreparedEmail prepareAndWrite() throws Exception {
+    PreparedEmail preparedEmail = transportService.prepare(null, email, new SendResult(email));
+    ((Message) preparedEmail.message).writeTo(OutputStream.nullOutputStream());
+    return preparedEmail;
+  }
+
+  @Setup
+  public void setup() {
+    email = EmailFixtures.email(recipients, attachments, large);
+    executorService = Executors.newSingleThreadExecutor();
+    JavaMailEmailTransportService.pinStreamProvider();
+
+    // The host is set so that the Message-ID doesn't look up the local host name
+    Properties properties = new Properties();
+    properties.setProperty("mail.host", "localhost");
+    Session session = Session.getInstance(properties);
+    transportService = new JavaMailEmailTransportService(executorService, new DefaultMessagingExceptionHandler(), (contextId) -> session);
+  }
+
+  @TearDown
+  public void tearDown() {
+    executorService.shutdownNow();
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.benchmark;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.ParsedEmailTemplates;
+import org.primeframework.email.domain.PreviewResult;
+import org.primeframework.email.service.CompiledEmailRenderer;
+import org.primeframework.email.service.FreeMarkerEmailRenderer;
+
+/**
+ * Compares the compiled renderer with the FreeMarker renderer for a template that only uses the compiled subset.
+ *
+ * @author Brian Pontarelli
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class RendererBenchmark {
+  private CompiledEmailRenderer compiledEmailRenderer;
+
+  private FreeMarkerEmailRenderer freeMarkerEmailRenderer;
+
+  private Map<String, Object> parameters;
+
+  private ParsedEmailTemplates parsedEmailTemplates;
+
+  public static void main(String... args) throws Exception {
+    new Runner(new OptionsBuilder().include(RendererBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  @Benchmark
+  public Email compiled() {
+    Email email = new Email();
+    compiledEmailRenderer.render(parsedEmailTemplates, email, parameters, new PreviewResult());
+    return email;
+  }
+
+  @Benchmark
+  public Email freeMarker() {
+    Email email = new Email();
+    freeMarkerEmailRenderer.render(parsedEmailTemplates, email, parameters, new PreviewResult());
+    return email;
+  }
+
+  @Setup
+  public void setup() throws Exception {
+    Configuration configuration = new Configuration(Configuration.VERSION_2_3_28);
+    parsedEmailTemplates = new ParsedEmailTemplates();
+    parsedEmailTemplates.subject = new Template(null, "Your ${company} order has shipped", configuration);
+    parsedEmailTemplates.text = new Template(null, """
+        Hi ${user.name},
+        <#if user.vip>
+        Thanks for being a ${tier} member.
+        <#else>
+        Thanks for your order.
+        </#if>
+        <#list items as item>
+          - ${item}
+        </#list>
+        """, configuration);
+    parsedEmailTemplates.html = new Template(null, """
+        <p>Hi ${user.name},</p>
+        <#if user.vip><p>Thanks for being a ${tier} member.</p></#if>
+        <ul>
+        <#list items as item>
+          <li>${item}</li>
+        </#list>
+        </ul>
+        """, configuration);
+
+    Map<String, Object> user = new HashMap<>();
+    user.put("name", "Frank");
+    user.put("vip", true);
+    parameters = Map.of("company", "Acme", "user", user, "tier", "gold", "items", List.of("Anvil", "Rocket", "Dynamite"));
+
+    compiledEmailRenderer = new CompiledEmailRenderer();
+    freeMarkerEmailRenderer = new FreeMarkerEmailRenderer();
+  }
+}
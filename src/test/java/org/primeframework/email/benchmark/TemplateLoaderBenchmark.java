@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import freemarker.template.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.primeframework.email.config.EmailConfiguration;
+import org.primeframework.email.domain.ParsedEmailTemplates;
+import org.primeframework.email.domain.PreviewResult;
+import org.primeframework.email.domain.RawEmailTemplates;
+import org.primeframework.email.service.FileSystemEmailTemplateLoader;
+
+/**
+ * Measures parsing raw templates and loading templates from the file system for users that prefer many languages. Only
+ * the last preferred language has templates, which is the slowest lookup.
+ *
+ * @author Brian Pontarelli
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class TemplateLoaderBenchmark {
+  @Param({"false", "true"})
+  public boolean large;
+
+  @Param({"1", "20"})
+  public int locales;
+
+  private Path directory;
+
+  private FileSystemEmailTemplateLoader loader;
+
+  private List<Locale> preferredLanguages;
+
+  private RawEmailTemplates rawEmailTemplates;
+
+  public static void main(String... args) throws Exception {
+    new Runner(new OptionsBuilder().include(TemplateLoaderBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  @Benchmark
+  public ParsedEmailTemplates load() {
+    return loader.load(null, "benchmark", preferredLanguages, new PreviewResult());
+  }
+
+  @Benchmark
+  public ParsedEmailTemplates parse() {
+    return loader.parse(rawEmailTemplates, new PreviewResult());
+  }
+
+  @Setup
+  public void setup() throws Exception {
+    directory = Files.createTempDirectory("prime-email-benchmark");
+    EmailFixtures.writeTemplates(directory.resolve("templates"), "benchmark", large);
+
+    Configuration configuration = new Configuration(Configuration.VERSION_2_3_28);
+    configuration.setDirectoryForTemplateLoading(directory.toFile());
+    EmailConfiguration emailConfiguration = () -> "templates";
+    loader = new FileSystemEmailTemplateLoader(emailConfiguration, configuration);
+    preferredLanguages = EmailFixtures.locales(locales);
+
+    rawEmailTemplates = new RawEmailTemplates();
+    rawEmailTemplates.fromDisplay = "${company}";
+    rawEmailTemplates.html = large ? EmailFixtures.LARGE_HTML : EmailFixtures.SMALL_HTML;
+    rawEmailTemplates.subject = EmailFixtures.SUBJECT;
+    rawEmailTemplates.text = EmailFixtures.TEXT;
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    try (var paths = Files.walk(directory)) {
+      paths.sorted((first, second) -> second.compareTo(first)).forEach((path) -> path.toFile().delete());
+    }
+  }
+}
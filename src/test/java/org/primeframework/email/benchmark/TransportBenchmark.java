@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.benchmark;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.mail.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.primeframework.email.SmtpTestServer;
+import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.SendResult;
+import org.primeframework.email.service.DefaultMessagingExceptionHandler;
+import org.primeframework.email.service.EmailConnection;
+import org.primeframework.email.service.JavaMailEmailTransportService;
+
+/**
+ * Measures sending emails to an in-process SMTP server (see {@link SmtpTestServer}), both with a new connection for every email
+ * and over a connection that stays open.
+ *
+ * @author Brian Pontarelli
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class TransportBenchmark {
+  @Param({"0", "3"})
+  public int attachments;
+
+  @Param({"1", "100"})
+  public int recipients;
+
+  private EmailConnection connection;
+
+  private Email email;
+
+  private ExecutorService executorService;
+
+  private SmtpTestServer server;
+
+  private JavaMailEmailTransportService transportService;
+
+  public static void main(String... args) throws Exception {
+    new Runner(new OptionsBuilder().include(TransportBenchmark.class.getSimpleName()).build()).run();
+  }
+
+  @Benchmark
+  public SendResult sendEmail() {
+    SendResult sendResult = new SendResult(email);
+    transportService.sendEmail(null, email, sendResult);
+    return check(sendResult);
+  }
+
+  @Benchmark
+  public SendResult sendOverConnection() {
+    SendResult sendResult = new SendResult(email);
+    connection.send(transportService.prepare(null, email, sendResult));
+    return check(sendResult);
+  }
+
+  @Setup
+  public void setup() throws Exception {
+    server = new SmtpTestServer().retain(0).start();
+    email = EmailFixtures.email(recipients, attachments, false);
+    executorService = Executors.newSingleThreadExecutor();
+    Session session = server.session();
+    transportService = new JavaMailEmailTransportService(executorService, new DefaultMessagingExceptionHandler(), (contextId) -> session);
+    connection = transportService.connect(null);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    connection.close();
+    executorService.shutdownNow();
+    server.close();
+  }
+
+  private SendResult check(SendResult sendResult) {
+    if (!sendResult.wasSuccessful()) {
+      throw new IllegalStateException("Unable to send the email to the SMTP server [" + sendResult.transportError + "]");
+    }
+
+    return sendResult;
+  }
+}
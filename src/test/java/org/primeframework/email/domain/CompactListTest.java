@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.domain;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the compact list against an ArrayList.
+ *
+ * @author Brian Pontarelli
+ */
+@Test(groups = "unit")
+public class CompactListTest {
+  @Test
+  public void operations() {
+    List<String> compact = new CompactList<>();
+    List<String> expected = new ArrayList<>();
+    assertEquals(compact, expected);
+    assertTrue(compact.isEmpty());
+
+    // A single element, then grow past the first array
+    compact.add("a");
+    expected.add("a");
+    assertEquals(compact, expected);
+    compact.add(0, "b");
+    expected.add(0, "b");
+    for (int i = 0; i < 10; i++) {
+      compact.add("c" + i);
+      expected.add("c" + i);
+    }
+    assertEquals(compact, expected);
+    assertEquals(compact.hashCode(), expected.hashCode());
+
+    assertEquals(compact.set(3, "d"), expected.set(3, "d"));
+    assertEquals(compact.remove(0), expected.remove(0));
+    assertEquals(compact.remove(compact.size() - 1), expected.remove(expected.size() - 1));
+    assertTrue(compact.remove("c5"));
+    expected.remove("c5");
+    assertEquals(compact, expected);
+
+    Iterator<String> iterator = compact.iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().startsWith("c")) {
+        iterator.remove();
+      }
+    }
+    expected.removeIf((s) -> s.startsWith("c"));
+    assertEquals(compact, expected);
+
+    compact.clear();
+    assertTrue(compact.isEmpty());
+    assertFalse(compact.contains("a"));
+
+    // Back to a single element after clearing
+    compact.add("e");
+    assertEquals(compact.set(0, "f"), "e");
+    assertEquals(compact, List.of("f"));
+    assertEquals(compact.remove(0), "f");
+    assertTrue(compact.isEmpty());
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+
+import com.sun.management.ThreadMXBean;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import jakarta.mail.Session;
+import org.primeframework.email.domain.BaseResult;
+import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.EmailAddress;
+import org.primeframework.email.domain.ParsedEmailTemplates;
+import org.primeframework.email.domain.RawEmailTemplates;
+import org.primeframework.email.domain.SendResult;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Fails when a change makes the hot paths allocate more than their budget. The budgets are the bytes allocated per
+ * operation (measured with {@link ThreadMXBean#getThreadAllocatedBytes(long)} on the calling thread) with some headroom
+ * for different JVMs. When a change lowers the allocations, lower the budget to lock the improvement in. When a change
+ * has to allocate more, raise the budget in the same commit so the increase is reviewed.
+ *
+ * @author Brian Pontarelli
+ */
+@Test(groups = "unit")
+public class AllocationBudgetTest {
+  // Measured at 23.5 KB with JDK 21
+  private static final long MIME_BUILD_BUDGET = 32 * 1_024;
+
+  // Measured at 5.6 KB with JDK 21
+  private static final long PREVIEW_BUDGET = 8 * 1_024;
+
+  // Measured at 5.8 KB with JDK 21
+  private static final long SEND_NOW_BUDGET = 8 * 1_024;
+
+  private static final String STREAM_PROVIDER_PROPERTY = "jakarta.mail.util.StreamProvider";
+
+  private DefaultEmailService emailService;
+
+  private ExecutorService executorService;
+
+  // The value of the StreamProvider system property before the test pinned the provider
+  private String streamProvider;
+
+  private ThreadMXBean threadMXBean;
+
+  private JavaMailEmailTransportService transportService;
+
+  @Test
+  public void mimeBuild() {
+    Email email = new Email();
+    email.from = new EmailAddress("from@example.com", "Example");
+    email.to.add(new EmailAddress("to@example.com"));
+    email.subject = "Welcome Frank";
+    email.text = "Hi Frank, thanks for signing up.";
+    email.html = "<p>Hi Frank, thanks for signing up.</p>";
+
+    assertBudget("MIME build", MIME_BUILD_BUDGET, () -> {
+      SendResult sendResult = new SendResult(email);
+      transportService.prepare(null, email, sendResult);
+      assertTrue(sendResult.wasSuccessful());
+    });
+  }
+
+  @Test
+  public void preview() {
+    assertBudget("preview", PREVIEW_BUDGET, () -> assertTrue(emailService.preview(null, "welcome", List.of())
+                                                                          .to("to@example.com")
+                                                                          .withTemplateParameter("name", "Frank")
+                                                                          .go()
+                                                                          .wasSuccessful()));
+  }
+
+  @Test
+  public void sendNow() {
+    assertBudget("send().now()", SEND_NOW_BUDGET, () -> assertTrue(emailService.send(null, "welcome", List.of())
+                                                                               .from("from@example.com")
+                                                                               .to("to@example.com")
+                                                                               .withTemplateParameter("name", "Frank")
+                                                                               .now()
+                                                                               .wasSuccessful()));
+  }
+
+  @AfterClass
+  public void teardown() {
+    transportService.close();
+    executorService.shutdown();
+    if (streamProvider == null) {
+      System.clearProperty(STREAM_PROVIDER_PROPERTY);
+    } else {
+      System.setProperty(STREAM_PROVIDER_PROPERTY, streamProvider);
+    }
+  }
+
+  @BeforeClass
+  public void setup() throws Exception {
+    if (!(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean bean) || !bean.isThreadAllocatedMemorySupported()) {
+      throw new SkipException("This JVM can't measure the memory allocated by a thread");
+    }
+
+    threadMXBean = bean;
+    threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+    Configuration configuration = new Configuration(Configuration.VERSION_2_3_28);
+    ParsedEmailTemplates parsedEmailTemplates = new ParsedEmailTemplates();
+    parsedEmailTemplates.html = new Template(null, "<p>Hi ${name}, thanks for signing up.</p>", configuration);
+    parsedEmailTemplates.subject = new Template(null, "Welcome ${name}", configuration);
+    parsedEmailTemplates.text = new Template(null, "Hi ${name}, thanks for signing up.", configuration);
+
+    EmailTemplateLoader emailTemplateLoader = new EmailTemplateLoader() {
+      public ParsedEmailTemplates load(Object contextId, Object templateId, List<Locale> preferredLanguages, BaseResult baseResult) {
+        return parsedEmailTemplates;
+      }
+
+      public ParsedEmailTemplates parse(RawEmailTemplates rawEmailTemplates, BaseResult baseResult) {
+        return parsedEmailTemplates;
+      }
+    };
+
+    // The stub transport measures the service without the MIME build and the network
+    EmailTransportService emailTransportService = new EmailTransportService() {
+      public void sendEmail(Object contextId, Email email, SendResult sendResult) {
+      }
+
+      public void sendEmail(Object contextId, Email email, SendResult sendResult, MessagingExceptionHandler messagingExceptionHandler) {
+      }
+
+      public void sendEmailLater(Object contextId, Email email, SendResult sendResult) {
+      }
+
+      public void sendEmailLater(Object contextId, Email email, SendResult sendResult, MessagingExceptionHandler messagingExceptionHandler) {
+      }
+    };
+
+    emailService = new DefaultEmailService(new FreeMarkerEmailRenderer(), emailTemplateLoader, emailTransportService);
+
+    // The MIME build budget assumes that JavaMail doesn't look up its StreamProvider for every message. The system
+    // property applies to the whole JVM, so it is put back once the test is done
+    streamProvider = System.getProperty(STREAM_PROVIDER_PROPERTY);
+    JavaMailEmailTransportService.pinStreamProvider();
+
+    // The host is set, so building the Message-ID doesn't look up the local host
+    Properties properties = new Properties();
+    properties.setProperty("mail.host", "localhost");
+    Session session = Session.getInstance(properties);
+    executorService = new EmailExecutorServiceProvider().get();
+    transportService = new JavaMailEmailTransportService(executorService, new DefaultMessagingExceptionHandler(), (contextId) -> session);
+  }
+
+  /**
+   * Runs the operation until the JIT has compiled it and then measures the bytes it allocates. The lowest of a few rounds
+   * is compared to the budget, so a GC or a deoptimization in one round doesn't fail the test.
+   */
+  private void assertBudget(String name, long budget, Runnable operation) {
+    for (int i = 0; i < 5_000; i++) {
+      operation.run();
+    }
+
+    long thread = Thread.currentThread().threadId();
+    long allocated = Long.MAX_VALUE;
+    for (int round = 0; round < 5; round++) {
+      long start = threadMXBean.getThreadAllocatedBytes(thread);
+      for (int i = 0; i < 1_000; i++) {
+        operation.run();
+      }
+
+      allocated = Math.min(allocated, (threadMXBean.getThreadAllocatedBytes(thread) - start) / 1_000);
+    }
+
+    assertTrue(allocated <= budget, "A " + name + " allocated [" + allocated + "] bytes, which is over its budget of [" + budget + "] bytes");
+  }
+}
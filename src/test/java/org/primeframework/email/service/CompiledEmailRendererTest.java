@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import freemarker.core.HTMLOutputFormat;
+import freemarker.core.UndefinedOutputFormat;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import org.primeframework.email.domain.BaseResult;
+import org.primeframework.email.domain.PreviewResult;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Tests the compiled renderer against FreeMarker.
+ *
+ * @author Brian Pontarelli
+ */
+@Test(groups = "unit")
+public class CompiledEmailRendererTest {
+  private Configuration config;
+
+  @BeforeMethod
+  public void beforeMethod() {
+    config = new Configuration(Configuration.VERSION_2_3_28);
+  }
+
+  @Test
+  public void compiled() throws Exception {
+    Map<String, Object> user = new HashMap<>();
+    user.put("name", "Frank");
+    user.put("vip", true);
+    Map<String, Object> parameters = Map.of("user", user, "tier", "gold", "items", List.of("anvil", "rocket"));
+
+    String source = """
+        Hi ${user.name},
+        <#-- Greeting -->
+        <#if user.vip>
+          Thanks for being a ${tier} member.
+        <#elseif tier == "silver">
+          Silver
+        <#else>
+          Hello
+        </#if>
+        <#if user.missing??>Missing</#if><#if tier != 'gold'>Not gold</#if>
+        <#list items as item>
+          - ${item}<#if item == "rocket"> (new)</#if>
+        </#list>
+        <#noparse>${literal}</#noparse>
+        """;
+    Template template = new Template(null, source, config);
+    assertNotNull(CompiledTemplate.compile(template));
+    assertEquals(CompiledTemplate.compile(template).render(model(parameters, template)), freeMarker(template, parameters));
+
+    user.put("vip", false);
+    assertEquals(CompiledTemplate.compile(template).render(model(parameters, template)), freeMarker(template, parameters));
+    assertEquals(render(template, parameters), freeMarker(template, parameters));
+  }
+
+  @Test
+  public void fallback() throws Exception {
+    // Values that FreeMarker formats or reports as errors
+    Template template = new Template(null, "${count} ${missing!}", config);
+    assertNull(CompiledTemplate.compile(template));
+
+    template = new Template(null, "${count}", config);
+    assertNull(CompiledTemplate.compile(template).render(model(Map.of("count", 1000), template)));
+    assertEquals(render(template, Map.of("count", 1000)), "1,000");
+    assertNull(CompiledTemplate.compile(template).render(model(Map.of(), template)));
+
+    BaseResult result = new PreviewResult();
+    new CompiledEmailRenderer().callTemplate(template, Map.of(), "subject", result);
+    assertNotNull(result.renderErrors.get("subject"));
+
+    // Shared variables
+    config.setSharedVariable("count", "shared");
+    template = new Template(null, "${count}", config);
+    assertEquals(render(template, Map.of()), "shared");
+
+    // Auto-escaping and unsupported directives
+    config.setOutputFormat(HTMLOutputFormat.INSTANCE);
+    assertNull(CompiledTemplate.compile(new Template(null, "${name}", config)));
+    config.setOutputFormat(UndefinedOutputFormat.INSTANCE);
+    assertNull(CompiledTemplate.compile(new Template(null, "<#assign x = 1>${x}", config)));
+    assertNull(CompiledTemplate.compile(new Template(null, "<#list xs as x>${x}<#sep>, </#list>", config)));
+    assertNull(CompiledTemplate.compile(new Template(null, "<#if a?has_content>${a}</#if>", config)));
+  }
+
+  private String freeMarker(Template template, Map<String, Object> parameters) {
+    return new FreeMarkerEmailRenderer().callTemplate(template, parameters, "text", new PreviewResult());
+  }
+
+  private LayeredTemplateHashModel model(Map<String, Object> parameters, Template template) {
+    return new LayeredTemplateHashModel(parameters, SharedTemplateParameters.EMPTY, template.getObjectWrapper());
+  }
+
+  private String render(Template template, Map<String, Object> parameters) {
+    return new CompiledEmailRenderer().callTemplate(template, parameters, "text", new PreviewResult());
+  }
+}
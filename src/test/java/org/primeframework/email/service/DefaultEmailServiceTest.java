@@ -15,23 +15,53 @@
  */
 package org.primeframework.email.service;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import freemarker.cache.FileTemplateLoader;
 import freemarker.template.Configuration;
 import freemarker.template.DefaultObjectWrapper;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.SimpleScalar;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import jakarta.mail.Multipart;
+import jakarta.mail.Part;
+import jakarta.mail.internet.MimeMessage;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.primeframework.email.EmailTestHelper;
+import org.primeframework.email.SmtpTestServer;
 import org.primeframework.email.config.EmailConfiguration;
+import org.primeframework.email.domain.BulkRecipient;
+import org.primeframework.email.domain.BulkSendResult;
 import org.primeframework.email.domain.Email;
 import org.primeframework.email.domain.EmailAddress;
+import org.primeframework.email.domain.LatencySnapshot;
+import org.primeframework.email.domain.ParsedEmailTemplates;
 import org.primeframework.email.domain.PreviewResult;
 import org.primeframework.email.domain.RawEmailTemplates;
 import org.primeframework.email.domain.SendResult;
+import org.primeframework.email.domain.ValidateRequest;
 import org.primeframework.email.domain.ValidateResult;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
@@ -42,6 +72,8 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertThrows;
 import static org.testng.Assert.assertTrue;
 
 /**
@@ -181,6 +213,151 @@ public class DefaultEmailServiceTest {
     assertEquals(result.email.html, "HTML value1");
   }
 
+  @Test
+  public void render_parallel_configuration() {
+    EmailConfiguration configuration = new TestEmailConfiguration() {
+      @Override
+      public boolean parallelRendering() {
+        return true;
+      }
+    };
+
+    // The errors of the parts are always in the same order
+    FreeMarkerEmailRenderer renderer = new FreeMarkerEmailRenderer(configuration);
+    DefaultEmailService service = new DefaultEmailService(renderer, new FileSystemEmailTemplateLoader(configuration, config), EmailTestHelper.getService());
+    for (int i = 0; i < 20; i++) {
+      PreviewResult result = service.preview(null, "bad-render-template", singletonList(Locale.US))
+                                    .from(new EmailAddress("from@example.com"))
+                                    .to(new EmailAddress("to@example.com"))
+                                    .go();
+      assertEquals(List.copyOf(result.renderErrors.keySet()), List.of("html", "text"));
+    }
+
+    // The renderer shuts down the executor it created
+    renderer.close();
+    assertThrows(RejectedExecutionException.class, () -> service.preview(null, "test-template", singletonList(Locale.US))
+                                                                .from(new EmailAddress("from@example.com"))
+                                                                .to(new EmailAddress("to@example.com"))
+                                                                .withTemplateParameter("key1", "value1")
+                                                                .go());
+  }
+
+  @Test
+  public void render_parallel() throws Exception {
+    DefaultEmailService service = new DefaultEmailService(new FreeMarkerEmailRenderer(Executors.newVirtualThreadPerTaskExecutor()), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), EmailTestHelper.getService());
+    PreviewResult result = service.preview(null, "test-template", singletonList(Locale.US))
+                                  .from(new EmailAddress("from@example.com"))
+                                  .to(new EmailAddress("to@example.com"))
+                                  .withTemplateParameter("key1", "value1")
+                                  .go();
+    assertTrue(result.wasSuccessful());
+    assertEquals(result.email.text, "Text value1");
+    assertEquals(result.email.html, "HTML value1");
+
+    RawEmailTemplates rawEmailTemplates = loadRaw(templatePath.resolve("bad-render-template-text.ftl"), templatePath.resolve("test-template-html.ftl"));
+    result = service.preview(null, rawEmailTemplates)
+                    .from(new EmailAddress("from@example.com"))
+                    .to(new EmailAddress("to@example.com"))
+                    .withTemplateParameter("key1", "value1")
+                    .go();
+    assertFalse(result.wasSuccessful());
+    assertEquals(result.email.html, "HTML value1");
+    assertNotNull(result.renderErrors.get("text"));
+    assertNull(result.renderErrors.get("html"));
+  }
+
+  @Test
+  public void templateLoader_warmUp() {
+    Set<Class<?>> introspected = ConcurrentHashMap.newKeySet();
+    DefaultObjectWrapper wrapper = new DefaultObjectWrapper(Configuration.VERSION_2_3_28);
+    wrapper.setMethodAppearanceFineTuner((input, decision) -> introspected.add(input.getContainingClass()));
+    config.setObjectWrapper(wrapper);
+
+    // The parameter classes are introspected without calling their constructors, including classes that can't be
+    // instantiated
+    new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config).warmUp(new TestEmailConfiguration() {
+      @Override
+      public Set<Class<?>> templateParameterClasses() {
+        return Set.of(Bean.class, SendResult.class, Constructed.class);
+      }
+    });
+    assertTrue(introspected.contains(Bean.class));
+    assertTrue(introspected.contains(SendResult.class));
+    assertTrue(introspected.contains(Constructed.class));
+    assertEquals(Constructed.instances.get(), 0);
+  }
+
+  @Test
+  public void render_wrapsParametersOnce() throws Exception {
+    AtomicInteger wraps = new AtomicInteger();
+    DefaultObjectWrapper wrapper = new DefaultObjectWrapper(Configuration.VERSION_2_3_28) {
+      @Override
+      public TemplateModel wrap(Object obj) throws TemplateModelException {
+        if (obj instanceof Bean) {
+          wraps.incrementAndGet();
+        }
+        return super.wrap(obj);
+      }
+    };
+    wrapper.setExposeFields(true);
+    config.setObjectWrapper(wrapper);
+
+    Bean bean = new Bean();
+    bean.name = "frank";
+    bean.bean2 = new Bean2();
+    bean.bean2.hobby = "fishing";
+
+    DefaultEmailService service = new DefaultEmailService(new FreeMarkerEmailRenderer(), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), EmailTestHelper.getService());
+    PreviewResult result = service.preview(null, "test-template-with-bean", singletonList(Locale.US))
+                                  .from(new EmailAddress("from@example.com"))
+                                  .to(new EmailAddress("to@example.com"))
+                                  .withTemplateParameter("bean", bean)
+                                  .go();
+    assertTrue(result.wasSuccessful());
+    assertEquals(result.email.text, "Text frank likes fishing");
+    assertEquals(result.email.html, "HTML frank likes fishing");
+    assertEquals(wraps.get(), 1);
+  }
+
+  @Test
+  public void render_sharedParameters() {
+    DefaultEmailService service = new DefaultEmailService(new FreeMarkerEmailRenderer(), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), EmailTestHelper.getService());
+    SharedTemplateParameters shared = new SharedTemplateParameters(Map.of("key1", "shared"));
+    PreviewResult result = service.preview(null, "test-template", singletonList(Locale.US))
+                                  .from(new EmailAddress("from@example.com"))
+                                  .to(new EmailAddress("to@example.com"))
+                                  .withSharedTemplateParameters(shared)
+                                  .go();
+    assertTrue(result.wasSuccessful());
+    assertEquals(result.email.text, "Text shared");
+    assertEquals(result.email.html, "HTML shared");
+
+    // The parameters of the email take precedence and the shared parameters are not changed
+    result = service.preview(null, "test-template", singletonList(Locale.US))
+                    .from(new EmailAddress("from@example.com"))
+                    .to(new EmailAddress("to@example.com"))
+                    .withSharedTemplateParameters(shared)
+                    .withTemplateParameter("key1", "value1")
+                    .go();
+    assertTrue(result.wasSuccessful());
+    assertEquals(result.email.text, "Text value1");
+    assertEquals(result.email.html, "HTML value1");
+    assertEquals(shared, Map.of("key1", "shared"));
+  }
+
+  @Test
+  public void render_sharedParameterModels() throws Exception {
+    ObjectWrapper first = (object) -> new SimpleScalar("first");
+    ObjectWrapper second = (object) -> new SimpleScalar("second");
+
+    // The models are cached for the first ObjectWrapper only
+    SharedTemplateParameters shared = new SharedTemplateParameters(Map.of("key1", "shared"));
+    TemplateModel model = shared.getModel("key1", first);
+    assertSame(shared.getModel("key1", first), model);
+    assertEquals(((SimpleScalar) shared.getModel("key1", second)).getAsString(), "second");
+    assertNull(shared.getModel("missing", first));
+  }
+
   @Test
   public void sendEmailClassPath() {
     DefaultEmailService service = new DefaultEmailService(new FreeMarkerEmailRenderer(), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), EmailTestHelper.getService());
@@ -203,6 +380,74 @@ public class DefaultEmailServiceTest {
     assertEquals(email.html, "HTML value1");
   }
 
+  @Test
+  public void sendEmail_latencies() {
+    EmailLatencyRecorder recorder = new EmailLatencyRecorder();
+    DefaultEmailService service = new DefaultEmailService(new FreeMarkerEmailRenderer(), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), EmailTestHelper.getService(), EmailPostProcessor.NONE, recorder);
+    for (int i = 0; i < 3; i++) {
+      SendResult result = service.send("context", "test-template", singletonList(Locale.US))
+                                 .from(new EmailAddress("from@example.com"))
+                                 .to(new EmailAddress("to@example.com"))
+                                 .withTemplateParameter("key1", "value1")
+                                 .now();
+      assertTrue(result.wasSuccessful());
+      assertEquals(result.templateId, "test-template");
+    }
+
+    LatencySnapshot load = recorder.snapshot(LatencySnapshot.Stage.LOAD, "context", "test-template");
+    assertEquals(load.count, 3);
+    assertTrue(load.p50.compareTo(load.max) <= 0);
+    assertTrue(load.p999.compareTo(load.max) <= 0);
+    assertEquals(recorder.snapshot(LatencySnapshot.Stage.RENDER, "context", "test-template").count, 3);
+    assertEquals(recorder.snapshot(LatencySnapshot.Stage.RENDER, "context", "other").count, 0);
+    assertEquals(recorder.snapshot().size(), 2);
+  }
+
+  @Test
+  public void sendEmail_flightRecorder() throws Exception {
+    DefaultEmailService service = new DefaultEmailService(new FreeMarkerEmailRenderer(), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), EmailTestHelper.getService());
+    Path file = Files.createTempFile("prime-email", ".jfr");
+    try (Recording recording = new Recording()) {
+      for (String name : List.of("Render", "Send", "TemplateLoad", "TemplateParse")) {
+        recording.enable("org.primeframework.email." + name);
+      }
+
+      recording.start();
+      SendResult result = service.send("context", "test-template", singletonList(Locale.US))
+                                 .from(new EmailAddress("from@example.com"))
+                                 .to(new EmailAddress("to@example.com"))
+                                 .withSubject("test subject")
+                                 .withTemplateParameter("key1", "value1")
+                                 .now();
+      assertTrue(result.wasSuccessful());
+
+      RawEmailTemplates rawEmailTemplates = new RawEmailTemplates();
+      rawEmailTemplates.text = "Text ${key1";
+      assertFalse(service.validate("context", rawEmailTemplates, emptyMap()).wasSuccessful());
+      recording.stop();
+      recording.dump(file);
+    }
+
+    List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+    Files.delete(file);
+
+    RecordedEvent send = event(events, "Send");
+    assertEquals(send.getString("contextId"), "context");
+    assertEquals(send.getString("mode"), "now");
+    assertEquals(send.getString("outcome"), "success");
+    assertEquals(send.getString("templateId"), "test-template");
+    assertEquals(event(events, "TemplateLoad").getString("outcome"), "success");
+
+    RecordedEvent render = event(events, "Render");
+    assertEquals(render.getString("outcome"), "success");
+    assertEquals(render.getLong("bytes"), render.getString("part").equals("html") ? "HTML value1".length() : "Text value1".length());
+
+    RecordedEvent parse = event(events, "TemplateParse");
+    assertEquals(parse.getString("outcome"), "parseError");
+    assertEquals(parse.getString("part"), "text");
+    assertEquals(parse.getLong("bytes"), "Text ${key1".length());
+  }
+
   @Test
   public void sendTemplatedEmail() {
     Bean bean = new Bean();
@@ -230,6 +475,208 @@ public class DefaultEmailServiceTest {
     assertEquals(email.html, "HTML frank likes fishing");
   }
 
+  @Test
+  public void sendStreamingHtml() throws Exception {
+    DefaultEmailService service = new DefaultEmailService(new FreeMarkerEmailRenderer(), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), EmailTestHelper.getService());
+    SendResult result = service.send(null, "test-template", singletonList(Locale.US))
+                               .withSubject("test subject")
+                               .from(new EmailAddress("from@example.com"))
+                               .to(new EmailAddress("to@example.com"))
+                               .withTemplateParameter("key1", "value1")
+                               .streamHtml()
+                               .now();
+    assertTrue(result.wasSuccessful());
+
+    Email email = EmailTestHelper.getEmailResults().poll();
+    assertNotNull(email);
+    assertNull(email.html);
+    assertNotNull(email.htmlContent);
+    assertEquals(email.text, "Text value1");
+
+    StringWriter writer = new StringWriter();
+    email.htmlContent.writeTo(writer);
+    assertEquals(writer.toString(), "HTML value1");
+  }
+
+  @Test
+  public void sendStreamingHtml_smtp() throws Exception {
+    // A long line of non-ASCII characters, which the transport has to encode as quoted-printable
+    String value = "Ünïcödé text ".repeat(100);
+    ExecutorService executorService = new EmailExecutorServiceProvider().get();
+    try (SmtpTestServer server = new SmtpTestServer().start()) {
+      JavaMailEmailTransportService transport = new JavaMailEmailTransportService(executorService, new DefaultMessagingExceptionHandler(), (contextId) -> server.session());
+      DefaultEmailService service = new DefaultEmailService(new FreeMarkerEmailRenderer(), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), transport);
+      SendResult result = service.send(null, "test-template", singletonList(Locale.US))
+                                 .withSubject("test subject")
+                                 .from(new EmailAddress("from@example.com"))
+                                 .to(new EmailAddress("to@example.com"))
+                                 .withTemplateParameter("key1", value)
+                                 .streamHtml()
+                                 .now();
+      assertTrue(result.wasSuccessful(), result.transportError);
+      assertEquals(server.messageCount(), 1);
+
+      String content = server.messages().get(0).content();
+      assertTrue(content.contains("Content-Transfer-Encoding: quoted-printable"));
+
+      MimeMessage message = new MimeMessage(server.session(), new ByteArrayInputStream(server.messages().get(0).data));
+      assertEquals(part(message, "text/html"), "HTML " + value);
+      assertEquals(part(message, "text/plain"), "Text " + value);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Test
+  public void sendBulk() {
+    DefaultEmailService service = new DefaultEmailService(new FreeMarkerEmailRenderer(), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), EmailTestHelper.getService());
+    Queue<SendResult> results = new ConcurrentLinkedQueue<>();
+    BulkSendResult result = service.sendBulk(null, "test-template", singletonList(Locale.US))
+                                   .withSubject("test subject")
+                                   .from(new EmailAddress("from@example.com"))
+                                   .withRecipients(IntStream.range(0, 100).mapToObj((i) -> new BulkRecipient(new EmailAddress("to" + i + "@example.com"), Map.of("key1", "value" + i))))
+                                   .withRenderThreads(2)
+                                   .withConnections(2)
+                                   .withQueueSize(4)
+                                   .onResult(results::add)
+                                   .now();
+    assertTrue(result.wasSuccessful());
+    assertEquals(result.sent, 100);
+    assertEquals(result.failed, 0);
+    assertEquals(results.size(), 100);
+    assertEquals(EmailTestHelper.getEmailResults().size(), 100);
+
+    for (SendResult sendResult : results) {
+      assertTrue(sendResult.wasSuccessful());
+      String address = sendResult.email.to.get(0).address;
+      String i = address.substring(2, address.indexOf('@'));
+      assertEquals(sendResult.email.to.size(), 1);
+      assertEquals(sendResult.email.subject, "test subject");
+      assertEquals(sendResult.email.from.address, "from@example.com");
+      assertEquals(sendResult.email.text, "Text value" + i);
+      assertEquals(sendResult.email.html, "HTML value" + i);
+    }
+  }
+
+  @Test
+  public void sendBulk_badParse() {
+    DefaultEmailService service = new DefaultEmailService(new FreeMarkerEmailRenderer(), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), EmailTestHelper.getService());
+    Queue<SendResult> results = new ConcurrentLinkedQueue<>();
+    BulkSendResult result = service.sendBulk(null, "bad-parse-template", singletonList(Locale.US))
+                                   .from(new EmailAddress("from@example.com"))
+                                   .withRecipients(IntStream.range(0, 10).mapToObj((i) -> new BulkRecipient(new EmailAddress("to" + i + "@example.com"), Map.of("key1", "value" + i))))
+                                   .onResult(results::add)
+                                   .now();
+    assertFalse(result.wasSuccessful());
+    assertFalse(result.parseErrors.isEmpty());
+    assertEquals(result.sent, 0);
+    assertTrue(results.isEmpty());
+    assertTrue(EmailTestHelper.getEmailResults().isEmpty());
+  }
+
+  @Test(timeOut = 10_000)
+  public void sendBulk_connectFails() {
+    EmailTransportService transport = EmailTestHelper.getService();
+    EmailTransportService failing = new EmailTransportService() {
+      @Override
+      public EmailConnection connect(Object contextId) {
+        throw new IllegalStateException("Unable to connect");
+      }
+
+      @Override
+      public void sendEmail(Object contextId, Email email, SendResult sendResult) {
+        transport.sendEmail(contextId, email, sendResult);
+      }
+
+      @Override
+      public void sendEmail(Object contextId, Email email, SendResult sendResult,
+                            MessagingExceptionHandler messagingExceptionHandler) {
+        transport.sendEmail(contextId, email, sendResult, messagingExceptionHandler);
+      }
+
+      @Override
+      public void sendEmailLater(Object contextId, Email email, SendResult sendResult) {
+        transport.sendEmailLater(contextId, email, sendResult);
+      }
+
+      @Override
+      public void sendEmailLater(Object contextId, Email email, SendResult sendResult,
+                                 MessagingExceptionHandler messagingExceptionHandler) {
+        transport.sendEmailLater(contextId, email, sendResult, messagingExceptionHandler);
+      }
+    };
+
+    // More recipients than fit in the queues, which used to block forever once the send threads had died
+    DefaultEmailService service = new DefaultEmailService(new FreeMarkerEmailRenderer(), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), failing);
+    Queue<SendResult> results = new ConcurrentLinkedQueue<>();
+    BulkSendResult result = service.sendBulk(null, "test-template", singletonList(Locale.US))
+                                   .from(new EmailAddress("from@example.com"))
+                                   .withRecipients(IntStream.range(0, 50).mapToObj((i) -> new BulkRecipient(new EmailAddress("to" + i + "@example.com"), Map.of("key1", "value" + i))))
+                                   .withRenderThreads(2)
+                                   .withConnections(2)
+                                   .withQueueSize(2)
+                                   .onResult(results::add)
+                                   .now();
+    assertEquals(result.sent, 0);
+    assertEquals(result.failed, 50);
+    assertEquals(results.size(), 50);
+    assertTrue(results.stream().noneMatch(SendResult::wasSuccessful));
+    assertTrue(EmailTestHelper.getEmailResults().isEmpty());
+  }
+
+  @Test
+  public void sendBulk_mailMerge() {
+    DefaultEmailService service = new DefaultEmailService(new FreeMarkerEmailRenderer(), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), EmailTestHelper.getService());
+    Queue<SendResult> results = new ConcurrentLinkedQueue<>();
+    BulkSendResult result = service.sendBulk(null, "test-template", singletonList(Locale.US))
+                                   .from(new EmailAddress("from@example.com"))
+                                   .withRecipients(IntStream.range(0, 10).mapToObj((i) -> new BulkRecipient(new EmailAddress("to" + i + "@example.com"), Map.of("key1", "value" + i))))
+                                   .withRecipientKeys("key1")
+                                   .onResult(results::add)
+                                   .now();
+    assertEquals(result.sent, 10);
+    for (SendResult sendResult : results) {
+      String address = sendResult.email.to.get(0).address;
+      String i = address.substring(2, address.indexOf('@'));
+      assertEquals(sendResult.email.text, "Text value" + i);
+      assertEquals(sendResult.email.html, "HTML value" + i);
+    }
+  }
+
+  @Test(timeOut = 10_000)
+  public void sendBulk_missingTo() {
+    DefaultEmailService service = new DefaultEmailService(new FreeMarkerEmailRenderer(), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), EmailTestHelper.getService());
+    BulkRecipient broken = new BulkRecipient();
+    broken.to = null;
+    Queue<SendResult> results = new ConcurrentLinkedQueue<>();
+    BulkSendResult result = service.sendBulk(null, "test-template", singletonList(Locale.US))
+                                   .from(new EmailAddress("from@example.com"))
+                                   .withRecipients(IntStream.range(0, 10).mapToObj((i) -> i == 3 ? broken : new BulkRecipient(new EmailAddress("to" + i + "@example.com"), Map.of("key1", "value" + i))))
+                                   .withRenderThreads(1)
+                                   .withQueueSize(2)
+                                   .onResult(results::add)
+                                   .now();
+    assertEquals(result.sent, 9);
+    assertEquals(result.failed, 1);
+    assertEquals(results.size(), 10);
+  }
+
+  @Test
+  public void send_after() {
+    DefaultEmailService service = new DefaultEmailService(new FreeMarkerEmailRenderer(), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), EmailTestHelper.getService());
+    SendResult result = service.send(null, "test-template", singletonList(Locale.US))
+                               .from(new EmailAddress("from@example.com"))
+                               .to(new EmailAddress("to@example.com"))
+                               .withTemplateParameter("key1", "value1")
+                               .after(Duration.ofMinutes(5));
+    assertTrue(result.wasSuccessful());
+    assertNotNull(result.future);
+
+    Email email = EmailTestHelper.getEmailResults().poll();
+    assertNotNull(email);
+    assertEquals(email.text, "Text value1");
+  }
+
   @Test
   public void send_later_badParse() {
     DefaultEmailService service = new DefaultEmailService(new FreeMarkerEmailRenderer(), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), EmailTestHelper.getService());
@@ -284,6 +731,71 @@ public class DefaultEmailServiceTest {
     assertTrue(EmailTestHelper.getEmailResults().isEmpty());
   }
 
+  @Test
+  public void validate_batch() throws Exception {
+    DefaultEmailService service = new DefaultEmailService(new FreeMarkerEmailRenderer(), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), EmailTestHelper.getService());
+    RawEmailTemplates badParse = loadRaw(templatePath.resolve("bad-parse-template-text.ftl"), templatePath.resolve("bad-parse-template-html.ftl"));
+    RawEmailTemplates badRender = loadRaw(templatePath.resolve("bad-render-template-text.ftl"), templatePath.resolve("bad-render-template-html.ftl"));
+    RawEmailTemplates good = loadRaw(templatePath.resolve("test-template-text.ftl"), templatePath.resolve("test-template-html.ftl"));
+    List<ValidateResult> results = service.validate(null, List.of(
+        new ValidateRequest(badParse, emptyMap()),
+        new ValidateRequest(good, Map.of("key1", "value1")),
+        new ValidateRequest(badRender, emptyMap()),
+        new ValidateRequest(good, emptyMap()),
+        new ValidateRequest(badParse, emptyMap())
+    ));
+    assertEquals(results.size(), 5);
+    assertNotNull(results.get(0).parseErrors.get("text"));
+    assertNotNull(results.get(0).parseErrors.get("html"));
+    assertTrue(results.get(1).wasSuccessful());
+    assertNotNull(results.get(2).renderErrors.get("text"));
+    assertNotNull(results.get(3).renderErrors.get("text"));
+    assertNotNull(results.get(4).parseErrors.get("text"));
+    assertNotNull(results.get(4).parseErrors.get("html"));
+
+    // Identical sources are parsed once
+    FileSystemEmailTemplateLoader loader = new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config);
+    TemplateParseCache templateParseCache = new TemplateParseCache();
+    ParsedEmailTemplates first = loader.parse(good, new ValidateResult(), templateParseCache);
+    ParsedEmailTemplates second = loader.parse(good, new ValidateResult(), templateParseCache);
+    assertSame(first.html, second.html);
+    assertSame(first.text, second.text);
+    assertEquals(templateParseCache.size(), 2);
+  }
+
+  @Test
+  public void validate_batchConcurrency() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    DefaultEmailService service = new DefaultEmailService(new FreeMarkerEmailRenderer(), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), EmailTestHelper.getService()) {
+      @Override
+      protected int validateConcurrency() {
+        return 2;
+      }
+
+      @Override
+      protected ValidateResult validate(ValidateRequest validateRequest, TemplateParseCache templateParseCache) {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+          Thread.sleep(5);
+          return super.validate(validateRequest, templateParseCache);
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        } finally {
+          running.decrementAndGet();
+        }
+      }
+    };
+
+    RawEmailTemplates good = loadRaw(templatePath.resolve("test-template-text.ftl"), templatePath.resolve("test-template-html.ftl"));
+    List<ValidateResult> results = service.validate(null, IntStream.range(0, 50)
+                                                                   .mapToObj((i) -> new ValidateRequest(good, Map.of("key1", "value" + i)))
+                                                                   .toList());
+    assertEquals(results.size(), 50);
+    assertTrue(results.stream().allMatch(ValidateResult::wasSuccessful));
+    assertTrue(maxRunning.get() <= 2, "Validated [" + maxRunning.get() + "] requests at once");
+  }
+
   private RawEmailTemplates loadRaw(Path textPath, Path htmlPath) throws IOException {
     RawEmailTemplates rawEmailTemplates = new RawEmailTemplates();
     rawEmailTemplates.text = new String(Files.readAllBytes(textPath));
@@ -291,6 +803,47 @@ public class DefaultEmailServiceTest {
     return rawEmailTemplates;
   }
 
+  private RecordedEvent event(List<RecordedEvent> events, String name) {
+    return events.stream()
+                 .filter((event) -> event.getEventType().getName().equals("org.primeframework.email." + name))
+                 .findFirst()
+                 .orElseThrow(() -> new AssertionError("No [" + name + "] event was recorded"));
+  }
+
+  private Object part(Part part, String mimeType) throws Exception {
+    if (part.isMimeType(mimeType)) {
+      return part.getContent();
+    }
+
+    if (part.getContent() instanceof Multipart multipart) {
+      for (int i = 0; i < multipart.getCount(); i++) {
+        Object content = part(multipart.getBodyPart(i), mimeType);
+        if (content != null) {
+          return content;
+        }
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * A template parameter class with constructors that count the instances, including one that takes any arguments.
+   */
+  public static class Constructed {
+    static final AtomicInteger instances = new AtomicInteger();
+
+    public String name;
+
+    public Constructed() {
+      instances.incrementAndGet();
+    }
+
+    public Constructed(Object... arguments) {
+      instances.incrementAndGet();
+    }
+  }
+
   public static class TestEmailConfiguration implements EmailConfiguration {
     @Override
     public String templateLocation() {
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import freemarker.cache.FileTemplateLoader;
+import freemarker.template.Configuration;
+import org.primeframework.email.EmailTestHelper;
+import org.primeframework.email.domain.Attachment;
+import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.SendResult;
+import org.primeframework.email.service.DefaultEmailServiceTest.TestEmailConfiguration;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import static java.util.Collections.singletonList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the coalescing of bursts of emails into digests.
+ *
+ * @author Brian Pontarelli
+ */
+@Test(groups = "unit")
+public class EmailCoalescerTest {
+  private DefaultEmailService emailService;
+
+  @BeforeClass
+  public void beforeClass() {
+    EmailTestHelper.setup();
+  }
+
+  @BeforeMethod
+  public void beforeMethod() throws Exception {
+    Configuration config = new Configuration(Configuration.VERSION_2_3_28);
+    config.setTemplateLoader(new FileTemplateLoader(new File("src/test/resources")));
+    emailService = new DefaultEmailService(new FreeMarkerEmailRenderer(), new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config), EmailTestHelper.getService());
+    EmailTestHelper.reset();
+  }
+
+  @Test
+  public void at() {
+    try (EmailCoalescer coalescer = new EmailCoalescer(emailService, Duration.ofHours(1), (templateId) -> "test-digest")) {
+      SendResult result = coalescer.send(null, "test-template", singletonList(Locale.US))
+                                   .from("from@example.com")
+                                   .to("to@example.com")
+                                   .withTemplateParameter("key1", "value1")
+                                   .after(Duration.ofMinutes(1));
+
+      // Scheduled emails are passed to the email service rather than coalesced
+      assertTrue(result.wasSuccessful());
+      assertEquals(coalescer.pending(), 0);
+      assertEquals(EmailTestHelper.getEmailResults().poll().text, "Text value1");
+    }
+  }
+
+  @Test
+  public void close() {
+    EmailCoalescer coalescer = new EmailCoalescer(emailService, Duration.ofHours(1), (templateId) -> "test-digest");
+    SendResult first = send(coalescer, "to@example.com", "value1");
+    SendResult second = send(coalescer, "to@example.com", "value2");
+    assertEquals(coalescer.pending(), 1);
+    assertTrue(EmailTestHelper.getEmailResults().isEmpty());
+
+    // Closing sends the groups right away
+    coalescer.close();
+    assertEquals(coalescer.pending(), 0);
+    assertEquals(EmailTestHelper.getEmailResults().size(), 1);
+    assertEquals(EmailTestHelper.getEmailResults().poll().text, "test-template value1;test-template value2;");
+    assertSame(first.future, second.future);
+
+    // Emails can't be sent once the coalescer is closed
+    assertThrows(IllegalStateException.class, () -> coalescer.send(null, "test-template", singletonList(Locale.US)));
+  }
+
+  @Test
+  public void close_builderBeforeClose() {
+    EmailCoalescer coalescer = new EmailCoalescer(emailService, Duration.ofHours(1), (templateId) -> "test-digest");
+    SendEmailBuilder builder = coalescer.send(null, "test-template", singletonList(Locale.US))
+                                        .from("from@example.com")
+                                        .to("to@example.com")
+                                        .withTemplateParameter("key1", "value1");
+    coalescer.close();
+
+    SendResult result = builder.later();
+    assertEquals(result.transportError, "The email coalescer is closed. The email was therefore not sent.");
+    assertNull(result.future);
+    assertEquals(coalescer.pending(), 0);
+    assertTrue(EmailTestHelper.getEmailResults().isEmpty());
+  }
+
+  @Test
+  public void digestAttachments() {
+    EmailCoalescer coalescer = new EmailCoalescer(emailService, Duration.ofHours(1), (templateId) -> "test-digest");
+    for (int i = 0; i < 3; i++) {
+      coalescer.send(null, "test-template", singletonList(Locale.US))
+               .from("from@example.com")
+               .to("to@example.com")
+               .withTemplateParameter("key1", "value" + i)
+               .withAttachments(new Attachment("file" + i + ".txt", "text/plain", new byte[]{(byte) i}))
+               .later();
+    }
+
+    coalescer.close();
+    Email digest = EmailTestHelper.getEmailResults().poll();
+    assertEquals(digest.attachments.stream().map((attachment) -> attachment.name).toList(), List.of("file0.txt", "file1.txt", "file2.txt"));
+  }
+
+  @Test
+  public void window() throws Exception {
+    try (EmailCoalescer coalescer = new EmailCoalescer(emailService, Duration.ofMillis(200), (templateId) -> "test-digest")) {
+      List<SendResult> results = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        results.add(send(coalescer, "to@example.com", "value" + i));
+      }
+
+      // Addresses are compared without case
+      results.add(send(coalescer, "TO@example.com", "value5"));
+      SendResult other = send(coalescer, "other@example.com", "other");
+      assertEquals(coalescer.pending(), 2);
+
+      SendResult digestResult = results.get(0).future.get(10, TimeUnit.SECONDS);
+      SendResult otherResult = other.future.get(10, TimeUnit.SECONDS);
+      assertTrue(digestResult.wasSuccessful());
+      assertTrue(otherResult.wasSuccessful());
+      for (SendResult result : results) {
+        assertSame(result.future.get(), digestResult);
+      }
+
+      // A group with a single email is sent with its own template
+      assertEquals(otherResult.email.text, "Text other");
+      assertEquals(digestResult.email.text, "test-template value0;test-template value1;test-template value2;test-template value3;test-template value4;test-template value5;");
+      assertEquals(digestResult.email.html, "<p>value0</p><p>value1</p><p>value2</p><p>value3</p><p>value4</p><p>value5</p>");
+      assertEquals(digestResult.email.to.get(0).address, "to@example.com");
+      assertEquals(EmailTestHelper.getEmailResults().size(), 2);
+      assertEquals(coalescer.pending(), 0);
+    }
+  }
+
+  @Test
+  public void withoutDigest() throws Exception {
+    try (EmailCoalescer coalescer = new EmailCoalescer(emailService, Duration.ofHours(1), (templateId) -> null)) {
+      send(coalescer, "to@example.com", "value1");
+      send(coalescer, "to@example.com", "value2");
+      assertEquals(coalescer.pending(), 0);
+
+      Email email = EmailTestHelper.getEmailResults().poll();
+      assertEquals(email.text, "Text value1");
+      assertEquals(EmailTestHelper.getEmailResults().poll().text, "Text value2");
+      assertNull(EmailTestHelper.getEmailResults().poll());
+    }
+  }
+
+  private SendResult send(EmailCoalescer coalescer, String to, String value) {
+    return coalescer.send(null, "test-template", singletonList(Locale.US))
+                    .from("from@example.com")
+                    .to(to)
+                    .withTemplateParameter("key1", value)
+                    .later();
+  }
+}
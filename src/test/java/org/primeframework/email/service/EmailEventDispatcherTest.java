@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.EmailEvent;
+import org.primeframework.email.domain.SendResult;
+import org.testng.annotations.Test;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the EmailEventDispatcher.
+ *
+ * @author Brian Pontarelli
+ */
+@Test(groups = "unit")
+public class EmailEventDispatcherTest {
+  @Test
+  public void batches() throws Exception {
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(100);
+    List<List<EmailEvent.Type>> batches = new CopyOnWriteArrayList<>();
+    EmailListener listener = new EmailListener() {
+      @Override
+      public void handle(List<EmailEvent> events) {
+        batches.add(events.stream().map((event) -> event.type).toList());
+        blocked.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+
+        events.forEach((event) -> done.countDown());
+      }
+    };
+
+    EmailEventDispatcher dispatcher = new EmailEventDispatcher(Set.of(listener));
+    assertTrue(dispatcher.isEnabled());
+
+    // The listener blocks on the first event, which means the rest are handled in a single batch
+    dispatcher.dispatch(event(EmailEvent.Type.QUEUED));
+    assertTrue(blocked.await(10, TimeUnit.SECONDS));
+    for (int i = 0; i < 99; i++) {
+      dispatcher.dispatch(event(EmailEvent.Type.SENT));
+    }
+
+    release.countDown();
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(batches.size(), 2);
+    assertEquals(batches.get(0), List.of(EmailEvent.Type.QUEUED));
+    assertEquals(batches.get(1).size(), 99);
+  }
+
+  @Test
+  public void callbacks() throws Exception {
+    CountDownLatch done = new CountDownLatch(4);
+    List<String> calls = new ArrayList<>();
+    EmailListener failing = new EmailListener() {
+      @Override
+      public void queued(EmailEvent event) {
+        throw new IllegalStateException("Listeners that throw don't stop the other listeners");
+      }
+    };
+    EmailListener listener = new EmailListener() {
+      @Override
+      public void failed(EmailEvent event) {
+        record("failed");
+      }
+
+      @Override
+      public void queued(EmailEvent event) {
+        record("queued");
+      }
+
+      @Override
+      public void retried(EmailEvent event) {
+        record("retried");
+      }
+
+      @Override
+      public void sent(EmailEvent event) {
+        record("sent");
+      }
+
+      private void record(String call) {
+        synchronized (calls) {
+          calls.add(call);
+        }
+
+        done.countDown();
+      }
+    };
+
+    EmailEventDispatcher dispatcher = new EmailEventDispatcher(Set.of(failing, listener));
+    dispatcher.dispatch(event(EmailEvent.Type.QUEUED));
+    dispatcher.dispatch(event(EmailEvent.Type.RETRIED));
+    dispatcher.dispatch(event(EmailEvent.Type.FAILED));
+    dispatcher.dispatch(event(EmailEvent.Type.SENT));
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    synchronized (calls) {
+      assertEquals(calls, List.of("queued", "retried", "failed", "sent"));
+    }
+  }
+
+  @Test
+  public void close() {
+    List<EmailEvent.Type> types = new CopyOnWriteArrayList<>();
+    EmailListener listener = new EmailListener() {
+      @Override
+      public void handle(List<EmailEvent> events) {
+        events.forEach((event) -> types.add(event.type));
+      }
+    };
+
+    // Closing passes the events that are queued to the listeners before it returns, and later events are dropped
+    EmailEventDispatcher dispatcher = new EmailEventDispatcher(Set.of(listener));
+    dispatcher.dispatch(event(EmailEvent.Type.QUEUED));
+    dispatcher.dispatch(event(EmailEvent.Type.SENT));
+    dispatcher.close();
+    assertEquals(types, List.of(EmailEvent.Type.QUEUED, EmailEvent.Type.SENT));
+
+    dispatcher.dispatch(event(EmailEvent.Type.FAILED));
+    dispatcher.close();
+    assertEquals(dispatcher.dropped(), 1);
+    assertEquals(types.size(), 2);
+  }
+
+  @Test
+  public void full() throws Exception {
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(3);
+    List<List<EmailEvent>> batches = new CopyOnWriteArrayList<>();
+    EmailListener listener = new EmailListener() {
+      @Override
+      public void handle(List<EmailEvent> events) {
+        batches.add(events);
+        blocked.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        }
+
+        events.forEach((event) -> done.countDown());
+      }
+    };
+
+    // The listener blocks on the first event, so only two of the others fit in the queue
+    EmailEventDispatcher dispatcher = new EmailEventDispatcher(Set.of(listener), 2);
+    dispatcher.dispatch(event(EmailEvent.Type.QUEUED));
+    assertTrue(blocked.await(10, TimeUnit.SECONDS));
+    for (int i = 0; i < 5; i++) {
+      dispatcher.dispatch(event(EmailEvent.Type.SENT));
+    }
+
+    assertEquals(dispatcher.dropped(), 3);
+    release.countDown();
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+
+    // The batches that were kept by the listener aren't cleared
+    assertEquals(batches.size(), 2);
+    assertEquals(batches.get(0).size(), 1);
+    assertEquals(batches.get(0).get(0).type, EmailEvent.Type.QUEUED);
+    assertEquals(batches.get(1).size(), 2);
+  }
+
+  @Test
+  public void none() {
+    assertFalse(EmailEventDispatcher.NONE.isEnabled());
+    EmailEventDispatcher.NONE.dispatch(event(EmailEvent.Type.SENT));
+  }
+
+  private EmailEvent event(EmailEvent.Type type) {
+    return new EmailEvent(type, null, new SendResult(new Email()), 1);
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests the EmailExecutor.
+ *
+ * @author Brian Pontarelli
+ */
+@Test(groups = "unit")
+public class EmailExecutorTest {
+  @Test
+  public void jmx() throws Exception {
+    ExecutorService executorService = new EmailExecutorServiceProvider().get();
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = ((EmailExecutor) executorService).objectName();
+    assertEquals(name.getKeyProperty("type"), "EmailExecutor");
+    assertEquals(server.getAttribute(name, "ActiveThreads"), 0);
+    assertEquals(server.getAttribute(name, "QueueDepth"), 0);
+    assertEquals(server.getAttribute(name, "RejectedTasks"), 0L);
+
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+    assertTrue(!server.isRegistered(name));
+  }
+
+  @Test
+  public void queue() throws Exception {
+    List<String> measurements = new CopyOnWriteArrayList<>();
+    EmailExecutorMetrics metrics = new EmailExecutorMetrics() {
+      @Override
+      public void completed(int emails, long queuedNanos, long runNanos, boolean failed) {
+        measurements.add("completed " + emails);
+      }
+
+      @Override
+      public void queued(int emails, long bytes, int queueDepth) {
+        measurements.add("queued " + emails + " " + bytes);
+      }
+
+      @Override
+      public void rejected(int emails) {
+        measurements.add("rejected " + emails);
+      }
+    };
+
+    EmailExecutor executor = new EmailExecutor(1, Thread::new, metrics);
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute(() -> {
+      running.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    assertTrue(running.await(5, TimeUnit.SECONDS));
+
+    executor.execute(new Task(3, 100));
+    executor.execute(new Task(2, 50));
+    Thread.sleep(20);
+
+    assertEquals(executor.getActiveThreads(), 1);
+    assertEquals(executor.getQueueDepth(), 2);
+    assertEquals(executor.getQueuedBytes(), 150);
+    assertTrue(executor.getOldestQueuedAge() >= 20);
+
+    release.countDown();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+    assertEquals(executor.getQueueDepth(), 0);
+    assertEquals(executor.getQueuedBytes(), 0);
+    assertEquals(executor.getOldestQueuedAge(), 0);
+    assertEquals(executor.getCompletedTasks(), 3);
+    assertEquals(executor.getSendThroughput(), 6 / 60d);
+
+    try {
+      executor.execute(new Task(4, 10));
+      fail("Should have been rejected");
+    } catch (RejectedExecutionException e) {
+      // Expected
+    }
+
+    assertEquals(executor.getRejectedTasks(), 1);
+    assertEquals(executor.getQueuedBytes(), 0);
+    assertEquals(measurements, List.of("queued 1 0", "queued 3 100", "queued 2 50", "completed 1", "completed 3", "completed 2", "rejected 4"));
+  }
+
+  @Test
+  public void submit() throws Exception {
+    List<String> measurements = new CopyOnWriteArrayList<>();
+    EmailExecutorMetrics metrics = new EmailExecutorMetrics() {
+      @Override
+      public void completed(int emails, long queuedNanos, long runNanos, boolean failed) {
+        measurements.add("completed " + emails + (failed ? " failed" : ""));
+      }
+    };
+
+    EmailExecutor executor = new EmailExecutor(1, Thread::new, metrics);
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute(() -> {
+      running.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    assertTrue(running.await(5, TimeUnit.SECONDS));
+
+    // Submitted tasks keep their size, and only the tasks that complete normally count towards the throughput
+    Future<?> sent = executor.submit(new Task(3, 100));
+    executor.submit(new Task(2, 50) {
+      @Override
+      public void run() {
+        throw new IllegalStateException("Failed");
+      }
+    });
+    Future<?> cancelled = executor.submit(new Task(4, 10));
+    assertEquals(executor.getQueuedBytes(), 160);
+    assertTrue(cancelled.cancel(false));
+
+    release.countDown();
+    sent.get(5, TimeUnit.SECONDS);
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals(executor.getSendThroughput(), 4 / 60d);
+    assertEquals(measurements, List.of("completed 1", "completed 3", "completed 2 failed", "completed 4 failed"));
+  }
+
+  @Test
+  public void shutdownNow() throws Exception {
+    EmailExecutor executor = new EmailExecutor(1, Thread::new, EmailExecutorMetrics.NONE);
+    CountDownLatch running = new CountDownLatch(1);
+    executor.execute(() -> {
+      running.countDown();
+      try {
+        Thread.sleep(10_000);
+      } catch (InterruptedException e) {
+        // Expected
+      }
+    });
+    assertTrue(running.await(5, TimeUnit.SECONDS));
+
+    // The tasks that never ran are returned as they were executed
+    Task task = new Task(3, 100);
+    executor.execute(task);
+    assertEquals(executor.shutdownNow(), List.of(task));
+    assertEquals(executor.getQueuedBytes(), 0);
+    assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void throughput() throws Exception {
+    EmailExecutor.Throughput throughput = new EmailExecutor.Throughput();
+    throughput.add(0, 5);
+    assertEquals(throughput.perSecond(0), 5 / 60d);
+
+    // A minute later the bucket is reused, and a late count for the old second is ignored
+    throughput.add(60, 1);
+    throughput.add(0, 3);
+    assertEquals(throughput.perSecond(60), 1 / 60d);
+
+    // Counts that race with the move of a bucket to a new second aren't lost
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = Thread.ofPlatform().start(() -> {
+        for (int j = 0; j < 10_000; j++) {
+          throughput.add(120, 1);
+        }
+      });
+    }
+
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(throughput.perSecond(120), 80_000 / 60d);
+  }
+
+  private static class Task implements EmailTask {
+    private final long bytes;
+
+    private final int emails;
+
+    Task(int emails, long bytes) {
+      this.emails = emails;
+      this.bytes = bytes;
+    }
+
+    @Override
+    public long bytes() {
+      return bytes;
+    }
+
+    @Override
+    public int emails() {
+      return emails;
+    }
+
+    @Override
+    public void run() {
+    }
+  }
+}
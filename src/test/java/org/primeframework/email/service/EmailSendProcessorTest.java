@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.primeframework.email.EmailTestHelper;
+import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.EmailAddress;
+import org.primeframework.email.domain.SendResult;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the publisher/subscriber send processor.
+ *
+ * @author Brian Pontarelli
+ */
+@Test(groups = "unit")
+public class EmailSendProcessorTest {
+  @BeforeClass
+  public void beforeClass() {
+    EmailTestHelper.setup();
+  }
+
+  @BeforeMethod
+  public void beforeMethod() {
+    EmailTestHelper.reset();
+  }
+
+  @Test
+  public void backpressure() throws Exception {
+    Semaphore sends = new Semaphore(0);
+    EmailTransportService transport = new EmailTransportService() {
+      public void sendEmail(Object contextId, Email email, SendResult sendResult) {
+        sends.acquireUninterruptibly();
+      }
+
+      public void sendEmail(Object contextId, Email email, SendResult sendResult, MessagingExceptionHandler messagingExceptionHandler) {
+        sendEmail(contextId, email, sendResult);
+      }
+
+      public void sendEmailLater(Object contextId, Email email, SendResult sendResult) {
+        throw new UnsupportedOperationException();
+      }
+
+      public void sendEmailLater(Object contextId, Email email, SendResult sendResult, MessagingExceptionHandler messagingExceptionHandler) {
+        throw new UnsupportedOperationException();
+      }
+    };
+
+    AtomicLong requested = new AtomicLong();
+    Flow.Processor<Email, SendResult> processor = transport.processor(null, 2);
+    Collector collector = new Collector();
+    processor.subscribe(collector);
+    processor.onSubscribe(new Flow.Subscription() {
+      public void cancel() {
+      }
+
+      public void request(long n) {
+        requested.addAndGet(n);
+      }
+    });
+    assertEquals(requested.get(), 2);
+
+    // Nothing more is requested while both emails are being sent
+    processor.onNext(email("one@example.com"));
+    processor.onNext(email("two@example.com"));
+    Thread.sleep(100);
+    assertEquals(requested.get(), 2);
+
+    sends.release();
+    assertTrue(collector.next.tryAcquire(10, TimeUnit.SECONDS));
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (requested.get() < 3 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    assertEquals(requested.get(), 3);
+
+    sends.release();
+    processor.onComplete();
+    assertTrue(collector.completed.await(10, TimeUnit.SECONDS));
+    assertEquals(requested.get(), 4);
+    assertEquals(collector.results.size(), 2);
+  }
+
+  @Test
+  public void connectFails() throws Exception {
+    EmailTransportService transport = new EmailTransportService() {
+      public EmailConnection connect(Object contextId) {
+        throw new IllegalStateException("No connection");
+      }
+
+      public void sendEmail(Object contextId, Email email, SendResult sendResult) {
+        throw new UnsupportedOperationException();
+      }
+
+      public void sendEmail(Object contextId, Email email, SendResult sendResult, MessagingExceptionHandler messagingExceptionHandler) {
+        throw new UnsupportedOperationException();
+      }
+
+      public void sendEmailLater(Object contextId, Email email, SendResult sendResult) {
+        throw new UnsupportedOperationException();
+      }
+
+      public void sendEmailLater(Object contextId, Email email, SendResult sendResult, MessagingExceptionHandler messagingExceptionHandler) {
+        throw new UnsupportedOperationException();
+      }
+    };
+
+    AtomicBoolean cancelled = new AtomicBoolean();
+    Flow.Processor<Email, SendResult> processor = transport.processor(null, 2);
+    Collector collector = new Collector();
+    processor.subscribe(collector);
+    processor.onSubscribe(new Flow.Subscription() {
+      public void cancel() {
+        cancelled.set(true);
+      }
+
+      public void request(long n) {
+      }
+    });
+
+    assertTrue(collector.completed.await(10, TimeUnit.SECONDS));
+    assertTrue(cancelled.get());
+    assertTrue(collector.error instanceof IllegalStateException);
+    assertEquals(collector.error.getMessage(), "No connection");
+
+    // Completing after the failure doesn't wait on the stopped senders
+    processor.onComplete();
+  }
+
+  @Test
+  public void send() throws Exception {
+    Flow.Processor<Email, SendResult> processor = EmailTestHelper.getService().processor(null, 4);
+    Collector collector = new Collector();
+    processor.subscribe(collector);
+
+    try (SubmissionPublisher<Email> publisher = new SubmissionPublisher<>()) {
+      publisher.subscribe(processor);
+      for (int i = 0; i < 50; i++) {
+        publisher.submit(email("to" + i + "@example.com"));
+      }
+    }
+
+    assertTrue(collector.completed.await(10, TimeUnit.SECONDS));
+    assertEquals(collector.results.size(), 50);
+    assertTrue(collector.results.stream().allMatch(SendResult::wasSuccessful));
+    assertEquals(EmailTestHelper.getEmailResults().size(), 50);
+  }
+
+  private Email email(String to) {
+    Email email = new Email();
+    email.from = new EmailAddress("from@example.com");
+    email.to = List.of(new EmailAddress(to));
+    email.subject = "Hello";
+    return email;
+  }
+
+  private static class Collector implements Flow.Subscriber<SendResult> {
+    final CountDownLatch completed = new CountDownLatch(1);
+
+    final Semaphore next = new Semaphore(0);
+
+    final Queue<SendResult> results = new ConcurrentLinkedQueue<>();
+
+    volatile Throwable error;
+
+    public void onComplete() {
+      completed.countDown();
+    }
+
+    public void onError(Throwable throwable) {
+      error = throwable;
+      completed.countDown();
+    }
+
+    public void onNext(SendResult item) {
+      results.add(item);
+      next.release();
+    }
+
+    public void onSubscribe(Flow.Subscription subscription) {
+      subscription.request(Long.MAX_VALUE);
+    }
+  }
+}
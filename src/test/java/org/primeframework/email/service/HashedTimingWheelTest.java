@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the hashed timing wheel.
+ *
+ * @author Brian Pontarelli
+ */
+@Test(groups = "unit")
+public class HashedTimingWheelTest {
+  @Test
+  public void cancel() throws Exception {
+    Queue<Instant> due = new ConcurrentLinkedQueue<>();
+    AtomicInteger largestBatch = new AtomicInteger();
+    try (HashedTimingWheel<Instant> timingWheel = new HashedTimingWheel<>(Duration.ofMillis(10), 64, 100, (batch) -> {
+      largestBatch.accumulateAndGet(batch.size(), Math::max);
+      due.addAll(batch);
+    })) {
+      Instant start = Instant.now();
+      List<HashedTimingWheel.Timeout> timeouts = new ArrayList<>();
+      for (int i = 0; i < 10_000; i++) {
+        timeouts.add(timingWheel.schedule(start.plusMillis(200 + i % 300), start.plusMillis(200 + i % 300)));
+      }
+
+      // Cancel every other timer
+      for (int i = 0; i < timeouts.size(); i += 2) {
+        assertTrue(timeouts.get(i).cancel());
+        assertFalse(timeouts.get(i).cancel());
+      }
+
+      assertEquals(timingWheel.pending(), 5_000);
+      waitFor(() -> due.size() == 5_000);
+      Thread.sleep(50);
+      assertEquals(due.size(), 5_000);
+      assertEquals(timingWheel.pending(), 0);
+      assertTrue(largestBatch.get() <= 100);
+
+      for (int i = 0; i < timeouts.size(); i++) {
+        assertEquals(timeouts.get(i).isCancelled(), i % 2 == 0);
+        assertEquals(timeouts.get(i).isExpired(), i % 2 == 1);
+      }
+    }
+  }
+
+  @Test
+  public void rounds() throws Exception {
+    Queue<Instant> due = new ConcurrentLinkedQueue<>();
+    Queue<Instant> dueAt = new ConcurrentLinkedQueue<>();
+    try (HashedTimingWheel<Instant> timingWheel = new HashedTimingWheel<>(Duration.ofMillis(10), 8, 100, (batch) -> {
+      batch.forEach((instant) -> dueAt.add(Instant.now()));
+      due.addAll(batch);
+    })) {
+      // A turn of the wheel is 80 milliseconds, so these stay in their buckets for a few turns
+      Instant start = Instant.now();
+      timingWheel.schedule(start.plusMillis(250), start.plusMillis(250));
+      timingWheel.schedule(start.minusMillis(100), start.minusMillis(100));
+      waitFor(() -> due.size() == 2);
+
+      List<Instant> items = new ArrayList<>(due);
+      assertEquals(items.get(0), start.minusMillis(100));
+      assertEquals(items.get(1), start.plusMillis(250));
+      assertFalse(new ArrayList<>(dueAt).get(1).isBefore(start.plusMillis(240)));
+    }
+  }
+
+  @Test
+  public void stop() throws Exception {
+    Queue<Instant> due = new ConcurrentLinkedQueue<>();
+    HashedTimingWheel<Instant> timingWheel = new HashedTimingWheel<>(Duration.ofMillis(10), 8, 100, due::addAll);
+    Instant start = Instant.now();
+    timingWheel.schedule(start, start);
+    HashedTimingWheel.Timeout cancelled = timingWheel.schedule(start.plusSeconds(60), start.plusSeconds(60));
+    timingWheel.schedule(start.plusSeconds(120), start.plusSeconds(120));
+    assertTrue(cancelled.cancel());
+    waitFor(() -> due.size() == 1);
+
+    // The timers that are pending are returned rather than dropped
+    assertEquals(timingWheel.stop(), List.of(start.plusSeconds(120)));
+    assertEquals(timingWheel.pending(), 0);
+    assertEquals(timingWheel.stop(), List.of());
+    assertThrows(IllegalStateException.class, () -> timingWheel.schedule(start, start));
+  }
+
+  private void waitFor(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    assertTrue(condition.getAsBoolean());
+  }
+}
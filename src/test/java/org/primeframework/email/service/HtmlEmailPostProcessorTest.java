@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.Set;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+/**
+ * Tests the CSS inlining and minification of the HTML post processor.
+ *
+ * @author Brian Pontarelli
+ */
+@Test(groups = "unit")
+public class HtmlEmailPostProcessorTest {
+  @Test
+  public void inline() {
+    String html = """
+        <html>
+          <head>
+            <style type="text/css">
+              /* Layout */
+              td { padding: 4px; color: black }
+              .header, h1 { font-family: "Helvetica Neue", Arial; color: red !important }
+              td.total#sum { font-weight: bold }
+              a:hover { color: blue }
+              @media (max-width: 600px) { td { padding: 0 !important } }
+            </style>
+            <style media="print">td { color: gray }</style>
+          </head>
+          <body>
+            <!-- Body -->
+            <h1 class="header">Order</h1>
+            <table><tr><td style="color: green">Item</td><td class="total" id="sum">$10</td></tr></table>
+            <pre>  keep
+          this  </pre>
+            <!--[if mso]><style>td { color: black }</style><![endif]-->
+            <img src="logo.png" class=header/>
+          </body>
+        </html>
+        """;
+    String expected = """
+        <html>
+        <head>
+        <style type="text/css">a:hover{color: blue}@media (max-width: 600px) { td { padding: 0 !important } }</style>
+        <style media="print">td { color: gray }</style>
+        </head>
+        <body>
+        <h1 class="header" style="font-family:&quot;Helvetica Neue&quot;, Arial;color:red !important">Order</h1>
+        <table><tr><td style="padding:4px;color:green">Item</td><td class="total" id="sum" style="padding:4px;color:black;font-weight:bold">$10</td></tr></table>
+        <pre>  keep
+          this  </pre>
+        <!--[if mso]><style>td { color: black }</style><![endif]-->
+        <img src="logo.png" class=header style="font-family:&quot;Helvetica Neue&quot;, Arial;color:red !important"/>
+        </body>
+        </html>
+        """;
+    HtmlEmailPostProcessor processor = new HtmlEmailPostProcessor();
+    assertEquals(processor.process(html), expected);
+
+    // The second email of the same template uses the cached stylesheet
+    assertEquals(processor.process(html), expected);
+  }
+
+  @Test
+  public void inline_remainingRules() {
+    // A rule left in the stylesheet that beats a simple rule keeps the simple rule in the stylesheet, and so does a kept
+    // rule that beats a less specific simple rule (through the shorthand border)
+    InlineStylesheet stylesheet = new InlineStylesheet("""
+        td { border: 0 }
+        td.cell { color: blue; border-top: 1px solid }
+        .dark td { color: white }
+        td#total { font-weight: bold }
+        p { margin: 0 }
+        div > p { color: red }
+        @media (max-width: 600px) { p.wide { margin-left: 4px } }
+        span { color: gray !important }
+        span:hover { color: black }
+        """);
+    assertEquals(stylesheet.getRemainingCss(), "td{border: 0}td.cell{color: blue; border-top: 1px solid}.dark td{color: white}p{margin: 0}" +
+        "div > p{color: red}@media (max-width: 600px) { p.wide { margin-left: 4px } } span:hover{color: black}");
+    assertNull(stylesheet.style("td", null, Set.of("cell"), null));
+    assertEquals(stylesheet.style("td", "total", Set.of(), null), "font-weight:bold");
+    assertNull(stylesheet.style("p", null, Set.of(), null));
+    assertEquals(stylesheet.style("span", null, Set.of(), null), "color:gray !important");
+  }
+
+  @Test
+  public void unchanged() {
+    String html = "<p>Hello\n\n   <b>World</b></p>";
+    HtmlEmailPostProcessor processor = new HtmlEmailPostProcessor(true, false, 10);
+    assertSame(processor.process(html), html);
+    assertEquals(new HtmlEmailPostProcessor().process(html), "<p>Hello\n<b>World</b></p>");
+  }
+}
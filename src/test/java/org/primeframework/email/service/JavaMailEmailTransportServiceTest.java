@@ -15,20 +15,36 @@
  */
 package org.primeframework.email.service;
 
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import jakarta.mail.Authenticator;
 import jakarta.mail.PasswordAuthentication;
 import jakarta.mail.Session;
+import org.primeframework.email.SmtpTestServer;
+import org.primeframework.email.config.DefaultEmailConfiguration;
 import org.primeframework.email.domain.Attachment;
 import org.primeframework.email.domain.Email;
 import org.primeframework.email.domain.EmailAddress;
+import org.primeframework.email.domain.EmailEvent;
 import org.primeframework.email.domain.EmailHeader;
 import org.primeframework.email.domain.SendResult;
+import org.primeframework.email.domain.SmtpTrace;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
@@ -41,15 +57,20 @@ import static org.testng.Assert.assertTrue;
 public class JavaMailEmailTransportServiceTest {
   private static ExecutorService executorService;
 
+  private static SmtpTestServer server;
+
   private static Session session;
 
+  @AfterClass
+  public static void teardown() {
+    server.close();
+  }
+
   @BeforeClass
-  public static void setup() {
-    Properties props = new Properties();
-    props.setProperty("mail.transport.protocol", "smtp");
-    props.setProperty("mail.smtp.host", "localhost");
-    props.setProperty("mail.host", "localhost");
-    props.setProperty("mail.smtp.localhost", "localhost");
+  public static void setup() throws Exception {
+    // By default, the emails are sent to an in-process SMTP server
+    server = new SmtpTestServer().start();
+    Properties props = server.properties();
 
     Authenticator auth = null;
 
@@ -82,6 +103,313 @@ public class JavaMailEmailTransportServiceTest {
     session = Session.getInstance(props, auth);
   }
 
+  @Test
+  public void queuedEmail() {
+    Email first = new Email();
+    first.from = new EmailAddress("dev@inversoft.com", "Dev");
+    first.to.add(new EmailAddress("brian@inversoft.com"));
+    first.text = "text";
+    first.additionalHeaders.add(new EmailHeader("X-Campaign", "1"));
+
+    Email second = new Email();
+    second.from = new EmailAddress("dev@inversoft.com", "Dev");
+    second.cc.add(new EmailAddress("brian@inversoft.com"));
+
+    // The addresses are shared between queued emails
+    QueuedEmail firstQueued = new QueuedEmail(first);
+    QueuedEmail secondQueued = new QueuedEmail(second);
+    assertSame(firstQueued.from, secondQueued.from);
+    assertSame(firstQueued.to[0], secondQueued.cc[0]);
+
+    // Changing the email after it was queued doesn't change the queued copy
+    first.to.clear();
+    first.text = "changed";
+    first.additionalHeaders.clear();
+    assertEquals(firstQueued.to[0].address(), "brian@inversoft.com");
+    assertEquals(firstQueued.text, "text");
+    assertEquals(firstQueued.headers[0], "X-Campaign");
+    assertEquals(firstQueued.headers[1], "1");
+
+    // The email is rebuilt from the queued copy when it is sent
+    Email rebuilt = firstQueued.toEmail();
+    assertEquals(rebuilt.from.address, "dev@inversoft.com");
+    assertEquals(rebuilt.from.display, "Dev");
+    assertEquals(rebuilt.to.get(0).address, "brian@inversoft.com");
+    assertTrue(rebuilt.cc.isEmpty());
+    assertEquals(rebuilt.text, "text");
+    assertEquals(rebuilt.additionalHeaders.get(0).name, "X-Campaign");
+    assertEquals(rebuilt.additionalHeaders.get(0).value, "1");
+  }
+
+  @Test
+  public void sendEmailAt_cancel() {
+    JavaMailEmailTransportService service = new JavaMailEmailTransportService(executorService, new DefaultMessagingExceptionHandler(), new TestJavaMailSessionProvider(session));
+    Email email = new Email();
+    email.from = new EmailAddress("dev@inversoft.com");
+    email.to.add(new EmailAddress("brian@inversoft.com"));
+    email.subject = "Test email";
+    email.text = "text";
+
+    SendResult sendResult = new SendResult(email);
+    service.sendEmailAt(null, email, sendResult, Instant.now().plus(Duration.ofHours(1)));
+    assertTrue(sendResult.wasSuccessful());
+
+    // Only the queued copy is kept while the email is scheduled
+    assertNull(sendResult.email);
+    assertFalse(sendResult.future.isDone());
+    assertTrue(sendResult.future.cancel(false));
+    assertTrue(sendResult.future.isCancelled());
+    assertFalse(sendResult.future.cancel(false));
+    // Emails can't be scheduled once the service is closed
+    service.close();
+    SendResult closedResult = new SendResult(email);
+    service.sendEmailAt(null, email, closedResult, Instant.now());
+    assertEquals(closedResult.transportError, "The JavaMail transport is closed. The email was therefore not sent.");
+    assertSame(closedResult.email, email);
+    assertNull(closedResult.future);
+  }
+
+  @Test
+  public void sendEmailAt_close() throws Exception {
+    // Nothing listens on the port, so the queued email fails to connect and waits a minute to be retried
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+
+    Properties props = new Properties();
+    props.setProperty("mail.smtp.host", "localhost");
+    props.setProperty("mail.smtp.port", "" + port);
+
+    CountDownLatch retried = new CountDownLatch(1);
+    EmailListener listener = new EmailListener() {
+      @Override
+      public void handle(List<EmailEvent> batch) {
+        batch.stream().filter((event) -> event.type == EmailEvent.Type.RETRIED).forEach((event) -> retried.countDown());
+      }
+    };
+
+    DefaultEmailConfiguration configuration = new DefaultEmailConfiguration() {
+      @Override
+      public int sendRetries() {
+        return 1;
+      }
+
+      @Override
+      public long sendRetryDelay() {
+        return 60_000;
+      }
+    };
+
+    JavaMailEmailTransportService service = new JavaMailEmailTransportService(executorService, (e) -> {
+    }, new TestJavaMailSessionProvider(Session.getInstance(props)), new EmailEventDispatcher(Set.of(listener)), configuration);
+    Email email = new Email();
+    email.from = new EmailAddress("dev@inversoft.com");
+    email.to.add(new EmailAddress("brian@inversoft.com"));
+    email.subject = "Test email";
+    email.text = "text";
+
+    SendResult scheduled = new SendResult(email);
+    service.sendEmailAt(null, email, scheduled, Instant.now().plus(Duration.ofHours(1)));
+    SendResult queued = new SendResult(email);
+    service.sendEmailLater(null, email, queued);
+    assertTrue(retried.await(10, TimeUnit.SECONDS));
+
+    // Closing the service finishes the emails that are scheduled or wait to be retried
+    service.close();
+    for (SendResult sendResult : List.of(scheduled, queued)) {
+      assertSame(sendResult.future.get(10, TimeUnit.SECONDS), sendResult);
+      assertEquals(sendResult.transportError, "The JavaMail transport is closed. The email was therefore not sent.");
+      assertEquals(sendResult.email.subject, "Test email");
+    }
+  }
+
+  @Test
+  public void sendEmailLater_retries() throws Exception {
+    // Nothing listens on the port, so every attempt fails to connect, which is a transient error
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+
+    Properties props = new Properties();
+    props.setProperty("mail.smtp.host", "localhost");
+    props.setProperty("mail.smtp.port", "" + port);
+
+    List<EmailEvent> events = new CopyOnWriteArrayList<>();
+    CountDownLatch latch = new CountDownLatch(4);
+    EmailListener listener = new EmailListener() {
+      @Override
+      public void handle(List<EmailEvent> batch) {
+        events.addAll(batch);
+        batch.forEach((event) -> latch.countDown());
+      }
+    };
+
+    DefaultEmailConfiguration configuration = new DefaultEmailConfiguration() {
+      @Override
+      public int sendRetries() {
+        return 2;
+      }
+
+      @Override
+      public long sendRetryDelay() {
+        return 10;
+      }
+    };
+
+    JavaMailEmailTransportService service = new JavaMailEmailTransportService(executorService, (e) -> {
+    }, new TestJavaMailSessionProvider(Session.getInstance(props)), new EmailEventDispatcher(Set.of(listener)), configuration);
+    Email email = new Email();
+    email.from = new EmailAddress("dev@inversoft.com");
+    email.to.add(new EmailAddress("brian@inversoft.com"));
+    email.subject = "Test email";
+    email.text = "text";
+
+    SendResult sendResult = new SendResult(email);
+    service.sendEmailLater("context", email, sendResult);
+    assertSame(sendResult.future.get(10, TimeUnit.SECONDS), sendResult);
+    assertFalse(sendResult.wasSuccessful());
+    assertEquals(sendResult.transportError, "Unable to send email via JavaMail");
+
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    assertEquals(events.stream().map((event) -> event.type).toList(),
+        List.of(EmailEvent.Type.QUEUED, EmailEvent.Type.RETRIED, EmailEvent.Type.RETRIED, EmailEvent.Type.FAILED));
+    assertEquals(events.stream().map((event) -> event.attempt).toList(), List.of(1, 1, 2, 3));
+    for (EmailEvent event : events) {
+      assertEquals(event.contextId, "context");
+      assertSame(event.sendResult, sendResult);
+      assertEquals(event.email.subject, "Test email");
+      assertNotNull(event.timestamp);
+    }
+
+    assertNotNull(events.get(3).exception);
+    assertSame(sendResult.email, events.get(3).email);
+  }
+
+  @Test
+  public void sendEmailLater_retriesTransientReplies() throws Exception {
+    List<EmailEvent> events = new CopyOnWriteArrayList<>();
+    CountDownLatch latch = new CountDownLatch(3);
+    EmailListener listener = new EmailListener() {
+      @Override
+      public void handle(List<EmailEvent> batch) {
+        events.addAll(batch);
+        batch.forEach((event) -> latch.countDown());
+      }
+    };
+
+    DefaultEmailConfiguration configuration = new DefaultEmailConfiguration() {
+      @Override
+      public int sendRetries() {
+        return 1;
+      }
+
+      @Override
+      public long sendRetryDelay() {
+        return 10;
+      }
+    };
+
+    try (SmtpTestServer server = new SmtpTestServer().start()) {
+      // The server rejects the first message with a transient reply and accepts it when it is retried
+      server.failNext("DATA", 1, "451 4.3.0 Try again later");
+      JavaMailEmailTransportService service = new JavaMailEmailTransportService(executorService, (e) -> {
+      }, new TestJavaMailSessionProvider(server.session()), new EmailEventDispatcher(Set.of(listener)), configuration);
+      Email email = new Email();
+      email.from = new EmailAddress("dev@inversoft.com");
+      email.to.add(new EmailAddress("brian@inversoft.com"));
+      email.subject = "Test email";
+      email.text = "text";
+
+      SendResult sendResult = new SendResult(email);
+      service.sendEmailLater("context", email, sendResult);
+      assertSame(sendResult.future.get(10, TimeUnit.SECONDS), sendResult);
+      assertTrue(sendResult.wasSuccessful());
+
+      assertTrue(latch.await(10, TimeUnit.SECONDS));
+      assertEquals(events.stream().map((event) -> event.type).toList(),
+          List.of(EmailEvent.Type.QUEUED, EmailEvent.Type.RETRIED, EmailEvent.Type.SENT));
+      assertEquals(server.messageCount(), 1);
+      assertEquals(server.messages().get(0).recipients, List.of("brian@inversoft.com"));
+    }
+  }
+
+  @Test
+  public void sendEmail_smtpTrace() throws Exception {
+    SmtpTraceRecorder recorder = new SmtpTraceRecorder(Duration.ZERO, 2);
+    try (SmtpTestServer server = new SmtpTestServer().start()) {
+      JavaMailEmailTransportService service = new JavaMailEmailTransportService(executorService, new DefaultMessagingExceptionHandler(),
+          new TestJavaMailSessionProvider(server.session()), EmailEventDispatcher.NONE, new DefaultEmailConfiguration(), EmailLatencyRecorder.NONE, recorder);
+      Email email = new Email();
+      email.from = new EmailAddress("dev@inversoft.com");
+      email.to.add(new EmailAddress("brian@inversoft.com"));
+      email.to.add(new EmailAddress("daniel@inversoft.com"));
+      email.subject = "Test email";
+      email.text = "text";
+
+      // Both emails are sent over one connection, so only the first trace has the commands that open the connection
+      try (EmailConnection connection = service.connect("context")) {
+        for (int i = 0; i < 2; i++) {
+          SendResult sendResult = new SendResult(email);
+          sendResult.templateId = "template";
+          connection.send(service.prepare("context", email, sendResult));
+          assertTrue(sendResult.wasSuccessful());
+        }
+      }
+
+      assertEquals(server.messageCount(), 2);
+    }
+
+    List<SmtpTrace> traces = recorder.slowSends();
+    assertEquals(traces.size(), 2);
+    assertEquals(names(traces.get(1)), List.of("CONNECT", "EHLO", "MAIL", "RCPT", "RCPT", "DATA", "CONTENT", "END_OF_DATA"));
+    assertEquals(codes(traces.get(1)), List.of(220, 250, 250, 250, 250, 354, -1, 250));
+    assertEquals(names(traces.get(0)), List.of("NOOP", "MAIL", "RCPT", "RCPT", "DATA", "CONTENT", "END_OF_DATA"));
+    for (SmtpTrace trace : traces) {
+      assertEquals(trace.contextId, "context");
+      assertEquals(trace.templateId, "template");
+      assertEquals(trace.attempt, 1);
+      assertNull(trace.error);
+      assertNotNull(trace.timestamp);
+      assertTrue(trace.duration.compareTo(trace.commands.stream().map((command) -> command.duration).reduce(Duration.ZERO, Duration::plus)) >= 0);
+    }
+  }
+
+  @Test
+  public void sendEmailLater_invalid() {
+    List<EmailEvent> events = new CopyOnWriteArrayList<>();
+    EmailListener listener = new EmailListener() {
+      @Override
+      public void handle(List<EmailEvent> batch) {
+        events.addAll(batch);
+      }
+    };
+
+    JavaMailEmailTransportService service = new JavaMailEmailTransportService(executorService, new DefaultMessagingExceptionHandler(),
+        new TestJavaMailSessionProvider(session), new EmailEventDispatcher(Set.of(listener)), new DefaultEmailConfiguration());
+    Email email = new Email();
+    email.to.add(new EmailAddress("brian@inversoft.com"));
+
+    // Errors that the queued copy can find are returned right away rather than when the email is sent, and like the
+    // emails sent now they are failed events
+    SendResult sendResult = new SendResult(email);
+    service.sendEmailLater(null, email, sendResult);
+    assertFalse(sendResult.wasSuccessful());
+    assertEquals(sendResult.transportError, "email message 'from' not set");
+    assertNull(sendResult.future);
+
+    SendResult atResult = new SendResult(email);
+    service.sendEmailAt(null, email, atResult, Instant.now());
+    assertEquals(atResult.transportError, "email message 'from' not set");
+
+    // Closing the service passes the events that are queued to the listeners
+    service.close();
+    assertEquals(events.stream().map((event) -> event.type).toList(), List.of(EmailEvent.Type.FAILED, EmailEvent.Type.FAILED));
+    assertSame(events.get(0).sendResult, sendResult);
+    assertSame(events.get(1).sendResult, atResult);
+  }
+
   @Test
   public void sendEmail() throws Exception {
     JavaMailEmailTransportService service = new JavaMailEmailTransportService(executorService, new DefaultMessagingExceptionHandler(), new TestJavaMailSessionProvider(session));
@@ -139,6 +467,14 @@ public class JavaMailEmailTransportServiceTest {
     sendAndVerify(service, email);
   }
 
+  private List<Integer> codes(SmtpTrace trace) {
+    return trace.commands.stream().map((command) -> command.responseCode).toList();
+  }
+
+  private List<String> names(SmtpTrace trace) {
+    return trace.commands.stream().map((command) -> command.name).toList();
+  }
+
   private void sendAndVerify(JavaMailEmailTransportService service, Email email) throws Exception {
     SendResult sendResult = new SendResult(email);
     service.sendEmailLater(null, email, sendResult);
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.testng.annotations.Test;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the LatencyHistogram.
+ *
+ * @author Brian Pontarelli
+ */
+@Test(groups = "unit")
+public class LatencyHistogramTest {
+  @Test
+  public void buckets() {
+    // Every value is in a bucket whose largest value is no more than 12.5% larger
+    for (int i = 0; i < 100_000; i++) {
+      long value = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE >>> ThreadLocalRandom.current().nextInt(62));
+      long highest = LatencyHistogram.highestValue(LatencyHistogram.index(value));
+      assertTrue(highest >= value && highest - value <= value / 8, value + " " + highest);
+    }
+
+    assertEquals(LatencyHistogram.index(7), 7);
+    assertEquals(LatencyHistogram.highestValue(LatencyHistogram.index(Long.MAX_VALUE)), Long.MAX_VALUE);
+  }
+
+  @Test
+  public void concurrent() throws Exception {
+    LatencyHistogram histogram = new LatencyHistogram();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      threads.add(Thread.ofPlatform().start(() -> {
+        for (int j = 1; j <= 10_000; j++) {
+          histogram.record(j);
+        }
+      }));
+    }
+
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(snapshot.count(), 40_000);
+    assertEquals(snapshot.max(), 10_000);
+    assertEquals(snapshot.mean(), 5_000);
+  }
+
+  @Test
+  public void percentile() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1_000; i++) {
+      histogram.record(i * 1_000L);
+    }
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertWithin(snapshot.percentile(50), 500_000);
+    assertWithin(snapshot.percentile(90), 900_000);
+    assertWithin(snapshot.percentile(99), 990_000);
+    assertEquals(snapshot.percentile(100), 1_000_000);
+    assertEquals(new LatencyHistogram().snapshot().percentile(99), 0);
+  }
+
+  private void assertWithin(long actual, long expected) {
+    assertTrue(actual >= expected && actual - expected <= expected / 8, actual + " " + expected);
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import freemarker.core.HTMLOutputFormat;
+import freemarker.template.Configuration;
+import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.ParsedEmailTemplates;
+import org.primeframework.email.domain.PreviewResult;
+import org.primeframework.email.domain.RawEmailTemplates;
+import org.primeframework.email.service.DefaultEmailServiceTest.TestEmailConfiguration;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the mail merge against full renders of the same templates.
+ *
+ * @author Brian Pontarelli
+ */
+@Test(groups = "unit")
+public class MailMergeTest {
+  private Configuration config;
+
+  @BeforeMethod
+  public void beforeMethod() {
+    config = new Configuration(Configuration.VERSION_2_3_28);
+  }
+
+  @Test
+  public void htmlOutputFormat() {
+    config.setOutputFormat(HTMLOutputFormat.INSTANCE);
+    Map<String, Object> shared = Map.of("company", "Black & Decker", "products", List.of("<drill>", "saw"));
+    assertMerge("<h1>${company}</h1>\n<#list products as p>\n  <li>${p}</li>\n</#list>\nHi ${name}", shared, true);
+  }
+
+  @Test
+  public void nonAsciiRecipientKey() {
+    RawEmailTemplates raw = new RawEmailTemplates();
+    raw.text = "${company?upper_case} <#if café??>${café}</#if>";
+    ParsedEmailTemplates parsed = new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config).parse(raw, new PreviewResult());
+    MailMerge mailMerge = new MailMerge(new FreeMarkerEmailRenderer(), parsed, Map.of("company", "Acme"), Set.of("café"));
+    assertEquals(mailMerge.getSegmentCount(), 1);
+
+    Email email = new Email();
+    mailMerge.render(email, Map.of("café", "Latte"), new PreviewResult());
+    assertEquals(email.text, "ACME Latte");
+  }
+
+  @Test
+  public void recipientInCondition() {
+    Map<String, Object> shared = Map.of("company", "Acme", "products", List.of("anvil", "rocket"));
+    assertMerge("""
+        Dear ${name},
+        <#list products as p>
+        \t* ${p?upper_case} from ${company}
+        </#list>
+        \t<#if vip>  You are a VIP  </#if>
+          <#if products?size gt 1>
+        Many products
+          </#if>
+        Bye""", shared, true);
+  }
+
+  @Test
+  public void unmergeable() {
+    Map<String, Object> shared = Map.of("company", "Acme");
+    assertMerge("<#assign greeting = 'Hello ' + name>${company?upper_case} ${greeting}", shared, false);
+
+    // The company is still shared, but the special variable can read the recipient parameters
+    assertMerge("${company?upper_case} ${.vars['na' + 'me']}", shared, true);
+  }
+
+  @Test
+  public void undeclaredRecipientParameter() {
+    RawEmailTemplates raw = new RawEmailTemplates();
+    raw.text = "${company?upper_case} ${name}";
+    ParsedEmailTemplates parsed = new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config).parse(raw, new PreviewResult());
+    MailMerge mailMerge = new MailMerge(new FreeMarkerEmailRenderer(), parsed, Map.of("company", "Acme"), Set.of("name"));
+    assertEquals(mailMerge.getSegmentCount(), 1);
+
+    // The company is overridden for this recipient, so it is rendered in full
+    Email email = new Email();
+    mailMerge.render(email, Map.of("name", "Joe", "company", "Globex"), new PreviewResult());
+    assertEquals(email.text, "GLOBEX Joe");
+  }
+
+  private void assertMerge(String template, Map<String, Object> shared, boolean merged) {
+    RawEmailTemplates raw = new RawEmailTemplates();
+    raw.html = template;
+    ParsedEmailTemplates parsed = new FileSystemEmailTemplateLoader(new TestEmailConfiguration(), config).parse(raw, new PreviewResult());
+    FreeMarkerEmailRenderer renderer = new FreeMarkerEmailRenderer();
+    MailMerge mailMerge = new MailMerge(renderer, parsed, shared, Set.of("name", "vip"));
+    assertEquals(mailMerge.getSegmentCount() > 0, merged);
+
+    for (Map<String, Object> recipient : List.of(Map.<String, Object>of("name", "Joe <joe>", "vip", true), Map.<String, Object>of("name", "Jane", "vip", false))) {
+      Map<String, Object> parameters = new HashMap<>(shared);
+      parameters.putAll(recipient);
+      PreviewResult expectedResult = new PreviewResult();
+      Email expected = new Email();
+      renderer.render(parsed, expected, parameters, expectedResult);
+
+      PreviewResult actualResult = new PreviewResult();
+      Email actual = new Email();
+      mailMerge.render(actual, recipient, actualResult);
+      assertTrue(actualResult.wasSuccessful(), actualResult.renderErrors.toString());
+      assertEquals(actual.html, expected.html);
+    }
+  }
+}
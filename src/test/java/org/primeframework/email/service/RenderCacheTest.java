@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.List;
+import java.util.Map;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import org.primeframework.email.domain.BaseResult;
+import org.primeframework.email.domain.PreviewResult;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the render cache through the FreeMarker renderer.
+ *
+ * @author Brian Pontarelli
+ */
+@Test(groups = "unit")
+public class RenderCacheTest {
+  private Configuration config;
+
+  private RenderCache renderCache;
+
+  private FreeMarkerEmailRenderer renderer;
+
+  @BeforeMethod
+  public void beforeMethod() {
+    config = new Configuration(Configuration.VERSION_2_3_28);
+    renderCache = new RenderCache(100);
+    renderer = new FreeMarkerEmailRenderer(null, renderCache);
+  }
+
+  @Test
+  public void branches() throws Exception {
+    Template template = new Template(null, "<#if vip>Dear ${tier} member<#else>Hello</#if>", config);
+    assertEquals(render(template, Map.of("vip", false, "tier", "gold")), "Hello");
+    assertEquals(render(template, Map.of("vip", true, "tier", "gold")), "Dear gold member");
+    assertEquals(render(template, Map.of("vip", true, "tier", "silver")), "Dear silver member");
+    assertEquals(render(template, Map.of("vip", false, "tier", "silver")), "Hello");
+    assertEquals(renderCache.get(template, model(Map.of("vip", true, "tier", "silver"), template)), "Dear silver member");
+  }
+
+  @Test
+  public void readParametersOnly() throws Exception {
+    Template template = new Template(null, "Welcome to ${brand}", config);
+    assertEquals(render(template, Map.of("brand", "Acme", "name", "Frank")), "Welcome to Acme");
+    assertEquals(renderCache.get(template, model(Map.of("brand", "Acme", "name", "Jane"), template)), "Welcome to Acme");
+    assertNull(renderCache.get(template, model(Map.of("brand", "Other", "name", "Jane"), template)));
+    assertEquals(render(template, Map.of("brand", "Other")), "Welcome to Other");
+  }
+
+  @Test
+  public void uncacheable() throws Exception {
+    // Values that aren't simple
+    Template template = new Template(null, "<#list products as p>${p}</#list>", config);
+    assertEquals(render(template, Map.of("products", List.of("anvil", "rocket"))), "anvilrocket");
+    assertNull(renderCache.get(template, model(Map.of("products", List.of("anvil", "rocket")), template)));
+
+    // Special variables
+    template = new Template(null, "${.now?long?c} ${brand}", config);
+    assertNotNull(render(template, Map.of("brand", "Acme")));
+    assertNull(renderCache.get(template, model(Map.of("brand", "Acme"), template)));
+
+    // Errors
+    template = new Template(null, "${missing}", config);
+    BaseResult result = new PreviewResult();
+    renderer.callTemplate(template, Map.of(), "subject", result);
+    assertTrue(result.renderErrors.containsKey("subject"));
+    assertNull(renderCache.get(template, model(Map.of(), template)));
+  }
+
+  private LayeredTemplateHashModel model(Map<String, Object> parameters, Template template) {
+    return new LayeredTemplateHashModel(parameters, SharedTemplateParameters.EMPTY, template.getObjectWrapper());
+  }
+
+  private String render(Template template, Map<String, Object> parameters) {
+    BaseResult result = new PreviewResult();
+    String output = renderer.callTemplate(template, parameters, "subject", result);
+    assertTrue(result.renderErrors.isEmpty());
+    return output;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import org.primeframework.email.domain.BaseResult;
+import org.primeframework.email.domain.PreviewResult;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the output and time limits of the FreeMarker renderer.
+ *
+ * @author Brian Pontarelli
+ */
+@Test(groups = "unit")
+public class RenderLimitsTest {
+  private Configuration config;
+
+  @BeforeMethod
+  public void beforeMethod() {
+    config = new Configuration(Configuration.VERSION_2_3_28);
+  }
+
+  @Test
+  public void output() throws Exception {
+    FreeMarkerEmailRenderer renderer = new FreeMarkerEmailRenderer(null, null, new RenderLimits(100, 0));
+    BaseResult result = new PreviewResult();
+    String output = renderer.callTemplate(new Template(null, "<#list 1..1000000 as i>0123456789</#list>", config), Map.of(), "html", result);
+    assertEquals(output.length(), 100);
+    assertTrue(result.renderErrors.get("html") instanceof RenderLimitException);
+
+    // Within the limit
+    result = new PreviewResult();
+    output = renderer.callTemplate(new Template(null, "<#list 1..10 as i>0123456789</#list>", config), Map.of(), "html", result);
+    assertEquals(output.length(), 100);
+    assertTrue(result.renderErrors.isEmpty());
+
+    // Compiled templates are checked as well
+    result = new PreviewResult();
+    new CompiledEmailRenderer(null, null, new RenderLimits(5, 0)).callTemplate(new Template(null, "Hello ${name}", config), Map.of("name", "Frank"), "subject", result);
+    assertTrue(result.renderErrors.get("subject") instanceof RenderLimitException);
+  }
+
+  @Test
+  public void compiled() throws Exception {
+    // A list that would take very long to render in full, so both limits must stop the render while it runs
+    List<String> items = new AbstractList<>() {
+      @Override
+      public String get(int index) {
+        return "0123456789";
+      }
+
+      @Override
+      public int size() {
+        return Integer.MAX_VALUE;
+      }
+    };
+
+    Template template = new Template(null, "<#list items as i><#if flag>${i}</#if></#list>", config);
+    LayeredTemplateHashModel model = new LayeredTemplateHashModel(Map.of("items", items, "flag", true), SharedTemplateParameters.EMPTY, config.getObjectWrapper());
+    StringBuilder out = new StringBuilder();
+    assertThrows(RenderLimitException.class, () -> CompiledTemplate.compile(template).render(model, new RenderLimits(95, 0), out));
+    assertEquals(out.length(), 95);
+
+    BaseResult result = new PreviewResult();
+    String output = new CompiledEmailRenderer(null, null, new RenderLimits(95, 0)).callTemplate(template, Map.of("items", items, "flag", true), "html", result);
+    assertEquals(output, "0123456789".repeat(10).substring(0, 95));
+    assertTrue(result.renderErrors.get("html") instanceof RenderLimitException);
+
+    result = new PreviewResult();
+    long start = System.currentTimeMillis();
+    new CompiledEmailRenderer(null, null, new RenderLimits(0, 50)).callTemplate(template, Map.of("items", items, "flag", false), "html", result);
+    assertTrue(System.currentTimeMillis() - start < 5_000);
+    assertTrue(result.renderErrors.get("html") instanceof RenderLimitException);
+  }
+
+  @Test
+  public void time() throws Exception {
+    FreeMarkerEmailRenderer renderer = new FreeMarkerEmailRenderer(null, null, new RenderLimits(0, 50));
+    BaseResult result = new PreviewResult();
+    long start = System.currentTimeMillis();
+    renderer.callTemplate(new Template(null, "<#attempt><#list 1..1000000000 as i><#if flag></#if></#list><#recover>recovered</#attempt>", config), Map.of("flag", true), "html", result);
+    assertTrue(System.currentTimeMillis() - start < 5_000);
+    assertTrue(result.renderErrors.get("html") instanceof RenderLimitException);
+  }
+}
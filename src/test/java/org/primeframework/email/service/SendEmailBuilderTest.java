@@ -15,9 +15,13 @@
  */
 package org.primeframework.email.service;
 
+import java.time.Instant;
+
 import org.primeframework.email.domain.Email;
+import org.primeframework.email.domain.SendResult;
 import org.testng.annotations.Test;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 
 /**
  * This class tests the email builder.
@@ -26,6 +30,14 @@ import static org.testng.Assert.assertEquals;
  */
 @Test(groups = "unit")
 public class SendEmailBuilderTest {
+  @Test
+  public void at_unsupported() {
+    SendEmailBuilder eb = new SendEmailBuilder(null, null, new Email(), (eb1) -> null, (eb1) -> null);
+    SendResult result = eb.at(Instant.now());
+    assertFalse(result.wasSuccessful());
+    assertEquals(result.transportError, EmailTransportService.SEND_AT_UNSUPPORTED);
+  }
+
   @Test
   public void subjectExplicit() {
     SendEmailBuilder eb = new SendEmailBuilder(null, null, new Email(), (eb1) -> null, (eb1) -> null);
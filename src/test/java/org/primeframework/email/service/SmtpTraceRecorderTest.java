@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.primeframework.email.domain.SmtpTrace;
+import org.testng.annotations.Test;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the SmtpTraceRecorder.
+ *
+ * @author Brian Pontarelli
+ */
+@Test(groups = "unit")
+public class SmtpTraceRecorderTest {
+  @Test
+  public void none() {
+    assertFalse(SmtpTraceRecorder.NONE.isEnabled());
+    SmtpTraceRecorder.NONE.record(trace(1, 1_000));
+    assertTrue(SmtpTraceRecorder.NONE.slowSends().isEmpty());
+  }
+
+  @Test
+  public void slowSends() {
+    SmtpTraceRecorder recorder = new SmtpTraceRecorder(Duration.ofMillis(100), 3);
+    assertTrue(recorder.isEnabled());
+    assertTrue(recorder.slowSends().isEmpty());
+
+    // Fast sends are not kept
+    recorder.record(trace(1, 99));
+    recorder.record(trace(2, 100));
+    recorder.record(trace(3, 500));
+    assertEquals(attempts(recorder.slowSends()), List.of(3, 2));
+
+    // Once the buffer is full, the oldest is replaced
+    recorder.record(trace(4, 200));
+    recorder.record(trace(5, 50));
+    recorder.record(trace(6, 300));
+    assertEquals(attempts(recorder.slowSends()), List.of(6, 4, 3));
+  }
+
+  private List<Integer> attempts(List<SmtpTrace> traces) {
+    return traces.stream().map((trace) -> trace.attempt).toList();
+  }
+
+  private SmtpTrace trace(int attempt, long millis) {
+    SmtpTrace trace = new SmtpTrace("context", "template", attempt);
+    trace.duration = Duration.ofMillis(millis);
+    return trace;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2025, Inversoft Inc., All Rights Reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package org.primeframework.email.service;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import org.primeframework.email.service.TemplateAnalyzer.Element;
+import org.testng.annotations.Test;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the element tree of the FreeMarker version the analyzer was written for. The element tree is internal to
+ * FreeMarker, so these tests must pass before FreeMarker is upgraded.
+ *
+ * @author Brian Pontarelli
+ */
+@Test(groups = "unit")
+public class TemplateAnalyzerTest {
+  private final Configuration config = new Configuration(Configuration.VERSION_2_3_28);
+
+  @Test
+  public void elements() throws Exception {
+    Template template = new Template(null, """
+        Hello ${name}<#-- comment --><#if vip>VIP<#elseif gold>Gold<#else>Other</#if><#list items as item>${item}</#list>\
+        <#assign a = 1><@macro/>""", config);
+    Element root = TemplateAnalyzer.root(template);
+    assertEquals(root.name(), "MixedContent");
+    assertEquals(root.children().stream().map(Element::name).toList(),
+        List.of("TextBlock", "DollarVariable", "Comment", "IfBlock", "IteratorBlock", "Assignment", "UnifiedCall"));
+
+    assertEquals(root.child(0).canonicalForm(), "Hello ");
+    assertEquals(root.child(1).description(), "${name}");
+    assertEquals(root.child(1).source(), "${name}");
+
+    Element ifBlock = root.child(3);
+    assertEquals(ifBlock.children().stream().map(Element::name).toList(), List.of("ConditionalBlock", "ConditionalBlock", "ConditionalBlock"));
+    assertEquals(ifBlock.children().stream().map(Element::description).toList(), List.of("#if vip", "#elseif gold", "#else"));
+    assertEquals(root.child(4).description(), "#list items as item");
+
+    assertTrue(TemplateAnalyzer.contains(root, TemplateAnalyzer.DYNAMIC_ELEMENTS));
+    assertFalse(TemplateAnalyzer.contains(root.child(3), TemplateAnalyzer.DYNAMIC_ELEMENTS));
+  }
+
+  @Test
+  public void replace() throws Exception {
+    Template template = new Template(null, "Hello ${name}!", config);
+    Template copy = new Template(null, "Hello ${name}!", config);
+    TemplateAnalyzer.replace(copy, 1, new Template(null, "${other}", config));
+
+    assertEquals(render(copy, Map.of("name", "Joe", "other", "Jane")), "Hello Jane!");
+    assertEquals(render(template, Map.of("name", "Joe", "other", "Jane")), "Hello Joe!");
+  }
+
+  @Test
+  public void version() {
+    // Check the tests above against the new version, and the node names used by the analyzer, the CompiledTemplate,
+    // the MailMerge and the RenderCache, then update the version here
+    assertEquals(Configuration.getVersion().toString(), "2.3.32");
+    assertTrue(Set.of("FallbackInstruction", "RecurseNode", "StopInstruction", "UnifiedCall", "VisitNode").containsAll(TemplateAnalyzer.DYNAMIC_ELEMENTS));
+  }
+
+  private String render(Template template, Map<String, Object> parameters) throws Exception {
+    StringWriter writer = new StringWriter();
+    template.process(parameters, writer);
+    return writer.toString();
+  }
+}
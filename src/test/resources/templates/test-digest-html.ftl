@@ -0,0 +1 @@
+<#list emails as email><p>${email.key1}</p></#list>
\ No newline at end of file
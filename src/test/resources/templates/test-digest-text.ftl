@@ -0,0 +1 @@
+<#list emails as email>${email.templateId} ${email.key1};</#list>
\ No newline at end of file